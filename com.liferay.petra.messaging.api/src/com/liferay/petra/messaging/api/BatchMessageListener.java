@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.api;
+
+import java.util.List;
+
+/**
+ * Specifies the processing to take place when several messages are received
+ * at once.
+ *
+ * <p>
+ * Serial and parallel destinations deliver the messages pending for a batch
+ * message listener in one call, up to the destination's maximum batch size.
+ * Other destinations deliver messages one at a time through {@link
+ * #receive(Message)}.
+ * </p>
+ */
+public interface BatchMessageListener extends MessageListener {
+
+	/**
+	 * Specifies the processing to take place when messages are received.
+	 *
+	 * @param  messages the received messages, in delivery order
+	 * @throws MessageListenerException if the messages could not be processed
+	 */
+	public void receive(List<Message> messages)
+		throws MessageListenerException;
+
+}
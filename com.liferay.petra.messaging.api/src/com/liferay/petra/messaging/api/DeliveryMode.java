@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.api;
+
+/**
+ * Determines which message listeners of a destination receive a message.
+ *
+ * <p>
+ * With {@link #BROADCAST} every message listener receives every message. The
+ * other modes treat the message listeners as competing consumers and deliver
+ * each message to exactly one of them, chosen in turn ({@link #ROUND_ROBIN}),
+ * by the fewest messages being processed ({@link #LEAST_IN_FLIGHT}), or by the
+ * hash of the message value stored under the delivery key ({@link #STICKY}).
+ * </p>
+ */
+public enum DeliveryMode {
+
+	BROADCAST("broadcast"), LEAST_IN_FLIGHT("least_in_flight"),
+	ROUND_ROBIN("round_robin"), STICKY("sticky");
+
+	public String getMode() {
+		return _mode;
+	}
+
+	private DeliveryMode(String mode) {
+		_mode = mode;
+	}
+
+	private final String _mode;
+
+}
@@ -56,7 +56,10 @@ public class DestinationConfiguration implements Serializable {
 		_destinationType = destinationType;
 		_destinationName = destinationName;
 
-		if (_destinationType == DestinationType.SERIAL) {
+		if ((_destinationType == DestinationType.DURABLE) ||
+			(_destinationType == DestinationType.RING_BUFFER) ||
+			(_destinationType == DestinationType.SERIAL)) {
+
 			_workersCoreSize = 1;
 			_workersMaxSize = 1;
 		}
@@ -97,6 +100,50 @@ public class DestinationConfiguration implements Serializable {
 		return false;
 	}
 
+	/**
+	 * Returns the DestinationConfiguration's coalesce key.
+	 *
+	 * <p>
+	 * When set, a pending message that has the same value under this key as a
+	 * newly sent message is replaced by, or merged with, the new message
+	 * instead of being delivered separately.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's coalesce key
+	 */
+	public String getCoalesceKey() {
+		return _coalesceKey;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's delivery key.
+	 *
+	 * <p>
+	 * With {@link DeliveryMode#STICKY} delivery, messages with the same value
+	 * under this key are always delivered to the same message listener.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's delivery key
+	 */
+	public String getDeliveryKey() {
+		return _deliveryKey;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's delivery mode.
+	 *
+	 * <p>
+	 * The delivery mode determines whether every message listener receives
+	 * every message, or whether each message is delivered to exactly one
+	 * message listener.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's delivery mode
+	 */
+	public DeliveryMode getDeliveryMode() {
+		return _deliveryMode;
+	}
+
 	/**
 	 * Returns the DestinationConfiguration's name.
 	 *
@@ -111,8 +158,11 @@ public class DestinationConfiguration implements Serializable {
 	 *
 	 * <p>
 	 * Possible destination types are DestinationType.SYNCHRONOUS,
-	 * DestinationType.PARALLEL, or DestinationType.SERIAL. Both
-	 * DestinationType.PARALLEL and DestinationType.SERIAL represent
+	 * DestinationType.DURABLE, DestinationType.PARALLEL,
+	 * DestinationType.PARTITIONED, DestinationType.RING_BUFFER, or
+	 * DestinationType.SERIAL. DestinationType.DURABLE,
+	 * DestinationType.PARALLEL, DestinationType.PARTITIONED,
+	 * DestinationType.RING_BUFFER, and DestinationType.SERIAL represent
 	 * asynchronous destinations.
 	 * </p>
 	 *
@@ -122,6 +172,102 @@ public class DestinationConfiguration implements Serializable {
 		return _destinationType;
 	}
 
+	/**
+	 * Returns the DestinationConfiguration's fan out group size.
+	 *
+	 * <p>
+	 * With {@link FanOutStrategy#PER_LISTENER_GROUP}, a parallel destination
+	 * delivers every message with one task per this many message listeners.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's fan out group size
+	 */
+	public int getFanOutGroupSize() {
+		return _fanOutGroupSize;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's fan out strategy.
+	 *
+	 * <p>
+	 * The fan out strategy determines how many tasks a parallel destination
+	 * executes to deliver a message to its message listeners.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's fan out strategy
+	 */
+	public FanOutStrategy getFanOutStrategy() {
+		return _fanOutStrategy;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's log directory.
+	 *
+	 * <p>
+	 * A durable destination logs its messages to a directory named after the
+	 * destination under this one, or under the system's temporary directory
+	 * if it is blank.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's log directory
+	 */
+	public String getLogDirectory() {
+		return _logDirectory;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's log flush batch size.
+	 *
+	 * <p>
+	 * A durable destination forces its log to disk once every this many
+	 * messages, and whenever its queue drains.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's log flush batch size
+	 */
+	public int getLogFlushBatchSize() {
+		return _logFlushBatchSize;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's log segment size in bytes.
+	 *
+	 * @return the DestinationConfiguration's log segment size in bytes
+	 */
+	public int getLogSegmentSize() {
+		return _logSegmentSize;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's maximum batch delay in
+	 * milliseconds.
+	 *
+	 * <p>
+	 * A worker delivering to a batch message listener waits at most this long
+	 * for more messages before delivering a batch smaller than the maximum
+	 * batch size. Zero delivers whatever is pending without waiting.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's maximum batch delay
+	 */
+	public long getMaximumBatchDelay() {
+		return _maximumBatchDelay;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's maximum batch size.
+	 *
+	 * <p>
+	 * The maximum batch size limits the number of messages delivered to a
+	 * batch message listener in one call.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's maximum batch size
+	 */
+	public int getMaximumBatchSize() {
+		return _maximumBatchSize;
+	}
+
 	/**
 	 * Returns the DestinationConfiguration's maximum queue size.
 	 *
@@ -136,6 +282,145 @@ public class DestinationConfiguration implements Serializable {
 		return _maximumQueueSize;
 	}
 
+	/**
+	 * Returns the DestinationConfiguration's overflow directory.
+	 *
+	 * <p>
+	 * Spilled messages are written to a new directory under this one, or under
+	 * the system's temporary directory if it is blank.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's overflow directory
+	 */
+	public String getOverflowDirectory() {
+		return _overflowDirectory;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's overflow high water mark.
+	 *
+	 * <p>
+	 * Once this many tasks are queued at the destination, new messages are
+	 * spilled to memory-mapped files on disk instead of being queued on the
+	 * heap. Zero disables spilling.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's overflow high water mark
+	 */
+	public int getOverflowHighWaterMark() {
+		return _overflowHighWaterMark;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's overflow low water mark.
+	 *
+	 * <p>
+	 * Spilled messages are read back, in order, once no more than this many
+	 * tasks are queued. Zero uses half the high water mark.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's overflow low water mark
+	 */
+	public int getOverflowLowWaterMark() {
+		return _overflowLowWaterMark;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's overflow segment size in bytes.
+	 *
+	 * @return the DestinationConfiguration's overflow segment size in bytes
+	 */
+	public int getOverflowSegmentSize() {
+		return _overflowSegmentSize;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's partition count.
+	 *
+	 * <p>
+	 * A partitioned destination delivers messages on this many single
+	 * threaded partitions. Messages with the same partition key are delivered
+	 * in the order they were sent.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's partition count
+	 */
+	public int getPartitionCount() {
+		return _partitionCount;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's partition key.
+	 *
+	 * <p>
+	 * A partitioned destination chooses the partition of a message from the
+	 * hash of the message value stored under this key. Messages without the
+	 * value are spread over the partitions in turn.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's partition key
+	 */
+	public String getPartitionKey() {
+		return _partitionKey;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's rejection policy.
+	 *
+	 * <p>
+	 * The rejection policy determines what happens to a message sent while the
+	 * destination's queue is full.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's rejection policy
+	 */
+	public RejectionPolicy getRejectionPolicy() {
+		return _rejectionPolicy;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's rejection timeout in
+	 * milliseconds.
+	 *
+	 * <p>
+	 * With {@link RejectionPolicy#BLOCK}, a sending thread waits at most this
+	 * long for room in the queue before the message is discarded.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's rejection timeout in milliseconds
+	 */
+	public long getRejectionTimeout() {
+		return _rejectionTimeout;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's ring buffer size.
+	 *
+	 * <p>
+	 * The ring buffer size is the number of messages a ring buffer destination
+	 * holds before senders wait. It is rounded up to a power of 2.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's ring buffer size
+	 */
+	public int getRingBufferSize() {
+		return _ringBufferSize;
+	}
+
+	/**
+	 * Returns the DestinationConfiguration's wait strategy.
+	 *
+	 * <p>
+	 * The wait strategy determines how the consumer threads of a ring buffer
+	 * destination wait for messages.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's wait strategy
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return _waitStrategy;
+	}
+
 	/**
 	 * Returns the DestinationConfiguration's core thread pool size.
 	 *
@@ -151,6 +436,22 @@ public class DestinationConfiguration implements Serializable {
 		return _workersCoreSize;
 	}
 
+	/**
+	 * Returns the number of milliseconds the DestinationConfiguration's idle
+	 * workers are kept before they stop.
+	 *
+	 * <p>
+	 * The core workers of a lazy destination stop too, so that an idle lazy
+	 * destination has no threads.
+	 * </p>
+	 *
+	 * @return the number of milliseconds the DestinationConfiguration's idle
+	 *         workers are kept
+	 */
+	public long getWorkersIdleTimeout() {
+		return _workersIdleTimeout;
+	}
+
 	/**
 	 * Returns the DestinationConfiguration's maximum thread pool size.
 	 *
@@ -166,6 +467,21 @@ public class DestinationConfiguration implements Serializable {
 		return _workersMaxSize;
 	}
 
+	/**
+	 * Returns the DestinationConfiguration's worker weight.
+	 *
+	 * <p>
+	 * A destination on shared workers gets a share of the workers
+	 * proportional to its weight while other destinations have messages
+	 * queued too.
+	 * </p>
+	 *
+	 * @return the DestinationConfiguration's worker weight
+	 */
+	public int getWorkersWeight() {
+		return _workersWeight;
+	}
+
 	/**
 	 * Returns the hash code of the DestinationConfiguration's name.
 	 *
@@ -176,6 +492,167 @@ public class DestinationConfiguration implements Serializable {
 		return _destinationName.hashCode();
 	}
 
+	/**
+	 * Returns <code>true</code> if the DestinationConfiguration's maximum
+	 * thread pool size is tuned to the load.
+	 *
+	 * <p>
+	 * An auto-tuned destination periodically grows or shrinks its thread pool
+	 * between the core and the maximum thread pool size, following the
+	 * arrival rate, queue wait time and utilization of its workers.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the DestinationConfiguration's thread pool
+	 *         is auto-tuned; <code>false</code> otherwise
+	 */
+	public boolean isWorkersAutoTuned() {
+		return _workersAutoTuned;
+	}
+
+	/**
+	 * Returns <code>true</code> if the DestinationConfiguration's thread pool
+	 * is created when the destination is first sent a message instead of when
+	 * the destination is opened.
+	 *
+	 * @return <code>true</code> if the DestinationConfiguration's thread pool
+	 *         is created lazily; <code>false</code> otherwise
+	 */
+	public boolean isWorkersLazy() {
+		return _workersLazy;
+	}
+
+	/**
+	 * Returns <code>true</code> if the DestinationConfiguration's messages are
+	 * delivered on workers shared with other destinations.
+	 *
+	 * <p>
+	 * Shared workers are sized to the number of processors instead of the
+	 * number of destinations. The maximum thread pool size then caps how many
+	 * of them the destination uses at a time.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the DestinationConfiguration's messages are
+	 *         delivered on shared workers; <code>false</code> otherwise
+	 */
+	public boolean isWorkersShared() {
+		return _workersShared;
+	}
+
+	/**
+	 * Returns <code>true</code> if the DestinationConfiguration's messages are
+	 * delivered on a new virtual thread each.
+	 *
+	 * <p>
+	 * The maximum thread pool size then limits how many messages are delivered
+	 * at a time, which suits message listeners that block on I/O. Runtimes
+	 * without virtual threads use a new platform thread instead.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the DestinationConfiguration's messages are
+	 *         delivered on virtual threads; <code>false</code> otherwise
+	 */
+	public boolean isWorkersVirtual() {
+		return _workersVirtual;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's coalesce key.
+	 *
+	 * @param coalesceKey the new coalesce key of the DestinationConfiguration
+	 */
+	public void setCoalesceKey(String coalesceKey) {
+		_coalesceKey = coalesceKey;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's delivery key.
+	 *
+	 * @param deliveryKey the new delivery key of the DestinationConfiguration
+	 */
+	public void setDeliveryKey(String deliveryKey) {
+		_deliveryKey = deliveryKey;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's delivery mode.
+	 *
+	 * @param deliveryMode the new delivery mode of the
+	 * DestinationConfiguration
+	 */
+	public void setDeliveryMode(DeliveryMode deliveryMode) {
+		_deliveryMode = deliveryMode;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's fan out group size.
+	 *
+	 * @param fanOutGroupSize the new fan out group size of the
+	 *        DestinationConfiguration
+	 */
+	public void setFanOutGroupSize(int fanOutGroupSize) {
+		_fanOutGroupSize = fanOutGroupSize;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's fan out strategy.
+	 *
+	 * @param fanOutStrategy the new fan out strategy of the
+	 *        DestinationConfiguration
+	 */
+	public void setFanOutStrategy(FanOutStrategy fanOutStrategy) {
+		_fanOutStrategy = fanOutStrategy;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's log directory.
+	 *
+	 * @param logDirectory the new log directory of the
+	 *        DestinationConfiguration
+	 */
+	public void setLogDirectory(String logDirectory) {
+		_logDirectory = logDirectory;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's log flush batch size.
+	 *
+	 * @param logFlushBatchSize the new log flush batch size of the
+	 *        DestinationConfiguration
+	 */
+	public void setLogFlushBatchSize(int logFlushBatchSize) {
+		_logFlushBatchSize = logFlushBatchSize;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's log segment size in bytes.
+	 *
+	 * @param logSegmentSize the new log segment size of the
+	 *        DestinationConfiguration
+	 */
+	public void setLogSegmentSize(int logSegmentSize) {
+		_logSegmentSize = logSegmentSize;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's maximum batch delay in milliseconds.
+	 *
+	 * @param maximumBatchDelay the new maximum batch delay of the
+	 * DestinationConfiguration
+	 */
+	public void setMaximumBatchDelay(long maximumBatchDelay) {
+		_maximumBatchDelay = maximumBatchDelay;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's maximum batch size.
+	 *
+	 * @param maximumBatchSize the new maximum batch size of the
+	 * DestinationConfiguration
+	 */
+	public void setMaximumBatchSize(int maximumBatchSize) {
+		_maximumBatchSize = maximumBatchSize;
+	}
+
 	/**
 	 * Sets the DestinationConfiguration's maximum queue size.
 	 *
@@ -191,6 +668,117 @@ public class DestinationConfiguration implements Serializable {
 		_maximumQueueSize = maximumQueueSize;
 	}
 
+	/**
+	 * Sets the DestinationConfiguration's overflow directory.
+	 *
+	 * @param overflowDirectory the new overflow directory of the
+	 *        DestinationConfiguration
+	 */
+	public void setOverflowDirectory(String overflowDirectory) {
+		_overflowDirectory = overflowDirectory;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's overflow high water mark.
+	 *
+	 * @param overflowHighWaterMark the new overflow high water mark of the
+	 *        DestinationConfiguration
+	 */
+	public void setOverflowHighWaterMark(int overflowHighWaterMark) {
+		_overflowHighWaterMark = overflowHighWaterMark;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's overflow low water mark.
+	 *
+	 * @param overflowLowWaterMark the new overflow low water mark of the
+	 *        DestinationConfiguration
+	 */
+	public void setOverflowLowWaterMark(int overflowLowWaterMark) {
+		_overflowLowWaterMark = overflowLowWaterMark;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's overflow segment size in bytes.
+	 *
+	 * @param overflowSegmentSize the new overflow segment size of the
+	 *        DestinationConfiguration
+	 */
+	public void setOverflowSegmentSize(int overflowSegmentSize) {
+		_overflowSegmentSize = overflowSegmentSize;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's partition count.
+	 *
+	 * @param partitionCount the new partition count of the
+	 * DestinationConfiguration
+	 */
+	public void setPartitionCount(int partitionCount) {
+		_partitionCount = partitionCount;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's partition key.
+	 *
+	 * @param partitionKey the new partition key of the
+	 * DestinationConfiguration
+	 */
+	public void setPartitionKey(String partitionKey) {
+		_partitionKey = partitionKey;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's rejection policy.
+	 *
+	 * @param rejectionPolicy the new rejection policy of the
+	 *        DestinationConfiguration
+	 */
+	public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+		_rejectionPolicy = rejectionPolicy;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's rejection timeout in milliseconds.
+	 *
+	 * @param rejectionTimeout the new rejection timeout of the
+	 *        DestinationConfiguration
+	 */
+	public void setRejectionTimeout(long rejectionTimeout) {
+		_rejectionTimeout = rejectionTimeout;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's ring buffer size.
+	 *
+	 * @param ringBufferSize the new ring buffer size of the
+	 *        DestinationConfiguration
+	 */
+	public void setRingBufferSize(int ringBufferSize) {
+		_ringBufferSize = ringBufferSize;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's wait strategy.
+	 *
+	 * @param waitStrategy the new wait strategy of the
+	 *        DestinationConfiguration
+	 */
+	public void setWaitStrategy(WaitStrategy waitStrategy) {
+		_waitStrategy = waitStrategy;
+	}
+
+	/**
+	 * Sets whether the DestinationConfiguration's maximum thread pool size is
+	 * tuned to the load.
+	 *
+	 * @param workersAutoTuned whether the DestinationConfiguration's thread
+	 *        pool is auto-tuned
+	 */
+	public void setWorkersAutoTuned(boolean workersAutoTuned) {
+		_workersAutoTuned = workersAutoTuned;
+	}
+
 	/**
 	 * Sets the DestinationConfiguration's core thread pool size.
 	 *
@@ -206,6 +794,28 @@ public class DestinationConfiguration implements Serializable {
 		_workersCoreSize = workersCoreSize;
 	}
 
+	/**
+	 * Sets the number of milliseconds the DestinationConfiguration's idle
+	 * workers are kept before they stop.
+	 *
+	 * @param workersIdleTimeout the new idle timeout of the
+	 *        DestinationConfiguration's workers
+	 */
+	public void setWorkersIdleTimeout(long workersIdleTimeout) {
+		_workersIdleTimeout = workersIdleTimeout;
+	}
+
+	/**
+	 * Sets whether the DestinationConfiguration's thread pool is created when
+	 * the destination is first sent a message.
+	 *
+	 * @param workersLazy whether the DestinationConfiguration's thread pool
+	 *        is created lazily
+	 */
+	public void setWorkersLazy(boolean workersLazy) {
+		_workersLazy = workersLazy;
+	}
+
 	/**
 	 * Sets the DestinationConfiguration's maximum thread pool size.
 	 *
@@ -221,6 +831,38 @@ public class DestinationConfiguration implements Serializable {
 		_workersMaxSize = workersMaxSize;
 	}
 
+	/**
+	 * Sets whether the DestinationConfiguration's messages are delivered on
+	 * workers shared with other destinations.
+	 *
+	 * @param workersShared whether the DestinationConfiguration uses shared
+	 *        workers
+	 */
+	public void setWorkersShared(boolean workersShared) {
+		_workersShared = workersShared;
+	}
+
+	/**
+	 * Sets whether the DestinationConfiguration's messages are delivered on a
+	 * new virtual thread each.
+	 *
+	 * @param workersVirtual whether the DestinationConfiguration uses virtual
+	 *        threads
+	 */
+	public void setWorkersVirtual(boolean workersVirtual) {
+		_workersVirtual = workersVirtual;
+	}
+
+	/**
+	 * Sets the DestinationConfiguration's worker weight.
+	 *
+	 * @param workersWeight the new worker weight of the
+	 *        DestinationConfiguration
+	 */
+	public void setWorkersWeight(int workersWeight) {
+		_workersWeight = workersWeight;
+	}
+
 	/**
 	 * Returns a string representation of the DestinationConfiguration
 	 *
@@ -230,16 +872,68 @@ public class DestinationConfiguration implements Serializable {
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 
-		sb.append("{_destinationName=");
+		sb.append("{_coalesceKey=");
+		sb.append(_coalesceKey);
+		sb.append(", _deliveryKey=");
+		sb.append(_deliveryKey);
+		sb.append(", _deliveryMode=");
+		sb.append(_deliveryMode);
+		sb.append(", _destinationName=");
 		sb.append(_destinationName);
 		sb.append(", _destinationType=");
 		sb.append(_destinationType);
+		sb.append(", _fanOutGroupSize=");
+		sb.append(_fanOutGroupSize);
+		sb.append(", _fanOutStrategy=");
+		sb.append(_fanOutStrategy);
+		sb.append(", _logDirectory=");
+		sb.append(_logDirectory);
+		sb.append(", _logFlushBatchSize=");
+		sb.append(_logFlushBatchSize);
+		sb.append(", _logSegmentSize=");
+		sb.append(_logSegmentSize);
+		sb.append(", _maximumBatchDelay=");
+		sb.append(_maximumBatchDelay);
+		sb.append(", _maximumBatchSize=");
+		sb.append(_maximumBatchSize);
 		sb.append(", _maximumQueueSize=");
 		sb.append(_maximumQueueSize);
+		sb.append(", _overflowDirectory=");
+		sb.append(_overflowDirectory);
+		sb.append(", _overflowHighWaterMark=");
+		sb.append(_overflowHighWaterMark);
+		sb.append(", _overflowLowWaterMark=");
+		sb.append(_overflowLowWaterMark);
+		sb.append(", _overflowSegmentSize=");
+		sb.append(_overflowSegmentSize);
+		sb.append(", _partitionCount=");
+		sb.append(_partitionCount);
+		sb.append(", _partitionKey=");
+		sb.append(_partitionKey);
+		sb.append(", _rejectionPolicy=");
+		sb.append(_rejectionPolicy);
+		sb.append(", _rejectionTimeout=");
+		sb.append(_rejectionTimeout);
+		sb.append(", _ringBufferSize=");
+		sb.append(_ringBufferSize);
+		sb.append(", _waitStrategy=");
+		sb.append(_waitStrategy);
+		sb.append(", _workersAutoTuned=");
+		sb.append(_workersAutoTuned);
 		sb.append(", _workersCoreSize=");
 		sb.append(_workersCoreSize);
+		sb.append(", _workersIdleTimeout=");
+		sb.append(_workersIdleTimeout);
+		sb.append(", _workersLazy=");
+		sb.append(_workersLazy);
 		sb.append(", _workersMaxSize=");
 		sb.append(_workersMaxSize);
+		sb.append(", _workersShared=");
+		sb.append(_workersShared);
+		sb.append(", _workersVirtual=");
+		sb.append(_workersVirtual);
+		sb.append(", _workersWeight=");
+		sb.append(_workersWeight);
 		sb.append("}");
 
 		return sb.toString();
@@ -247,11 +941,79 @@ public class DestinationConfiguration implements Serializable {
 
 	@Activate
 	protected void activate(Map<String, Object> properties) {
+		setCoalesceKey(_get(properties, "coalesceKey", ""));
+		setDeliveryKey(_get(properties, "deliveryKey", ""));
+
+		// The delivery mode may be configured by name
+
+		Object deliveryMode = _get(
+			properties, "deliveryMode", DeliveryMode.BROADCAST);
+
+		setDeliveryMode(DeliveryMode.valueOf(String.valueOf(deliveryMode)));
+
+		setFanOutGroupSize(
+			_get(properties, "fanOutGroupSize", _FAN_OUT_GROUP_SIZE));
+
+		Object fanOutStrategy = _get(
+			properties, "fanOutStrategy", FanOutStrategy.ADAPTIVE);
+
+		setFanOutStrategy(
+			FanOutStrategy.valueOf(String.valueOf(fanOutStrategy)));
+
+		setLogDirectory(_get(properties, "logDirectory", ""));
+		setLogFlushBatchSize(_get(properties, "logFlushBatchSize", 1));
+		setLogSegmentSize(
+			_get(properties, "logSegmentSize", _LOG_SEGMENT_SIZE));
+
+		Number maxBatchDelay = _get(properties, "maxBatchDelay", 0L);
+
+		setMaximumBatchDelay(maxBatchDelay.longValue());
+
+		setMaximumBatchSize(
+			_get(properties, "maxBatchSize", _MAXIMUM_BATCH_SIZE));
 		setMaximumQueueSize(
 			_get(properties, "maxQueueSize", Integer.MAX_VALUE));
+		setOverflowDirectory(_get(properties, "overflowDirectory", ""));
+		setOverflowHighWaterMark(_get(properties, "overflowHighWaterMark", 0));
+		setOverflowLowWaterMark(_get(properties, "overflowLowWaterMark", 0));
+		setOverflowSegmentSize(
+			_get(properties, "overflowSegmentSize", _OVERFLOW_SEGMENT_SIZE));
+		setPartitionCount(_get(properties, "partitionCount", _PARTITION_COUNT));
+		setPartitionKey(_get(properties, "partitionKey", ""));
+
+		Object rejectionPolicy = _get(
+			properties, "rejectionPolicy", RejectionPolicy.DROP_NEWEST);
+
+		setRejectionPolicy(
+			RejectionPolicy.valueOf(String.valueOf(rejectionPolicy)));
+
+		Number rejectionTimeout = _get(
+			properties, "rejectionTimeout", _REJECTION_TIMEOUT);
+
+		setRejectionTimeout(rejectionTimeout.longValue());
+
+		setRingBufferSize(
+			_get(properties, "ringBufferSize", _RING_BUFFER_SIZE));
+
+		Object waitStrategy = _get(
+			properties, "waitStrategy", WaitStrategy.BLOCKING);
+
+		setWaitStrategy(WaitStrategy.valueOf(String.valueOf(waitStrategy)));
+
+		setWorkersAutoTuned(_get(properties, "workerAutoTuned", false));
 		setWorkersCoreSize(
 			_get(properties, "workerCoreSize", _WORKERS_CORE_SIZE));
+
+		Number workerIdleTimeout = _get(
+			properties, "workerIdleTimeout", _WORKERS_IDLE_TIMEOUT);
+
+		setWorkersIdleTimeout(workerIdleTimeout.longValue());
+
+		setWorkersLazy(_get(properties, "workerLazy", false));
 		setWorkersMaxSize(_get(properties, "workerMaxSize", _WORKERS_MAX_SIZE));
+		setWorkersShared(_get(properties, "workerShared", false));
+		setWorkersVirtual(_get(properties, "workerVirtual", false));
+		setWorkersWeight(_get(properties, "workerWeight", 1));
 	}
 
 	private <T> T _get(
@@ -271,14 +1033,56 @@ public class DestinationConfiguration implements Serializable {
 		);
 	}
 
+	private static final int _FAN_OUT_GROUP_SIZE = 10;
+
+	private static final int _LOG_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private static final int _MAXIMUM_BATCH_SIZE = 100;
+
+	private static final int _OVERFLOW_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+	private static final int _PARTITION_COUNT = 4;
+
+	private static final long _REJECTION_TIMEOUT = 1000;
+
+	private static final int _RING_BUFFER_SIZE = 1024;
+
 	private static final int _WORKERS_CORE_SIZE = 2;
 
+	private static final long _WORKERS_IDLE_TIMEOUT = 60000;
+
 	private static final int _WORKERS_MAX_SIZE = 5;
 
+	private String _coalesceKey = "";
+	private String _deliveryKey = "";
+	private DeliveryMode _deliveryMode = DeliveryMode.BROADCAST;
 	private final String _destinationName;
 	private final DestinationType _destinationType;
+	private int _fanOutGroupSize = _FAN_OUT_GROUP_SIZE;
+	private FanOutStrategy _fanOutStrategy = FanOutStrategy.ADAPTIVE;
+	private String _logDirectory = "";
+	private int _logFlushBatchSize = 1;
+	private int _logSegmentSize = _LOG_SEGMENT_SIZE;
+	private long _maximumBatchDelay;
+	private int _maximumBatchSize = _MAXIMUM_BATCH_SIZE;
 	private int _maximumQueueSize = Integer.MAX_VALUE;
+	private String _overflowDirectory = "";
+	private int _overflowHighWaterMark;
+	private int _overflowLowWaterMark;
+	private int _overflowSegmentSize = _OVERFLOW_SEGMENT_SIZE;
+	private int _partitionCount = _PARTITION_COUNT;
+	private String _partitionKey = "";
+	private RejectionPolicy _rejectionPolicy = RejectionPolicy.DROP_NEWEST;
+	private long _rejectionTimeout = _REJECTION_TIMEOUT;
+	private int _ringBufferSize = _RING_BUFFER_SIZE;
+	private WaitStrategy _waitStrategy = WaitStrategy.BLOCKING;
+	private boolean _workersAutoTuned;
 	private int _workersCoreSize = _WORKERS_CORE_SIZE;
+	private long _workersIdleTimeout = _WORKERS_IDLE_TIMEOUT;
+	private boolean _workersLazy;
 	private int _workersMaxSize = _WORKERS_MAX_SIZE;
+	private boolean _workersShared;
+	private boolean _workersVirtual;
+	private int _workersWeight = 1;
 
 }
\ No newline at end of file
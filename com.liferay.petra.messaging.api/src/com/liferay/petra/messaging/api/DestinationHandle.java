@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.api;
+
+/**
+ * Represents a destination name that has been resolved against the message
+ * bus.
+ *
+ * <p>
+ * A handle caches the destination together with a snapshot of its message
+ * listeners and message processor factories. The snapshot is only rebuilt
+ * when the destination is replaced or when listeners or processor factories
+ * are added to or removed from it, so producers that send many messages to
+ * the same destination should obtain a handle once through {@link
+ * MessageBus#resolve(String)} and reuse it.
+ * </p>
+ */
+public interface DestinationHandle {
+
+	/**
+	 * Returns the name of the destination this handle is bound to.
+	 *
+	 * @return the name of the destination this handle is bound to
+	 */
+	public String getDestinationName();
+
+	/**
+	 * Returns <code>true</code> if a destination with the handle's name is
+	 * currently registered with the message bus.
+	 *
+	 * @return <code>true</code> if a destination with the handle's name is
+	 *         currently registered with the message bus; <code>false</code>
+	 *         otherwise
+	 */
+	public boolean isAvailable();
+
+	/**
+	 * Sends the specified message to the destination.
+	 *
+	 * @param message the message to send
+	 */
+	public void send(Message message);
+
+	/**
+	 * Sends the specified payload to the destination in a new message.
+	 *
+	 * @param payload the payload to send
+	 */
+	public void send(Object payload);
+
+}
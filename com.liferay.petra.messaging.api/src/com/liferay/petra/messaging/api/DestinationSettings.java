@@ -29,15 +29,127 @@ public @interface DestinationSettings {
 	@AttributeDefinition(required = true)
 	String destination_name();
 
+	@AttributeDefinition(description = "coalesce-key-help", required = false)
+	String coalesceKey() default "";
+
+	@AttributeDefinition(description = "delivery-key-help", required = false)
+	String deliveryKey() default "";
+
+	@AttributeDefinition(
+		description = "delivery-mode-help", required = false
+	)
+	DeliveryMode deliveryMode() default DeliveryMode.BROADCAST;
+
+	@AttributeDefinition(
+		description = "fan-out-group-size-help", required = false
+	)
+	int fanOutGroupSize() default 10;
+
+	@AttributeDefinition(
+		description = "fan-out-strategy-help", required = false
+	)
+	FanOutStrategy fanOutStrategy() default FanOutStrategy.ADAPTIVE;
+
+	@AttributeDefinition(description = "log-directory-help", required = false)
+	String logDirectory() default "";
+
+	@AttributeDefinition(
+		description = "log-flush-batch-size-help", required = false
+	)
+	int logFlushBatchSize() default 1;
+
+	@AttributeDefinition(
+		description = "log-segment-size-help", required = false
+	)
+	int logSegmentSize() default 67108864;
+
+	@AttributeDefinition(description = "max-batch-delay-help", required = false)
+	long maxBatchDelay() default 0;
+
+	@AttributeDefinition(description = "max-batch-size-help", required = false)
+	int maxBatchSize() default 100;
+
 	@AttributeDefinition(description = "max-queue-size-help", required = false)
 	int maxQueueSize() default Integer.MAX_VALUE;
 
+	@AttributeDefinition(
+		description = "overflow-directory-help", required = false
+	)
+	String overflowDirectory() default "";
+
+	@AttributeDefinition(
+		description = "overflow-high-water-mark-help", required = false
+	)
+	int overflowHighWaterMark() default 0;
+
+	@AttributeDefinition(
+		description = "overflow-low-water-mark-help", required = false
+	)
+	int overflowLowWaterMark() default 0;
+
+	@AttributeDefinition(
+		description = "overflow-segment-size-help", required = false
+	)
+	int overflowSegmentSize() default 8388608;
+
+	@AttributeDefinition(
+		description = "partition-count-help", required = false
+	)
+	int partitionCount() default 4;
+
+	@AttributeDefinition(description = "partition-key-help", required = false)
+	String partitionKey() default "";
+
+	@AttributeDefinition(
+		description = "rejection-policy-help", required = false
+	)
+	RejectionPolicy rejectionPolicy() default RejectionPolicy.DROP_NEWEST;
+
+	@AttributeDefinition(
+		description = "rejection-timeout-help", required = false
+	)
+	long rejectionTimeout() default 1000;
+
+	@AttributeDefinition(
+		description = "ring-buffer-size-help", required = false
+	)
+	int ringBufferSize() default 1024;
+
+	@AttributeDefinition(
+		description = "wait-strategy-help", required = false
+	)
+	WaitStrategy waitStrategy() default WaitStrategy.BLOCKING;
+
+	@AttributeDefinition(
+		description = "worker-auto-tuned-help", required = false
+	)
+	boolean workerAutoTuned() default false;
+
 	@AttributeDefinition(
 		description = "worker-core-size-help", required = false
 	)
 	int workerCoreSize() default 2;
 
+	@AttributeDefinition(
+		description = "worker-idle-timeout-help", required = false
+	)
+	long workerIdleTimeout() default 60000;
+
+	@AttributeDefinition(description = "worker-lazy-help", required = false)
+	boolean workerLazy() default false;
+
 	@AttributeDefinition(description = "worker-max-size-help", required = false)
 	int workerMaxSize() default 5;
 
+	@AttributeDefinition(description = "worker-shared-help", required = false)
+	boolean workerShared() default false;
+
+	@AttributeDefinition(
+		description = "worker-virtual-help", required = false
+	)
+	boolean workerVirtual() default false;
+
+	@AttributeDefinition(description = "worker-weight-help", required = false)
+	int workerWeight() default 1;
+
 }
\ No newline at end of file
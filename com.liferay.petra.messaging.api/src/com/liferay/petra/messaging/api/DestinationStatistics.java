@@ -14,6 +14,8 @@
 
 package com.liferay.petra.messaging.api;
 
+import java.util.List;
+
 /**
  * DestinationStatistics is meant for informational purposes only. The datum
  * contained may not add up. They are assembled as a best effort and may contain
@@ -33,6 +35,30 @@ public interface DestinationStatistics {
 	 */
 	public int getActiveThreadCount();
 
+	/**
+	 * Returns the number of batches delivered to batch message listeners.
+	 *
+	 * @return the number of batches delivered to batch message listeners
+	 */
+	public long getBatchCount();
+
+	/**
+	 * Returns the number of messages delivered to batch message listeners.
+	 * Dividing it by the batch count gives the average batch size.
+	 *
+	 * @return the number of messages delivered to batch message listeners
+	 */
+	public long getBatchMessageCount();
+
+	/**
+	 * Returns the number of messages that were coalesced into a pending
+	 * message with the same coalesce key instead of being queued.
+	 *
+	 * @return the number of messages that were coalesced into a pending
+	 *         message
+	 */
+	public long getCoalescedMessageCount();
+
 	/**
 	 * Returns the current number of threads.
 	 *
@@ -40,6 +66,24 @@ public interface DestinationStatistics {
 	 */
 	public int getCurrentThreadCount();
 
+	/**
+	 * Returns the number of message deliveries that were discarded because the
+	 * message expired while it waited in the queue.
+	 *
+	 * @return the number of message deliveries that were discarded because
+	 *         the message expired
+	 */
+	public long getExpiredMessageCount();
+
+	/**
+	 * Returns the size of the largest batch delivered to a batch message
+	 * listener.
+	 *
+	 * @return the size of the largest batch delivered to a batch message
+	 *         listener
+	 */
+	public int getLargestBatchSize();
+
 	/**
 	 * Returns the largest number of threads that have ever simultaneously been in the pool.
 	 *
@@ -47,6 +91,15 @@ public interface DestinationStatistics {
 	 */
 	public int getLargestThreadCount();
 
+	/**
+	 * Returns a description of the last decision the pool size tuner made for
+	 * the destination, with the load it was based on.
+	 *
+	 * @return a description of the last pool size decision or a blank string
+	 *         if the destination's thread pool is not auto-tuned
+	 */
+	public String getLastPoolAdjustment();
+
 	/**
 	 * Returns the maximum allowed number of threads.
 	 *
@@ -61,6 +114,16 @@ public interface DestinationStatistics {
 	 */
 	public int getMinThreadPoolSize();
 
+	/**
+	 * Returns the statistics of each partition of a partitioned destination,
+	 * in partition order. The statistics of the destination itself are the
+	 * sums over its partitions.
+	 *
+	 * @return the statistics of each partition or an empty list if the
+	 *         destination is not partitioned
+	 */
+	public List<DestinationStatistics> getPartitionStatistics();
+
 	/**
 	 * Returns the number of messages queued up waiting to be dispatched.
 	 *
@@ -68,6 +131,24 @@ public interface DestinationStatistics {
 	 */
 	public long getPendingMessageCount();
 
+	/**
+	 * Returns the number of times the pool size tuner changed the maximum
+	 * thread pool size of the destination.
+	 *
+	 * @return the number of times the pool size tuner changed the maximum
+	 *         thread pool size
+	 */
+	public long getPoolAdjustmentCount();
+
+	/**
+	 * Returns the number of messages that were discarded because the queue
+	 * was full.
+	 *
+	 * @return the number of messages that were discarded because the queue
+	 *         was full
+	 */
+	public long getRejectedMessageCount();
+
 	/**
 	 * Returns the approximate number of messages that have been sent.
 	 *
@@ -75,4 +156,22 @@ public interface DestinationStatistics {
 	 */
 	public long getSentMessageCount();
 
+	/**
+	 * Returns the number of messages that were spilled to disk because too
+	 * many messages were queued.
+	 *
+	 * @return the number of messages that were spilled to disk
+	 */
+	public long getSpilledMessageCount();
+
+	/**
+	 * Returns the number of messages that found the queue full and were
+	 * delivered anyway, either on the sending thread or after the sending
+	 * thread waited for room in the queue.
+	 *
+	 * @return the number of messages that were throttled because the queue
+	 *         was full
+	 */
+	public long getThrottledMessageCount();
+
 }
\ No newline at end of file
@@ -19,7 +19,8 @@ package com.liferay.petra.messaging.api;
  */
 public enum DestinationType {
 
-	PARALLEL("parallel"), SERIAL("serial"), SYNCHRONOUS("synchronous");
+	DURABLE("durable"), PARALLEL("parallel"), PARTITIONED("partitioned"),
+	RING_BUFFER("ring_buffer"), SERIAL("serial"), SYNCHRONOUS("synchronous");
 
 	public String getType() {
 		return _type;
@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.api;
+
+/**
+ * Determines how a parallel destination splits the delivery of a message to
+ * its message listeners into tasks for its workers.
+ *
+ * <p>
+ * {@link #PER_LISTENER} executes one task per message listener, so that every
+ * listener may run on a different worker. {@link #PER_MESSAGE} executes one
+ * task that calls the message listeners in sequence, and
+ * {@link #PER_LISTENER_GROUP} executes one task per group of message
+ * listeners of the configured size. Every task runs the inbound message
+ * processors once, so fewer tasks also mean fewer processor calls.
+ * {@link #ADAPTIVE} measures how long the message listeners take and sizes
+ * the groups so that every task has enough work to be worth queueing.
+ * </p>
+ */
+public enum FanOutStrategy {
+
+	ADAPTIVE("adaptive"), PER_LISTENER("per_listener"),
+	PER_LISTENER_GROUP("per_listener_group"), PER_MESSAGE("per_message");
+
+	public String getStrategy() {
+		return _strategy;
+	}
+
+	private FanOutStrategy(String strategy) {
+		_strategy = strategy;
+	}
+
+	private final String _strategy;
+
+}
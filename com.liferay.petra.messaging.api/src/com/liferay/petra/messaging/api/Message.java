@@ -82,6 +82,15 @@ public interface Message extends Cloneable, Serializable {
 	 */
 	public boolean getBoolean(String key);
 
+	/**
+	 * Returns the message's correlation ID, the numeric form of its response
+	 * ID. If the response ID was set as a string that is not the string form
+	 * of a correlation ID, this returns <code>0</code>.
+	 *
+	 * @return the message's correlation ID or <code>0</code> if it has none
+	 */
+	public long getCorrelationId();
+
 	/**
 	 * Returns the name of this message's destination.
 	 *
@@ -89,6 +98,15 @@ public interface Message extends Cloneable, Serializable {
 	 */
 	public String getDestinationName();
 
+	/**
+	 * Returns the time after which this message is no longer delivered, in
+	 * milliseconds since the epoch.
+	 *
+	 * @return the time after which this message is no longer delivered or
+	 *         <code>0</code> if the message never expires
+	 */
+	public long getExpirationTime();
+
 	/**
 	 * Returns the value, interpreted as a double, in this message associated
 	 * with the key or <code>null</code> if the key could not be found.
@@ -187,6 +205,14 @@ public interface Message extends Cloneable, Serializable {
 	 */
 	public void remove(String key);
 
+	/**
+	 * Sets the message's correlation ID. This replaces the message's response
+	 * ID, which becomes the string form of the correlation ID.
+	 *
+	 * @param correlationId the new correlation ID of the message
+	 */
+	public void setCorrelationId(long correlationId);
+
 	/**
 	 * Sets the name of this message's destination.
 	 *
@@ -194,6 +220,16 @@ public interface Message extends Cloneable, Serializable {
 	 */
 	public void setDestinationName(String destinationName);
 
+	/**
+	 * Sets the time after which this message is no longer delivered, in
+	 * milliseconds since the epoch. Asynchronous destinations discard
+	 * messages that expire while they wait in the queue.
+	 *
+	 * @param expirationTime the new expiration time of this message or
+	 *        <code>0</code> if the message never expires
+	 */
+	public void setExpirationTime(long expirationTime);
+
 	/**
 	 * Sets the message's payload.
 	 *
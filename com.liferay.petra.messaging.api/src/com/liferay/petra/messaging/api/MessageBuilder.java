@@ -99,6 +99,16 @@ public interface MessageBuilder {
 	 */
 	public MessageBuilder setResponseId(String responseId);
 
+	/**
+	 * Set how long the message may wait for delivery, measured from now.
+	 * Asynchronous destinations discard the message if it is still queued
+	 * when its time to live elapses.
+	 *
+	 * @param  timeToLive the time to live in milliseconds
+	 * @return the builder
+	 */
+	public MessageBuilder setTimeToLive(long timeToLive);
+
 	/**
 	 * Use a map to add a number of key, value pairs of data into the message at
 	 * once.
@@ -14,7 +14,11 @@
 
 package com.liferay.petra.messaging.api;
 
+import java.time.Instant;
+
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides an API for retrieving destinations and destination information and
@@ -80,6 +84,21 @@ public interface MessageBus {
 	 */
 	public boolean hasMessageListener(String destinationName);
 
+	/**
+	 * Returns a handle bound to the destination with the specified name.
+	 *
+	 * <p>
+	 * The destination does not need to exist when the handle is resolved.
+	 * Messages sent through the handle while no destination with the name is
+	 * registered are discarded, just like with {@link #sendMessage(String,
+	 * Message)}.
+	 * </p>
+	 *
+	 * @param destinationName the name of the destination to resolve
+	 * @return a handle bound to the destination with the specified name
+	 */
+	public DestinationHandle resolve(String destinationName);
+
 	/**
 	 * Sends the specified message to the specified destination.
 	 *
@@ -88,6 +107,65 @@ public interface MessageBus {
 	 */
 	public void sendMessage(String destinationName, Message message);
 
+	/**
+	 * Sends the specified message to the specified destination at the
+	 * specified time.
+	 *
+	 * <p>
+	 * The message is held by a timing wheel until it is due and then sent
+	 * through {@link #sendMessage(String, Message)}, so the destination is
+	 * looked up at delivery time. Delivery happens within one tick of the
+	 * timing wheel after the specified time.
+	 * </p>
+	 *
+	 * @param destinationName the name of the destination to which to send the
+	 *        message
+	 * @param message the message to send
+	 * @param deliveryTime the time at which to send the message
+	 * @return the handle with which the delivery can be cancelled
+	 */
+	public ScheduledMessageHandle sendMessage(
+		String destinationName, Message message, Instant deliveryTime);
+
+	/**
+	 * Sends the specified message to the specified destination after the
+	 * specified delay.
+	 *
+	 * <p>
+	 * The message is held by a timing wheel until it is due and then sent
+	 * through {@link #sendMessage(String, Message)}, so the destination is
+	 * looked up at delivery time. Delivery happens within one tick of the
+	 * timing wheel after the delay.
+	 * </p>
+	 *
+	 * @param destinationName the name of the destination to which to send the
+	 *        message
+	 * @param message the message to send
+	 * @param delay the time from now to delay delivery
+	 * @param timeUnit the time unit of the delay
+	 * @return the handle with which the delivery can be cancelled
+	 */
+	public ScheduledMessageHandle sendMessage(
+		String destinationName, Message message, long delay,
+		TimeUnit timeUnit);
+
+	/**
+	 * Sends the specified messages to the specified destination as one batch.
+	 *
+	 * <p>
+	 * The destination is looked up once and a single outbound and inbound
+	 * message processor chain is created for the whole batch. Each message
+	 * still passes through every processor. Asynchronous destinations hand
+	 * the batch to their worker threads with at most one task per worker.
+	 * </p>
+	 *
+	 * @param destinationName the name of the destination to which to send the
+	 *        messages
+	 * @param messages the messages to send
+	 */
+	public void sendMessages(
+		String destinationName, Collection<Message> messages);
+
 	/**
 	 * Sends the specified message payload to the specified destination in a new
 	 * message.
@@ -97,6 +175,27 @@ public interface MessageBus {
 	 */
 	public void sendMessage(String destinationName, Object payload);
 
+	/**
+	 * Sends the specified message to the specified destination and returns a
+	 * future for the result.
+	 *
+	 * <p>
+	 * No thread waits for the reply. The future completes with the payload of
+	 * the message on the response destination whose response ID matches the
+	 * request, or exceptionally with a {@link MessageBusException} if no reply
+	 * arrives within the specified amount of time.
+	 * </p>
+	 *
+	 * @param destinationName the name of the destination to which to send the
+	 *        message
+	 * @param message the message to send
+	 * @param timeout how long to wait for a response, in milliseconds
+	 * @return the future for the result, completed with <code>null</code> if
+	 *         the destination is not configured or has no message listeners
+	 */
+	public CompletableFuture<Object> sendRequest(
+		String destinationName, Message message, long timeout);
+
 	/**
 	 * Sends the specified message to the specified destination and returns a
 	 * result.
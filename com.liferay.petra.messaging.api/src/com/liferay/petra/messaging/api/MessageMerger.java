@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.api;
+
+/**
+ * Merges a message into a message with the same coalesce key that is still
+ * waiting in the queue of a coalescing destination.
+ *
+ * <p>
+ * Register a message merger with a <code>destination.name</code> service
+ * property to use it for that destination. Without a message merger, the
+ * newer message replaces the pending one.
+ * </p>
+ */
+public interface MessageMerger {
+
+	/**
+	 * Returns the message that is delivered in place of both messages. The
+	 * returned message must have the same coalesce key value as the pending
+	 * message.
+	 *
+	 * @param  pendingMessage the message waiting in the queue
+	 * @param  message the message being sent
+	 * @return the merged message, which may be the pending message after
+	 *         updating it in place
+	 */
+	public Message merge(Message pendingMessage, Message message);
+
+}
@@ -18,11 +18,25 @@ package com.liferay.petra.messaging.api;
  * <p>
  * Interface providing a factory for OutboundMessageProcessor instances.
  * </p>
+ * <p>
+ * A factory registered with the {@link #SHAREABLE} service property set to
+ * <code>true</code> declares that its processors are stateless. Destinations
+ * then create one processor and share it among all messages until a factory
+ * is added or removed, instead of calling {@link #create()} for every
+ * message.
+ * </p>
  *
  * @author Raymond Augé
  */
 public interface OutboundMessageProcessorFactory {
 
+	/**
+	 * The service property that declares the processors of a factory
+	 * stateless.
+	 */
+	public static final String SHAREABLE =
+		InboundMessageProcessorFactory.SHAREABLE;
+
 	/**
 	 * Returns a new outbound message processor
 	 *
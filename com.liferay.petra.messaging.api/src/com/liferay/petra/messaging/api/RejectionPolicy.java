@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.api;
+
+/**
+ * Determines what an asynchronous destination does with a message when its
+ * queue is full.
+ *
+ * <p>
+ * {@link #DROP_NEWEST} discards the message being sent and {@link
+ * #DROP_OLDEST} discards the message that waited the longest to make room for
+ * it. {@link #CALLER_RUNS} delivers the message on the sending thread, and
+ * {@link #BLOCK} makes the sending thread wait for room in the queue up to the
+ * rejection timeout, discarding the message if none frees up. Discarded
+ * messages are passed to the destination's rejected execution handler.
+ * </p>
+ *
+ * <p>
+ * Destinations that deliver their messages in order, such as serial,
+ * partitioned and durable destinations, use {@link #BLOCK} instead of {@link
+ * #CALLER_RUNS} and {@link #DROP_NEWEST} instead of {@link #DROP_OLDEST}.
+ * Running the message on the sending thread while a worker still delivers
+ * earlier messages, or dropping a queued message to make room for a newer
+ * one, would break that order.
+ * </p>
+ */
+public enum RejectionPolicy {
+
+	BLOCK("block"), CALLER_RUNS("caller_runs"), DROP_NEWEST("drop_newest"),
+	DROP_OLDEST("drop_oldest");
+
+	public String getPolicy() {
+		return _policy;
+	}
+
+	private RejectionPolicy(String policy) {
+		_policy = policy;
+	}
+
+	private final String _policy;
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.api;
+
+/**
+ * Represents a message scheduled for delayed delivery with {@link
+ * MessageBus#sendMessage(String, Message, long,
+ * java.util.concurrent.TimeUnit)}.
+ */
+public interface ScheduledMessageHandle {
+
+	/**
+	 * Cancels the delivery of the message.
+	 *
+	 * @return <code>true</code> if the delivery was cancelled;
+	 *         <code>false</code> if the message was already delivered or the
+	 *         delivery was already cancelled
+	 */
+	public boolean cancel();
+
+	/**
+	 * Returns the time at which the message is due, in milliseconds since the
+	 * epoch.
+	 *
+	 * @return the time at which the message is due
+	 */
+	public long getDeliveryTime();
+
+	/**
+	 * Returns the scheduled message.
+	 *
+	 * @return the scheduled message
+	 */
+	public Message getMessage();
+
+	/**
+	 * Returns <code>true</code> if the delivery was cancelled.
+	 *
+	 * @return <code>true</code> if the delivery was cancelled;
+	 *         <code>false</code> otherwise
+	 */
+	public boolean isCancelled();
+
+	/**
+	 * Returns <code>true</code> if the message was handed to its destination.
+	 *
+	 * @return <code>true</code> if the message was handed to its destination;
+	 *         <code>false</code> otherwise
+	 */
+	public boolean isDelivered();
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.api;
+
+/**
+ * Determines how the consumers of a ring buffer destination wait for new
+ * messages.
+ *
+ * <p>
+ * {@link #BLOCKING} parks the consumers until a message is published, which
+ * saves CPU at the cost of a wake up on every message after an idle period.
+ * {@link #YIELDING} spins for a while and then yields the processor between
+ * checks, and {@link #BUSY_SPIN} never stops checking, which gives the lowest
+ * latency but keeps one processor busy per consumer.
+ * </p>
+ */
+public enum WaitStrategy {
+
+	BLOCKING("blocking"), BUSY_SPIN("busy_spin"), YIELDING("yielding");
+
+	public String getStrategy() {
+		return _strategy;
+	}
+
+	private WaitStrategy(String strategy) {
+		_strategy = strategy;
+	}
+
+	private final String _strategy;
+
+}
@@ -30,6 +30,9 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 )
 public @interface MessageBusConfiguration {
 
+	@AttributeDefinition(description = "delayed-delivery-workers")
+	int delayedDeliveryWorkers() default 4;
+
 	@AttributeDefinition(description = "synchronous-message-sender-mode")
 	SynchronousMessageSender.Mode synchronousMessageSenderMode()
 		default SynchronousMessageSender.Mode.DEFAULT;
@@ -37,4 +40,10 @@ public @interface MessageBusConfiguration {
 	@AttributeDefinition(description = "synchronous-message-sender-timeout")
 	long timeout() default 10000;
 
+	@AttributeDefinition(description = "timing-wheel-size")
+	int timingWheelSize() default 512;
+
+	@AttributeDefinition(description = "timing-wheel-tick-duration")
+	long timingWheelTickDuration() default 10;
+
 }
\ No newline at end of file
@@ -48,9 +48,18 @@ public class DefaultDestinationFactory implements DestinationFactory {
 		ComponentFactory componentFactory;
 
 		switch (destinationType) {
+			case DURABLE:
+				componentFactory = _durableDestinationFactory;
+				break;
 			case PARALLEL:
 				componentFactory = _parallelDestinationFactory;
 				break;
+			case PARTITIONED:
+				componentFactory = _partitionedDestinationFactory;
+				break;
+			case RING_BUFFER:
+				componentFactory = _ringBufferDestinationFactory;
+				break;
 			case SERIAL:
 				componentFactory = _serialDestinationFactory;
 				break;
@@ -73,8 +82,11 @@ public class DefaultDestinationFactory implements DestinationFactory {
 		dictionary.put("MessageListener.target", targetFilter);
 		dictionary.put("OutboundMessageProcessorFactory.target", targetFilter);
 
-		if (destinationType != DestinationType.SYNCHRONOUS) {
+		if ((destinationType != DestinationType.RING_BUFFER) &&
+			(destinationType != DestinationType.SYNCHRONOUS)) {
+
 			dictionary.put("ExecutorServiceRegistrar.target", targetFilter);
+			dictionary.put("MessageMerger.target", targetFilter);
 			dictionary.put("RejectedExecutionHandler.target", targetFilter);
 		}
 
@@ -100,12 +112,30 @@ public class DefaultDestinationFactory implements DestinationFactory {
 	private final Map<Destination, ComponentInstance> _instances =
 		new ConcurrentHashMap<>();
 
+	@Reference(
+		policyOption = ReferencePolicyOption.GREEDY,
+		target = "(component.factory=durable.destination)"
+	)
+	private ComponentFactory _durableDestinationFactory;
+
 	@Reference(
 		policyOption = ReferencePolicyOption.GREEDY,
 		target = "(component.factory=parallel.destination)"
 	)
 	private ComponentFactory _parallelDestinationFactory;
 
+	@Reference(
+		policyOption = ReferencePolicyOption.GREEDY,
+		target = "(component.factory=partitioned.destination)"
+	)
+	private ComponentFactory _partitionedDestinationFactory;
+
+	@Reference(
+		policyOption = ReferencePolicyOption.GREEDY,
+		target = "(component.factory=ring.buffer.destination)"
+	)
+	private ComponentFactory _ringBufferDestinationFactory;
+
 	@Reference(
 		policyOption = ReferencePolicyOption.GREEDY,
 		target = "(component.factory=serial.destination)"
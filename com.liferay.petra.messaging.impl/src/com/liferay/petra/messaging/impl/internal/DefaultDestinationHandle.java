@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.impl.internal;
+
+import com.liferay.petra.messaging.api.DestinationHandle;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.spi.BaseDestination;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Destination handle that caches the destination resolved from the message
+ * bus until the message bus reports a change in its set of destinations.
+ */
+public class DefaultDestinationHandle implements DestinationHandle {
+
+	public DefaultDestinationHandle(
+		DefaultMessageBus messageBus, String destinationName) {
+
+		_messageBus = messageBus;
+		_destinationName = destinationName;
+	}
+
+	@Override
+	public String getDestinationName() {
+		return _destinationName;
+	}
+
+	@Override
+	public boolean isAvailable() {
+		if (_getBaseDestination() != null) {
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+
+	@Override
+	public void send(Message message) {
+		BaseDestination baseDestination = _getBaseDestination();
+
+		if (baseDestination == null) {
+			if (_logger.isWarnEnabled()) {
+				_logger.warn(
+					"Destination {} is not configured", _destinationName);
+			}
+
+			return;
+		}
+
+		_messageBus.sendMessage(baseDestination, _destinationName, message);
+	}
+
+	@Override
+	public void send(Object payload) {
+		Message message = new MessageImpl();
+
+		message.setPayload(payload);
+
+		send(message);
+	}
+
+	@Override
+	public String toString() {
+		return "{destinationName=" + _destinationName + "}";
+	}
+
+	private BaseDestination _getBaseDestination() {
+		Binding binding = _binding;
+
+		long version = _messageBus.getDestinationsVersion();
+
+		if ((binding == null) || (binding._version != version)) {
+			binding = new Binding(
+				(BaseDestination)_messageBus.getDestination(_destinationName),
+				version);
+
+			_binding = binding;
+		}
+
+		return binding._baseDestination;
+	}
+
+	private static final Logger _logger = LoggerFactory.getLogger(
+		DefaultDestinationHandle.class);
+
+	private volatile Binding _binding;
+	private final String _destinationName;
+	private final DefaultMessageBus _messageBus;
+
+	private static class Binding {
+
+		private Binding(BaseDestination baseDestination, long version) {
+			_baseDestination = baseDestination;
+			_version = version;
+		}
+
+		private final BaseDestination _baseDestination;
+		private final long _version;
+
+	}
+
+}
@@ -114,6 +114,13 @@ public class DefaultMessageBuilder implements MessageBuilder {
 		return this;
 	}
 
+	@Override
+	public MessageBuilder setTimeToLive(long timeToLive) {
+		_message.setExpirationTime(System.currentTimeMillis() + timeToLive);
+
+		return this;
+	}
+
 	@Override
 	public MessageBuilder setValues(Map<String, Object> values) {
 		_message.setValues(values);
@@ -16,30 +16,52 @@ package com.liferay.petra.messaging.impl.internal;
 
 import com.liferay.petra.messaging.api.Destination;
 import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationHandle;
+import com.liferay.petra.messaging.api.DestinationNames;
 import com.liferay.petra.messaging.api.Message;
 import com.liferay.petra.messaging.api.MessageBus;
 import com.liferay.petra.messaging.api.MessageBusEventListener;
 import com.liferay.petra.messaging.api.MessageBusException;
 import com.liferay.petra.messaging.api.MessageProcessorException;
 import com.liferay.petra.messaging.api.OutboundMessageProcessor;
+import com.liferay.petra.messaging.api.ScheduledMessageHandle;
 import com.liferay.petra.messaging.impl.configuration.MessageBusConfiguration;
+import com.liferay.petra.messaging.impl.internal.sender.CorrelationIdGenerator;
+import com.liferay.petra.messaging.impl.internal.sender.ResponseCorrelator;
 import com.liferay.petra.messaging.spi.BaseDestination;
 import com.liferay.petra.messaging.spi.DestinationFactory;
+import com.liferay.petra.messaging.spi.DispatchPlan;
 import com.liferay.petra.messaging.spi.MessageImpl;
 import com.liferay.petra.messaging.spi.ServiceMaps;
 import com.liferay.petra.messaging.spi.sender.SingleDestinationMessageSenderFactory;
 import com.liferay.petra.messaging.spi.sender.SynchronousMessageSender;
+import com.liferay.petra.concurrent.ConcurrentReferenceValueHashMap;
+import com.liferay.petra.concurrent.NamedThreadFactory;
+import com.liferay.petra.io.util.Validator;
+import com.liferay.petra.memory.FinalizeManager;
 
+import java.time.Instant;
+
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
@@ -61,16 +83,11 @@ public class DefaultMessageBus implements MessageBus {
 
 	@Override
 	public Destination getDestination(String destinationName) {
-		Collection<Destination> values = _destinations.values();
-
-		Stream<Destination> stream = values.stream();
+		if (destinationName == null) {
+			return null;
+		}
 
-		return (Destination)stream.filter(
-			destination -> destination.getName().equals(destinationName)
-		).findFirst(
-		).orElse(
-			null
-		);
+		return _destinationsByName.get(destinationName);
 	}
 
 	@Override
@@ -139,6 +156,8 @@ public class DefaultMessageBus implements MessageBus {
 
 		_destinations.put(properties, destination);
 
+		_indexDestination(destinationConfiguration.getDestinationName());
+
 		for (MessageBusEventListener messageBusEventListener :
 				_messageBusEventListeners.values()) {
 
@@ -186,6 +205,16 @@ public class DefaultMessageBus implements MessageBus {
 			singleDestinationMessageSenderFactory;
 	}
 
+	@Override
+	public DestinationHandle resolve(String destinationName) {
+
+		// Handles are held weakly, so that the handles of removed or never
+		// registered destinations do not pile up once nobody uses them
+
+		return _destinationHandles.computeIfAbsent(
+			destinationName, name -> new DefaultDestinationHandle(this, name));
+	}
+
 	@Override
 	public void sendMessage(String destinationName, Message message) {
 		Destination destination = getDestination(destinationName);
@@ -199,55 +228,155 @@ public class DefaultMessageBus implements MessageBus {
 			return;
 		}
 
-		message.setDestinationName(destinationName);
+		sendMessage((BaseDestination)destination, destinationName, message);
+	}
 
-		BaseDestination baseDestination = (BaseDestination)destination;
+	@Override
+	public ScheduledMessageHandle sendMessage(
+		String destinationName, Message message, Instant deliveryTime) {
 
-		Collection<OutboundMessageProcessor> outboundMessageProcessors =
-			baseDestination.getOutboundMessageProcessors();
+		long deliveryTimeMillis = deliveryTime.toEpochMilli();
 
-		try {
-			for (OutboundMessageProcessor outboundMessageProcessor :
-					outboundMessageProcessors) {
+		return _scheduleMessage(
+			destinationName, message, deliveryTimeMillis,
+			deliveryTimeMillis - System.currentTimeMillis(),
+			TimeUnit.MILLISECONDS);
+	}
 
-				try {
-					message = outboundMessageProcessor.beforeSend(message);
-				}
-				catch (MessageProcessorException mpe) {
-					throw new MessageBusException(
-						"Unable to process message before sending " + message,
-						mpe);
-				}
+	@Override
+	public ScheduledMessageHandle sendMessage(
+		String destinationName, Message message, long delay,
+		TimeUnit timeUnit) {
+
+		return _scheduleMessage(
+			destinationName, message,
+			System.currentTimeMillis() + timeUnit.toMillis(delay), delay,
+			timeUnit);
+	}
+
+	@Override
+	public void sendMessage(String destinationName, Object payload) {
+		Message message = new MessageImpl();
+
+		message.setPayload(payload);
+
+		sendMessage(destinationName, message);
+	}
+
+	@Override
+	public void sendMessages(
+		String destinationName, Collection<Message> messages) {
+
+		Destination destination = getDestination(destinationName);
+
+		if (destination == null) {
+			if (_logger.isWarnEnabled()) {
+				_logger.warn(
+					"Destination {} is not configured", destinationName);
 			}
 
-			com.liferay.petra.messaging.spi.Destination spiDestination =
-				(com.liferay.petra.messaging.spi.Destination)destination;
+			return;
+		}
+
+		sendMessages((BaseDestination)destination, destinationName, messages);
+	}
 
-			spiDestination.send(message);
+	@Override
+	public CompletableFuture<Object> sendRequest(
+		String destinationName, Message message, long timeout) {
+
+		BaseDestination baseDestination = (BaseDestination)getDestination(
+			destinationName);
+
+		if (baseDestination == null) {
+			if (_logger.isInfoEnabled()) {
+				_logger.info(
+					"Destination " + destinationName + " is not configured");
+			}
+
+			return CompletableFuture.completedFuture(null);
 		}
-		finally {
-			for (OutboundMessageProcessor outboundMessageProcessor :
-					outboundMessageProcessors) {
 
-				try {
-					outboundMessageProcessor.afterSend(message);
-				}
-				catch (MessageProcessorException mpe) {
-					throw new MessageBusException(
-						"Unable to process message after sending " + message,
-						mpe);
-				}
+		if (baseDestination.getMessageListenerCount() == 0) {
+			if (_logger.isInfoEnabled()) {
+				_logger.info(
+					"Destination " + destinationName +
+						" does not have any message listeners");
 			}
+
+			return CompletableFuture.completedFuture(null);
 		}
+
+		return sendRequest(baseDestination, destinationName, message, timeout);
 	}
 
-	@Override
-	public void sendMessage(String destinationName, Object payload) {
-		Message message = new MessageImpl();
+	/**
+	 * Sends the specified message to the specified destination, which must
+	 * have message listeners, and returns a future for the result.
+	 */
+	public CompletableFuture<Object> sendRequest(
+		BaseDestination baseDestination, String destinationName,
+		Message message, long timeout) {
 
-		message.setPayload(payload);
+		String responseDestinationName = message.getResponseDestinationName();
 
-		sendMessage(destinationName, message);
+		if (Validator.isNull(responseDestinationName) ||
+			!hasDestination(responseDestinationName)) {
+
+			if (_logger.isDebugEnabled()) {
+				_logger.debug(
+					"Response destination {} is not configured",
+					responseDestinationName);
+			}
+
+			responseDestinationName =
+				DestinationNames.MESSAGE_BUS_DEFAULT_RESPONSE;
+
+			message.setResponseDestinationName(responseDestinationName);
+		}
+
+		message.setCorrelationId(_correlationIdGenerator.nextCorrelationId());
+
+		Destination responseDestination = getDestination(
+			responseDestinationName);
+
+		if (responseDestination == null) {
+			CompletableFuture<Object> completableFuture =
+				new CompletableFuture<>();
+
+			completableFuture.completeExceptionally(
+				new MessageBusException(
+					"Response destination " + responseDestinationName +
+						" is not configured"));
+
+			return completableFuture;
+		}
+
+		ResponseCorrelator responseCorrelator =
+			_responseCorrelators.computeIfAbsent(
+				responseDestination,
+				destination -> {
+					ResponseCorrelator newResponseCorrelator =
+						new ResponseCorrelator(
+							(BaseDestination)destination,
+							_scheduledExecutorService);
+
+					newResponseCorrelator.open();
+
+					return newResponseCorrelator;
+				});
+
+		CompletableFuture<Object> completableFuture =
+			responseCorrelator.register(message, timeout);
+
+		try {
+			sendMessage(baseDestination, destinationName, message);
+		}
+		catch (RuntimeException re) {
+			completableFuture.completeExceptionally(re);
+		}
+
+		return completableFuture;
 	}
 
 	@Override
@@ -336,6 +465,15 @@ public class DefaultMessageBus implements MessageBus {
 
 		Destination destination = _destinations.remove(properties);
 
+		_indexDestination(destinationConfiguration.getDestinationName());
+
+		ResponseCorrelator responseCorrelator = _responseCorrelators.remove(
+			destination);
+
+		if (responseCorrelator != null) {
+			responseCorrelator.close();
+		}
+
 		for (MessageBusEventListener messageBusEventListener :
 				_messageBusEventListeners.values()) {
 
@@ -365,21 +503,260 @@ public class DefaultMessageBus implements MessageBus {
 
 	@Activate
 	protected void activate(MessageBusConfiguration messageBusConfiguration) {
+		_scheduledExecutorService = new ScheduledThreadPoolExecutor(
+			1,
+			new NamedThreadFactory(
+				"MessageBus/Request Timeout", Thread.NORM_PRIORITY,
+				DefaultMessageBus.class.getClassLoader()));
+
+		_scheduledExecutorService.setRemoveOnCancelPolicy(true);
+
+		int delayedDeliveryWorkers = Math.max(
+			messageBusConfiguration.delayedDeliveryWorkers(), 1);
+
+		_delayedDeliveryExecutorService = new ThreadPoolExecutor(
+			delayedDeliveryWorkers, delayedDeliveryWorkers, 60,
+			TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+			new NamedThreadFactory(
+				"MessageBus/Delayed Delivery Sender", Thread.NORM_PRIORITY,
+				DefaultMessageBus.class.getClassLoader()));
+
+		_delayedDeliveryExecutorService.allowCoreThreadTimeOut(true);
+
+		_hashedTimingWheel = new HashedTimingWheel(
+			new NamedThreadFactory(
+				"MessageBus/Delayed Delivery", Thread.NORM_PRIORITY,
+				DefaultMessageBus.class.getClassLoader()),
+			messageBusConfiguration.timingWheelTickDuration(),
+			TimeUnit.MILLISECONDS, messageBusConfiguration.timingWheelSize());
+
 		_synchronousMessageSenderMode =
 			messageBusConfiguration.synchronousMessageSenderMode();
 	}
 
+	@Deactivate
+	protected void deactivate() {
+		for (ResponseCorrelator responseCorrelator :
+				_responseCorrelators.values()) {
+
+			responseCorrelator.close();
+		}
+
+		_responseCorrelators.clear();
+
+		_scheduledExecutorService.shutdownNow();
+
+		_hashedTimingWheel.stop();
+
+		_delayedDeliveryExecutorService.shutdownNow();
+	}
+
+	/**
+	 * Returns a counter that changes whenever the destination registered
+	 * under any name changes. Destination handles use it to detect that their
+	 * cached destination is stale.
+	 */
+	protected long getDestinationsVersion() {
+		return _destinationsVersion.get();
+	}
+
+	protected void sendMessage(
+		BaseDestination baseDestination, String destinationName,
+		Message message) {
+
+		message.setDestinationName(destinationName);
+
+		DispatchPlan dispatchPlan = baseDestination.getDispatchPlan();
+
+		if (!dispatchPlan.hasOutboundMessageProcessors()) {
+			baseDestination.send(message);
+
+			return;
+		}
+
+		Collection<OutboundMessageProcessor> outboundMessageProcessors =
+			dispatchPlan.createOutboundMessageProcessors();
+
+		try {
+			for (OutboundMessageProcessor outboundMessageProcessor :
+					outboundMessageProcessors) {
+
+				try {
+					message = outboundMessageProcessor.beforeSend(message);
+				}
+				catch (MessageProcessorException mpe) {
+					throw new MessageBusException(
+						"Unable to process message before sending " + message,
+						mpe);
+				}
+			}
+
+			baseDestination.send(message);
+		}
+		finally {
+			for (OutboundMessageProcessor outboundMessageProcessor :
+					outboundMessageProcessors) {
+
+				try {
+					outboundMessageProcessor.afterSend(message);
+				}
+				catch (MessageProcessorException mpe) {
+					throw new MessageBusException(
+						"Unable to process message after sending " + message,
+						mpe);
+				}
+			}
+		}
+	}
+
+	protected void sendMessages(
+		BaseDestination baseDestination, String destinationName,
+		Collection<Message> messages) {
+
+		if (messages.isEmpty()) {
+			return;
+		}
+
+		DispatchPlan dispatchPlan = baseDestination.getDispatchPlan();
+
+		Collection<OutboundMessageProcessor> outboundMessageProcessors =
+			dispatchPlan.createOutboundMessageProcessors();
+
+		List<Message> processedMessages = new ArrayList<>(messages.size());
+
+		try {
+			for (Message message : messages) {
+				message.setDestinationName(destinationName);
+
+				for (OutboundMessageProcessor outboundMessageProcessor :
+						outboundMessageProcessors) {
+
+					try {
+						message = outboundMessageProcessor.beforeSend(message);
+					}
+					catch (MessageProcessorException mpe) {
+						throw new MessageBusException(
+							"Unable to process message before sending " +
+								message,
+							mpe);
+					}
+				}
+
+				processedMessages.add(message);
+			}
+
+			baseDestination.send(processedMessages);
+		}
+		finally {
+			for (Message message : processedMessages) {
+				for (OutboundMessageProcessor outboundMessageProcessor :
+						outboundMessageProcessors) {
+
+					try {
+						outboundMessageProcessor.afterSend(message);
+					}
+					catch (MessageProcessorException mpe) {
+						throw new MessageBusException(
+							"Unable to process message after sending " +
+								message,
+							mpe);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sends the message of an expired scheduled message handle on one of the
+	 * delayed delivery workers. The timing wheel thread only hands the
+	 * message over, so a send that blocks, or that runs the message
+	 * listeners of a synchronous destination, does not hold up the other
+	 * scheduled messages.
+	 */
+	protected void sendScheduledMessage(
+		DefaultScheduledMessageHandle defaultScheduledMessageHandle) {
+
+		try {
+			_delayedDeliveryExecutorService.execute(
+				() -> {
+					sendMessage(
+						defaultScheduledMessageHandle.getDestinationName(),
+						defaultScheduledMessageHandle.getMessage());
+
+					defaultScheduledMessageHandle.setDelivered(true);
+				});
+		}
+		catch (RejectedExecutionException ree) {
+			if (_logger.isWarnEnabled()) {
+				_logger.warn(
+					"Unable to send scheduled message " +
+						defaultScheduledMessageHandle +
+							" because the message bus is deactivated",
+					ree);
+			}
+		}
+	}
+
+	private void _indexDestination(String destinationName) {
+
+		// When several configurations share a name, the highest ranked one in
+		// _destinations wins
+
+		_destinationsByName.compute(
+			destinationName,
+			(key, value) -> {
+				for (Destination destination : _destinations.values()) {
+					if (key.equals(destination.getName())) {
+						return destination;
+					}
+				}
+
+				return null;
+			});
+
+		_destinationsVersion.incrementAndGet();
+	}
+
+	private ScheduledMessageHandle _scheduleMessage(
+		String destinationName, Message message, long deliveryTime,
+		long delay, TimeUnit timeUnit) {
+
+		DefaultScheduledMessageHandle defaultScheduledMessageHandle =
+			new DefaultScheduledMessageHandle(
+				this, destinationName, message, deliveryTime);
+
+		_hashedTimingWheel.schedule(
+			defaultScheduledMessageHandle, delay, timeUnit);
+
+		return defaultScheduledMessageHandle;
+	}
+
 	private static final Logger _logger = LoggerFactory.getLogger(
 		DefaultMessageBus.class);
 
+	private final CorrelationIdGenerator _correlationIdGenerator =
+		new CorrelationIdGenerator();
+
+	private ThreadPoolExecutor _delayedDeliveryExecutorService;
+
 	@Reference(policyOption = ReferencePolicyOption.GREEDY)
 	private DestinationFactory _destinationFactory;
 
+	private final Map<String, DestinationHandle> _destinationHandles =
+		new ConcurrentReferenceValueHashMap<>(
+			FinalizeManager.WEAK_REFERENCE_FACTORY);
 	private final Map<Map<String, Object>, Destination> _destinations =
 		new ConcurrentSkipListMap<>(ServiceMaps.comparator().reversed());
+	private final Map<String, Destination> _destinationsByName =
+		new ConcurrentHashMap<>();
+	private final AtomicLong _destinationsVersion = new AtomicLong();
+	private HashedTimingWheel _hashedTimingWheel;
 	private final Map<Map<String, Object>, MessageBusEventListener>
 		_messageBusEventListeners = new ConcurrentSkipListMap<>(
 			ServiceMaps.comparator().reversed());
+	private final Map<Destination, ResponseCorrelator> _responseCorrelators =
+		new ConcurrentHashMap<>();
+	private ScheduledThreadPoolExecutor _scheduledExecutorService;
 	private volatile SingleDestinationMessageSenderFactory
 		_singleDestinationMessageSenderFactory;
 	private SynchronousMessageSender.Mode _synchronousMessageSenderMode;
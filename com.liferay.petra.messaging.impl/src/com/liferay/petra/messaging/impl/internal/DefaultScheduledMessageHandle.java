@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.impl.internal;
+
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.ScheduledMessageHandle;
+
+/**
+ * Timing wheel timeout that hands its message to the message bus when it
+ * expires. The message bus sends it on a delayed delivery worker, so the
+ * timing wheel thread never waits for a send. The handle is delivered once
+ * that send returns.
+ */
+public class DefaultScheduledMessageHandle
+	extends HashedTimingWheel.Timeout implements ScheduledMessageHandle {
+
+	public DefaultScheduledMessageHandle(
+		DefaultMessageBus messageBus, String destinationName, Message message,
+		long deliveryTime) {
+
+		_messageBus = messageBus;
+		_destinationName = destinationName;
+		_message = message;
+		_deliveryTime = deliveryTime;
+	}
+
+	@Override
+	public long getDeliveryTime() {
+		return _deliveryTime;
+	}
+
+	public String getDestinationName() {
+		return _destinationName;
+	}
+
+	@Override
+	public Message getMessage() {
+		return _message;
+	}
+
+	@Override
+	public boolean isDelivered() {
+		return _delivered;
+	}
+
+	public void setDelivered(boolean delivered) {
+		_delivered = delivered;
+	}
+
+	@Override
+	public String toString() {
+		return "{deliveryTime=" + _deliveryTime + ", destinationName=" +
+			_destinationName + ", message=" + _message + "}";
+	}
+
+	@Override
+	protected void expire() {
+		_messageBus.sendScheduledMessage(this);
+	}
+
+	private volatile boolean _delivered;
+	private final long _deliveryTime;
+	private final String _destinationName;
+	private final Message _message;
+	private final DefaultMessageBus _messageBus;
+
+}
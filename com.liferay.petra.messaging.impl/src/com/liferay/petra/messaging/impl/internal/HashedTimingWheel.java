@@ -0,0 +1,396 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.impl.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds timeouts in a ring of buckets that a single worker thread advances
+ * one tick at a time, expiring the timeouts of the current bucket.
+ *
+ * <p>
+ * Scheduling and cancelling a timeout only append it to a concurrent queue,
+ * so both are O(1) no matter how many timeouts are pending. The worker moves
+ * new timeouts into their buckets and unlinks cancelled ones at the start of
+ * each tick. A timeout expires within one tick after its deadline. The worker
+ * thread is started by the first scheduled timeout.
+ * </p>
+ */
+public class HashedTimingWheel {
+
+	public HashedTimingWheel(
+		ThreadFactory threadFactory, long tickDuration, TimeUnit timeUnit,
+		int wheelSize) {
+
+		if ((tickDuration <= 0) || (wheelSize <= 0)) {
+			throw new IllegalArgumentException(
+				"Tick duration and wheel size must be positive");
+		}
+
+		_threadFactory = threadFactory;
+		_tickDuration = Math.max(1, timeUnit.toNanos(tickDuration));
+
+		int bucketCount = Integer.highestOneBit(wheelSize);
+
+		if (bucketCount < wheelSize) {
+			bucketCount <<= 1;
+		}
+
+		_buckets = new Bucket[bucketCount];
+
+		for (int i = 0; i < bucketCount; i++) {
+			_buckets[i] = new Bucket();
+		}
+
+		_mask = bucketCount - 1;
+	}
+
+	public long getPendingTimeoutCount() {
+		return _pendingTimeoutCount.sum();
+	}
+
+	/**
+	 * Schedules the timeout to expire after the specified delay. A delay that
+	 * is not positive expires the timeout on the next tick. A timeout that is
+	 * cancelled before it is scheduled never expires.
+	 */
+	public void schedule(Timeout timeout, long delay, TimeUnit timeUnit) {
+		if (timeout._hashedTimingWheel != null) {
+			throw new IllegalStateException("Timeout is already scheduled");
+		}
+
+		if (_workerThread == null) {
+			_start();
+		}
+
+		if (_stopped) {
+			throw new IllegalStateException("Timing wheel is stopped");
+		}
+
+		timeout._hashedTimingWheel = this;
+		timeout._deadline =
+			System.nanoTime() + Math.max(0, timeUnit.toNanos(delay)) -
+				_startTime;
+
+		if (timeout._compareAndSetState(_STATE_NEW, _STATE_INIT)) {
+			_pendingTimeoutCount.increment();
+
+			_newTimeouts.add(timeout);
+		}
+	}
+
+	/**
+	 * Stops the worker thread. Timeouts that have not expired yet never
+	 * expire.
+	 */
+	public synchronized void stop() {
+		_stopped = true;
+
+		if (_workerThread != null) {
+			LockSupport.unpark(_workerThread);
+		}
+	}
+
+	public abstract static class Timeout {
+
+		/**
+		 * Cancels the timeout.
+		 *
+		 * @return <code>true</code> if the timeout was cancelled before it
+		 *         expired
+		 */
+		public boolean cancel() {
+			if (_compareAndSetState(_STATE_NEW, _STATE_CANCELLED)) {
+
+				return true;
+			}
+
+			if (!_compareAndSetState(_STATE_INIT, _STATE_CANCELLED)) {
+
+				return false;
+			}
+
+			_hashedTimingWheel._pendingTimeoutCount.decrement();
+
+			// Let the worker unlink the timeout from its bucket
+
+			_hashedTimingWheel._cancelledTimeouts.add(this);
+
+			return true;
+		}
+
+		public boolean isCancelled() {
+			if (_state == _STATE_CANCELLED) {
+				return true;
+			}
+
+			return false;
+		}
+
+		public boolean isExpired() {
+			if (_state == _STATE_EXPIRED) {
+				return true;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Runs on the worker thread when the timeout expires. Long running
+		 * work delays the expiration of other timeouts.
+		 */
+		protected abstract void expire();
+
+		private boolean _compareAndSetState(int expectedState, int state) {
+			return _stateUpdater.compareAndSet(this, expectedState, state);
+		}
+
+		private void _expire() {
+			if (!_compareAndSetState(_STATE_INIT, _STATE_EXPIRED)) {
+
+				return;
+			}
+
+			_hashedTimingWheel._pendingTimeoutCount.decrement();
+
+			try {
+				expire();
+			}
+			catch (Throwable t) {
+				_log.error("Unable to expire timeout {}", this, t);
+			}
+		}
+
+		private static final AtomicIntegerFieldUpdater<Timeout> _stateUpdater =
+			AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "_state");
+
+		private Bucket _bucket;
+		private long _deadline;
+		private volatile HashedTimingWheel _hashedTimingWheel;
+		private Timeout _next;
+		private Timeout _previous;
+		private long _remainingRounds;
+		private volatile int _state;
+
+	}
+
+	private synchronized void _start() {
+		if ((_workerThread != null) || _stopped) {
+			return;
+		}
+
+		_startTime = System.nanoTime();
+
+		Thread workerThread = _threadFactory.newThread(new Worker());
+
+		workerThread.start();
+
+		_workerThread = workerThread;
+	}
+
+	private static final int _MAX_TRANSFERS_PER_TICK = 100000;
+
+	private static final int _STATE_CANCELLED = 2;
+
+	private static final int _STATE_EXPIRED = 3;
+
+	private static final int _STATE_INIT = 1;
+
+	private static final int _STATE_NEW = 0;
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		HashedTimingWheel.class);
+
+	private final Bucket[] _buckets;
+	private final Queue<Timeout> _cancelledTimeouts =
+		new ConcurrentLinkedQueue<>();
+	private final int _mask;
+	private final Queue<Timeout> _newTimeouts = new ConcurrentLinkedQueue<>();
+	private final LongAdder _pendingTimeoutCount = new LongAdder();
+	private volatile long _startTime;
+	private volatile boolean _stopped;
+	private final ThreadFactory _threadFactory;
+	private final long _tickDuration;
+	private volatile Thread _workerThread;
+
+	/**
+	 * Holds the timeouts of one slot of the wheel in a doubly linked list.
+	 * Only the worker thread accesses buckets.
+	 */
+	private static class Bucket {
+
+		public void add(Timeout timeout) {
+			timeout._bucket = this;
+
+			if (_head == null) {
+				_head = timeout;
+				_tail = timeout;
+			}
+			else {
+				_tail._next = timeout;
+				timeout._previous = _tail;
+				_tail = timeout;
+			}
+		}
+
+		public void expire() {
+			Timeout timeout = _head;
+
+			while (timeout != null) {
+				Timeout next = timeout._next;
+
+				if (timeout._remainingRounds <= 0) {
+					remove(timeout);
+
+					timeout._expire();
+				}
+				else if (timeout.isCancelled()) {
+					remove(timeout);
+				}
+				else {
+					timeout._remainingRounds--;
+				}
+
+				timeout = next;
+			}
+		}
+
+		public void remove(Timeout timeout) {
+			Timeout next = timeout._next;
+
+			if (timeout._previous != null) {
+				timeout._previous._next = next;
+			}
+
+			if (next != null) {
+				next._previous = timeout._previous;
+			}
+
+			if (timeout == _head) {
+				_head = next;
+			}
+
+			if (timeout == _tail) {
+				_tail = timeout._previous;
+			}
+
+			timeout._bucket = null;
+			timeout._next = null;
+			timeout._previous = null;
+		}
+
+		private Timeout _head;
+		private Timeout _tail;
+
+	}
+
+	private class Worker implements Runnable {
+
+		@Override
+		public void run() {
+			while (true) {
+				long deadline = _waitForNextTick();
+
+				if (deadline < 0) {
+					return;
+				}
+
+				_removeCancelledTimeouts();
+				_transferNewTimeouts();
+
+				Bucket bucket = _buckets[(int)(_tick & _mask)];
+
+				bucket.expire();
+
+				_tick++;
+			}
+		}
+
+		private void _removeCancelledTimeouts() {
+			Timeout timeout = null;
+
+			while ((timeout = _cancelledTimeouts.poll()) != null) {
+				Bucket bucket = timeout._bucket;
+
+				if (bucket != null) {
+					bucket.remove(timeout);
+				}
+			}
+		}
+
+		private void _transferNewTimeouts() {
+
+			// Cap the transfers so that a burst of new timeouts cannot delay
+			// the expiration of the current bucket indefinitely
+
+			for (int i = 0; i < _MAX_TRANSFERS_PER_TICK; i++) {
+				Timeout timeout = _newTimeouts.poll();
+
+				if (timeout == null) {
+					return;
+				}
+
+				if (timeout.isCancelled()) {
+					continue;
+				}
+
+				long ticks = timeout._deadline / _tickDuration;
+
+				timeout._remainingRounds = (ticks - _tick) / _buckets.length;
+
+				ticks = Math.max(ticks, _tick);
+
+				Bucket bucket = _buckets[(int)(ticks & _mask)];
+
+				bucket.add(timeout);
+			}
+		}
+
+		/**
+		 * Waits for the end of the current tick and returns the elapsed time
+		 * since the start, or -1 if the wheel was stopped.
+		 */
+		private long _waitForNextTick() {
+			long deadline = _tickDuration * (_tick + 1);
+
+			while (!_stopped) {
+				long currentTime = System.nanoTime() - _startTime;
+
+				long sleepTime = deadline - currentTime;
+
+				if (sleepTime <= 0) {
+					return currentTime;
+				}
+
+				LockSupport.parkNanos(this, sleepTime);
+			}
+
+			return -1;
+		}
+
+		private long _tick;
+
+	}
+
+}
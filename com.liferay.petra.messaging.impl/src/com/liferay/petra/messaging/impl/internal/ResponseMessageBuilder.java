@@ -118,6 +118,13 @@ public class ResponseMessageBuilder implements MessageBuilder {
 		return this;
 	}
 
+	@Override
+	public MessageBuilder setTimeToLive(long timeToLive) {
+		_message.setExpirationTime(System.currentTimeMillis() + timeToLive);
+
+		return this;
+	}
+
 	@Override
 	public MessageBuilder setValues(Map<String, Object> values) {
 		_message.setValues(values);
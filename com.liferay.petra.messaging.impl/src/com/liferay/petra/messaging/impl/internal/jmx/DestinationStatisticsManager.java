@@ -44,6 +44,33 @@ public class DestinationStatisticsManager
 		return _destinationStatistics.getActiveThreadCount();
 	}
 
+	@Override
+	public long getBatchCount() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getBatchCount();
+	}
+
+	@Override
+	public long getBatchMessageCount() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getBatchMessageCount();
+	}
+
+	@Override
+	public long getCoalescedMessageCount() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getCoalescedMessageCount();
+	}
+
 	@Override
 	public int getCurrentThreadCount() {
 		if (_autoRefresh || (_destinationStatistics == null)) {
@@ -53,6 +80,24 @@ public class DestinationStatisticsManager
 		return _destinationStatistics.getCurrentThreadCount();
 	}
 
+	@Override
+	public long getExpiredMessageCount() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getExpiredMessageCount();
+	}
+
+	@Override
+	public int getLargestBatchSize() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getLargestBatchSize();
+	}
+
 	@Override
 	public int getLargestThreadCount() {
 		if (_autoRefresh || (_destinationStatistics == null)) {
@@ -62,6 +107,15 @@ public class DestinationStatisticsManager
 		return _destinationStatistics.getLargestThreadCount();
 	}
 
+	@Override
+	public String getLastPoolAdjustment() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getLastPoolAdjustment();
+	}
+
 	@Override
 	public String getLastRefresh() {
 		return String.valueOf(_lastRefresh);
@@ -102,6 +156,24 @@ public class DestinationStatisticsManager
 		return _destinationStatistics.getPendingMessageCount();
 	}
 
+	@Override
+	public long getPoolAdjustmentCount() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getPoolAdjustmentCount();
+	}
+
+	@Override
+	public long getRejectedMessageCount() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getRejectedMessageCount();
+	}
+
 	@Override
 	public long getSentMessageCount() {
 		if (_autoRefresh || (_destinationStatistics == null)) {
@@ -111,6 +183,24 @@ public class DestinationStatisticsManager
 		return _destinationStatistics.getSentMessageCount();
 	}
 
+	@Override
+	public long getSpilledMessageCount() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getSpilledMessageCount();
+	}
+
+	@Override
+	public long getThrottledMessageCount() {
+		if (_autoRefresh || (_destinationStatistics == null)) {
+			refresh();
+		}
+
+		return _destinationStatistics.getThrottledMessageCount();
+	}
+
 	@Override
 	public boolean isAutoRefresh() {
 		return _autoRefresh;
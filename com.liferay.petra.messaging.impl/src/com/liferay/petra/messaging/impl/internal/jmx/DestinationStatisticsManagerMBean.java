@@ -22,10 +22,22 @@ public interface DestinationStatisticsManagerMBean {
 
 	public int getActiveThreadCount();
 
+	public long getBatchCount();
+
+	public long getBatchMessageCount();
+
+	public long getCoalescedMessageCount();
+
 	public int getCurrentThreadCount();
 
+	public long getExpiredMessageCount();
+
+	public int getLargestBatchSize();
+
 	public int getLargestThreadCount();
 
+	public String getLastPoolAdjustment();
+
 	public String getLastRefresh();
 
 	public int getMaxThreadPoolSize();
@@ -34,8 +46,16 @@ public interface DestinationStatisticsManagerMBean {
 
 	public long getPendingMessageCount();
 
+	public long getPoolAdjustmentCount();
+
+	public long getRejectedMessageCount();
+
 	public long getSentMessageCount();
 
+	public long getSpilledMessageCount();
+
+	public long getThrottledMessageCount();
+
 	public boolean isAutoRefresh();
 
 	public void refresh();
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.impl.internal.sender;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates correlation IDs for request messages.
+ *
+ * <p>
+ * A correlation ID is a <code>long</code> whose upper 24 bits hold a prefix
+ * chosen at random for this node and whose lower 40 bits hold a sequence
+ * number. The prefix keeps IDs from different nodes apart, and a correlation
+ * ID is never <code>0</code>.
+ * </p>
+ */
+public class CorrelationIdGenerator {
+
+	public CorrelationIdGenerator() {
+		this(ThreadLocalRandom.current().nextInt(1, 1 << _PREFIX_BITS));
+	}
+
+	public CorrelationIdGenerator(int prefix) {
+		if ((prefix <= 0) || (prefix >= (1 << _PREFIX_BITS))) {
+			throw new IllegalArgumentException("Invalid prefix " + prefix);
+		}
+
+		_prefix = (long)prefix << _SEQUENCE_BITS;
+	}
+
+	public long nextCorrelationId() {
+		return _prefix | (_sequence.incrementAndGet() & _SEQUENCE_MASK);
+	}
+
+	private static final int _PREFIX_BITS = 24;
+
+	private static final int _SEQUENCE_BITS = 40;
+
+	private static final long _SEQUENCE_MASK = (1L << _SEQUENCE_BITS) - 1;
+
+	private final long _prefix;
+	private final AtomicLong _sequence = new AtomicLong();
+
+}
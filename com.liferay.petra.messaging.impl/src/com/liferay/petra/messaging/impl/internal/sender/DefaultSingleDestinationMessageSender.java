@@ -14,6 +14,7 @@
 
 package com.liferay.petra.messaging.impl.internal.sender;
 
+import com.liferay.petra.messaging.api.DestinationHandle;
 import com.liferay.petra.messaging.api.Message;
 import com.liferay.petra.messaging.api.MessageBus;
 import com.liferay.petra.messaging.spi.MessageImpl;
@@ -27,7 +28,15 @@ public class DefaultSingleDestinationMessageSender
 
 	@Override
 	public void send(Message message) {
-		_messageBus.sendMessage(_destinationName, message);
+		DestinationHandle destinationHandle = _destinationHandle;
+
+		if (destinationHandle == null) {
+			destinationHandle = _messageBus.resolve(_destinationName);
+
+			_destinationHandle = destinationHandle;
+		}
+
+		destinationHandle.send(message);
 	}
 
 	@Override
@@ -41,12 +50,15 @@ public class DefaultSingleDestinationMessageSender
 
 	public void setDestinationName(String destinationName) {
 		_destinationName = destinationName;
+		_destinationHandle = null;
 	}
 
 	public void setMessageBus(MessageBus messageBus) {
 		_messageBus = messageBus;
+		_destinationHandle = null;
 	}
 
+	private volatile DestinationHandle _destinationHandle;
 	private String _destinationName;
 	private MessageBus _messageBus;
 
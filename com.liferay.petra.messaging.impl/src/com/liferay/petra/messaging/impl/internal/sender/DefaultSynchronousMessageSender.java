@@ -14,16 +14,15 @@
 
 package com.liferay.petra.messaging.impl.internal.sender;
 
-import com.liferay.petra.messaging.api.DestinationNames;
 import com.liferay.petra.messaging.api.Message;
 import com.liferay.petra.messaging.api.MessageBusException;
 import com.liferay.petra.messaging.impl.internal.DefaultMessageBus;
+import com.liferay.petra.messaging.spi.BaseDestination;
 import com.liferay.petra.messaging.spi.Destination;
 import com.liferay.petra.messaging.spi.sender.SynchronousMessageSender;
-import com.liferay.petra.io.util.Validator;
 
-import java.util.UUID;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,34 +66,36 @@ public class DefaultSynchronousMessageSender
 			return null;
 		}
 
-		message.setDestinationName(destinationName);
+		CompletableFuture<Object> completableFuture = _messageBus.sendRequest(
+			(BaseDestination)destination, destinationName, message, timeout);
 
-		String responseDestinationName = message.getResponseDestinationName();
+		try {
+			Object result = completableFuture.get();
 
-		// Create a temporary destination if no response destination is
-		// configured
+			// A reply without a payload cannot be told apart from no reply
 
-		if (Validator.isNull(responseDestinationName) ||
-			!_messageBus.hasDestination(responseDestinationName)) {
-
-			if (_logger.isDebugEnabled()) {
-				_logger.debug(
-					"Response destination {} is not configured",
-					responseDestinationName);
+			if (result == null) {
+				throw new MessageBusException(
+					"No reply received for message: " + message);
 			}
 
-			message.setResponseDestinationName(
-				DestinationNames.MESSAGE_BUS_DEFAULT_RESPONSE);
+			return result;
 		}
+		catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
 
-		String responseId = generateUUID();
-
-		message.setResponseId(responseId);
+			if (cause instanceof MessageBusException) {
+				throw (MessageBusException)cause;
+			}
 
-		SynchronousMessageListener synchronousMessageListener =
-			new SynchronousMessageListener(_messageBus, message, timeout);
+			throw new MessageBusException(cause);
+		}
+		catch (InterruptedException ie) {
+			completableFuture.cancel(false);
 
-		return synchronousMessageListener.send();
+			throw new MessageBusException(
+				"Message sending interrupted for: " + message, ie);
+		}
 	}
 
 	public void setMessageBus(DefaultMessageBus messageBus) {
@@ -105,14 +106,6 @@ public class DefaultSynchronousMessageSender
 		_timeout = timeout;
 	}
 
-	protected String generateUUID() {
-		UUID uuid = new UUID(
-			ThreadLocalRandom.current().nextLong(),
-			ThreadLocalRandom.current().nextLong());
-
-		return uuid.toString();
-	}
-
 	private static final Logger _logger = LoggerFactory.getLogger(
 		DefaultSynchronousMessageSender.class);
 
@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.impl.internal.sender;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Maps correlation IDs to the futures of pending requests without boxing the
+ * IDs.
+ *
+ * <p>
+ * The map is split into segments that are locked independently. Each segment
+ * is an open addressing table with linear probing. The key <code>0</code>
+ * marks an empty slot, which is safe because correlation IDs are never
+ * <code>0</code>.
+ * </p>
+ */
+public class PendingResponseMap {
+
+	public PendingResponseMap() {
+		for (int i = 0; i < _segments.length; i++) {
+			_segments[i] = new Segment();
+		}
+	}
+
+	public void put(
+		long correlationId, CompletableFuture<Object> completableFuture) {
+
+		long hash = _hash(correlationId);
+
+		Segment segment = _segments[(int)hash & _SEGMENT_MASK];
+
+		segment.put(correlationId, hash >>> _SEGMENT_BITS, completableFuture);
+	}
+
+	public CompletableFuture<Object> remove(long correlationId) {
+		long hash = _hash(correlationId);
+
+		Segment segment = _segments[(int)hash & _SEGMENT_MASK];
+
+		return segment.remove(correlationId, hash >>> _SEGMENT_BITS, null);
+	}
+
+	public boolean remove(
+		long correlationId, CompletableFuture<Object> completableFuture) {
+
+		long hash = _hash(correlationId);
+
+		Segment segment = _segments[(int)hash & _SEGMENT_MASK];
+
+		if (segment.remove(
+				correlationId, hash >>> _SEGMENT_BITS, completableFuture) !=
+					null) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (Segment segment : _segments) {
+			size += segment.size();
+		}
+
+		return size;
+	}
+
+	public Collection<CompletableFuture<Object>> values() {
+		List<CompletableFuture<Object>> values = new ArrayList<>();
+
+		for (Segment segment : _segments) {
+			segment.addValuesTo(values);
+		}
+
+		return values;
+	}
+
+	private static long _hash(long correlationId) {
+
+		// Sequence numbers are consecutive, so mix the bits before using them
+		// as an index
+
+		correlationId ^= correlationId >>> 33;
+		correlationId *= 0xff51afd7ed558ccdL;
+		correlationId ^= correlationId >>> 33;
+
+		return correlationId;
+	}
+
+	private static final int _SEGMENT_BITS = 4;
+
+	private static final int _SEGMENT_MASK = (1 << _SEGMENT_BITS) - 1;
+
+	private final Segment[] _segments = new Segment[1 << _SEGMENT_BITS];
+
+	private static class Segment {
+
+		public synchronized void addValuesTo(
+			List<CompletableFuture<Object>> values) {
+
+			for (int i = 0; i < _keys.length; i++) {
+				if (_keys[i] != 0) {
+					values.add(_values[i]);
+				}
+			}
+		}
+
+		public synchronized void put(
+			long key, long hash, CompletableFuture<Object> value) {
+
+			if ((_size + 1) * 2 > _keys.length) {
+				_resize();
+			}
+
+			int mask = _keys.length - 1;
+
+			for (int i = (int)hash & mask;; i = (i + 1) & mask) {
+				if (_keys[i] == key) {
+					_values[i] = value;
+
+					return;
+				}
+
+				if (_keys[i] == 0) {
+					_keys[i] = key;
+					_values[i] = value;
+
+					_size++;
+
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Removes the entry for the key if its value is the expected value,
+		 * or unconditionally if the expected value is <code>null</code>.
+		 */
+		public synchronized CompletableFuture<Object> remove(
+			long key, long hash, CompletableFuture<Object> expectedValue) {
+
+			int mask = _keys.length - 1;
+
+			int i = (int)hash & mask;
+
+			while (_keys[i] != key) {
+				if (_keys[i] == 0) {
+					return null;
+				}
+
+				i = (i + 1) & mask;
+			}
+
+			CompletableFuture<Object> value = _values[i];
+
+			if ((expectedValue != null) && (expectedValue != value)) {
+				return null;
+			}
+
+			// Shift later entries of the same probe sequence back so that
+			// lookups never stop early at the freed slot
+
+			int j = i;
+
+			while (true) {
+				j = (j + 1) & mask;
+
+				if (_keys[j] == 0) {
+					break;
+				}
+
+				int home = (int)(_hash(_keys[j]) >>> _SEGMENT_BITS) & mask;
+
+				if (((j > i) && ((home <= i) || (home > j))) ||
+					((j < i) && ((home <= i) && (home > j)))) {
+
+					_keys[i] = _keys[j];
+					_values[i] = _values[j];
+
+					i = j;
+				}
+			}
+
+			_keys[i] = 0;
+			_values[i] = null;
+
+			_size--;
+
+			return value;
+		}
+
+		public synchronized int size() {
+			return _size;
+		}
+
+		private void _resize() {
+			long[] keys = _keys;
+			CompletableFuture<Object>[] values = _values;
+
+			_keys = new long[keys.length * 2];
+			_values = _newArray(keys.length * 2);
+
+			int mask = _keys.length - 1;
+
+			for (int i = 0; i < keys.length; i++) {
+				long key = keys[i];
+
+				if (key == 0) {
+					continue;
+				}
+
+				int j = (int)(_hash(key) >>> _SEGMENT_BITS) & mask;
+
+				while (_keys[j] != 0) {
+					j = (j + 1) & mask;
+				}
+
+				_keys[j] = key;
+				_values[j] = values[i];
+			}
+		}
+
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		private static CompletableFuture<Object>[] _newArray(int length) {
+			return new CompletableFuture[length];
+		}
+
+		private long[] _keys = new long[16];
+		private int _size;
+		private CompletableFuture<Object>[] _values = _newArray(16);
+
+	}
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.impl.internal.sender;
+
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageBusException;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.BaseDestination;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.framework.Constants;
+
+/**
+ * Matches replies on a response destination to pending requests.
+ *
+ * <p>
+ * One correlator listens on each response destination for as long as the
+ * destination exists. Pending requests are kept in a map keyed by correlation
+ * ID, so each reply is handed to exactly one waiter without a listener per
+ * request. A request that times out is removed from the map by its task on
+ * the shared scheduler.
+ * </p>
+ */
+public class ResponseCorrelator implements MessageListener {
+
+	public ResponseCorrelator(
+		BaseDestination responseDestination,
+		ScheduledExecutorService scheduledExecutorService) {
+
+		_responseDestination = responseDestination;
+		_scheduledExecutorService = scheduledExecutorService;
+
+		_properties.put("destination.name", responseDestination.getName());
+		_properties.put(Constants.SERVICE_ID, Long.MAX_VALUE);
+		_properties.put(Constants.SERVICE_RANKING, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Stops listening on the response destination and fails every pending
+	 * request.
+	 */
+	public void close() {
+		_responseDestination.removeMessageListener(this, _properties);
+
+		for (CompletableFuture<Object> completableFuture :
+				_pendingResponseMap.values()) {
+
+			completableFuture.completeExceptionally(
+				new MessageBusException(
+					"Response destination " + _responseDestination.getName() +
+						" was removed"));
+		}
+	}
+
+	public int getPendingCount() {
+		return _pendingResponseMap.size();
+	}
+
+	public void open() {
+		_responseDestination.addMessageListener(this, _properties);
+	}
+
+	@Override
+	public void receive(Message message) {
+		long correlationId = message.getCorrelationId();
+
+		if (correlationId == 0) {
+			return;
+		}
+
+		CompletableFuture<Object> completableFuture =
+			_pendingResponseMap.remove(correlationId);
+
+		if (completableFuture != null) {
+			completableFuture.complete(message.getPayload());
+		}
+	}
+
+	/**
+	 * Returns a future that completes with the payload of the reply to the
+	 * specified message. The message must have a correlation ID, and this must
+	 * be called before the message is sent.
+	 */
+	public CompletableFuture<Object> register(Message message, long timeout) {
+		long correlationId = message.getCorrelationId();
+
+		CompletableFuture<Object> completableFuture = new CompletableFuture<>();
+
+		_pendingResponseMap.put(correlationId, completableFuture);
+
+		ScheduledFuture<?> scheduledFuture = _scheduledExecutorService.schedule(
+			() -> completableFuture.completeExceptionally(
+				new MessageBusException(
+					"No reply received for message: " + message)),
+			timeout, TimeUnit.MILLISECONDS);
+
+		completableFuture.whenComplete(
+			(result, throwable) -> {
+				scheduledFuture.cancel(false);
+
+				_pendingResponseMap.remove(correlationId, completableFuture);
+			});
+
+		return completableFuture;
+	}
+
+	private final PendingResponseMap _pendingResponseMap =
+		new PendingResponseMap();
+	private final Map<String, Object> _properties = new HashMap<>();
+	private final BaseDestination _responseDestination;
+	private final ScheduledExecutorService _scheduledExecutorService;
+
+}
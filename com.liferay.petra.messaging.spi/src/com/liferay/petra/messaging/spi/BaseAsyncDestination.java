@@ -14,20 +14,36 @@
 
 package com.liferay.petra.messaging.spi;
 
+import com.liferay.petra.messaging.api.BatchMessageListener;
 import com.liferay.petra.messaging.api.DestinationStatistics;
 import com.liferay.petra.messaging.api.ExecutorServiceRegistrar;
 import com.liferay.petra.messaging.api.InboundMessageProcessor;
 import com.liferay.petra.messaging.api.Message;
 import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.api.MessageListenerException;
+import com.liferay.petra.messaging.api.MessageMerger;
 import com.liferay.petra.messaging.api.MessageProcessorException;
+import com.liferay.petra.messaging.api.RejectionPolicy;
 import com.liferay.petra.concurrent.NamedThreadFactory;
 import com.liferay.petra.concurrent.RejectedExecutionHandler;
 import com.liferay.petra.concurrent.ThreadPoolExecutor;
+import com.liferay.petra.concurrent.ThreadPoolHandler;
 import com.liferay.petra.concurrent.ThreadPoolHandlerAdapter;
+import com.liferay.petra.io.util.Validator;
+import com.liferay.petra.string.StringPool;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -44,19 +60,40 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 
 	@Override
 	public void close(boolean force) {
+		PoolSizeTuner poolSizeTuner = _poolSizeTuner;
+
+		if (poolSizeTuner != null) {
+			poolSizeTuner.unregister(this);
+		}
+
 		if (_executorServiceRegistrar != null) {
 			_executorServiceRegistrar.registerExecutorService(getName(), null);
 		}
 
-		if ((_threadPoolExecutor == null) || _threadPoolExecutor.isShutdown()) {
+		ThreadPoolExecutor threadPoolExecutor = null;
+
+		_threadPoolExecutorLock.lock();
+
+		try {
+			_opened = false;
+
+			threadPoolExecutor = _threadPoolExecutor;
+		}
+		finally {
+			_threadPoolExecutorLock.unlock();
+		}
+
+		if ((threadPoolExecutor == null) || threadPoolExecutor.isShutdown()) {
 			return;
 		}
 
+		closeOverflowMessageQueue(force);
+
 		if (force) {
-			_threadPoolExecutor.shutdownNow();
+			threadPoolExecutor.shutdownNow();
 		}
 		else {
-			_threadPoolExecutor.shutdown();
+			threadPoolExecutor.shutdown();
 		}
 	}
 
@@ -65,83 +102,172 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 		DestinationStatisticsImpl destinationStatistics =
 			new DestinationStatisticsImpl();
 
-		destinationStatistics.setActiveThreadCount(
-			_threadPoolExecutor.getActiveCount());
-		destinationStatistics.setCurrentThreadCount(
-			_threadPoolExecutor.getPoolSize());
-		destinationStatistics.setLargestThreadCount(
-			_threadPoolExecutor.getLargestPoolSize());
-		destinationStatistics.setMaxThreadPoolSize(
-			_threadPoolExecutor.getMaxPoolSize());
-		destinationStatistics.setMinThreadPoolSize(
-			_threadPoolExecutor.getCorePoolSize());
-		destinationStatistics.setPendingMessageCount(
-			_threadPoolExecutor.getPendingTaskCount());
-		destinationStatistics.setSentMessageCount(
-			_threadPoolExecutor.getCompletedTaskCount());
+		ThreadPoolExecutor threadPoolExecutor = _threadPoolExecutor;
+
+		if (threadPoolExecutor != null) {
+			destinationStatistics.setActiveThreadCount(
+				threadPoolExecutor.getActiveCount());
+			destinationStatistics.setCurrentThreadCount(
+				threadPoolExecutor.getPoolSize());
+			destinationStatistics.setLargestThreadCount(
+				threadPoolExecutor.getLargestPoolSize());
+			destinationStatistics.setMaxThreadPoolSize(
+				threadPoolExecutor.getMaxPoolSize());
+			destinationStatistics.setMinThreadPoolSize(
+				threadPoolExecutor.getCorePoolSize());
+			destinationStatistics.setPendingMessageCount(
+				threadPoolExecutor.getPendingTaskCount());
+			destinationStatistics.setSentMessageCount(
+				threadPoolExecutor.getCompletedTaskCount());
+		}
+		else {
+
+			// A lazy destination has no thread pool until it is sent a message
+
+			destinationStatistics.setMaxThreadPoolSize(_workersMaxSize);
+			destinationStatistics.setMinThreadPoolSize(_workersCoreSize);
+		}
+
+		destinationStatistics.setBatchCount(_batchCount.sum());
+		destinationStatistics.setBatchMessageCount(_batchMessageCount.sum());
+		destinationStatistics.setCoalescedMessageCount(
+			getCoalescedMessageCount());
+		destinationStatistics.setExpiredMessageCount(getExpiredMessageCount());
+		destinationStatistics.setLargestBatchSize(_largestBatchSize.get());
+		destinationStatistics.setLastPoolAdjustment(_lastPoolAdjustment);
+		destinationStatistics.setPoolAdjustmentCount(
+			_poolAdjustmentCount.sum());
+		destinationStatistics.setRejectedMessageCount(
+			getRejectedMessageCount());
+		destinationStatistics.setSpilledMessageCount(getSpilledMessageCount());
+		destinationStatistics.setThrottledMessageCount(
+			getThrottledMessageCount());
 
 		return destinationStatistics;
 	}
 
+	public String getCoalesceKey() {
+		MessageCoalescer messageCoalescer = _messageCoalescer;
+
+		if (messageCoalescer == null) {
+			return StringPool.BLANK;
+		}
+
+		return messageCoalescer.getCoalesceKey();
+	}
+
+	public long getMaximumBatchDelay() {
+		return _maximumBatchDelay;
+	}
+
+	public int getMaximumBatchSize() {
+		return _maximumBatchSize;
+	}
+
 	public int getMaximumQueueSize() {
 		return _maximumQueueSize;
 	}
 
+	public String getOverflowDirectory() {
+		return _overflowDirectory;
+	}
+
+	public int getOverflowHighWaterMark() {
+		return _overflowHighWaterMark;
+	}
+
+	public int getOverflowLowWaterMark() {
+		return _overflowLowWaterMark;
+	}
+
+	public int getOverflowSegmentSize() {
+		return _overflowSegmentSize;
+	}
+
+	public RejectionPolicy getRejectionPolicy() {
+		return _rejectionPolicy;
+	}
+
+	public long getRejectionTimeout() {
+		return _rejectionTimeout;
+	}
+
 	public int getWorkersCoreSize() {
 		return _workersCoreSize;
 	}
 
+	public long getWorkersIdleTimeout() {
+		return _workersIdleTimeout;
+	}
+
 	public int getWorkersMaxSize() {
 		return _workersMaxSize;
 	}
 
-	@Override
-	public void open() {
-		if ((_threadPoolExecutor != null) &&
-			!_threadPoolExecutor.isShutdown()) {
+	public int getWorkersWeight() {
+		return _workersWeight;
+	}
 
-			return;
-		}
+	public boolean isWorkersAutoTuned() {
+		return _workersAutoTuned;
+	}
 
-		ClassLoader classLoader = _clazz.getClassLoader();
+	public boolean isWorkersLazy() {
+		return _workersLazy;
+	}
 
-		if (_rejectedExecutionHandler == null) {
-			_rejectedExecutionHandler = createRejectionExecutionHandler();
-		}
+	public boolean isWorkersShared() {
+		return _workersShared;
+	}
 
-		ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
-			_workersCoreSize, _workersMaxSize, 60L, TimeUnit.SECONDS, false,
-			_maximumQueueSize, _rejectedExecutionHandler,
-			new NamedThreadFactory(
-				getName(), Thread.NORM_PRIORITY, classLoader),
-			new ThreadPoolHandlerAdapter());
+	public boolean isWorkersVirtual() {
+		return _workersVirtual;
+	}
 
-		ThreadPoolExecutor oldThreadPoolExecutor = null;
+	/**
+	 * Opens the destination. A lazy destination creates its thread pool when
+	 * it is first sent a message instead.
+	 */
+	@Override
+	public void open() {
+		_threadPoolExecutorLock.lock();
 
-		if (_executorServiceRegistrar != null) {
-			oldThreadPoolExecutor =
-				_executorServiceRegistrar.registerExecutorService(
-					getName(), threadPoolExecutor);
-		}
+		try {
+			ThreadPoolExecutor threadPoolExecutor = _threadPoolExecutor;
 
-		if (oldThreadPoolExecutor != null) {
-			if (_log.isWarnEnabled()) {
-				_log.warn(
-					"Abort creating a new thread pool for destination " +
-						getName() + " and reuse previous one");
+			if (threadPoolExecutor != null) {
+				if (!threadPoolExecutor.isShutdown()) {
+					return;
+				}
+
+				_threadPoolExecutor = null;
 			}
 
-			threadPoolExecutor.shutdownNow();
+			_opened = true;
 
-			threadPoolExecutor = oldThreadPoolExecutor;
+			if (!_workersLazy) {
+				_createThreadPoolExecutor();
+			}
 		}
+		finally {
+			_threadPoolExecutorLock.unlock();
+		}
+	}
 
-		_threadPoolExecutor = threadPoolExecutor;
+	@Override
+	public void removeMessageListener(
+		MessageListener messageListener, Map<String, Object> properties) {
+
+		super.removeMessageListener(messageListener, properties);
+
+		_messageBatchers.remove(new InvokerMessageListener(messageListener));
 	}
 
 	@Override
 	public void send(Message message) {
-		if (messageListeners.isEmpty()) {
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (!dispatchPlan.hasMessageListeners()) {
 			if (_log.isDebugEnabled()) {
 				_log.debug("No message listeners for destination " + getName());
 			}
@@ -149,9 +275,7 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 			return;
 		}
 
-		ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
-
-		if (threadPoolExecutor.isShutdown()) {
+		if (isShutdown()) {
 			throw new IllegalStateException(
 				"Destination " + getName() + " is shutdown and cannot " +
 					"receive more messages");
@@ -164,7 +288,7 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 		}
 
 		List<InboundMessageProcessor> inboundMessageProcessors =
-			getInboundMessageProcessors();
+			dispatchPlan.createInboundMessageProcessors();
 
 		try {
 			for (InboundMessageProcessor processor : inboundMessageProcessors) {
@@ -176,7 +300,14 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 				}
 			}
 
-			dispatch(getMessageListeners(), inboundMessageProcessors, message);
+			Message queuedMessage = coalesce(message);
+
+			if ((queuedMessage != null) && !_spill(queuedMessage)) {
+
+				dispatch(
+					dispatchPlan.getMessageListeners(),
+					inboundMessageProcessors, queuedMessage);
+			}
 		}
 		finally {
 			for (InboundMessageProcessor processor : inboundMessageProcessors) {
@@ -190,6 +321,109 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 		}
 	}
 
+	@Override
+	public void send(Collection<Message> messages) {
+		if (messages.isEmpty()) {
+			return;
+		}
+
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (!dispatchPlan.hasMessageListeners()) {
+			if (_log.isDebugEnabled()) {
+				_log.debug("No message listeners for destination " + getName());
+			}
+
+			return;
+		}
+
+		if (isShutdown()) {
+			throw new IllegalStateException(
+				"Destination " + getName() + " is shutdown and cannot " +
+					"receive more messages");
+		}
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(
+				"Sending " + messages.size() + " messages from destination " +
+					getName() + " to message listeners " + messageListeners);
+		}
+
+		List<InboundMessageProcessor> inboundMessageProcessors =
+			dispatchPlan.createInboundMessageProcessors();
+
+		List<Message> processedMessages = new ArrayList<>(messages.size());
+		List<Message> queuedMessages = new ArrayList<>(messages.size());
+
+		try {
+			for (Message message : messages) {
+				for (InboundMessageProcessor processor :
+						inboundMessageProcessors) {
+
+					try {
+						message = processor.beforeReceive(message);
+					}
+					catch (MessageProcessorException mpe) {
+						_log.error(
+							"Unable to process message " + message, mpe);
+					}
+				}
+
+				processedMessages.add(message);
+
+				Message queuedMessage = coalesce(message);
+
+				if (queuedMessage != null) {
+					queuedMessages.add(queuedMessage);
+				}
+			}
+
+			if (!queuedMessages.isEmpty() && !_spill(queuedMessages)) {
+				dispatch(
+					dispatchPlan.getMessageListeners(),
+					inboundMessageProcessors, queuedMessages);
+			}
+		}
+		finally {
+			for (Message message : processedMessages) {
+				for (InboundMessageProcessor processor :
+						inboundMessageProcessors) {
+
+					try {
+						processor.afterReceive(message);
+					}
+					catch (MessageProcessorException mpe) {
+						_log.error(
+							"Unable to process message " + message, mpe);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the message value that identifies messages which may be coalesced.
+	 * A blank key disables coalescing.
+	 */
+	public void setCoalesceKey(String coalesceKey) {
+		if (Validator.isNull(coalesceKey)) {
+			_messageCoalescer = null;
+		}
+		else {
+			_messageCoalescer = new MessageCoalescer(coalesceKey);
+		}
+	}
+
+	@Reference(
+		cardinality = ReferenceCardinality.OPTIONAL,
+		policyOption = ReferencePolicyOption.GREEDY, unbind = "-"
+	)
+	public void setDestinationScheduler(
+		DestinationScheduler destinationScheduler) {
+
+		_destinationScheduler = destinationScheduler;
+	}
+
 	@Reference(
 		cardinality = ReferenceCardinality.OPTIONAL,
 		policyOption = ReferencePolicyOption.GREEDY, unbind = "-"
@@ -200,10 +434,71 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 		_executorServiceRegistrar = executorServiceRegistrar;
 	}
 
+	public void setMaximumBatchDelay(long maximumBatchDelay) {
+		_maximumBatchDelay = maximumBatchDelay;
+	}
+
+	public void setMaximumBatchSize(int maximumBatchSize) {
+		_maximumBatchSize = maximumBatchSize;
+	}
+
 	public void setMaximumQueueSize(int maximumQueueSize) {
 		_maximumQueueSize = maximumQueueSize;
 	}
 
+	/**
+	 * Sets the message merger of coalesced messages. The destination factory
+	 * targets this reference at the message mergers registered with the name
+	 * of the destination, the same way as the message listeners.
+	 */
+	@Reference(
+		cardinality = ReferenceCardinality.OPTIONAL,
+		policyOption = ReferencePolicyOption.GREEDY, unbind = "-"
+	)
+	public void setMessageMerger(MessageMerger messageMerger) {
+		_messageMerger = messageMerger;
+	}
+
+	public void setOverflowDirectory(String overflowDirectory) {
+		_overflowDirectory = overflowDirectory;
+	}
+
+	/**
+	 * Sets the number of queued tasks past which new messages are spilled to
+	 * disk instead of being queued on the heap. Zero disables spilling.
+	 *
+	 * <p>
+	 * Messages are only spilled while every inbound message processor
+	 * factory of the destination is shareable. A reloaded message is
+	 * dispatched by the thread that reads it back, so its before and after
+	 * thread stages run on the shared processors that saw its before receive
+	 * stage, with that thread as the dispatch thread.
+	 * </p>
+	 */
+	public void setOverflowHighWaterMark(int overflowHighWaterMark) {
+		_overflowHighWaterMark = overflowHighWaterMark;
+	}
+
+	/**
+	 * Sets the number of queued tasks below which spilled messages are read
+	 * back. Zero uses half the high water mark.
+	 */
+	public void setOverflowLowWaterMark(int overflowLowWaterMark) {
+		_overflowLowWaterMark = overflowLowWaterMark;
+	}
+
+	public void setOverflowSegmentSize(int overflowSegmentSize) {
+		_overflowSegmentSize = overflowSegmentSize;
+	}
+
+	@Reference(
+		cardinality = ReferenceCardinality.OPTIONAL,
+		policyOption = ReferencePolicyOption.GREEDY, unbind = "-"
+	)
+	public void setPoolSizeTuner(PoolSizeTuner poolSizeTuner) {
+		_poolSizeTuner = poolSizeTuner;
+	}
+
 	@Reference(
 		cardinality = ReferenceCardinality.OPTIONAL,
 		policyOption = ReferencePolicyOption.GREEDY, unbind = "-"
@@ -214,22 +509,127 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 		_rejectedExecutionHandler = rejectedExecutionHandler;
 	}
 
+	public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+		if (isOrdered()) {
+			RejectionPolicy orderedRejectionPolicy = rejectionPolicy;
+
+			if (rejectionPolicy == RejectionPolicy.CALLER_RUNS) {
+				orderedRejectionPolicy = RejectionPolicy.BLOCK;
+			}
+			else if (rejectionPolicy == RejectionPolicy.DROP_OLDEST) {
+				orderedRejectionPolicy = RejectionPolicy.DROP_NEWEST;
+			}
+
+			if (orderedRejectionPolicy != rejectionPolicy) {
+				_log.warn(
+					"Using rejection policy {} instead of {} to keep the " +
+						"delivery order of destination {}",
+					orderedRejectionPolicy, rejectionPolicy, getName());
+
+				rejectionPolicy = orderedRejectionPolicy;
+			}
+		}
+
+		_rejectionPolicy = rejectionPolicy;
+	}
+
+	public void setRejectionTimeout(long rejectionTimeout) {
+		_rejectionTimeout = rejectionTimeout;
+	}
+
+	/**
+	 * Sets whether the pool size tuner grows and shrinks the thread pool
+	 * between the core and the maximum workers sizes, following the load.
+	 * Takes effect when the destination is opened.
+	 */
+	public void setWorkersAutoTuned(boolean workersAutoTuned) {
+		_workersAutoTuned = workersAutoTuned;
+	}
+
 	public void setWorkersCoreSize(int workersCoreSize) {
 		_workersCoreSize = workersCoreSize;
 
-		if (_threadPoolExecutor != null) {
-			_threadPoolExecutor.adjustPoolSize(
-				workersCoreSize, _workersMaxSize);
+		ThreadPoolExecutor threadPoolExecutor = _threadPoolExecutor;
+
+		if (threadPoolExecutor != null) {
+			threadPoolExecutor.adjustPoolSize(workersCoreSize, _workersMaxSize);
 		}
 	}
 
+	/**
+	 * Sets the number of milliseconds an idle worker is kept before it stops.
+	 * The core workers of a lazy destination stop too, so that an idle lazy
+	 * destination has no threads. Takes effect when the thread pool is
+	 * created.
+	 */
+	public void setWorkersIdleTimeout(long workersIdleTimeout) {
+		_workersIdleTimeout = workersIdleTimeout;
+	}
+
+	/**
+	 * Sets whether the destination creates its thread pool when it is first
+	 * sent a message instead of when it is opened. Takes effect when the
+	 * destination is opened.
+	 */
+	public void setWorkersLazy(boolean workersLazy) {
+		_workersLazy = workersLazy;
+	}
+
 	public void setWorkersMaxSize(int workersMaxSize) {
 		_workersMaxSize = workersMaxSize;
 
-		if (_threadPoolExecutor != null) {
-			_threadPoolExecutor.adjustPoolSize(
-				_workersCoreSize, workersMaxSize);
+		ThreadPoolExecutor threadPoolExecutor = _threadPoolExecutor;
+
+		if (threadPoolExecutor != null) {
+			threadPoolExecutor.adjustPoolSize(_workersCoreSize, workersMaxSize);
+		}
+	}
+
+	/**
+	 * Sets whether the destination runs its tasks on the shared workers of the
+	 * destination scheduler instead of on a thread pool of its own. The
+	 * maximum workers size then caps how many of the shared workers the
+	 * destination uses at a time. Takes effect when the destination is
+	 * opened.
+	 */
+	public void setWorkersShared(boolean workersShared) {
+		_workersShared = workersShared;
+	}
+
+	/**
+	 * Sets whether the destination runs every task on a new virtual thread
+	 * instead of on a thread pool. The maximum workers size then limits how
+	 * many tasks run at a time, and the pool sizes in the destination
+	 * statistics count the tasks in flight. Takes precedence over shared
+	 * workers and takes effect when the destination is opened.
+	 */
+	public void setWorkersVirtual(boolean workersVirtual) {
+		_workersVirtual = workersVirtual;
+	}
+
+	/**
+	 * Sets the share of the destination scheduler's workers the destination
+	 * gets relative to the other destinations that have tasks queued.
+	 */
+	public void setWorkersWeight(int workersWeight) {
+		_workersWeight = workersWeight;
+	}
+
+	/**
+	 * Sets the maximum pool size chosen by the pool size tuner and records
+	 * the decision for the destination statistics.
+	 */
+	protected void adjustWorkers(int workersMaxSize, String poolAdjustment) {
+		ThreadPoolExecutor threadPoolExecutor = _threadPoolExecutor;
+
+		if (workersMaxSize != threadPoolExecutor.getMaxPoolSize()) {
+			threadPoolExecutor.adjustPoolSize(
+				Math.min(_workersCoreSize, workersMaxSize), workersMaxSize);
+
+			_poolAdjustmentCount.increment();
 		}
+
+		_lastPoolAdjustment = poolAdjustment;
 	}
 
 	protected RejectedExecutionHandler createRejectionExecutionHandler() {
@@ -245,6 +645,17 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 
 				MessageRunnable messageRunnable = (MessageRunnable)runnable;
 
+				List<Message> messages = messageRunnable.getMessages();
+
+				if (messages.size() > 1) {
+					_log.warn(
+						"Discarding " + messages.size() + " messages " +
+							messages + " because they exceed the maximum " +
+								"queue size of " + _maximumQueueSize);
+
+					return;
+				}
+
 				_log.warn(
 					"Discarding message " + messageRunnable.getMessage() +
 						" because it exceeds the maximum queue size of " +
@@ -254,16 +665,815 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 		};
 	}
 
+	/**
+	 * Returns a new thread pool executor that uses this destination's maximum
+	 * queue size and rejected execution handler.
+	 */
+	protected ThreadPoolExecutor createThreadPoolExecutor(
+		String threadName, int workersCoreSize, int workersMaxSize) {
+
+		if (_rejectedExecutionHandler == null) {
+			_rejectedExecutionHandler = createRejectionExecutionHandler();
+		}
+
+		final RejectedExecutionHandler rejectedExecutionHandler =
+			_rejectedExecutionHandler;
+
+		RejectedExecutionHandler policyRejectedExecutionHandler =
+			new RejectedExecutionHandler() {
+
+				@Override
+				public void rejectedExecution(
+					Runnable runnable, ThreadPoolExecutor threadPoolExecutor) {
+
+					_rejectedExecution(
+						runnable, threadPoolExecutor, rejectedExecutionHandler);
+				}
+
+			};
+
+		ThreadPoolHandler threadPoolHandler = new ThreadPoolHandlerAdapter() {
+
+			@Override
+			public void afterExecute(Runnable runnable, Throwable throwable) {
+				if (_workersAutoTuned &&
+					(runnable instanceof MessageRunnable)) {
+
+					MessageRunnable messageRunnable = (MessageRunnable)runnable;
+
+					_busyTime.add(
+						System.nanoTime() - messageRunnable.getStartTime());
+				}
+
+				if (_spilling) {
+					_reloadOverflowMessageQueue();
+				}
+
+				if (runnable instanceof MessageRunnable) {
+					MessageRunnable messageRunnable = (MessageRunnable)runnable;
+
+					messageRunnable.recycle();
+				}
+			}
+
+			@Override
+			public void beforeExecute(Thread thread, Runnable runnable) {
+				if (_workersAutoTuned &&
+					(runnable instanceof MessageRunnable)) {
+
+					MessageRunnable messageRunnable = (MessageRunnable)runnable;
+
+					long startTime = System.nanoTime();
+
+					messageRunnable.setStartTime(startTime);
+
+					_queueWaitTime.add(
+						startTime - messageRunnable.getQueuedTime());
+				}
+			}
+
+		};
+
+		if (_workersVirtual) {
+			return new VirtualThreadPoolExecutor(
+				threadName, workersMaxSize, _maximumQueueSize,
+				policyRejectedExecutionHandler, _clazz.getClassLoader(),
+				threadPoolHandler);
+		}
+
+		if (_workersShared) {
+			DestinationScheduler destinationScheduler = _destinationScheduler;
+
+			if (destinationScheduler != null) {
+				return destinationScheduler.createThreadPoolExecutor(
+					threadName, workersMaxSize, _workersWeight,
+					_maximumQueueSize, policyRejectedExecutionHandler,
+					threadPoolHandler);
+			}
+
+			if (_log.isWarnEnabled()) {
+				_log.warn(
+					"Creating a thread pool for destination " + getName() +
+						" because no destination scheduler is available");
+			}
+		}
+
+		return new DestinationThreadPoolExecutor(
+			workersCoreSize, workersMaxSize, _workersIdleTimeout,
+			TimeUnit.MILLISECONDS, _workersLazy, _maximumQueueSize,
+			policyRejectedExecutionHandler,
+			new NamedThreadFactory(
+				threadName, Thread.NORM_PRIORITY, _clazz.getClassLoader()),
+			threadPoolHandler);
+	}
+
 	protected abstract void dispatch(
 		Collection<MessageListener> messageListeners,
 		Collection<InboundMessageProcessor> messageInboundProcessors,
 		Message message);
 
-	protected ThreadPoolExecutor getThreadPoolExecutor() {
-		return _threadPoolExecutor;
+	/**
+	 * Dispatches a batch of messages that already passed the before receive
+	 * stage. The default implementation dispatches each message on its own;
+	 * subclasses override it to hand the whole batch to their workers at
+	 * once.
+	 */
+	protected void dispatch(
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		List<Message> messages) {
+
+		for (Message message : messages) {
+			dispatch(messageListeners, inboundMessageProcessors, message);
+		}
 	}
 
-	private static final int _WORKERS_CORE_SIZE = 2;
+	/**
+	 * Marks a coalesced message as taken by a worker. Workers call this before
+	 * reading the message, because until then newer messages with the same
+	 * coalesce key may still be folded into it.
+	 */
+	protected void claimCoalescedMessage(Message message) {
+		MessageCoalescer messageCoalescer = _messageCoalescer;
+
+		if (messageCoalescer != null) {
+			messageCoalescer.claim(message);
+		}
+	}
+
+	/**
+	 * Closes the overflow message queue. Unless the close is forced, the
+	 * spilled messages are queued on the heap first so that they are still
+	 * delivered.
+	 */
+	protected void closeOverflowMessageQueue(boolean force) {
+		_overflowLock.lock();
+
+		try {
+			OverflowMessageQueue overflowMessageQueue = _overflowMessageQueue;
+
+			if (overflowMessageQueue == null) {
+				return;
+			}
+
+			if (force) {
+				if (!overflowMessageQueue.isEmpty() && _log.isWarnEnabled()) {
+					_log.warn(
+						"Discarding " + overflowMessageQueue.size() +
+							" spilled messages for destination " + getName());
+				}
+			}
+			else {
+				_reload(overflowMessageQueue, Integer.MAX_VALUE);
+			}
+
+			overflowMessageQueue.close();
+
+			_overflowMessageQueue = null;
+			_spilling = false;
+		}
+		finally {
+			_overflowLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the message to queue for the message, or <code>null</code> if
+	 * the message was folded into a pending message with the same coalesce
+	 * key.
+	 */
+	protected Message coalesce(Message message) {
+		MessageCoalescer messageCoalescer = _messageCoalescer;
+
+		if (messageCoalescer == null) {
+			return message;
+		}
+
+		return messageCoalescer.coalesce(message, _messageMerger);
+	}
+
+	/**
+	 * Returns <code>true</code> and counts the message as expired if its
+	 * expiration time has passed. Workers call this before running the inbound
+	 * message processors so that stale messages cost as little as possible.
+	 */
+	protected boolean discardIfExpired(Message message) {
+		long expirationTime = message.getExpirationTime();
+
+		if ((expirationTime == 0) ||
+			(expirationTime > System.currentTimeMillis())) {
+
+			return false;
+		}
+
+		_expiredMessageCount.increment();
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(
+				"Discarding message {} because it expired at {}", message,
+				expirationTime);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Queues the message for each batch message listener like {@link
+	 * #dispatchBatches(Collection, Collection, List, Thread)}, without
+	 * allocating anything if there is no batch message listener.
+	 */
+	protected Collection<MessageListener> dispatchBatches(
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Message message, Thread dispatchThread) {
+
+		if (!(messageListeners instanceof RandomAccess)) {
+			return dispatchBatches(
+				messageListeners, inboundMessageProcessors,
+				Collections.singletonList(message), dispatchThread);
+		}
+
+		List<MessageListener> messageListenerList =
+			(List<MessageListener>)messageListeners;
+
+		for (int i = 0; i < messageListenerList.size(); i++) {
+			if (messageListenerList.get(i) instanceof BatchMessageListener) {
+				return dispatchBatches(
+					messageListeners, inboundMessageProcessors,
+					Collections.singletonList(message), dispatchThread);
+			}
+		}
+
+		return messageListeners;
+	}
+
+	/**
+	 * Queues the messages for each batch message listener and executes one
+	 * task per message that delivers the pending messages of that listener in
+	 * batches. Returns the other message listeners, which still expect the
+	 * messages one at a time.
+	 */
+	protected Collection<MessageListener> dispatchBatches(
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		List<Message> messages, Thread dispatchThread) {
+
+		List<MessageListener> remainingMessageListeners = null;
+
+		for (MessageListener messageListener : messageListeners) {
+			if (!(messageListener instanceof BatchMessageListener)) {
+				continue;
+			}
+
+			if (remainingMessageListeners == null) {
+				remainingMessageListeners = new ArrayList<>(messageListeners);
+			}
+
+			remainingMessageListeners.remove(messageListener);
+
+			MessageBatcher messageBatcher = _messageBatchers.computeIfAbsent(
+				messageListener,
+				key -> new MessageBatcher((BatchMessageListener)key));
+
+			for (Message message : messages) {
+				MessageBatcher.Entry entry = messageBatcher.add(
+					message, inboundMessageProcessors, dispatchThread);
+
+				ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
+
+				threadPoolExecutor.execute(
+					new BatchMessageRunnable(messageBatcher, entry));
+			}
+		}
+
+		if (remainingMessageListeners == null) {
+			return messageListeners;
+		}
+
+		return remainingMessageListeners;
+	}
+
+	/**
+	 * Returns the nanoseconds the workers spent running the completed tasks of
+	 * an auto-tuned destination.
+	 */
+	protected long getBusyTime() {
+		return _busyTime.sum();
+	}
+
+	protected long getCoalescedMessageCount() {
+		MessageCoalescer messageCoalescer = _messageCoalescer;
+
+		if (messageCoalescer == null) {
+			return 0;
+		}
+
+		return messageCoalescer.getCoalescedMessageCount();
+	}
+
+	protected ExecutorServiceRegistrar getExecutorServiceRegistrar() {
+		return _executorServiceRegistrar;
+	}
+
+	protected long getExpiredMessageCount() {
+		return _expiredMessageCount.sum();
+	}
+
+	/**
+	 * Returns the number of tasks waiting in the queue, which the overflow
+	 * water marks are compared against.
+	 */
+	protected long getPendingTaskCount() {
+		ThreadPoolExecutor threadPoolExecutor = _threadPoolExecutor;
+
+		if (threadPoolExecutor == null) {
+			return 0;
+		}
+
+		return threadPoolExecutor.getPendingTaskCount();
+	}
+
+	/**
+	 * Returns the nanoseconds the tasks of an auto-tuned destination waited in
+	 * the queue before a worker took them.
+	 */
+	protected long getQueueWaitTime() {
+		return _queueWaitTime.sum();
+	}
+
+	protected long getRejectedMessageCount() {
+		return _rejectedMessageCount.sum();
+	}
+
+	protected long getSpilledMessageCount() {
+		return _spilledMessageCount.sum();
+	}
+
+	protected long getThrottledMessageCount() {
+		return _throttledMessageCount.sum();
+	}
+
+	/**
+	 * Returns the thread pool executor, creating it if the destination is lazy
+	 * and open but was not sent a message yet.
+	 */
+	protected ThreadPoolExecutor getThreadPoolExecutor() {
+		ThreadPoolExecutor threadPoolExecutor = _threadPoolExecutor;
+
+		if (threadPoolExecutor != null) {
+			return threadPoolExecutor;
+		}
+
+		_threadPoolExecutorLock.lock();
+
+		try {
+			threadPoolExecutor = _threadPoolExecutor;
+
+			if ((threadPoolExecutor == null) && _opened) {
+				threadPoolExecutor = _createThreadPoolExecutor();
+			}
+
+			return threadPoolExecutor;
+		}
+		finally {
+			_threadPoolExecutorLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if this destination delivers its messages in
+	 * the order they were sent. Ordered destinations never run a rejected
+	 * message on the sending thread or drop a queued message in its favour,
+	 * because either would deliver it ahead of the messages already queued.
+	 */
+	protected boolean isOrdered() {
+		return false;
+	}
+
+	protected boolean isShutdown() {
+		ThreadPoolExecutor threadPoolExecutor = _threadPoolExecutor;
+
+		if (threadPoolExecutor == null) {
+			return !_opened;
+		}
+
+		return threadPoolExecutor.isShutdown();
+	}
+
+	/**
+	 * Delivers the message to one of the message listeners of a {@link
+	 * #receive(Collection, Collection, Message, Thread)} call.
+	 */
+	/**
+	 * Called when the rejection policy discards the messages of the runnable,
+	 * before they are passed to the rejected execution handler.
+	 */
+	protected void messagesDiscarded(MessageRunnable messageRunnable) {
+	}
+
+	protected void receive(MessageListener messageListener, Message message) {
+		try {
+			messageListener.receive(message);
+		}
+		catch (MessageListenerException mle) {
+			_log.error("Unable to process message {}", message, mle);
+		}
+	}
+
+	/**
+	 * Delivers the message to the message listeners on the current worker
+	 * thread, running the before and after thread stages of the inbound
+	 * message processors around the delivery.
+	 */
+	protected void receive(
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Message message, Thread dispatchThread) {
+
+		claimCoalescedMessage(message);
+
+		if (discardIfExpired(message)) {
+			return;
+		}
+
+		try {
+			for (InboundMessageProcessor processor : inboundMessageProcessors) {
+				try {
+					message = processor.beforeThread(message, dispatchThread);
+				}
+				catch (MessageProcessorException mpe) {
+					_log.error(
+						"Unable to process message {} before thread {}",
+						message, dispatchThread, mpe);
+				}
+			}
+
+			if (messageListeners instanceof RandomAccess) {
+
+				// Index the snapshot list to avoid allocating an iterator per
+				// message
+
+				List<MessageListener> messageListenerList =
+					(List<MessageListener>)messageListeners;
+
+				for (int i = 0; i < messageListenerList.size(); i++) {
+					receive(messageListenerList.get(i), message);
+				}
+			}
+			else {
+				for (MessageListener messageListener : messageListeners) {
+					receive(messageListener, message);
+				}
+			}
+		}
+		finally {
+			for (InboundMessageProcessor processor : inboundMessageProcessors) {
+				try {
+					processor.afterThread(message, dispatchThread);
+				}
+				catch (MessageProcessorException mpe) {
+					_log.error(
+						"Unable to process message {} after thread {}",
+						message, dispatchThread, mpe);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the thread pool executor and registers it. Must be called while
+	 * holding the thread pool executor lock.
+	 */
+	private ThreadPoolExecutor _createThreadPoolExecutor() {
+		PoolSizeTuner poolSizeTuner = null;
+		int workersMaxSize = _workersMaxSize;
+
+		if (_workersAutoTuned) {
+			poolSizeTuner = _poolSizeTuner;
+
+			// An auto-tuned pool starts small and grows with the load
+
+			if (poolSizeTuner != null) {
+				workersMaxSize = Math.min(
+					Math.max(_workersCoreSize, 1), _workersMaxSize);
+			}
+			else if (_log.isWarnEnabled()) {
+				_log.warn(
+					"Not tuning the thread pool of destination " + getName() +
+						" because no pool size tuner is available");
+			}
+		}
+
+		ThreadPoolExecutor threadPoolExecutor = createThreadPoolExecutor(
+			getName(), _workersCoreSize, workersMaxSize);
+
+		ThreadPoolExecutor oldThreadPoolExecutor = null;
+
+		if (_executorServiceRegistrar != null) {
+			oldThreadPoolExecutor =
+				_executorServiceRegistrar.registerExecutorService(
+					getName(), threadPoolExecutor);
+		}
+
+		if (oldThreadPoolExecutor != null) {
+			if (_log.isWarnEnabled()) {
+				_log.warn(
+					"Abort creating a new thread pool for destination " +
+						getName() + " and reuse previous one");
+			}
+
+			threadPoolExecutor.shutdownNow();
+
+			threadPoolExecutor = oldThreadPoolExecutor;
+		}
+
+		_threadPoolExecutor = threadPoolExecutor;
+
+		if (poolSizeTuner != null) {
+			poolSizeTuner.register(this);
+		}
+
+		return threadPoolExecutor;
+	}
+
+	private void _discard(
+		Runnable runnable, ThreadPoolExecutor threadPoolExecutor,
+		RejectedExecutionHandler rejectedExecutionHandler) {
+
+		// A rejected batch task only discards its message if no other task
+		// delivered the message already
+
+		if ((runnable instanceof BatchMessageRunnable) &&
+			!((BatchMessageRunnable)runnable).discard()) {
+
+			return;
+		}
+
+		// Discarded messages must not keep absorbing newer messages with the
+		// same coalesce key
+
+		if (runnable instanceof MessageRunnable) {
+			MessageRunnable messageRunnable = (MessageRunnable)runnable;
+
+			List<Message> messages = messageRunnable.getMessages();
+
+			for (Message message : messages) {
+				claimCoalescedMessage(message);
+			}
+
+			_rejectedMessageCount.add(messages.size());
+
+			messagesDiscarded(messageRunnable);
+		}
+
+		rejectedExecutionHandler.rejectedExecution(
+			runnable, threadPoolExecutor);
+	}
+
+	private int _getMessageCount(Runnable runnable) {
+		if (runnable instanceof MessageRunnable) {
+			MessageRunnable messageRunnable = (MessageRunnable)runnable;
+
+			List<Message> messages = messageRunnable.getMessages();
+
+			return messages.size();
+		}
+
+		return 1;
+	}
+
+	private boolean _offerTask(
+		DestinationThreadPoolExecutor destinationThreadPoolExecutor,
+		Runnable runnable, long timeout) {
+
+		try {
+			return destinationThreadPoolExecutor.offerTask(
+				runnable, timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException ie) {
+			Thread currentThread = Thread.currentThread();
+
+			currentThread.interrupt();
+
+			return false;
+		}
+	}
+
+	/**
+	 * Applies the rejection policy to a task that does not fit in the queue.
+	 * Tasks the policy cannot place are discarded through the rejected
+	 * execution handler.
+	 */
+	private void _rejectedExecution(
+		Runnable runnable, ThreadPoolExecutor threadPoolExecutor,
+		RejectedExecutionHandler rejectedExecutionHandler) {
+
+		RejectionPolicy rejectionPolicy = _rejectionPolicy;
+
+		if (threadPoolExecutor.isShutdown() ||
+			(rejectionPolicy == RejectionPolicy.DROP_NEWEST)) {
+
+			_discard(runnable, threadPoolExecutor, rejectedExecutionHandler);
+
+			return;
+		}
+
+		if (rejectionPolicy == RejectionPolicy.CALLER_RUNS) {
+			_throttledMessageCount.add(_getMessageCount(runnable));
+
+			runnable.run();
+
+			return;
+		}
+
+		if (!(threadPoolExecutor instanceof DestinationThreadPoolExecutor)) {
+			_discard(runnable, threadPoolExecutor, rejectedExecutionHandler);
+
+			return;
+		}
+
+		DestinationThreadPoolExecutor destinationThreadPoolExecutor =
+			(DestinationThreadPoolExecutor)threadPoolExecutor;
+
+		if (rejectionPolicy == RejectionPolicy.BLOCK) {
+			if (_offerTask(
+					destinationThreadPoolExecutor, runnable,
+					_rejectionTimeout)) {
+
+				_throttledMessageCount.add(_getMessageCount(runnable));
+
+				return;
+			}
+		}
+		else if (rejectionPolicy == RejectionPolicy.DROP_OLDEST) {
+			Runnable oldestRunnable = null;
+
+			while ((oldestRunnable =
+						destinationThreadPoolExecutor.pollTask()) != null) {
+
+				_discard(
+					oldestRunnable, threadPoolExecutor,
+					rejectedExecutionHandler);
+
+				if (_offerTask(destinationThreadPoolExecutor, runnable, 0)) {
+					return;
+				}
+			}
+		}
+
+		_discard(runnable, threadPoolExecutor, rejectedExecutionHandler);
+	}
+
+	/**
+	 * Dispatches up to the given number of spilled messages to the workers.
+	 * Must be called while holding the overflow lock.
+	 */
+	private void _reload(
+		OverflowMessageQueue overflowMessageQueue, int maximumCount) {
+
+		if (overflowMessageQueue.isEmpty()) {
+			return;
+		}
+
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		Collection<MessageListener> messageListeners =
+			dispatchPlan.getMessageListeners();
+		List<InboundMessageProcessor> inboundMessageProcessors =
+			dispatchPlan.createInboundMessageProcessors();
+
+		// Dispatch the messages one by one so that the queued task count keeps
+		// tracking the number of messages on the heap
+
+		for (int i = 0; i < maximumCount; i++) {
+			Message message = overflowMessageQueue.poll();
+
+			if (message == null) {
+				break;
+			}
+
+			dispatch(messageListeners, inboundMessageProcessors, message);
+		}
+	}
+
+	private void _reloadOverflowMessageQueue() {
+		int highWaterMark = _overflowHighWaterMark;
+
+		int lowWaterMark = _overflowLowWaterMark;
+
+		if ((lowWaterMark <= 0) || (lowWaterMark >= highWaterMark)) {
+			lowWaterMark = highWaterMark / 2;
+		}
+
+		while (_spilling && (getPendingTaskCount() <= lowWaterMark)) {
+
+			// Whoever holds the lock checks again after releasing it, so a
+			// busy lock can be skipped
+
+			if (!_overflowLock.tryLock()) {
+				return;
+			}
+
+			try {
+				OverflowMessageQueue overflowMessageQueue =
+					_overflowMessageQueue;
+
+				if (!_spilling || (overflowMessageQueue == null)) {
+					return;
+				}
+
+				_reload(
+					overflowMessageQueue,
+					highWaterMark - (int)getPendingTaskCount());
+
+				// New messages keep going to the overflow message queue until
+				// every spilled message is back on the heap, which keeps them
+				// in order
+
+				if (overflowMessageQueue.isEmpty()) {
+					_spilling = false;
+				}
+			}
+			finally {
+				_overflowLock.unlock();
+			}
+		}
+	}
+
+	private boolean _spill(Message message) {
+		if (_overflowHighWaterMark <= 0) {
+			return false;
+		}
+
+		return _spill(Collections.singletonList(message));
+	}
+
+	/**
+	 * Returns <code>true</code> if the messages were spilled to the overflow
+	 * message queue instead of being dispatched.
+	 */
+	private boolean _spill(List<Message> messages) {
+		int highWaterMark = _overflowHighWaterMark;
+
+		if ((highWaterMark <= 0) ||
+			(!_spilling && (getPendingTaskCount() < highWaterMark))) {
+
+			return false;
+		}
+
+		// Unshared inbound message processors belong to the send that created
+		// them and cannot follow the message to disk
+
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (!dispatchPlan.isInboundMessageProcessorsShared()) {
+			return false;
+		}
+
+		_overflowLock.lock();
+
+		try {
+			if (!_spilling && (getPendingTaskCount() < highWaterMark)) {
+				return false;
+			}
+
+			if (_overflowMessageQueue == null) {
+				_overflowMessageQueue = new OverflowMessageQueue(
+					_overflowDirectory, getName(), _overflowSegmentSize);
+			}
+
+			for (Message message : messages) {
+
+				// The spilled copy is what gets delivered, so the queued
+				// message must not absorb newer messages
+
+				claimCoalescedMessage(message);
+
+				_overflowMessageQueue.add(message);
+			}
+
+			_spilledMessageCount.add(messages.size());
+
+			_spilling = true;
+		}
+		finally {
+			_overflowLock.unlock();
+		}
+
+		_reloadOverflowMessageQueue();
+
+		return true;
+	}
+
+	private static final int _MAXIMUM_BATCH_SIZE = 100;
+
+	private static final int _OVERFLOW_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+	private static final long _REJECTION_TIMEOUT = 1000;
+
+	private static final int _WORKERS_CORE_SIZE = 2;
+
+	private static final long _WORKERS_IDLE_TIMEOUT = 60000;
 
 	private static final int _WORKERS_MAX_SIZE = 5;
 
@@ -273,11 +1483,96 @@ public abstract class BaseAsyncDestination extends BaseDestination {
 	private static final Class<BaseAsyncDestination> _clazz =
 		BaseAsyncDestination.class;
 
+	private final LongAdder _batchCount = new LongAdder();
+	private final LongAdder _batchMessageCount = new LongAdder();
+	private final LongAdder _busyTime = new LongAdder();
+	private volatile DestinationScheduler _destinationScheduler;
 	private volatile ExecutorServiceRegistrar _executorServiceRegistrar;
+	private final LongAdder _expiredMessageCount = new LongAdder();
+	private final AtomicInteger _largestBatchSize = new AtomicInteger();
+	private volatile long _maximumBatchDelay;
+	private volatile int _maximumBatchSize = _MAXIMUM_BATCH_SIZE;
+	private volatile String _lastPoolAdjustment = StringPool.BLANK;
 	private int _maximumQueueSize = Integer.MAX_VALUE;
+	private final Map<MessageListener, MessageBatcher> _messageBatchers =
+		new ConcurrentHashMap<>();
+	private volatile MessageCoalescer _messageCoalescer;
+	private volatile MessageMerger _messageMerger;
+	private volatile boolean _opened;
+	private String _overflowDirectory = StringPool.BLANK;
+	private volatile int _overflowHighWaterMark;
+	private final ReentrantLock _overflowLock = new ReentrantLock();
+	private volatile int _overflowLowWaterMark;
+	private OverflowMessageQueue _overflowMessageQueue;
+	private int _overflowSegmentSize = _OVERFLOW_SEGMENT_SIZE;
+	private final LongAdder _poolAdjustmentCount = new LongAdder();
+	private volatile PoolSizeTuner _poolSizeTuner;
+	private final LongAdder _queueWaitTime = new LongAdder();
 	private RejectedExecutionHandler _rejectedExecutionHandler;
-	private ThreadPoolExecutor _threadPoolExecutor;
+	private final LongAdder _rejectedMessageCount = new LongAdder();
+	private volatile RejectionPolicy _rejectionPolicy =
+		RejectionPolicy.DROP_NEWEST;
+	private volatile long _rejectionTimeout = _REJECTION_TIMEOUT;
+	private final LongAdder _spilledMessageCount = new LongAdder();
+	private volatile boolean _spilling;
+	private volatile ThreadPoolExecutor _threadPoolExecutor;
+	private final ReentrantLock _threadPoolExecutorLock = new ReentrantLock();
+	private final LongAdder _throttledMessageCount = new LongAdder();
+	private boolean _workersAutoTuned;
 	private int _workersCoreSize = _WORKERS_CORE_SIZE;
+	private long _workersIdleTimeout = _WORKERS_IDLE_TIMEOUT;
+	private boolean _workersLazy;
 	private int _workersMaxSize = _WORKERS_MAX_SIZE;
+	private boolean _workersShared;
+	private boolean _workersVirtual;
+	private int _workersWeight = 1;
+
+	private class BatchMessageRunnable extends MessageRunnable {
+
+		public BatchMessageRunnable(
+			MessageBatcher messageBatcher, MessageBatcher.Entry entry) {
+
+			super(entry.getMessage());
+
+			_messageBatcher = messageBatcher;
+			_entry = entry;
+		}
+
+		public boolean discard() {
+			return _messageBatcher.remove(_entry);
+		}
+
+		@Override
+		public void run() {
+			List<MessageBatcher.Entry> entries = _messageBatcher.drain(
+				_maximumBatchSize, _maximumBatchDelay);
+
+			Iterator<MessageBatcher.Entry> iterator = entries.iterator();
+
+			while (iterator.hasNext()) {
+				MessageBatcher.Entry entry = iterator.next();
+
+				claimCoalescedMessage(entry.getMessage());
+
+				if (discardIfExpired(entry.getMessage())) {
+					iterator.remove();
+				}
+			}
+
+			if (entries.isEmpty()) {
+				return;
+			}
+
+			_batchCount.increment();
+			_batchMessageCount.add(entries.size());
+			_largestBatchSize.accumulateAndGet(entries.size(), Math::max);
+
+			_messageBatcher.deliver(entries);
+		}
+
+		private final MessageBatcher.Entry _entry;
+		private final MessageBatcher _messageBatcher;
+
+	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.BatchMessageListener;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListenerException;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provides a base batch message listener that handles single messages as
+ * batches of one.
+ */
+public abstract class BaseBatchMessageListener implements BatchMessageListener {
+
+	@Override
+	public void receive(List<Message> messages)
+		throws MessageListenerException {
+
+		try {
+			doReceive(messages);
+		}
+		catch (MessageListenerException mle) {
+			throw mle;
+		}
+		catch (Exception e) {
+			throw new MessageListenerException(e);
+		}
+	}
+
+	@Override
+	public void receive(Message message) throws MessageListenerException {
+		receive(Collections.singletonList(message));
+	}
+
+	protected abstract void doReceive(List<Message> messages)
+		throws Exception;
+
+}
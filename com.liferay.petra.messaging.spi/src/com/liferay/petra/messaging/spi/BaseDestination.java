@@ -14,6 +14,8 @@
 
 package com.liferay.petra.messaging.spi;
 
+import com.liferay.petra.messaging.api.BatchMessageListener;
+import com.liferay.petra.messaging.api.DeliveryMode;
 import com.liferay.petra.messaging.api.DestinationEventListener;
 import com.liferay.petra.messaging.api.DestinationStatistics;
 import com.liferay.petra.messaging.api.InboundMessageProcessor;
@@ -25,12 +27,12 @@ import com.liferay.petra.messaging.api.OutboundMessageProcessorFactory;
 import com.liferay.petra.string.StringPool;
 import com.liferay.petra.io.util.Validator;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -66,6 +68,8 @@ public abstract class BaseDestination implements Destination {
 
 		inboundMessageProcessorFactories.put(
 			properties, inboundMessageProcessorFactory);
+
+		invalidateDispatchPlan();
 	}
 
 	@Reference(
@@ -85,9 +89,20 @@ public abstract class BaseDestination implements Destination {
 			operatingClassLoader = clazz.getClassLoader();
 		}
 
-		messageListeners.put(
-			properties,
-			new InvokerMessageListener(messageListener, operatingClassLoader));
+		InvokerMessageListener invokerMessageListener = null;
+
+		if (messageListener instanceof BatchMessageListener) {
+			invokerMessageListener = new InvokerBatchMessageListener(
+				(BatchMessageListener)messageListener, operatingClassLoader);
+		}
+		else {
+			invokerMessageListener = new InvokerMessageListener(
+				messageListener, operatingClassLoader);
+		}
+
+		messageListeners.put(properties, invokerMessageListener);
+
+		invalidateDispatchPlan();
 
 		fireMessageListenerRegisteredEvent(messageListener);
 	}
@@ -103,6 +118,8 @@ public abstract class BaseDestination implements Destination {
 
 		outboundMessageProcessorFactories.put(
 			properties, outboundMessageProcessorFactory);
+
+		invalidateDispatchPlan();
 	}
 
 	public void afterPropertiesSet() {
@@ -120,6 +137,14 @@ public abstract class BaseDestination implements Destination {
 	public void close(boolean force) {
 	}
 
+	public String getDeliveryKey() {
+		return _deliveryKey;
+	}
+
+	public DeliveryMode getDeliveryMode() {
+		return _deliveryMode;
+	}
+
 	@Override
 	public int getDestinationEventListenerCount() {
 		return destinationEventListeners.size();
@@ -149,16 +174,45 @@ public abstract class BaseDestination implements Destination {
 		return inboundMessageProcessorFactories.size();
 	}
 
-	public List<InboundMessageProcessor> getInboundMessageProcessors() {
-		List<InboundMessageProcessor> processors = new ArrayList<>();
+	/**
+	 * Returns the current dispatch plan of the destination. The same plan is
+	 * returned until a message listener or a message processor factory is
+	 * added or removed.
+	 *
+	 * @return the current dispatch plan of the destination
+	 */
+	public DispatchPlan getDispatchPlan() {
+		long version = _dispatchPlanVersion.get();
+
+		DispatchPlan dispatchPlan = _dispatchPlan;
+
+		if ((dispatchPlan == null) || (dispatchPlan.getVersion() != version)) {
+			Collection<MessageListener> dispatchMessageListeners =
+				messageListeners.values();
 
-		for (InboundMessageProcessorFactory factory :
-				getInboundMessageProcessorFactories()) {
+			if ((_deliveryMode != DeliveryMode.BROADCAST) &&
+				!dispatchMessageListeners.isEmpty()) {
 
-			processors.add(factory.create());
+				dispatchMessageListeners = Collections.singletonList(
+					new LoadBalancingMessageListener(
+						_deliveryMode, _deliveryKey, dispatchMessageListeners));
+			}
+
+			dispatchPlan = new DispatchPlan(
+				version, dispatchMessageListeners,
+				inboundMessageProcessorFactories,
+				outboundMessageProcessorFactories);
+
+			_dispatchPlan = dispatchPlan;
 		}
 
-		return Collections.unmodifiableList(processors);
+		return dispatchPlan;
+	}
+
+	public List<InboundMessageProcessor> getInboundMessageProcessors() {
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		return dispatchPlan.createInboundMessageProcessors();
 	}
 
 	@Override
@@ -190,15 +244,9 @@ public abstract class BaseDestination implements Destination {
 	}
 
 	public Collection<OutboundMessageProcessor> getOutboundMessageProcessors() {
-		List<OutboundMessageProcessor> processors = new ArrayList<>();
-
-		for (OutboundMessageProcessorFactory factory :
-				getOutboundMessageProcessorFactories()) {
+		DispatchPlan dispatchPlan = getDispatchPlan();
 
-			processors.add(factory.create());
-		}
-
-		return Collections.unmodifiableList(processors);
+		return dispatchPlan.createOutboundMessageProcessors();
 	}
 
 	@Override
@@ -228,6 +276,8 @@ public abstract class BaseDestination implements Destination {
 
 		inboundMessageProcessorFactories.remove(
 			properties, inboundMessageProcessorFactory);
+
+		invalidateDispatchPlan();
 	}
 
 	public void removeMessageListener(
@@ -235,6 +285,8 @@ public abstract class BaseDestination implements Destination {
 
 		messageListeners.remove(properties);
 
+		invalidateDispatchPlan();
+
 		fireMessageListenerUnregisteredEvent(messageListener);
 	}
 
@@ -244,6 +296,15 @@ public abstract class BaseDestination implements Destination {
 
 		outboundMessageProcessorFactories.remove(
 			properties, outboundMessageProcessorFactory);
+
+		invalidateDispatchPlan();
+	}
+
+	@Override
+	public void send(Collection<Message> messages) {
+		for (Message message : messages) {
+			send(message);
+		}
 	}
 
 	@Override
@@ -251,6 +312,18 @@ public abstract class BaseDestination implements Destination {
 		throw new UnsupportedOperationException();
 	}
 
+	public void setDeliveryKey(String deliveryKey) {
+		_deliveryKey = deliveryKey;
+
+		invalidateDispatchPlan();
+	}
+
+	public void setDeliveryMode(DeliveryMode deliveryMode) {
+		_deliveryMode = deliveryMode;
+
+		invalidateDispatchPlan();
+	}
+
 	public void setName(String name) {
 		this.name = name;
 	}
@@ -275,6 +348,15 @@ public abstract class BaseDestination implements Destination {
 		}
 	}
 
+	/**
+	 * Discards the current dispatch plan. Subclasses that change the set of
+	 * message listeners or message processor factories outside of the add and
+	 * remove methods must call this afterwards.
+	 */
+	protected void invalidateDispatchPlan() {
+		_dispatchPlanVersion.incrementAndGet();
+	}
+
 	protected final Map<Map<String, Object>, DestinationEventListener>
 		destinationEventListeners = new ConcurrentSkipListMap<>(
 			ServiceMaps.comparator().reversed());
@@ -288,4 +370,9 @@ public abstract class BaseDestination implements Destination {
 		outboundMessageProcessorFactories = new ConcurrentSkipListMap<>(
 			ServiceMaps.comparator().reversed());
 
+	private volatile String _deliveryKey = StringPool.BLANK;
+	private volatile DeliveryMode _deliveryMode = DeliveryMode.BROADCAST;
+	private volatile DispatchPlan _dispatchPlan;
+	private final AtomicLong _dispatchPlanVersion = new AtomicLong();
+
 }
\ No newline at end of file
@@ -60,4 +60,14 @@ public interface Destination extends com.liferay.petra.messaging.api.Destination
 
 	public void send(Message message);
 
+	/**
+	 * Sends the messages one at a time. Destinations that can dispatch the
+	 * messages as a batch override this.
+	 */
+	public default void send(Collection<Message> messages) {
+		for (Message message : messages) {
+			send(message);
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,497 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.concurrent.NamedThreadFactory;
+import com.liferay.petra.concurrent.RejectedExecutionHandler;
+import com.liferay.petra.concurrent.TaskQueue;
+import com.liferay.petra.concurrent.ThreadPoolHandler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the tasks of many destinations on one pool of worker threads, sized to
+ * the number of processors instead of the number of destinations.
+ *
+ * <p>
+ * Every destination gets a thread pool executor of its own that only queues
+ * its tasks. The workers take tasks from the executors that have tasks queued
+ * and run fewer tasks than their maximum pool size, which caps the
+ * concurrency of each destination, choosing between them by smooth weighted
+ * round robin. The executors report their own active, pending and completed
+ * task counts, so destination statistics stay per destination.
+ * </p>
+ *
+ * <p>
+ * The workers are started with the first executor and stop once the last
+ * executor terminates, so the scheduler keeps no threads while no
+ * destination runs on shared workers.
+ * </p>
+ */
+@Component(service = DestinationScheduler.class)
+public class DestinationScheduler {
+
+	public DestinationScheduler() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public DestinationScheduler(int workerCount) {
+		_workerCount = workerCount;
+	}
+
+	/**
+	 * Stops the workers once they finish their current tasks.
+	 */
+	public void close() {
+		_lock.lock();
+
+		try {
+			_closed = true;
+
+			_notEmptyCondition.signalAll();
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a thread pool executor whose tasks run on this scheduler's
+	 * workers, at most the maximum pool size of them at a time.
+	 */
+	public DestinationThreadPoolExecutor createThreadPoolExecutor(
+		String name, int maxPoolSize, int weight, int maxQueueSize,
+		RejectedExecutionHandler rejectedExecutionHandler,
+		ThreadPoolHandler threadPoolHandler) {
+
+		SharedThreadPoolExecutor sharedThreadPoolExecutor =
+			new SharedThreadPoolExecutor(
+				maxPoolSize, weight, maxQueueSize, rejectedExecutionHandler,
+				threadPoolHandler);
+
+		sharedThreadPoolExecutor.setName(name);
+
+		_lock.lock();
+
+		try {
+			_sharedThreadPoolExecutors.add(sharedThreadPoolExecutor);
+
+			if (!_closed) {
+				while (_runningWorkerCount < _workerCount) {
+					Thread thread = _threadFactory.newThread(this::_work);
+
+					thread.start();
+
+					_runningWorkerCount++;
+				}
+			}
+		}
+		finally {
+			_lock.unlock();
+		}
+
+		return sharedThreadPoolExecutor;
+	}
+
+	public int getWorkerCount() {
+		return _workerCount;
+	}
+
+	@Deactivate
+	protected void deactivate() {
+		close();
+	}
+
+	/**
+	 * Chooses the executor to take the next task from by smooth weighted round
+	 * robin, among the executors that have queued tasks and room to run one
+	 * more. Must be called while holding the lock.
+	 */
+	private SharedThreadPoolExecutor _next() {
+		SharedThreadPoolExecutor selectedSharedThreadPoolExecutor = null;
+		int totalWeight = 0;
+
+		for (SharedThreadPoolExecutor sharedThreadPoolExecutor :
+				_sharedThreadPoolExecutors) {
+
+			if (!sharedThreadPoolExecutor._isRunnable()) {
+				continue;
+			}
+
+			sharedThreadPoolExecutor._currentWeight +=
+				sharedThreadPoolExecutor._weight;
+
+			totalWeight += sharedThreadPoolExecutor._weight;
+
+			if ((selectedSharedThreadPoolExecutor == null) ||
+				(sharedThreadPoolExecutor._currentWeight >
+					selectedSharedThreadPoolExecutor._currentWeight)) {
+
+				selectedSharedThreadPoolExecutor = sharedThreadPoolExecutor;
+			}
+		}
+
+		if (selectedSharedThreadPoolExecutor != null) {
+			selectedSharedThreadPoolExecutor._currentWeight -= totalWeight;
+		}
+
+		return selectedSharedThreadPoolExecutor;
+	}
+
+	private void _signal() {
+		if (_idleWorkerCount.get() == 0) {
+			return;
+		}
+
+		_lock.lock();
+
+		try {
+			_notEmptyCondition.signal();
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	private void _work() {
+		Thread currentThread = Thread.currentThread();
+
+		while (true) {
+			SharedThreadPoolExecutor sharedThreadPoolExecutor = null;
+			Runnable runnable = null;
+
+			_lock.lock();
+
+			try {
+				while (runnable == null) {
+					if (_closed || _sharedThreadPoolExecutors.isEmpty()) {
+						_runningWorkerCount--;
+
+						return;
+					}
+
+					// Count as idle before looking for a task, so that a task
+					// queued after the look always signals
+
+					_idleWorkerCount.incrementAndGet();
+
+					sharedThreadPoolExecutor = _next();
+
+					if (sharedThreadPoolExecutor == null) {
+						_notEmptyCondition.awaitUninterruptibly();
+					}
+					else {
+						runnable = sharedThreadPoolExecutor._take(
+							currentThread);
+					}
+
+					_idleWorkerCount.decrementAndGet();
+				}
+			}
+			finally {
+				_lock.unlock();
+			}
+
+			sharedThreadPoolExecutor._run(currentThread, runnable);
+		}
+	}
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		DestinationScheduler.class);
+
+	private boolean _closed;
+	private final AtomicInteger _idleWorkerCount = new AtomicInteger();
+	private final ReentrantLock _lock = new ReentrantLock();
+	private final Condition _notEmptyCondition = _lock.newCondition();
+	private int _runningWorkerCount;
+	private final List<SharedThreadPoolExecutor> _sharedThreadPoolExecutors =
+		new ArrayList<>();
+	private final ThreadFactory _threadFactory = new NamedThreadFactory(
+		DestinationScheduler.class.getSimpleName(), Thread.NORM_PRIORITY,
+		DestinationScheduler.class.getClassLoader());
+	private final int _workerCount;
+
+	private class SharedThreadPoolExecutor
+		extends DestinationThreadPoolExecutor {
+
+		@Override
+		public void adjustPoolSize(int corePoolSize, int maxPoolSize) {
+			_maxPoolSize = maxPoolSize;
+
+			_signal();
+		}
+
+		@Override
+		public void execute(Runnable runnable) {
+			if (runnable == null) {
+				throw new NullPointerException();
+			}
+
+			TaskQueue<Runnable> taskQueue = getTaskQueue();
+
+			if (!isShutdown() && taskQueue.offer(runnable, new boolean[1])) {
+				if (!isShutdown() || !taskQueue.remove(runnable)) {
+					_signal();
+
+					return;
+				}
+			}
+
+			RejectedExecutionHandler rejectedExecutionHandler =
+				getRejectedExecutionHandler();
+
+			rejectedExecutionHandler.rejectedExecution(runnable, this);
+		}
+
+		@Override
+		public int getActiveCount() {
+			return _activeCount;
+		}
+
+		@Override
+		public long getCompletedTaskCount() {
+			return _completedTaskCount;
+		}
+
+		@Override
+		public int getCorePoolSize() {
+			return 0;
+		}
+
+		@Override
+		public int getLargestPoolSize() {
+			return _largestActiveCount;
+		}
+
+		@Override
+		public int getMaxPoolSize() {
+			return _maxPoolSize;
+		}
+
+		@Override
+		public int getPoolSize() {
+			return _activeCount;
+		}
+
+		@Override
+		public boolean isShutdown() {
+			if (_shutdown) {
+				return true;
+			}
+
+			return super.isShutdown();
+		}
+
+		@Override
+		public boolean offerTask(
+				Runnable runnable, long timeout, TimeUnit timeUnit)
+			throws InterruptedException {
+
+			if (super.offerTask(runnable, timeout, timeUnit)) {
+				_signal();
+
+				return true;
+			}
+
+			return false;
+		}
+
+		@Override
+		public void shutdown() {
+			_lock.lock();
+
+			try {
+				_shutdown = true;
+
+				_tryTerminate();
+			}
+			finally {
+				_lock.unlock();
+			}
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			List<Runnable> runnables = new ArrayList<>();
+
+			_lock.lock();
+
+			try {
+				_shutdown = true;
+
+				Runnable runnable = null;
+
+				while ((runnable = pollTask()) != null) {
+					runnables.add(runnable);
+				}
+
+				for (Thread thread : _threads) {
+					thread.interrupt();
+				}
+
+				_tryTerminate();
+			}
+			finally {
+				_lock.unlock();
+			}
+
+			return runnables;
+		}
+
+		private SharedThreadPoolExecutor(
+			int maxPoolSize, int weight, int maxQueueSize,
+			RejectedExecutionHandler rejectedExecutionHandler,
+			ThreadPoolHandler threadPoolHandler) {
+
+			super(
+				0, Math.max(maxPoolSize, 1), 0, TimeUnit.SECONDS, false,
+				maxQueueSize, rejectedExecutionHandler, _threadFactory,
+				threadPoolHandler);
+
+			_maxPoolSize = maxPoolSize;
+			_weight = Math.max(weight, 1);
+		}
+
+		private boolean _isRunnable() {
+			if ((_activeCount < _maxPoolSize) &&
+				(getPendingTaskCount() > 0)) {
+
+				return true;
+			}
+
+			return false;
+		}
+
+		private void _run(Thread thread, Runnable runnable) {
+			ThreadPoolHandler threadPoolHandler = getThreadPoolHandler();
+
+			Throwable throwable = null;
+
+			try {
+				threadPoolHandler.beforeExecute(thread, runnable);
+
+				runnable.run();
+			}
+			catch (Throwable t) {
+				throwable = t;
+
+				_log.error("Unable to run task of " + getName(), t);
+			}
+			finally {
+				try {
+					threadPoolHandler.afterExecute(runnable, throwable);
+				}
+				catch (Throwable t) {
+					_log.error("Unable to finish task of " + getName(), t);
+				}
+
+				_lock.lock();
+
+				try {
+					_activeCount--;
+					_completedTaskCount++;
+
+					_threads.remove(thread);
+
+					if (_isRunnable()) {
+						_notEmptyCondition.signal();
+					}
+
+					_tryTerminate();
+				}
+				finally {
+					_lock.unlock();
+				}
+
+				// Clear an interrupt meant for this executor's task, so that
+				// it does not leak into the next destination's task
+
+				Thread.interrupted();
+			}
+		}
+
+		/**
+		 * Takes the next task to run on the thread. Must be called while
+		 * holding the lock.
+		 */
+		private Runnable _take(Thread thread) {
+			Runnable runnable = pollTask();
+
+			if (runnable == null) {
+				return null;
+			}
+
+			_activeCount++;
+
+			if (_activeCount > _largestActiveCount) {
+				_largestActiveCount = _activeCount;
+			}
+
+			_threads.add(thread);
+
+			return runnable;
+		}
+
+		/**
+		 * Terminates the executor once it is shut down and has no more tasks.
+		 * Must be called while holding the lock.
+		 */
+		private void _tryTerminate() {
+			if (!_shutdown || (_activeCount > 0) ||
+				(getPendingTaskCount() > 0)) {
+
+				return;
+			}
+
+			if (_sharedThreadPoolExecutors.remove(this)) {
+
+				// Without worker threads or tasks, the executor terminates
+				// right away
+
+				super.shutdown();
+
+				// Idle workers stop with the last executor
+
+				if (_sharedThreadPoolExecutors.isEmpty()) {
+					_notEmptyCondition.signalAll();
+				}
+			}
+		}
+
+		private volatile int _activeCount;
+		private volatile long _completedTaskCount;
+		private int _currentWeight;
+		private volatile int _largestActiveCount;
+		private volatile int _maxPoolSize;
+		private volatile boolean _shutdown;
+		private final Set<Thread> _threads = new HashSet<>();
+		private final int _weight;
+
+	}
+
+}
@@ -14,6 +14,12 @@
 
 package com.liferay.petra.messaging.spi;
 
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.string.StringPool;
+
+import java.util.Collections;
+import java.util.List;
+
 /**
  * DestinationStatistics is meant for informational purposes only. The datum
  * contained may not add up. They are assembled as a best effort and may
@@ -24,21 +30,44 @@ package com.liferay.petra.messaging.spi;
  * @author Michael C. Han
  * @author Brian Wing Shun Chan
  */
-public class DestinationStatisticsImpl
-	implements com.liferay.petra.messaging.api.DestinationStatistics {
+public class DestinationStatisticsImpl implements DestinationStatistics {
 
 	public int getActiveThreadCount() {
 		return _activeThreadCount;
 	}
 
+	public long getBatchCount() {
+		return _batchCount;
+	}
+
+	public long getBatchMessageCount() {
+		return _batchMessageCount;
+	}
+
+	public long getCoalescedMessageCount() {
+		return _coalescedMessageCount;
+	}
+
 	public int getCurrentThreadCount() {
 		return _currentThreadCount;
 	}
 
+	public long getExpiredMessageCount() {
+		return _expiredMessageCount;
+	}
+
+	public int getLargestBatchSize() {
+		return _largestBatchSize;
+	}
+
 	public int getLargestThreadCount() {
 		return _largestThreadCount;
 	}
 
+	public String getLastPoolAdjustment() {
+		return _lastPoolAdjustment;
+	}
+
 	public int getMaxThreadPoolSize() {
 		return _maxThreadPoolSize;
 	}
@@ -47,26 +76,70 @@ public class DestinationStatisticsImpl
 		return _minThreadPoolSize;
 	}
 
+	public List<DestinationStatistics> getPartitionStatistics() {
+		return _partitionStatistics;
+	}
+
 	public long getPendingMessageCount() {
 		return _pendingMessageCount;
 	}
 
+	public long getPoolAdjustmentCount() {
+		return _poolAdjustmentCount;
+	}
+
+	public long getRejectedMessageCount() {
+		return _rejectedMessageCount;
+	}
+
 	public long getSentMessageCount() {
 		return _sentMessageCount;
 	}
 
+	public long getSpilledMessageCount() {
+		return _spilledMessageCount;
+	}
+
+	public long getThrottledMessageCount() {
+		return _throttledMessageCount;
+	}
+
 	public void setActiveThreadCount(int activeThreadCount) {
 		_activeThreadCount = activeThreadCount;
 	}
 
+	public void setBatchCount(long batchCount) {
+		_batchCount = batchCount;
+	}
+
+	public void setBatchMessageCount(long batchMessageCount) {
+		_batchMessageCount = batchMessageCount;
+	}
+
+	public void setCoalescedMessageCount(long coalescedMessageCount) {
+		_coalescedMessageCount = coalescedMessageCount;
+	}
+
 	public void setCurrentThreadCount(int currentThreadCount) {
 		_currentThreadCount = currentThreadCount;
 	}
 
+	public void setExpiredMessageCount(long expiredMessageCount) {
+		_expiredMessageCount = expiredMessageCount;
+	}
+
+	public void setLargestBatchSize(int largestBatchSize) {
+		_largestBatchSize = largestBatchSize;
+	}
+
 	public void setLargestThreadCount(int largestThreadCount) {
 		_largestThreadCount = largestThreadCount;
 	}
 
+	public void setLastPoolAdjustment(String lastPoolAdjustment) {
+		_lastPoolAdjustment = lastPoolAdjustment;
+	}
+
 	public void setMaxThreadPoolSize(int maxThreadPoolSize) {
 		_maxThreadPoolSize = maxThreadPoolSize;
 	}
@@ -75,20 +148,54 @@ public class DestinationStatisticsImpl
 		_minThreadPoolSize = minThreadPoolSize;
 	}
 
+	public void setPartitionStatistics(
+		List<DestinationStatistics> partitionStatistics) {
+
+		_partitionStatistics = partitionStatistics;
+	}
+
 	public void setPendingMessageCount(long pendingMessageCount) {
 		_pendingMessageCount = pendingMessageCount;
 	}
 
+	public void setPoolAdjustmentCount(long poolAdjustmentCount) {
+		_poolAdjustmentCount = poolAdjustmentCount;
+	}
+
+	public void setRejectedMessageCount(long rejectedMessageCount) {
+		_rejectedMessageCount = rejectedMessageCount;
+	}
+
 	public void setSentMessageCount(long sentMessageCount) {
 		_sentMessageCount = sentMessageCount;
 	}
 
+	public void setSpilledMessageCount(long spilledMessageCount) {
+		_spilledMessageCount = spilledMessageCount;
+	}
+
+	public void setThrottledMessageCount(long throttledMessageCount) {
+		_throttledMessageCount = throttledMessageCount;
+	}
+
 	private int _activeThreadCount;
+	private long _batchCount;
+	private long _batchMessageCount;
+	private long _coalescedMessageCount;
 	private int _currentThreadCount;
+	private long _expiredMessageCount;
+	private int _largestBatchSize;
 	private int _largestThreadCount;
+	private String _lastPoolAdjustment = StringPool.BLANK;
 	private int _maxThreadPoolSize;
 	private int _minThreadPoolSize;
+	private List<DestinationStatistics> _partitionStatistics =
+		Collections.emptyList();
 	private long _pendingMessageCount;
+	private long _poolAdjustmentCount;
+	private long _rejectedMessageCount;
 	private long _sentMessageCount;
+	private long _spilledMessageCount;
+	private long _throttledMessageCount;
 
 }
\ No newline at end of file
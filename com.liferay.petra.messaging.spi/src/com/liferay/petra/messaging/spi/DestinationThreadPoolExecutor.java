@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.concurrent.RejectedExecutionHandler;
+import com.liferay.petra.concurrent.TaskQueue;
+import com.liferay.petra.concurrent.ThreadPoolExecutor;
+import com.liferay.petra.concurrent.ThreadPoolHandler;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread pool executor that lets a rejection policy work on its task queue
+ * directly, to wait for room in the queue or to remove the oldest task. The
+ * thread pool handler is notified as usual.
+ */
+public class DestinationThreadPoolExecutor extends ThreadPoolExecutor {
+
+	public DestinationThreadPoolExecutor(
+		int corePoolSize, int maxPoolSize, long keepAliveTime,
+		TimeUnit timeUnit, boolean allowCoreThreadTimeout, int maxQueueSize,
+		RejectedExecutionHandler rejectedExecutionHandler,
+		ThreadFactory threadFactory, ThreadPoolHandler threadPoolHandler) {
+
+		this(
+			corePoolSize, maxPoolSize, keepAliveTime, timeUnit,
+			allowCoreThreadTimeout, maxQueueSize, rejectedExecutionHandler,
+			threadFactory,
+			new QueueCapacityThreadPoolHandler(threadPoolHandler));
+	}
+
+	/**
+	 * Queues the task, waiting up to the timeout for room in the task queue.
+	 *
+	 * @return <code>true</code> if the task was queued, or
+	 *         <code>false</code> if the timeout elapsed or the executor was
+	 *         shut down first
+	 */
+	public boolean offerTask(Runnable runnable, long timeout, TimeUnit timeUnit)
+		throws InterruptedException {
+
+		TaskQueue<Runnable> taskQueue = getTaskQueue();
+
+		boolean[] hasWaiterMarker = new boolean[1];
+
+		if (isShutdown()) {
+			return false;
+		}
+
+		if (taskQueue.offer(runnable, hasWaiterMarker)) {
+			return true;
+		}
+
+		long nanos = timeUnit.toNanos(timeout);
+
+		QueueCapacityThreadPoolHandler queueCapacityThreadPoolHandler =
+			_queueCapacityThreadPoolHandler;
+
+		AtomicInteger waiterCount =
+			queueCapacityThreadPoolHandler._waiterCount;
+		ReentrantLock lock = queueCapacityThreadPoolHandler._lock;
+		Condition notFullCondition =
+			queueCapacityThreadPoolHandler._notFullCondition;
+
+		// Register as a waiter before offering again, so that a worker taking
+		// a task after the failed offer always signals
+
+		waiterCount.incrementAndGet();
+
+		lock.lockInterruptibly();
+
+		try {
+			while (!isShutdown()) {
+				if (taskQueue.offer(runnable, hasWaiterMarker)) {
+					return true;
+				}
+
+				if (nanos <= 0) {
+					return false;
+				}
+
+				nanos = notFullCondition.awaitNanos(nanos);
+			}
+
+			return false;
+		}
+		finally {
+			lock.unlock();
+
+			waiterCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Removes and returns the task that waited the longest in the task queue.
+	 *
+	 * @return the oldest queued task, or <code>null</code> if the task queue is
+	 *         empty
+	 */
+	public Runnable pollTask() {
+		TaskQueue<Runnable> taskQueue = getTaskQueue();
+
+		return taskQueue.poll();
+	}
+
+	private DestinationThreadPoolExecutor(
+		int corePoolSize, int maxPoolSize, long keepAliveTime,
+		TimeUnit timeUnit, boolean allowCoreThreadTimeout, int maxQueueSize,
+		RejectedExecutionHandler rejectedExecutionHandler,
+		ThreadFactory threadFactory,
+		QueueCapacityThreadPoolHandler queueCapacityThreadPoolHandler) {
+
+		super(
+			corePoolSize, maxPoolSize, keepAliveTime, timeUnit,
+			allowCoreThreadTimeout, maxQueueSize, rejectedExecutionHandler,
+			threadFactory, queueCapacityThreadPoolHandler);
+
+		_queueCapacityThreadPoolHandler = queueCapacityThreadPoolHandler;
+	}
+
+	private final QueueCapacityThreadPoolHandler
+		_queueCapacityThreadPoolHandler;
+
+	private static class QueueCapacityThreadPoolHandler
+		implements ThreadPoolHandler {
+
+		@Override
+		public void afterExecute(Runnable runnable, Throwable throwable) {
+			_threadPoolHandler.afterExecute(runnable, throwable);
+		}
+
+		@Override
+		public void beforeExecute(Thread thread, Runnable runnable) {
+			signal();
+
+			_threadPoolHandler.beforeExecute(thread, runnable);
+		}
+
+		@Override
+		public void beforeThreadEnd(Thread thread) {
+			_threadPoolHandler.beforeThreadEnd(thread);
+		}
+
+		@Override
+		public void beforeThreadStart(Thread thread) {
+			_threadPoolHandler.beforeThreadStart(thread);
+		}
+
+		public void signal() {
+			if (_waiterCount.get() == 0) {
+				return;
+			}
+
+			_lock.lock();
+
+			try {
+				_notFullCondition.signal();
+			}
+			finally {
+				_lock.unlock();
+			}
+		}
+
+		@Override
+		public void terminated() {
+			if (_waiterCount.get() > 0) {
+				_lock.lock();
+
+				try {
+					_notFullCondition.signalAll();
+				}
+				finally {
+					_lock.unlock();
+				}
+			}
+
+			_threadPoolHandler.terminated();
+		}
+
+		private QueueCapacityThreadPoolHandler(
+			ThreadPoolHandler threadPoolHandler) {
+
+			_threadPoolHandler = threadPoolHandler;
+		}
+
+		private final ReentrantLock _lock = new ReentrantLock();
+		private final Condition _notFullCondition = _lock.newCondition();
+		private final ThreadPoolHandler _threadPoolHandler;
+		private final AtomicInteger _waiterCount = new AtomicInteger();
+
+	}
+
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.InboundMessageProcessor;
+import com.liferay.petra.messaging.api.InboundMessageProcessorFactory;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.api.OutboundMessageProcessor;
+import com.liferay.petra.messaging.api.OutboundMessageProcessorFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the message listeners and message processor factories
+ * of a {@link BaseDestination}.
+ *
+ * <p>
+ * Each plan carries the topology version of the destination it was built
+ * from. The destination hands out the same plan until a listener or a
+ * processor factory is added or removed, so senders can reuse it without
+ * copying the underlying service maps on every message.
+ * </p>
+ *
+ * <p>
+ * Message processor factories registered with the
+ * <code>message.processor.shareable</code> service property set to
+ * <code>true</code> declare that their processors are stateless. The plan
+ * creates one processor for each of them and shares it among all messages.
+ * </p>
+ */
+public class DispatchPlan {
+
+	public DispatchPlan(
+		long version, Collection<MessageListener> messageListeners,
+		Map<Map<String, Object>, InboundMessageProcessorFactory>
+			inboundMessageProcessorFactories,
+		Map<Map<String, Object>, OutboundMessageProcessorFactory>
+			outboundMessageProcessorFactories) {
+
+		_version = version;
+
+		_messageListenerArray = messageListeners.toArray(
+			new MessageListener[0]);
+		_messageListeners = Collections.unmodifiableList(
+			Arrays.asList(_messageListenerArray));
+
+		int size = inboundMessageProcessorFactories.size();
+
+		_inboundMessageProcessorFactories =
+			new InboundMessageProcessorFactory[size];
+		_inboundMessageProcessors = new InboundMessageProcessor[size];
+
+		boolean inboundMessageProcessorsShareable = true;
+		int i = 0;
+
+		for (Map.Entry<Map<String, Object>, InboundMessageProcessorFactory>
+				entry : inboundMessageProcessorFactories.entrySet()) {
+
+			if (i == size) {
+				break;
+			}
+
+			InboundMessageProcessorFactory factory = entry.getValue();
+
+			if (_isShareable(entry.getKey())) {
+				_inboundMessageProcessors[i] = factory.create();
+			}
+			else {
+				_inboundMessageProcessorFactories[i] = factory;
+
+				inboundMessageProcessorsShareable = false;
+			}
+
+			i++;
+		}
+
+		_inboundMessageProcessorCount = i;
+
+		if (i == 0) {
+
+			// The empty list iterates without allocating an iterator
+
+			_sharedInboundMessageProcessors = Collections.emptyList();
+		}
+		else if (inboundMessageProcessorsShareable) {
+			_sharedInboundMessageProcessors = Collections.unmodifiableList(
+				Arrays.asList(Arrays.copyOf(_inboundMessageProcessors, i)));
+		}
+		else {
+			_sharedInboundMessageProcessors = null;
+		}
+
+		size = outboundMessageProcessorFactories.size();
+
+		_outboundMessageProcessorFactories =
+			new OutboundMessageProcessorFactory[size];
+		_outboundMessageProcessors = new OutboundMessageProcessor[size];
+
+		boolean outboundMessageProcessorsShareable = true;
+		i = 0;
+
+		for (Map.Entry<Map<String, Object>, OutboundMessageProcessorFactory>
+				entry : outboundMessageProcessorFactories.entrySet()) {
+
+			if (i == size) {
+				break;
+			}
+
+			OutboundMessageProcessorFactory factory = entry.getValue();
+
+			if (_isShareable(entry.getKey())) {
+				_outboundMessageProcessors[i] = factory.create();
+			}
+			else {
+				_outboundMessageProcessorFactories[i] = factory;
+
+				outboundMessageProcessorsShareable = false;
+			}
+
+			i++;
+		}
+
+		_outboundMessageProcessorCount = i;
+
+		if (i == 0) {
+
+			// The empty list iterates without allocating an iterator
+
+			_sharedOutboundMessageProcessors = Collections.emptyList();
+		}
+		else if (outboundMessageProcessorsShareable) {
+			_sharedOutboundMessageProcessors = Collections.unmodifiableList(
+				Arrays.asList(Arrays.copyOf(_outboundMessageProcessors, i)));
+		}
+		else {
+			_sharedOutboundMessageProcessors = null;
+		}
+	}
+
+	/**
+	 * Returns the inbound message processors for one message. Processors of
+	 * shareable factories are created once per plan and returned again;
+	 * the others are created on each call.
+	 *
+	 * @return the inbound message processors for one message
+	 */
+	public List<InboundMessageProcessor> createInboundMessageProcessors() {
+		if (_sharedInboundMessageProcessors != null) {
+			return _sharedInboundMessageProcessors;
+		}
+
+		InboundMessageProcessor[] processors =
+			new InboundMessageProcessor[_inboundMessageProcessorCount];
+
+		for (int i = 0; i < processors.length; i++) {
+			InboundMessageProcessorFactory factory =
+				_inboundMessageProcessorFactories[i];
+
+			if (factory == null) {
+				processors[i] = _inboundMessageProcessors[i];
+			}
+			else {
+				processors[i] = factory.create();
+			}
+		}
+
+		return Collections.unmodifiableList(Arrays.asList(processors));
+	}
+
+	/**
+	 * Returns the outbound message processors for one message. Processors of
+	 * shareable factories are created once per plan and returned again;
+	 * the others are created on each call.
+	 *
+	 * @return the outbound message processors for one message
+	 */
+	public List<OutboundMessageProcessor> createOutboundMessageProcessors() {
+		if (_sharedOutboundMessageProcessors != null) {
+			return _sharedOutboundMessageProcessors;
+		}
+
+		OutboundMessageProcessor[] processors =
+			new OutboundMessageProcessor[_outboundMessageProcessorCount];
+
+		for (int i = 0; i < processors.length; i++) {
+			OutboundMessageProcessorFactory factory =
+				_outboundMessageProcessorFactories[i];
+
+			if (factory == null) {
+				processors[i] = _outboundMessageProcessors[i];
+			}
+			else {
+				processors[i] = factory.create();
+			}
+		}
+
+		return Collections.unmodifiableList(Arrays.asList(processors));
+	}
+
+	/**
+	 * Returns the message listeners of the plan in service ranking order. The
+	 * array is shared by all callers so that dispatch loops can iterate it
+	 * without allocating; it must not be modified.
+	 *
+	 * @return the message listeners of the plan
+	 */
+	public MessageListener[] getMessageListenerArray() {
+		return _messageListenerArray;
+	}
+
+	public List<MessageListener> getMessageListeners() {
+		return _messageListeners;
+	}
+
+	public long getVersion() {
+		return _version;
+	}
+
+	public boolean hasInboundMessageProcessors() {
+		if (_inboundMessageProcessorCount > 0) {
+			return true;
+		}
+
+		return false;
+	}
+
+	public boolean hasMessageListeners() {
+		if (_messageListenerArray.length > 0) {
+			return true;
+		}
+
+		return false;
+	}
+
+	public boolean hasOutboundMessageProcessors() {
+		if (_outboundMessageProcessorCount > 0) {
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns <code>true</code> if every inbound message processor factory is
+	 * shareable, so that all messages share the same inbound message
+	 * processors.
+	 */
+	public boolean isInboundMessageProcessorsShared() {
+		if (_sharedInboundMessageProcessors != null) {
+			return true;
+		}
+
+		return false;
+	}
+
+	private boolean _isShareable(Map<String, Object> properties) {
+		Object shareable = properties.get(
+			InboundMessageProcessorFactory.SHAREABLE);
+
+		if (shareable == null) {
+			return false;
+		}
+
+		return Boolean.parseBoolean(String.valueOf(shareable));
+	}
+
+	private final int _inboundMessageProcessorCount;
+	private final InboundMessageProcessorFactory[]
+		_inboundMessageProcessorFactories;
+	private final InboundMessageProcessor[] _inboundMessageProcessors;
+	private final MessageListener[] _messageListenerArray;
+	private final List<MessageListener> _messageListeners;
+	private final int _outboundMessageProcessorCount;
+	private final OutboundMessageProcessorFactory[]
+		_outboundMessageProcessorFactories;
+	private final OutboundMessageProcessor[] _outboundMessageProcessors;
+	private final List<InboundMessageProcessor>
+		_sharedInboundMessageProcessors;
+	private final List<OutboundMessageProcessor>
+		_sharedOutboundMessageProcessors;
+	private final long _version;
+
+}
@@ -0,0 +1,429 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.DestinationSettings;
+import com.liferay.petra.messaging.api.InboundMessageProcessor;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.concurrent.ThreadPoolExecutor;
+import com.liferay.petra.io.util.Validator;
+import com.liferay.petra.string.StringPool;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Destination that writes every message to a {@link MessageLog} before
+ * delivering it to its message listeners one at a time. A message is
+ * acknowledged once it has been delivered, and the messages that were not
+ * acknowledged when the destination went down are delivered again when it is
+ * opened with message listeners, before any new message.
+ * </p>
+ *
+ * <p>
+ * Delivery is at least once: a message whose delivery was interrupted is
+ * delivered again. The log only moves past a message once it and every
+ * earlier message are acknowledged. Messages being delivered or still queued
+ * when the destination is closed with force are not acknowledged, so they are
+ * delivered again the next time the destination is opened. Messages
+ * discarded by the rejection policy while the destination is open are
+ * skipped instead, so that they do not keep the log from moving past the
+ * messages delivered after them. Skipped messages are counted and logged.
+ * Transient values are not logged.
+ * </p>
+ */
+@Component(factory = "durable.destination")
+public class DurableDestination extends BaseAsyncDestination {
+
+	public DurableDestination() {
+		setWorkersCoreSize(_WORKERS_CORE_SIZE);
+		setWorkersMaxSize(_WORKERS_MAX_SIZE);
+	}
+
+	@Override
+	public void addMessageListener(
+		MessageListener messageListener, Map<String, Object> properties) {
+
+		super.addMessageListener(messageListener, properties);
+
+		if (_replayPending) {
+			_replay();
+		}
+	}
+
+	@Override
+	public void close(boolean force) {
+		if (force) {
+			_forceClosed = true;
+		}
+
+		super.close(force);
+
+		MessageLog messageLog = _messageLog;
+
+		if (messageLog != null) {
+			messageLog.close();
+		}
+	}
+
+	/**
+	 * Returns the offset below which every logged message has been delivered.
+	 */
+	public long getAcknowledgedOffset() {
+		return _messageLog.getAcknowledgedOffset();
+	}
+
+	public String getLogDirectory() {
+		return _logDirectory;
+	}
+
+	public int getLogFlushBatchSize() {
+		return _logFlushBatchSize;
+	}
+
+	/**
+	 * Returns the offset the next logged message gets.
+	 */
+	public long getLogOffset() {
+		return _messageLog.getNextOffset();
+	}
+
+	public int getLogSegmentSize() {
+		return _logSegmentSize;
+	}
+
+	/**
+	 * Returns the number of logged messages that were skipped without being
+	 * delivered.
+	 */
+	public long getSkippedMessageCount() {
+		return _skippedMessageCount.sum();
+	}
+
+	@Override
+	public void open() {
+		_forceClosed = false;
+
+		super.open();
+
+		if (_messageLog != null) {
+			return;
+		}
+
+		Path path = null;
+
+		if (Validator.isNull(_logDirectory)) {
+			path = Paths.get(
+				System.getProperty("java.io.tmpdir"), _DIRECTORY_NAME,
+				getName());
+		}
+		else {
+			path = Paths.get(_logDirectory, getName());
+		}
+
+		try {
+			_messageLog = new MessageLog(
+				path, _logSegmentSize, _logFlushBatchSize);
+		}
+		catch (IOException ioe) {
+			throw new IllegalStateException(
+				"Unable to open log " + path + " of destination " + getName(),
+				ioe);
+		}
+
+		_replayPending = true;
+
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (dispatchPlan.hasMessageListeners()) {
+			_replay();
+		}
+	}
+
+	/**
+	 * Sets the directory holding the logs of the durable destinations. Each
+	 * destination logs to a subdirectory named after it. A blank directory
+	 * uses the temporary directory, which survives a restart of the process
+	 * but not necessarily of the machine.
+	 */
+	public void setLogDirectory(String logDirectory) {
+		if (logDirectory == null) {
+			logDirectory = StringPool.BLANK;
+		}
+
+		_logDirectory = logDirectory;
+	}
+
+	/**
+	 * Sets how many messages are logged before the log is forced to disk. A
+	 * force covers every message logged since the previous one, so larger
+	 * batches trade the number of messages that can be lost on a crash of the
+	 * operating system for throughput. The log is also forced whenever the
+	 * queue drains.
+	 */
+	public void setLogFlushBatchSize(int logFlushBatchSize) {
+		_logFlushBatchSize = logFlushBatchSize;
+	}
+
+	public void setLogSegmentSize(int logSegmentSize) {
+		_logSegmentSize = logSegmentSize;
+	}
+
+	@Activate
+	protected void activate(DestinationSettings destinationSettings) {
+		setDeliveryKey(destinationSettings.deliveryKey());
+		setDeliveryMode(destinationSettings.deliveryMode());
+		setLogDirectory(destinationSettings.logDirectory());
+		setLogFlushBatchSize(destinationSettings.logFlushBatchSize());
+		setLogSegmentSize(destinationSettings.logSegmentSize());
+		setMaximumQueueSize(destinationSettings.maxQueueSize());
+		setName(destinationSettings.destination_name());
+		setRejectionPolicy(destinationSettings.rejectionPolicy());
+		setRejectionTimeout(destinationSettings.rejectionTimeout());
+		setWorkersIdleTimeout(destinationSettings.workerIdleTimeout());
+		setWorkersLazy(destinationSettings.workerLazy());
+		setWorkersShared(destinationSettings.workerShared());
+		setWorkersVirtual(destinationSettings.workerVirtual());
+		setWorkersWeight(destinationSettings.workerWeight());
+		afterPropertiesSet();
+		open();
+	}
+
+	@Deactivate
+	protected void deactivate() {
+		close();
+	}
+
+	@Override
+	protected void dispatch(
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Message message) {
+
+		if (_replayPending) {
+			_replay();
+		}
+
+		long offset = 0;
+
+		try {
+			offset = _messageLog.append(message.toByteArray());
+		}
+		catch (IOException ioe) {
+			throw new IllegalStateException(
+				"Unable to log message " + message + " of destination " +
+					getName(),
+				ioe);
+		}
+
+		_execute(messageListeners, inboundMessageProcessors, message, offset);
+	}
+
+	@Override
+	protected void dispatch(
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		List<Message> messages) {
+
+		for (Message message : messages) {
+			dispatch(messageListeners, inboundMessageProcessors, message);
+		}
+	}
+
+	@Override
+	protected boolean isOrdered() {
+		return true;
+	}
+
+	@Override
+	protected void messagesDiscarded(MessageRunnable messageRunnable) {
+
+		// Messages discarded because the destination is shut down are
+		// delivered again when it is opened
+
+		if (!isShutdown() &&
+			(messageRunnable instanceof DurableMessageRunnable)) {
+
+			DurableMessageRunnable durableMessageRunnable =
+				(DurableMessageRunnable)messageRunnable;
+
+			_skip(durableMessageRunnable._offset);
+		}
+	}
+
+	private void _execute(
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Message message, long offset) {
+
+		ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
+
+		threadPoolExecutor.execute(
+			new DurableMessageRunnable(
+				messageListeners, inboundMessageProcessors, message, offset,
+				Thread.currentThread(), threadPoolExecutor));
+	}
+
+	/**
+	 * Queues the messages that were not acknowledged before the log was
+	 * opened. Replay waits for the first message listener, because messages
+	 * without message listeners are dropped.
+	 */
+	private synchronized void _replay() {
+		if (!_replayPending) {
+			return;
+		}
+
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (!dispatchPlan.hasMessageListeners()) {
+			return;
+		}
+
+		final Collection<MessageListener> messageListeners =
+			dispatchPlan.getMessageListeners();
+		final List<InboundMessageProcessor> inboundMessageProcessors =
+			dispatchPlan.createInboundMessageProcessors();
+
+		_messageLog.replay(
+			(bytes, offset) -> {
+				Message message = null;
+
+				try {
+					message = MessageImpl.fromByteArray(bytes);
+				}
+				catch (ClassNotFoundException | RuntimeException e) {
+					_log.error(
+						"Unable to replay message at offset {} of " +
+							"destination {}",
+						offset, getName(), e);
+
+					// Skip the message so that it does not hold back the
+					// acknowledgement of the messages after it
+
+					_skip(offset);
+
+					return;
+				}
+
+				_execute(
+					messageListeners, inboundMessageProcessors, message,
+					offset);
+			});
+
+		_replayPending = false;
+	}
+
+	/**
+	 * Acknowledges a message that is not delivered, so that the log can move
+	 * past it.
+	 */
+	private void _skip(long offset) {
+		_skippedMessageCount.increment();
+
+		_messageLog.acknowledge(offset);
+
+		if (_log.isWarnEnabled()) {
+			_log.warn(
+				"Skipped message at offset {} of destination {}, {} messages " +
+					"skipped in total",
+				offset, getName(), _skippedMessageCount.sum());
+		}
+	}
+
+	private static final String _DIRECTORY_NAME = "petra-messaging-log";
+
+	private static final int _LOG_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private static final int _WORKERS_CORE_SIZE = 1;
+
+	private static final int _WORKERS_MAX_SIZE = 1;
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		DurableDestination.class);
+
+	private volatile boolean _forceClosed;
+	private String _logDirectory = StringPool.BLANK;
+	private int _logFlushBatchSize = 1;
+	private int _logSegmentSize = _LOG_SEGMENT_SIZE;
+	private volatile MessageLog _messageLog;
+	private volatile boolean _replayPending;
+	private final LongAdder _skippedMessageCount = new LongAdder();
+
+	private class DurableMessageRunnable extends MessageRunnable {
+
+		private DurableMessageRunnable(
+			Collection<MessageListener> messageListeners,
+			Collection<InboundMessageProcessor> inboundMessageProcessors,
+			Message message, long offset, Thread dispatchThread,
+			ThreadPoolExecutor threadPoolExecutor) {
+
+			super(message);
+
+			_messageListeners = messageListeners;
+			_inboundMessageProcessors = inboundMessageProcessors;
+			_offset = offset;
+			_dispatchThread = dispatchThread;
+			_threadPoolExecutor = threadPoolExecutor;
+		}
+
+		@Override
+		public void run() {
+			try {
+				receive(
+					_messageListeners, _inboundMessageProcessors, getMessage(),
+					_dispatchThread);
+			}
+			finally {
+				MessageLog messageLog = _messageLog;
+
+				// A message delivered while the destination is closed with
+				// force is not acknowledged, so it is delivered again
+
+				if (!_forceClosed) {
+					messageLog.acknowledge(_offset);
+				}
+
+				if (_threadPoolExecutor.getPendingTaskCount() == 0) {
+					messageLog.flush();
+				}
+			}
+		}
+
+		private final Thread _dispatchThread;
+		private final Collection<InboundMessageProcessor>
+			_inboundMessageProcessors;
+		private final Collection<MessageListener> _messageListeners;
+		private final long _offset;
+		private final ThreadPoolExecutor _threadPoolExecutor;
+
+	}
+
+}
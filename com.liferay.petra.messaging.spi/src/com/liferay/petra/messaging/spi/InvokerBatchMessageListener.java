@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.BatchMessageListener;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListenerException;
+
+import java.util.List;
+
+/**
+ * Invokes a batch message listener with its operating class loader as the
+ * context class loader.
+ */
+public class InvokerBatchMessageListener
+	extends InvokerMessageListener implements BatchMessageListener {
+
+	public InvokerBatchMessageListener(
+		BatchMessageListener batchMessageListener, ClassLoader classLoader) {
+
+		super(batchMessageListener, classLoader);
+
+		_batchMessageListener = batchMessageListener;
+	}
+
+	@Override
+	public void receive(List<Message> messages)
+		throws MessageListenerException {
+
+		Thread currentThread = Thread.currentThread();
+
+		ClassLoader classLoader = getClassLoader();
+		ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+
+		if (classLoader != null) {
+			currentThread.setContextClassLoader(classLoader);
+		}
+
+		try {
+			_batchMessageListener.receive(messages);
+		}
+		finally {
+			if (classLoader != null) {
+				currentThread.setContextClassLoader(contextClassLoader);
+			}
+		}
+	}
+
+	private final BatchMessageListener _batchMessageListener;
+
+}
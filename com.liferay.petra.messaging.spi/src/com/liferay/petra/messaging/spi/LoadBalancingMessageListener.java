@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.DeliveryMode;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.api.MessageListenerException;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Delivers each message to exactly one of a fixed set of message listeners,
+ * chosen according to a {@link DeliveryMode} other than {@link
+ * DeliveryMode#BROADCAST}.
+ *
+ * <p>
+ * Destinations deliver to this listener in place of their own listeners, so
+ * every destination type supports competing consumers without changes to its
+ * dispatching. The listener is chosen when the message is delivered, which
+ * for asynchronous destinations is on the worker thread.
+ * </p>
+ */
+public class LoadBalancingMessageListener implements MessageListener {
+
+	public LoadBalancingMessageListener(
+		DeliveryMode deliveryMode, String deliveryKey,
+		Collection<MessageListener> messageListeners) {
+
+		if ((deliveryMode == DeliveryMode.BROADCAST) ||
+			messageListeners.isEmpty()) {
+
+			throw new IllegalArgumentException();
+		}
+
+		_deliveryMode = deliveryMode;
+		_deliveryKey = deliveryKey;
+		_messageListeners = messageListeners.toArray(new MessageListener[0]);
+
+		_inFlightCounts = new AtomicIntegerArray(_messageListeners.length);
+	}
+
+	/**
+	 * Returns the number of messages that the message listener at the
+	 * specified position is processing.
+	 */
+	public int getInFlightCount(int index) {
+		return _inFlightCounts.get(index);
+	}
+
+	public int getMessageListenerCount() {
+		return _messageListeners.length;
+	}
+
+	@Override
+	public void receive(Message message) throws MessageListenerException {
+		int index = _select(message);
+
+		_inFlightCounts.incrementAndGet(index);
+
+		try {
+			_messageListeners[index].receive(message);
+		}
+		finally {
+			_inFlightCounts.decrementAndGet(index);
+		}
+	}
+
+	private int _next() {
+		return Math.floorMod(
+			_nextIndex.getAndIncrement(), _messageListeners.length);
+	}
+
+	private int _select(Message message) {
+		if (_messageListeners.length == 1) {
+			return 0;
+		}
+
+		if (_deliveryMode == DeliveryMode.LEAST_IN_FLIGHT) {
+
+			// Start the scan at a rotating position so that ties do not
+			// always go to the first message listener
+
+			int start = _next();
+
+			int index = start;
+			int minInFlightCount = Integer.MAX_VALUE;
+
+			for (int i = 0; i < _messageListeners.length; i++) {
+				int curIndex = (start + i) % _messageListeners.length;
+
+				int inFlightCount = _inFlightCounts.get(curIndex);
+
+				if (inFlightCount < minInFlightCount) {
+					index = curIndex;
+					minInFlightCount = inFlightCount;
+				}
+			}
+
+			return index;
+		}
+
+		if ((_deliveryMode == DeliveryMode.STICKY) && !_deliveryKey.isEmpty()) {
+			Object deliveryKeyValue = message.get(_deliveryKey);
+
+			if (deliveryKeyValue != null) {
+				int hash = deliveryKeyValue.hashCode();
+
+				hash ^= hash >>> 16;
+
+				return Math.floorMod(hash, _messageListeners.length);
+			}
+		}
+
+		return _next();
+	}
+
+	private final String _deliveryKey;
+	private final DeliveryMode _deliveryMode;
+	private final AtomicIntegerArray _inFlightCounts;
+	private final MessageListener[] _messageListeners;
+	private final AtomicInteger _nextIndex = new AtomicInteger();
+
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.BatchMessageListener;
+import com.liferay.petra.messaging.api.InboundMessageProcessor;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListenerException;
+import com.liferay.petra.messaging.api.MessageProcessorException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the messages pending for a batch message listener and delivers them
+ * in batches on worker threads.
+ *
+ * <p>
+ * A destination adds every message for the batch message listener here and
+ * executes one task per message that drains and delivers the pending
+ * messages. The first task drains the messages pending at that time, so later
+ * tasks often find nothing left to deliver.
+ * </p>
+ */
+public class MessageBatcher {
+
+	public MessageBatcher(BatchMessageListener batchMessageListener) {
+		_batchMessageListener = batchMessageListener;
+	}
+
+	public Entry add(
+		Message message,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Thread dispatchThread) {
+
+		Entry entry = new Entry(
+			message, inboundMessageProcessors, dispatchThread);
+
+		_pendingEntries.add(entry);
+
+		return entry;
+	}
+
+	/**
+	 * Delivers the drained entries to the batch message listener in one call.
+	 * The before and after thread stages of the inbound message processors
+	 * run for each message around the delivery.
+	 */
+	public void deliver(List<Entry> entries) {
+		List<Message> messages = new ArrayList<>(entries.size());
+
+		try {
+			for (Entry entry : entries) {
+				Message message = entry._message;
+
+				for (InboundMessageProcessor processor :
+						entry._inboundMessageProcessors) {
+
+					try {
+						message = processor.beforeThread(
+							message, entry._dispatchThread);
+					}
+					catch (MessageProcessorException mpe) {
+						_log.error(
+							"Unable to process message {} before thread {}",
+							message, entry._dispatchThread, mpe);
+					}
+				}
+
+				entry._message = message;
+
+				messages.add(message);
+			}
+
+			try {
+				_batchMessageListener.receive(messages);
+			}
+			catch (MessageListenerException mle) {
+				_log.error(
+					"Unable to process {} messages {}", messages.size(),
+					messages, mle);
+			}
+		}
+		finally {
+			for (Entry entry : entries) {
+				for (InboundMessageProcessor processor :
+						entry._inboundMessageProcessors) {
+
+					try {
+						processor.afterThread(
+							entry._message, entry._dispatchThread);
+					}
+					catch (MessageProcessorException mpe) {
+						_log.error(
+							"Unable to process message {} after thread {}",
+							entry._message, entry._dispatchThread, mpe);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes up to the maximum batch size of pending entries, waiting at
+	 * most the maximum batch delay for more entries to arrive.
+	 *
+	 * @param  maximumBatchSize the maximum number of entries to drain
+	 * @param  maximumBatchDelay the maximum time to wait for more entries, in
+	 *         milliseconds
+	 * @return the drained entries in the order they were added, or an empty
+	 *         list if no entries are pending
+	 */
+	public List<Entry> drain(int maximumBatchSize, long maximumBatchDelay) {
+		maximumBatchSize = Math.max(1, maximumBatchSize);
+
+		List<Entry> entries = new ArrayList<>();
+
+		_pendingEntries.drainTo(entries, maximumBatchSize);
+
+		if (!entries.isEmpty() && (maximumBatchDelay > 0)) {
+			_await(entries, maximumBatchSize, maximumBatchDelay);
+		}
+
+		return entries;
+	}
+
+	public int getPendingMessageCount() {
+		return _pendingEntries.size();
+	}
+
+	/**
+	 * Removes the entry if it has not been delivered yet.
+	 *
+	 * @return <code>true</code> if the entry was removed
+	 */
+	public boolean remove(Entry entry) {
+		return _pendingEntries.remove(entry);
+	}
+
+	public static class Entry {
+
+		public Message getMessage() {
+			return _message;
+		}
+
+		private Entry(
+			Message message,
+			Collection<InboundMessageProcessor> inboundMessageProcessors,
+			Thread dispatchThread) {
+
+			_message = message;
+			_inboundMessageProcessors = inboundMessageProcessors;
+			_dispatchThread = dispatchThread;
+		}
+
+		private final Thread _dispatchThread;
+		private final Collection<InboundMessageProcessor>
+			_inboundMessageProcessors;
+		private Message _message;
+
+	}
+
+	private void _await(
+		List<Entry> entries, int maximumBatchSize, long maximumBatchDelay) {
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+			maximumBatchDelay);
+
+		while (entries.size() < maximumBatchSize) {
+			long remaining = deadline - System.nanoTime();
+
+			if (remaining <= 0) {
+				return;
+			}
+
+			Entry entry = null;
+
+			try {
+				entry = _pendingEntries.poll(remaining, TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException ie) {
+				Thread currentThread = Thread.currentThread();
+
+				currentThread.interrupt();
+
+				return;
+			}
+
+			if (entry == null) {
+				return;
+			}
+
+			entries.add(entry);
+
+			_pendingEntries.drainTo(entries, maximumBatchSize - entries.size());
+		}
+	}
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		MessageBatcher.class);
+
+	private final BatchMessageListener _batchMessageListener;
+	private final BlockingQueue<Entry> _pendingEntries =
+		new LinkedBlockingQueue<>();
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageMerger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps at most one pending message per coalesce key value. A message sent
+ * while another message with the same key value waits in the queue replaces
+ * or is merged into the waiting message instead of being queued.
+ *
+ * <p>
+ * The destination queues a private copy of the first message for each key
+ * value, so that later messages can be folded into it without touching the
+ * sender's message. Workers must claim a message before reading it; after
+ * that, new messages with the same key value start a new pending message.
+ * </p>
+ */
+public class MessageCoalescer {
+
+	public MessageCoalescer(String coalesceKey) {
+		_coalesceKey = coalesceKey;
+	}
+
+	/**
+	 * Marks the message as taken by a worker so that it no longer changes.
+	 * Messages that are not pending in this coalescer are ignored.
+	 */
+	public void claim(Message message) {
+		Object keyValue = message.get(_coalesceKey);
+
+		if (keyValue == null) {
+			return;
+		}
+
+		PendingMessage pendingMessage = _pendingMessages.get(keyValue);
+
+		if ((pendingMessage == null) || (pendingMessage._message != message)) {
+			return;
+		}
+
+		synchronized (pendingMessage) {
+			pendingMessage._claimed = true;
+		}
+
+		_pendingMessages.remove(keyValue, pendingMessage);
+	}
+
+	/**
+	 * Folds the message into the pending message with the same key value.
+	 *
+	 * @param  message the message being sent
+	 * @param  messageMerger the message merger to use, or <code>null</code>
+	 *         to replace the pending message
+	 * @return the message to queue, or <code>null</code> if the message was
+	 *         folded into a pending message
+	 */
+	public Message coalesce(Message message, MessageMerger messageMerger) {
+		Object keyValue = message.get(_coalesceKey);
+
+		if (keyValue == null) {
+			return message;
+		}
+
+		while (true) {
+			PendingMessage pendingMessage = _pendingMessages.get(keyValue);
+
+			if (pendingMessage == null) {
+				Message queuedMessage = message.clone();
+
+				if (_pendingMessages.putIfAbsent(
+						keyValue, new PendingMessage(queuedMessage)) == null) {
+
+					return queuedMessage;
+				}
+
+				continue;
+			}
+
+			synchronized (pendingMessage) {
+				if (!pendingMessage._claimed) {
+					_fold(pendingMessage._message, message, messageMerger);
+
+					_coalescedMessageCount.increment();
+
+					return null;
+				}
+			}
+
+			_pendingMessages.remove(keyValue, pendingMessage);
+		}
+	}
+
+	public long getCoalescedMessageCount() {
+		return _coalescedMessageCount.sum();
+	}
+
+	public String getCoalesceKey() {
+		return _coalesceKey;
+	}
+
+	public int getPendingMessageCount() {
+		return _pendingMessages.size();
+	}
+
+	private void _fold(
+		Message pendingMessage, Message message, MessageMerger messageMerger) {
+
+		if (messageMerger != null) {
+			message = messageMerger.merge(pendingMessage, message);
+
+			if (message == pendingMessage) {
+				return;
+			}
+		}
+
+		// The queued task holds the pending message, so replace its contents
+		// rather than the message itself
+
+		pendingMessage.setValues(null);
+
+		pendingMessage.copyFrom(message);
+	}
+
+	private final LongAdder _coalescedMessageCount = new LongAdder();
+	private final String _coalesceKey;
+	private final Map<Object, PendingMessage> _pendingMessages =
+		new ConcurrentHashMap<>();
+
+	private static class PendingMessage {
+
+		public PendingMessage(Message message) {
+			_message = message;
+		}
+
+		private boolean _claimed;
+		private final Message _message;
+
+	}
+
+}
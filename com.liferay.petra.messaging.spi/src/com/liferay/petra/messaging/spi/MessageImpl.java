@@ -26,7 +26,6 @@ import java.io.Serializable;
 
 import java.nio.ByteBuffer;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -73,13 +72,15 @@ public class MessageImpl implements Message {
 		MessageImpl message = new MessageImpl();
 
 		message._destinationName = _destinationName;
+		message._correlationId = _correlationId;
+		message._expirationTime = _expirationTime;
 		message._payload = _payload;
 		message._response = _response;
 		message._responseDestinationName = _responseDestinationName;
 		message._responseId = _responseId;
 
 		if (_values != null) {
-			message._values = new HashMap<>(_values);
+			message._values = new MessageValueMap(_values);
 		}
 
 		return message;
@@ -117,7 +118,7 @@ public class MessageImpl implements Message {
 			return false;
 		}
 		
-		if (!Objects.equals(messageImpl._responseId, this._responseId)) {
+		if (!Objects.equals(messageImpl.getResponseId(), getResponseId())) {
 			return false;
 		}
 		
@@ -151,14 +152,22 @@ public class MessageImpl implements Message {
 	 * @param message the message from which to copy all the fields
 	 */
 	public void copyFrom(Message message) {
+		_correlationId = message.getCorrelationId();
 		_destinationName = message.getDestinationName();
+		_expirationTime = message.getExpirationTime();
 		_payload = message.getPayload();
 		_response = message.getResponse();
 		_responseDestinationName = message.getResponseDestinationName();
-		_responseId = message.getResponseId();
+
+		if (_correlationId != 0) {
+			_responseId = null;
+		}
+		else {
+			_responseId = message.getResponseId();
+		}
 
 		if (message.getValues() != null) {
-			_values = new HashMap<>(message.getValues());
+			_values = new MessageValueMap(message.getValues());
 		}
 	}
 
@@ -169,13 +178,20 @@ public class MessageImpl implements Message {
 	 */
 	public void copyTo(Message message) {
 		message.setDestinationName(_destinationName);
+		message.setExpirationTime(_expirationTime);
 		message.setPayload(_payload);
 		message.setResponse(_response);
 		message.setResponseDestinationName(_responseDestinationName);
-		message.setResponseId(_responseId);
+
+		if (_correlationId != 0) {
+			message.setCorrelationId(_correlationId);
+		}
+		else {
+			message.setResponseId(_responseId);
+		}
 
 		if (_values != null) {
-			message.setValues(new HashMap<>(_values));
+			message.setValues(new MessageValueMap(_values));
 		}
 	}
 
@@ -228,6 +244,46 @@ public class MessageImpl implements Message {
 		return value;
 	}
 
+	/**
+	 * Returns the message's correlation ID, the numeric form of its response
+	 * ID. If the response ID was set as a string that is not the string form
+	 * of a correlation ID, this returns <code>0</code>.
+	 *
+	 * @return the message's correlation ID or <code>0</code> if it has none
+	 */
+	public long getCorrelationId() {
+		if ((_correlationId != 0) || (_responseId == null)) {
+			return _correlationId;
+		}
+
+		// Only the exact string form of a correlation ID is accepted so that
+		// converting back to a string returns the same response ID
+
+		int length = _responseId.length();
+
+		if ((length == 0) || (length > 16) || (_responseId.charAt(0) == '0')) {
+			return 0;
+		}
+
+		long correlationId = 0;
+
+		for (int i = 0; i < length; i++) {
+			char c = _responseId.charAt(i);
+
+			if ((c >= '0') && (c <= '9')) {
+				correlationId = (correlationId << 4) | (c - '0');
+			}
+			else if ((c >= 'a') && (c <= 'f')) {
+				correlationId = (correlationId << 4) | (c - 'a' + 10);
+			}
+			else {
+				return 0;
+			}
+		}
+
+		return correlationId;
+	}
+
 	/**
 	 * Returns the name of this message's destination.
 	 *
@@ -237,6 +293,17 @@ public class MessageImpl implements Message {
 		return _destinationName;
 	}
 
+	/**
+	 * Returns the time after which this message is no longer delivered, in
+	 * milliseconds since the epoch.
+	 *
+	 * @return the time after which this message is no longer delivered or
+	 *         <code>0</code> if the message never expires
+	 */
+	public long getExpirationTime() {
+		return _expirationTime;
+	}
+
 	/**
 	 * Returns the value, interpreted as a double, in this message associated
 	 * with the key or <code>null</code> if the key could not be found.
@@ -342,6 +409,14 @@ public class MessageImpl implements Message {
 	 * @return the message's response ID
 	 */
 	public String getResponseId() {
+
+		// The string is not kept, because message listeners can read the
+		// message concurrently
+
+		if ((_responseId == null) && (_correlationId != 0)) {
+			return Long.toHexString(_correlationId);
+		}
+
 		return _responseId;
 	}
 
@@ -387,7 +462,7 @@ public class MessageImpl implements Message {
 		}
 
 		if (_values == null) {
-			_values = new HashMap<>();
+			_values = new MessageValueMap();
 		}
 
 		if (!(value instanceof Serializable)) {
@@ -408,6 +483,17 @@ public class MessageImpl implements Message {
 		}
 	}
 
+	/**
+	 * Sets the message's correlation ID. This replaces the message's response
+	 * ID, which becomes the string form of the correlation ID.
+	 *
+	 * @param correlationId the new correlation ID of the message
+	 */
+	public void setCorrelationId(long correlationId) {
+		_correlationId = correlationId;
+		_responseId = null;
+	}
+
 	/**
 	 * Sets the name of this message's destination.
 	 *
@@ -417,6 +503,17 @@ public class MessageImpl implements Message {
 		_destinationName = destinationName;
 	}
 
+	/**
+	 * Sets the time after which this message is no longer delivered, in
+	 * milliseconds since the epoch.
+	 *
+	 * @param expirationTime the new expiration time of this message or
+	 *        <code>0</code> if the message never expires
+	 */
+	public void setExpirationTime(long expirationTime) {
+		_expirationTime = expirationTime;
+	}
+
 	/**
 	 * Sets the message's payload.
 	 *
@@ -453,6 +550,7 @@ public class MessageImpl implements Message {
 	 * @param responseId the new response ID of the message
 	 */
 	public void setResponseId(String responseId) {
+		_correlationId = 0;
 		_responseId = responseId;
 	}
 
@@ -496,7 +594,7 @@ public class MessageImpl implements Message {
 		sb.append(", responseDestinationName=");
 		sb.append(_responseDestinationName);
 		sb.append(", responseId=");
-		sb.append(_responseId);
+		sb.append(getResponseId());
 		sb.append(", payload=");
 		sb.append(_payload);
 		sb.append(", values=");
@@ -506,7 +604,9 @@ public class MessageImpl implements Message {
 		return sb.toString();
 	}
 
+	private long _correlationId;
 	private String _destinationName;
+	private long _expirationTime;
 	private Object _payload;
 	private Object _response;
 	private String _responseDestinationName;
@@ -0,0 +1,495 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of serialized messages kept in memory-mapped segment
+ * files, together with the offset up to which the messages have been
+ * acknowledged.
+ *
+ * <p>
+ * Every record is framed by its length and CRC-32, so that a record torn by a
+ * crash ends the log instead of being replayed. The log is forced to disk
+ * once every flush batch size appends, which lets one force cover a whole
+ * group of messages. Records written since the last force survive a crash of
+ * the JVM but not of the operating system. Segments are deleted once all
+ * their messages are acknowledged.
+ * </p>
+ */
+public class MessageLog {
+
+	public MessageLog(Path directory, int segmentSize, int flushBatchSize)
+		throws IOException {
+
+		_directory = directory;
+		_segmentSize = segmentSize;
+		_flushBatchSize = Math.max(flushBatchSize, 1);
+
+		Files.createDirectories(directory);
+
+		_checkpointMappedByteBuffer = _map(
+			directory.resolve(_CHECKPOINT_FILE_NAME), 8);
+
+		_acknowledgedOffset = _checkpointMappedByteBuffer.getLong(0);
+
+		_open();
+	}
+
+	/**
+	 * Marks the message at the offset as acknowledged. Messages can be
+	 * acknowledged in any order, and the acknowledged offset only moves past
+	 * the messages once every lower offset is acknowledged too, so a message
+	 * is never skipped by the acknowledgement of a later one. A message that
+	 * is never acknowledged holds back every later one, so messages that are
+	 * not delivered must be acknowledged as well.
+	 */
+	public void acknowledge(long offset) {
+		synchronized (_checkpointMappedByteBuffer) {
+			if (offset < _acknowledgedOffset) {
+				return;
+			}
+
+			// The completed offsets are relative to the acknowledged offset
+
+			long completedOffset = offset - _acknowledgedOffset;
+
+			if (completedOffset >= Integer.MAX_VALUE) {
+				throw new IllegalStateException(
+					"Unable to acknowledge offset " + offset + " of log " +
+						_directory + " while offset " + _acknowledgedOffset +
+							" is not acknowledged");
+			}
+
+			_completedOffsets.set((int)completedOffset);
+
+			int count = _completedOffsets.nextClearBit(0);
+
+			if (count == 0) {
+				return;
+			}
+
+			_completedOffsets = _completedOffsets.get(
+				count, Math.max(count, _completedOffsets.length()));
+
+			_acknowledgedOffset += count;
+
+			_checkpointMappedByteBuffer.putLong(0, _acknowledgedOffset);
+		}
+
+		Segment segment = _segments.peekFirst();
+
+		if ((segment != null) && (segment._endOffset <= _acknowledgedOffset) &&
+			(segment != _tailSegment)) {
+
+			_deleteAcknowledgedSegments();
+		}
+	}
+
+	/**
+	 * Appends the serialized message and returns its offset.
+	 */
+	public long append(byte[] bytes) throws IOException {
+		int length = _RECORD_HEADER_LENGTH + bytes.length;
+
+		CRC32 crc32 = new CRC32();
+
+		crc32.update(bytes);
+
+		long offset = 0;
+		boolean flush = false;
+
+		_lock.lock();
+
+		try {
+			Segment segment = _tailSegment;
+
+			if ((segment == null) ||
+				((segment._writePosition + length) >
+					segment._mappedByteBuffer.capacity())) {
+
+				segment = _roll(length);
+			}
+
+			MappedByteBuffer mappedByteBuffer = segment._mappedByteBuffer;
+
+			int position = segment._writePosition;
+
+			mappedByteBuffer.position(position + _RECORD_HEADER_LENGTH);
+
+			mappedByteBuffer.put(bytes);
+
+			mappedByteBuffer.putInt(position + 4, (int)crc32.getValue());
+
+			// The length is written last, because a record with a length is
+			// replayed
+
+			mappedByteBuffer.putInt(position, bytes.length);
+
+			segment._writePosition = position + length;
+
+			offset = segment._endOffset++;
+
+			_unflushedCount++;
+
+			if (_unflushedCount >= _flushBatchSize) {
+				_unflushedCount = 0;
+
+				flush = true;
+			}
+		}
+		finally {
+			_lock.unlock();
+		}
+
+		if (flush) {
+			flush();
+		}
+
+		return offset;
+	}
+
+	/**
+	 * Forces the log to disk.
+	 */
+	public void close() {
+		flush();
+	}
+
+	/**
+	 * Forces the written records and the acknowledged offset to disk.
+	 */
+	public void flush() {
+		Segment segment = _tailSegment;
+
+		if (segment != null) {
+			segment._mappedByteBuffer.force();
+		}
+
+		_checkpointMappedByteBuffer.force();
+	}
+
+	/**
+	 * Returns the offset below which every message is acknowledged.
+	 */
+	public long getAcknowledgedOffset() {
+		return _acknowledgedOffset;
+	}
+
+	/**
+	 * Returns the offset the next appended message gets.
+	 */
+	public long getNextOffset() {
+		_lock.lock();
+
+		try {
+			Segment segment = _tailSegment;
+
+			if (segment == null) {
+				return _acknowledgedOffset;
+			}
+
+			return segment._endOffset;
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	public int getSegmentCount() {
+		return _segments.size();
+	}
+
+	/**
+	 * Passes every message that is not acknowledged yet to the consumer, in
+	 * order, together with its offset.
+	 */
+	public void replay(ObjLongConsumer<byte[]> objLongConsumer) {
+		List<Segment> segments = new ArrayList<>(_segments);
+
+		for (Segment segment : segments) {
+			if (segment._endOffset <= _acknowledgedOffset) {
+				continue;
+			}
+
+			ByteBuffer byteBuffer = segment._mappedByteBuffer.duplicate();
+
+			long offset = segment._baseOffset;
+			int position = 0;
+
+			while (offset < segment._endOffset) {
+				int length = byteBuffer.getInt(position);
+
+				if (offset >= _acknowledgedOffset) {
+					byte[] bytes = new byte[length];
+
+					byteBuffer.position(position + _RECORD_HEADER_LENGTH);
+
+					byteBuffer.get(bytes);
+
+					objLongConsumer.accept(bytes, offset);
+				}
+
+				position += _RECORD_HEADER_LENGTH + length;
+				offset++;
+			}
+		}
+	}
+
+	private void _deleteAcknowledgedSegments() {
+		_lock.lock();
+
+		try {
+			while (true) {
+				Segment segment = _segments.peekFirst();
+
+				if ((segment == null) || (segment == _tailSegment) ||
+					(segment._endOffset > _acknowledgedOffset)) {
+
+					return;
+				}
+
+				_segments.pollFirst();
+
+				Files.deleteIfExists(segment._path);
+			}
+		}
+		catch (IOException ioe) {
+			if (_log.isWarnEnabled()) {
+				_log.warn("Unable to delete acknowledged log segment", ioe);
+			}
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	private long _getBaseOffset(Path path) {
+		String fileName = String.valueOf(path.getFileName());
+
+		return Long.parseLong(
+			fileName.substring(
+				0, fileName.length() - _SEGMENT_SUFFIX.length()));
+	}
+
+	private MappedByteBuffer _map(Path path, int size) throws IOException {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(
+				path.toFile(), "rw")) {
+
+			if (randomAccessFile.length() > size) {
+				size = (int)randomAccessFile.length();
+			}
+
+			FileChannel fileChannel = randomAccessFile.getChannel();
+
+			return fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+	}
+
+	/**
+	 * Maps the existing segments and finds the end of the log by scanning the
+	 * records of the last segment.
+	 */
+	private void _open() throws IOException {
+		List<Path> paths = new ArrayList<>();
+
+		try (DirectoryStream<Path> directoryStream =
+				Files.newDirectoryStream(_directory, "*" + _SEGMENT_SUFFIX)) {
+
+			for (Path path : directoryStream) {
+				paths.add(path);
+			}
+		}
+
+		Collections.sort(paths);
+
+		for (int i = 0; i < paths.size(); i++) {
+			Path path = paths.get(i);
+
+			if (((i + 1) < paths.size()) &&
+				(_getBaseOffset(paths.get(i + 1)) <= _acknowledgedOffset)) {
+
+				Files.deleteIfExists(path);
+
+				continue;
+			}
+
+			Segment segment = new Segment(
+				path, _map(path, 0), _getBaseOffset(path));
+
+			_scan(segment);
+
+			_segments.addLast(segment);
+		}
+
+		_tailSegment = _segments.peekLast();
+
+		if ((_tailSegment != null) &&
+			(_tailSegment._endOffset < _acknowledgedOffset)) {
+
+			// The acknowledged offset can only be ahead of the log if the log
+			// lost records, so start over from the acknowledged offset
+
+			_log.error(
+				"Log " + _directory + " ends at offset " +
+					_tailSegment._endOffset + " before its acknowledged " +
+						"offset " + _acknowledgedOffset);
+
+			_roll(0);
+		}
+	}
+
+	/**
+	 * Starts a new segment that fits at least the given record length. Must
+	 * be called while holding the lock.
+	 */
+	private Segment _roll(int length) throws IOException {
+		long baseOffset = _acknowledgedOffset;
+
+		Segment segment = _tailSegment;
+
+		if (segment != null) {
+			segment._mappedByteBuffer.force();
+
+			baseOffset = Math.max(segment._endOffset, baseOffset);
+		}
+
+		Path path = _directory.resolve(
+			String.format("%019d%s", baseOffset, _SEGMENT_SUFFIX));
+
+		segment = new Segment(
+			path, _map(path, Math.max(_segmentSize, length)), baseOffset);
+
+		_segments.addLast(segment);
+
+		_tailSegment = segment;
+
+		return segment;
+	}
+
+	private void _scan(Segment segment) {
+		MappedByteBuffer mappedByteBuffer = segment._mappedByteBuffer;
+
+		int capacity = mappedByteBuffer.capacity();
+		int position = 0;
+
+		while ((position + _RECORD_HEADER_LENGTH) <= capacity) {
+			int length = mappedByteBuffer.getInt(position);
+
+			if ((length <= 0) ||
+				((position + _RECORD_HEADER_LENGTH + length) > capacity)) {
+
+				break;
+			}
+
+			byte[] bytes = new byte[length];
+
+			mappedByteBuffer.position(position + _RECORD_HEADER_LENGTH);
+
+			mappedByteBuffer.get(bytes);
+
+			CRC32 crc32 = new CRC32();
+
+			crc32.update(bytes);
+
+			int crc = mappedByteBuffer.getInt(position + 4);
+
+			if (crc != (int)crc32.getValue()) {
+				if (_log.isWarnEnabled()) {
+					_log.warn(
+						"Truncating log segment " + segment._path +
+							" at a torn record at offset " +
+								segment._endOffset);
+				}
+
+				break;
+			}
+
+			position += _RECORD_HEADER_LENGTH + length;
+
+			segment._endOffset++;
+		}
+
+		// Clear the rest of a torn record so that it is not mistaken for a
+		// record once the segment is appended to
+
+		if ((position + 4) <= capacity) {
+			mappedByteBuffer.putInt(position, 0);
+		}
+
+		segment._writePosition = position;
+	}
+
+	private static final String _CHECKPOINT_FILE_NAME = "checkpoint";
+
+	private static final int _RECORD_HEADER_LENGTH = 8;
+
+	private static final String _SEGMENT_SUFFIX = ".log";
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		MessageLog.class);
+
+	private volatile long _acknowledgedOffset;
+	private final MappedByteBuffer _checkpointMappedByteBuffer;
+	private BitSet _completedOffsets = new BitSet();
+	private final Path _directory;
+	private final int _flushBatchSize;
+	private final ReentrantLock _lock = new ReentrantLock();
+	private final int _segmentSize;
+	private final Deque<Segment> _segments = new ConcurrentLinkedDeque<>();
+	private volatile Segment _tailSegment;
+	private int _unflushedCount;
+
+	private static class Segment {
+
+		private Segment(
+			Path path, MappedByteBuffer mappedByteBuffer, long baseOffset) {
+
+			_path = path;
+			_mappedByteBuffer = mappedByteBuffer;
+			_baseOffset = baseOffset;
+			_endOffset = baseOffset;
+		}
+
+		private final long _baseOffset;
+		private volatile long _endOffset;
+		private final MappedByteBuffer _mappedByteBuffer;
+		private final Path _path;
+		private int _writePosition;
+
+	}
+
+}
@@ -16,19 +16,109 @@ package com.liferay.petra.messaging.spi;
 
 import com.liferay.petra.messaging.api.Message;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author Shuyang Zhou
  */
 public abstract class MessageRunnable implements Runnable {
 
+	public MessageRunnable(List<Message> messages) {
+		_message = messages.get(0);
+		_messages = messages;
+		_queuedTime = System.nanoTime();
+	}
+
 	public MessageRunnable(Message message) {
 		_message = message;
+		_queuedTime = System.nanoTime();
 	}
 
+	/**
+	 * Creates a runnable without a message for a pool. The runnable must be
+	 * {@link #reset(Message) reset} with a message before it is executed.
+	 */
+	protected MessageRunnable() {
+	}
+
+	/**
+	 * Returns the first message handled by this runnable.
+	 *
+	 * @return the first message handled by this runnable
+	 */
 	public Message getMessage() {
 		return _message;
 	}
 
-	private final Message _message;
+	/**
+	 * Returns all the messages handled by this runnable, in delivery order.
+	 *
+	 * @return all the messages handled by this runnable
+	 */
+	public List<Message> getMessages() {
+		List<Message> messages = _messages;
+
+		// Runnables for a single message only create the list on demand
+
+		if (messages == null) {
+			messages = Collections.singletonList(_message);
+
+			_messages = messages;
+		}
+
+		return messages;
+	}
+
+	/**
+	 * Returns the value of {@link System#nanoTime()} when this runnable was
+	 * created, which is when its messages were queued.
+	 *
+	 * @return the value of {@link System#nanoTime()} when this runnable was
+	 *         created
+	 */
+	public long getQueuedTime() {
+		return _queuedTime;
+	}
+
+	/**
+	 * Returns the value of {@link System#nanoTime()} when a worker started
+	 * running this runnable, if the destination keeps track of it.
+	 *
+	 * @return the value of {@link System#nanoTime()} when a worker started
+	 *         running this runnable or <code>0</code>
+	 */
+	public long getStartTime() {
+		return _startTime;
+	}
+
+	/**
+	 * Returns this runnable to its pool, if it has one. Destinations call this
+	 * once the worker that ran the runnable is done with it; a runnable that
+	 * was rejected or discarded is never recycled.
+	 */
+	public void recycle() {
+	}
+
+	public void setStartTime(long startTime) {
+		_startTime = startTime;
+	}
+
+	/**
+	 * Prepares a pooled runnable for the delivery of another message.
+	 *
+	 * @param message the message to deliver
+	 */
+	protected void reset(Message message) {
+		_message = message;
+		_messages = null;
+		_queuedTime = System.nanoTime();
+		_startTime = 0;
+	}
+
+	private Message _message;
+	private List<Message> _messages;
+	private long _queuedTime;
+	private long _startTime;
 
 }
\ No newline at end of file
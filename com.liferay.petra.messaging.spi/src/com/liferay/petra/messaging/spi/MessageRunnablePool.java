@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of message runnables, so that destinations do not allocate a
+ * task for every message they deliver.
+ *
+ * <p>
+ * The pool keeps its runnables in a fixed number of slots. Acquiring and
+ * releasing scan the slots, starting from one picked by the current thread so
+ * that concurrent callers rarely contend for the same slot, and never block
+ * or allocate. A runnable is created when all slots are empty, and dropped
+ * when all slots are full.
+ * </p>
+ */
+public class MessageRunnablePool<T extends MessageRunnable> {
+
+	public MessageRunnablePool(int capacity, Supplier<T> supplier) {
+		int size = 1;
+
+		while (size < capacity) {
+			size <<= 1;
+		}
+
+		_slots = new AtomicReferenceArray<>(size);
+		_supplier = supplier;
+	}
+
+	/**
+	 * Returns a pooled runnable, or a new one if none was found.
+	 *
+	 * @return a runnable that is not used by anybody else
+	 */
+	public T acquire() {
+		int mask = _slots.length() - 1;
+		int index = _getIndex();
+
+		for (int i = 0; i <= mask; i++) {
+			int slot = (index + i) & mask;
+
+			if (_slots.get(slot) == null) {
+				continue;
+			}
+
+			T messageRunnable = _slots.getAndSet(slot, null);
+
+			if (messageRunnable != null) {
+				return messageRunnable;
+			}
+		}
+
+		return _supplier.get();
+	}
+
+	public int getCapacity() {
+		return _slots.length();
+	}
+
+	/**
+	 * Returns the runnable to the pool. The caller must not use it anymore.
+	 *
+	 * @param messageRunnable the runnable to return
+	 */
+	public void release(T messageRunnable) {
+		int mask = _slots.length() - 1;
+		int index = _getIndex();
+
+		for (int i = 0; i <= mask; i++) {
+			int slot = (index + i) & mask;
+
+			if ((_slots.get(slot) == null) &&
+				_slots.compareAndSet(slot, null, messageRunnable)) {
+
+				return;
+			}
+		}
+	}
+
+	private int _getIndex() {
+		Thread currentThread = Thread.currentThread();
+
+		long id = currentThread.getId();
+
+		// Spread the thread IDs, which are mostly consecutive
+
+		return (int)(id * 0x9E3779B9L) >>> 16;
+	}
+
+	private final AtomicReferenceArray<T> _slots;
+	private final Supplier<T> _supplier;
+
+}
@@ -0,0 +1,465 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.spi;
+
+import java.io.Serializable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Holds the key / value pairs of a message with less overhead than a {@link
+ * HashMap}.
+ *
+ * <p>
+ * Keys and values are stored next to each other in a single array. Up to
+ * eight entries are kept in insertion order and found by scanning the array.
+ * Past that, the array becomes an open addressing table with linear probing
+ * in which removed keys leave a marker behind until the next resize. The map
+ * is serialized as a <code>HashMap</code>, so the serialized form of messages
+ * does not change.
+ * </p>
+ *
+ * <p>
+ * Like <code>HashMap</code>, this map permits <code>null</code> keys and
+ * values and is not thread safe.
+ * </p>
+ */
+public class MessageValueMap
+	extends AbstractMap<String, Object> implements Serializable {
+
+	public MessageValueMap() {
+		_table = new Object[_INITIAL_CAPACITY * 2];
+	}
+
+	public MessageValueMap(Map<String, ?> map) {
+		if (map instanceof MessageValueMap) {
+			MessageValueMap messageValueMap = (MessageValueMap)map;
+
+			_hashed = messageValueMap._hashed;
+			_size = messageValueMap._size;
+			_table = messageValueMap._table.clone();
+			_tombstoneCount = messageValueMap._tombstoneCount;
+
+			return;
+		}
+
+		int size = map.size();
+
+		if (size > _LINEAR_SCAN_THRESHOLD) {
+			_hashed = true;
+			_table = new Object[_getHashedCapacity(size) * 2];
+		}
+		else {
+			_table = new Object[Math.max(size, _INITIAL_CAPACITY) * 2];
+		}
+
+		putAll(map);
+	}
+
+	@Override
+	public void clear() {
+		if (_size == 0) {
+			return;
+		}
+
+		_modCount++;
+
+		if (_hashed) {
+			_hashed = false;
+			_table = new Object[_INITIAL_CAPACITY * 2];
+			_tombstoneCount = 0;
+		}
+		else {
+			Arrays.fill(_table, 0, _size * 2, null);
+		}
+
+		_size = 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (_indexOf(_maskNull(key)) >= 0) {
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return new EntrySet();
+	}
+
+	@Override
+	public Object get(Object key) {
+		int index = _indexOf(_maskNull(key));
+
+		if (index < 0) {
+			return null;
+		}
+
+		return _table[index + 1];
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		Object maskedKey = _maskNull(key);
+
+		int index = _indexOf(maskedKey);
+
+		if (index >= 0) {
+			Object oldValue = _table[index + 1];
+
+			_table[index + 1] = value;
+
+			return oldValue;
+		}
+
+		_modCount++;
+
+		if (_hashed) {
+			if (((_size + _tombstoneCount + 1) * 4) > _table.length) {
+				_rehash(_getHashedCapacity(_size + 1));
+			}
+
+			_insert(maskedKey, value);
+		}
+		else if (_size < _LINEAR_SCAN_THRESHOLD) {
+			if ((_size * 2) == _table.length) {
+				_table = Arrays.copyOf(
+					_table,
+					Math.min(_size * 2, _LINEAR_SCAN_THRESHOLD) * 2);
+			}
+
+			_table[_size * 2] = maskedKey;
+			_table[_size * 2 + 1] = value;
+		}
+		else {
+			_rehash(_getHashedCapacity(_size + 1));
+
+			_insert(maskedKey, value);
+		}
+
+		_size++;
+
+		return null;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		int index = _indexOf(_maskNull(key));
+
+		if (index < 0) {
+			return null;
+		}
+
+		Object oldValue = _table[index + 1];
+
+		_removeAt(index);
+
+		return oldValue;
+	}
+
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	private static int _getHashedCapacity(int size) {
+		int capacity = _INITIAL_CAPACITY;
+
+		while (capacity < (size * 2)) {
+			capacity <<= 1;
+		}
+
+		return capacity;
+	}
+
+	private static int _hash(Object key) {
+		int hash = key.hashCode() * 0x9E3779B9;
+
+		return hash ^ (hash >>> 16);
+	}
+
+	private static Object _maskNull(Object key) {
+		if (key == null) {
+			return _NULL_KEY;
+		}
+
+		return key;
+	}
+
+	private static Object _unmaskNull(Object key) {
+		if (key == _NULL_KEY) {
+			return null;
+		}
+
+		return key;
+	}
+
+	/**
+	 * Returns the index of the key in the table or <code>-1</code> if the key
+	 * is not in the map. The index of the value is one past the index of the
+	 * key.
+	 */
+	private int _indexOf(Object maskedKey) {
+		Object[] table = _table;
+
+		if (!_hashed) {
+			int length = _size * 2;
+
+			// Keys are usually constants, so look for the same instance
+			// before comparing the keys
+
+			for (int i = 0; i < length; i += 2) {
+				if (table[i] == maskedKey) {
+					return i;
+				}
+			}
+
+			for (int i = 0; i < length; i += 2) {
+				if (maskedKey.equals(table[i])) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		int mask = (table.length / 2) - 1;
+
+		for (int i = _hash(maskedKey) & mask;; i = (i + 1) & mask) {
+			Object key = table[i * 2];
+
+			if (key == null) {
+				return -1;
+			}
+
+			if ((key == maskedKey) ||
+				((key != _TOMBSTONE) && maskedKey.equals(key))) {
+
+				return i * 2;
+			}
+		}
+	}
+
+	/**
+	 * Inserts a key that is not in the hash table yet, reusing the first
+	 * removed slot of its probe sequence.
+	 */
+	private void _insert(Object maskedKey, Object value) {
+		Object[] table = _table;
+
+		int mask = (table.length / 2) - 1;
+
+		int i = _hash(maskedKey) & mask;
+
+		while ((table[i * 2] != null) && (table[i * 2] != _TOMBSTONE)) {
+			i = (i + 1) & mask;
+		}
+
+		if (table[i * 2] == _TOMBSTONE) {
+			_tombstoneCount--;
+		}
+
+		table[i * 2] = maskedKey;
+		table[i * 2 + 1] = value;
+	}
+
+	private void _rehash(int capacity) {
+		Object[] table = _table;
+
+		boolean hashed = _hashed;
+
+		_hashed = true;
+		_table = new Object[capacity * 2];
+		_tombstoneCount = 0;
+
+		for (int i = 0; i < table.length; i += 2) {
+			Object key = table[i];
+
+			if ((key != null) && (key != _TOMBSTONE)) {
+				_insert(key, table[i + 1]);
+			}
+			else if (!hashed) {
+				break;
+			}
+		}
+	}
+
+	private void _removeAt(int index) {
+		_modCount++;
+
+		if (_hashed) {
+			_table[index] = _TOMBSTONE;
+			_table[index + 1] = null;
+
+			_tombstoneCount++;
+		}
+		else {
+			int length = _size * 2;
+
+			System.arraycopy(
+				_table, index + 2, _table, index, length - index - 2);
+
+			_table[length - 2] = null;
+			_table[length - 1] = null;
+		}
+
+		_size--;
+	}
+
+	/**
+	 * Replaces this map with a <code>HashMap</code> when serializing, so
+	 * messages can be deserialized by readers that do not know this class.
+	 */
+	private Object writeReplace() {
+		return new HashMap<>(this);
+	}
+
+	private static final int _INITIAL_CAPACITY = 4;
+
+	private static final int _LINEAR_SCAN_THRESHOLD = 8;
+
+	private static final Object _NULL_KEY = new Object();
+
+	private static final Object _TOMBSTONE = new Object();
+
+	private boolean _hashed;
+	private transient int _modCount;
+	private int _size;
+	private Object[] _table;
+	private int _tombstoneCount;
+
+	private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+		@Override
+		public boolean hasNext() {
+			if (_hashed) {
+				while ((_nextIndex < _table.length) &&
+					   ((_table[_nextIndex] == null) ||
+						(_table[_nextIndex] == _TOMBSTONE))) {
+
+					_nextIndex += 2;
+				}
+
+				if (_nextIndex < _table.length) {
+					return true;
+				}
+
+				return false;
+			}
+
+			if (_nextIndex < (_size * 2)) {
+				return true;
+			}
+
+			return false;
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+			if (_expectedModCount != _modCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			_lastIndex = _nextIndex;
+
+			_nextIndex += 2;
+
+			return new ValueEntry(_lastIndex);
+		}
+
+		@Override
+		public void remove() {
+			if (_lastIndex < 0) {
+				throw new IllegalStateException();
+			}
+
+			if (_expectedModCount != _modCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			boolean hashed = _hashed;
+
+			_removeAt(_lastIndex);
+
+			// Later entries of the flat array move down into the freed slot
+
+			if (!hashed) {
+				_nextIndex = _lastIndex;
+			}
+
+			_expectedModCount = _modCount;
+			_lastIndex = -1;
+		}
+
+		private int _expectedModCount = _modCount;
+		private int _lastIndex = -1;
+		private int _nextIndex;
+
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+		@Override
+		public void clear() {
+			MessageValueMap.this.clear();
+		}
+
+		@Override
+		public Iterator<Map.Entry<String, Object>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return _size;
+		}
+
+	}
+
+	private class ValueEntry extends AbstractMap.SimpleEntry<String, Object> {
+
+		private ValueEntry(int index) {
+			super((String)_unmaskNull(_table[index]), _table[index + 1]);
+
+			_index = index;
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			_table[_index + 1] = value;
+
+			return super.setValue(value);
+		}
+
+		private final int _index;
+
+	}
+
+}
@@ -0,0 +1,387 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.io.TransientValue;
+import com.liferay.petra.messaging.api.Message;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A first in, first out queue of messages kept in append-only, memory-mapped
+ * segment files instead of on the heap.
+ *
+ * <p>
+ * Each message is stored as its {@link Message#toByteArray()} form. Messages
+ * that cannot be serialized faithfully, because their payload is not
+ * serializable or they carry transient values, stay on the heap but keep
+ * their place in the queue. Segments are deleted once they have been read.
+ * This class is not thread safe.
+ * </p>
+ */
+public class OverflowMessageQueue {
+
+	public OverflowMessageQueue(
+		String directoryName, String name, int segmentSize) {
+
+		_directoryName = directoryName;
+		_name = name;
+		_segmentSize = segmentSize;
+	}
+
+	public void add(Message message) {
+		byte[] bytes = _toByteArray(message);
+
+		if (bytes != null) {
+			try {
+				_write(bytes);
+
+				_size++;
+
+				return;
+			}
+			catch (IOException ioe) {
+				_log.error(
+					"Unable to spill message " + message + " to disk for " +
+						"destination " + _name,
+					ioe);
+			}
+		}
+
+		try {
+			_write(null);
+		}
+		catch (IOException ioe) {
+
+			// Without a segment to hold its place, the message can only be
+			// delivered ahead of the messages already spilled
+
+			_log.error(
+				"Unable to spill message " + message + " to disk for " +
+					"destination " + _name,
+				ioe);
+
+			_unorderedMessages.add(message);
+
+			_size++;
+
+			return;
+		}
+
+		_heldMessages.add(message);
+
+		_size++;
+	}
+
+	/**
+	 * Deletes the segment files. Messages still in the queue are lost.
+	 */
+	public void close() {
+		for (Segment segment : _segments) {
+			segment.delete();
+		}
+
+		_segments.clear();
+
+		_heldMessages.clear();
+		_unorderedMessages.clear();
+
+		_size = 0;
+
+		if (_directory == null) {
+			return;
+		}
+
+		try {
+			Files.deleteIfExists(_directory);
+		}
+		catch (IOException ioe) {
+			if (_log.isWarnEnabled()) {
+				_log.warn("Unable to delete " + _directory, ioe);
+			}
+		}
+
+		_directory = null;
+	}
+
+	public int getSegmentCount() {
+		return _segments.size();
+	}
+
+	public boolean isEmpty() {
+		if (_size == 0) {
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes and returns the oldest message in the queue.
+	 *
+	 * @return the oldest message, or <code>null</code> if the queue is empty
+	 */
+	public Message poll() {
+		while (_size > 0) {
+			_size--;
+
+			Message message = _unorderedMessages.poll();
+
+			if (message != null) {
+				return message;
+			}
+
+			byte[] bytes = _read();
+
+			if (bytes == null) {
+				return _heldMessages.poll();
+			}
+
+			try {
+				return MessageImpl.fromByteArray(bytes);
+			}
+			catch (ClassNotFoundException | RuntimeException e) {
+				_log.error(
+					"Unable to read spilled message for destination " + _name,
+					e);
+			}
+		}
+
+		return null;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	private Segment _createSegment(int capacity) throws IOException {
+		if (_directory == null) {
+			if ((_directoryName == null) || _directoryName.isEmpty()) {
+				_directory = Files.createTempDirectory(_DIRECTORY_PREFIX);
+			}
+			else {
+				Path path = Paths.get(_directoryName);
+
+				Files.createDirectories(path);
+
+				_directory = Files.createTempDirectory(path, _DIRECTORY_PREFIX);
+			}
+		}
+
+		Path path = _directory.resolve(
+			String.format("%019d.segment", _segmentSequence++));
+
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(
+				path.toFile(), "rw")) {
+
+			FileChannel fileChannel = randomAccessFile.getChannel();
+
+			MappedByteBuffer mappedByteBuffer = fileChannel.map(
+				FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+			return new Segment(path, mappedByteBuffer);
+		}
+	}
+
+	private byte[] _read() {
+		while (true) {
+			Segment segment = _segments.peekFirst();
+
+			MappedByteBuffer mappedByteBuffer = segment._mappedByteBuffer;
+
+			int position = segment._readPosition;
+
+			if ((position + 4) <= mappedByteBuffer.capacity()) {
+				int length = mappedByteBuffer.getInt(position);
+
+				if (length == _HELD_MESSAGE) {
+					segment._readPosition = position + 4;
+
+					return null;
+				}
+
+				if (length > 0) {
+					byte[] bytes = new byte[length];
+
+					mappedByteBuffer.position(position + 4);
+
+					mappedByteBuffer.get(bytes);
+
+					segment._readPosition = position + 4 + length;
+
+					return bytes;
+				}
+			}
+
+			// The rest of the segment is unused, so the next record starts
+			// the next segment
+
+			_segments.pollFirst();
+
+			segment.delete();
+		}
+	}
+
+	private byte[] _toByteArray(Message message) {
+		Map<String, Object> values = message.getValues();
+
+		if (values != null) {
+			for (Object value : values.values()) {
+				if (value instanceof TransientValue) {
+					return null;
+				}
+			}
+		}
+
+		try {
+			return message.toByteArray();
+		}
+		catch (RuntimeException re) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Keeping message " + message + " on the heap because it " +
+						"cannot be serialized",
+					re);
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * Appends a record holding the bytes, or a record marking the position of
+	 * a message held on the heap if the bytes are <code>null</code>.
+	 */
+	private void _write(byte[] bytes) throws IOException {
+		int length = 4;
+
+		if (bytes != null) {
+			length += bytes.length;
+		}
+
+		Segment segment = _segments.peekLast();
+
+		if ((segment != null) && (_size == 0)) {
+
+			// Nothing is left to read, so the segment can be reused from the
+			// start
+
+			while (_segments.size() > 1) {
+				Segment firstSegment = _segments.pollFirst();
+
+				firstSegment.delete();
+			}
+
+			segment._readPosition = 0;
+			segment._writePosition = 0;
+		}
+
+		if ((segment == null) ||
+			((segment._writePosition + length) >
+				segment._mappedByteBuffer.capacity())) {
+
+			if (segment != null) {
+				segment.seal();
+			}
+
+			segment = _createSegment(Math.max(_segmentSize, length + 4));
+
+			_segments.addLast(segment);
+		}
+
+		MappedByteBuffer mappedByteBuffer = segment._mappedByteBuffer;
+
+		int position = segment._writePosition;
+
+		if (bytes == null) {
+			mappedByteBuffer.putInt(position, _HELD_MESSAGE);
+		}
+		else {
+			mappedByteBuffer.position(position + 4);
+
+			mappedByteBuffer.put(bytes);
+
+			mappedByteBuffer.putInt(position, bytes.length);
+		}
+
+		segment._writePosition = position + length;
+	}
+
+	private static final String _DIRECTORY_PREFIX = "petra-messaging-";
+
+	private static final int _HELD_MESSAGE = -1;
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		OverflowMessageQueue.class);
+
+	private Path _directory;
+	private final String _directoryName;
+	private final Deque<Message> _heldMessages = new ArrayDeque<>();
+	private final String _name;
+	private final Deque<Segment> _segments = new ArrayDeque<>();
+	private long _segmentSequence;
+	private final int _segmentSize;
+	private int _size;
+	private final Deque<Message> _unorderedMessages = new ArrayDeque<>();
+
+	private static class Segment {
+
+		public void delete() {
+			try {
+				Files.deleteIfExists(_path);
+			}
+			catch (IOException ioe) {
+				if (_log.isWarnEnabled()) {
+					_log.warn("Unable to delete " + _path, ioe);
+				}
+			}
+		}
+
+		/**
+		 * Marks the end of the records, so that a reader moves on to the next
+		 * segment.
+		 */
+		public void seal() {
+			if ((_writePosition + 4) <= _mappedByteBuffer.capacity()) {
+				_mappedByteBuffer.putInt(_writePosition, 0);
+			}
+		}
+
+		private Segment(Path path, MappedByteBuffer mappedByteBuffer) {
+			_path = path;
+			_mappedByteBuffer = mappedByteBuffer;
+		}
+
+		private final MappedByteBuffer _mappedByteBuffer;
+		private final Path _path;
+		private int _readPosition;
+		private int _writePosition;
+
+	}
+
+}
@@ -15,6 +15,7 @@
 package com.liferay.petra.messaging.spi;
 
 import com.liferay.petra.messaging.api.DestinationSettings;
+import com.liferay.petra.messaging.api.FanOutStrategy;
 import com.liferay.petra.messaging.api.InboundMessageProcessor;
 import com.liferay.petra.messaging.api.Message;
 import com.liferay.petra.messaging.api.MessageListener;
@@ -22,7 +23,10 @@ import com.liferay.petra.messaging.api.MessageListenerException;
 import com.liferay.petra.messaging.api.MessageProcessorException;
 import com.liferay.petra.concurrent.ThreadPoolExecutor;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
 
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -43,12 +47,59 @@ import org.slf4j.LoggerFactory;
 @Component(factory = "parallel.destination")
 public class ParallelDestination extends BaseAsyncDestination {
 
+	/**
+	 * Returns the moving average of the number of nanoseconds a message
+	 * listener takes to receive a message, as measured by the
+	 * {@link FanOutStrategy#ADAPTIVE} fan out strategy.
+	 *
+	 * @return the average number of nanoseconds a message listener takes to
+	 *         receive a message, or <code>0</code> if it was not measured
+	 */
+	public long getAverageListenerTime() {
+		return _averageListenerTime;
+	}
+
+	public int getFanOutGroupSize() {
+		return _fanOutGroupSize;
+	}
+
+	public FanOutStrategy getFanOutStrategy() {
+		return _fanOutStrategy;
+	}
+
+	public void setFanOutGroupSize(int fanOutGroupSize) {
+		_fanOutGroupSize = fanOutGroupSize;
+	}
+
+	public void setFanOutStrategy(FanOutStrategy fanOutStrategy) {
+		_fanOutStrategy = fanOutStrategy;
+	}
+
 	@Activate
 	protected void activate(DestinationSettings destinationSettings) {
+		setCoalesceKey(destinationSettings.coalesceKey());
+		setDeliveryKey(destinationSettings.deliveryKey());
+		setDeliveryMode(destinationSettings.deliveryMode());
+		setFanOutGroupSize(destinationSettings.fanOutGroupSize());
+		setFanOutStrategy(destinationSettings.fanOutStrategy());
+		setMaximumBatchDelay(destinationSettings.maxBatchDelay());
+		setMaximumBatchSize(destinationSettings.maxBatchSize());
 		setMaximumQueueSize(destinationSettings.maxQueueSize());
 		setName(destinationSettings.destination_name());
+		setOverflowDirectory(destinationSettings.overflowDirectory());
+		setOverflowHighWaterMark(destinationSettings.overflowHighWaterMark());
+		setOverflowLowWaterMark(destinationSettings.overflowLowWaterMark());
+		setOverflowSegmentSize(destinationSettings.overflowSegmentSize());
+		setRejectionPolicy(destinationSettings.rejectionPolicy());
+		setRejectionTimeout(destinationSettings.rejectionTimeout());
+		setWorkersAutoTuned(destinationSettings.workerAutoTuned());
 		setWorkersCoreSize(destinationSettings.workerCoreSize());
+		setWorkersIdleTimeout(destinationSettings.workerIdleTimeout());
+		setWorkersLazy(destinationSettings.workerLazy());
 		setWorkersMaxSize(destinationSettings.workerMaxSize());
+		setWorkersShared(destinationSettings.workerShared());
+		setWorkersVirtual(destinationSettings.workerVirtual());
+		setWorkersWeight(destinationSettings.workerWeight());
 		afterPropertiesSet();
 		open();
 	}
@@ -60,59 +111,90 @@ public class ParallelDestination extends BaseAsyncDestination {
 
 	@Override
 	protected void dispatch(
-		final Collection<MessageListener> messageListeners,
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Message message) {
+
+		Thread dispatchThread = Thread.currentThread();
+
+		ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
+
+		Collection<MessageListener> remainingMessageListeners =
+			dispatchBatches(
+				messageListeners, inboundMessageProcessors, message,
+				dispatchThread);
+
+		int fanOutGroupSize = _getFanOutGroupSize(
+			remainingMessageListeners.size());
+
+		if (fanOutGroupSize > 1) {
+			_dispatchGroups(
+				threadPoolExecutor, remainingMessageListeners, fanOutGroupSize,
+				inboundMessageProcessors, message, dispatchThread);
+
+			return;
+		}
+
+		if (remainingMessageListeners instanceof RandomAccess) {
+			List<MessageListener> messageListenerList =
+				(List<MessageListener>)remainingMessageListeners;
+
+			for (int i = 0; i < messageListenerList.size(); i++) {
+				_execute(
+					threadPoolExecutor, messageListenerList.get(i),
+					inboundMessageProcessors, message, dispatchThread);
+			}
+
+			return;
+		}
+
+		for (MessageListener messageListener : remainingMessageListeners) {
+			_execute(
+				threadPoolExecutor, messageListener, inboundMessageProcessors,
+				message, dispatchThread);
+		}
+	}
+
+	/**
+	 * Splits the batch into at most one contiguous chunk per worker. Every
+	 * chunk is delivered to all the message listeners by a single task.
+	 */
+	@Override
+	protected void dispatch(
+		Collection<MessageListener> messageListeners,
 		final Collection<InboundMessageProcessor> inboundMessageProcessors,
-		final Message message) {
+		final List<Message> messages) {
 
 		final Thread dispatchThread = Thread.currentThread();
 
 		ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
 
-		for (final MessageListener messageListener : messageListeners) {
-			Runnable runnable = new MessageRunnable(message) {
+		final Collection<MessageListener> remainingMessageListeners =
+			dispatchBatches(
+				messageListeners, inboundMessageProcessors, messages,
+				dispatchThread);
+
+		if (remainingMessageListeners.isEmpty()) {
+			return;
+		}
+
+		int chunkCount = Math.min(
+			messages.size(), Math.max(1, getWorkersMaxSize()));
+
+		int chunkSize = (messages.size() + chunkCount - 1) / chunkCount;
+
+		for (int i = 0; i < messages.size(); i += chunkSize) {
+			List<Message> chunk = messages.subList(
+				i, Math.min(i + chunkSize, messages.size()));
+
+			Runnable runnable = new MessageRunnable(chunk) {
 
 				@Override
 				public void run() {
-					Message processedMessage = getMessage();
-
-					try {
-						for (InboundMessageProcessor processor :
-								inboundMessageProcessors) {
-
-							try {
-								processedMessage = processor.beforeThread(
-									processedMessage, dispatchThread);
-							}
-							catch (MessageProcessorException mpe) {
-								_log.error(
-									"Unable to process message {} before " +
-										"thread {}",
-									processedMessage, dispatchThread, mpe);
-							}
-						}
-
-						messageListener.receive(processedMessage);
-					}
-					catch (MessageListenerException mle) {
-						_log.error(
-							"Unable to process message {}", processedMessage,
-							mle);
-					}
-					finally {
-						for (InboundMessageProcessor processor :
-								inboundMessageProcessors) {
-
-							try {
-								processor.afterThread(
-									processedMessage, dispatchThread);
-							}
-							catch (MessageProcessorException mpe) {
-								_log.error(
-									"Unable to process message {} after" +
-										"thread {}",
-									processedMessage, dispatchThread, mpe);
-							}
-						}
+					for (Message message : getMessages()) {
+						receive(
+							remainingMessageListeners, inboundMessageProcessors,
+							message, dispatchThread);
 					}
 				}
 
@@ -122,7 +204,262 @@ public class ParallelDestination extends BaseAsyncDestination {
 		}
 	}
 
+	/**
+	 * Catches unchecked exceptions as well, because the message listeners of
+	 * a group share one task and one failing message listener must not keep
+	 * the others from receiving the message.
+	 */
+	@Override
+	protected void receive(MessageListener messageListener, Message message) {
+		try {
+			super.receive(messageListener, message);
+		}
+		catch (RuntimeException re) {
+			_log.error("Unable to process message {}", message, re);
+		}
+	}
+
+	/**
+	 * Executes one task per group of message listeners. Every task runs the
+	 * inbound message processors once and then calls the message listeners
+	 * of its group in sequence.
+	 */
+	private void _dispatchGroups(
+		ThreadPoolExecutor threadPoolExecutor,
+		Collection<MessageListener> messageListeners, int fanOutGroupSize,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Message message, Thread dispatchThread) {
+
+		int size = messageListeners.size();
+
+		if (fanOutGroupSize >= size) {
+			ParallelMessageRunnable parallelMessageRunnable =
+				_messageRunnablePool.acquire();
+
+			parallelMessageRunnable._reset(
+				null, messageListeners, inboundMessageProcessors, message,
+				dispatchThread);
+
+			threadPoolExecutor.execute(parallelMessageRunnable);
+
+			return;
+		}
+
+		List<MessageListener> messageListenersList = null;
+
+		if (messageListeners instanceof List) {
+			messageListenersList = (List<MessageListener>)messageListeners;
+		}
+		else {
+			messageListenersList = new ArrayList<>(messageListeners);
+		}
+
+		for (int i = 0; i < size; i += fanOutGroupSize) {
+			ParallelMessageRunnable parallelMessageRunnable =
+				_messageRunnablePool.acquire();
+
+			parallelMessageRunnable._reset(
+				null,
+				messageListenersList.subList(
+					i, Math.min(i + fanOutGroupSize, size)),
+				inboundMessageProcessors, message, dispatchThread);
+
+			threadPoolExecutor.execute(parallelMessageRunnable);
+		}
+	}
+
+	private void _execute(
+		ThreadPoolExecutor threadPoolExecutor, MessageListener messageListener,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Message message, Thread dispatchThread) {
+
+		ParallelMessageRunnable parallelMessageRunnable =
+			_messageRunnablePool.acquire();
+
+		parallelMessageRunnable._reset(
+			messageListener, null, inboundMessageProcessors, message,
+			dispatchThread);
+
+		threadPoolExecutor.execute(parallelMessageRunnable);
+	}
+
+	private int _getFanOutGroupSize(int messageListenerCount) {
+		FanOutStrategy fanOutStrategy = _fanOutStrategy;
+
+		if ((messageListenerCount <= 1) ||
+			(fanOutStrategy == FanOutStrategy.PER_LISTENER)) {
+
+			return 1;
+		}
+
+		if (fanOutStrategy == FanOutStrategy.PER_LISTENER_GROUP) {
+			return Math.max(_fanOutGroupSize, 1);
+		}
+
+		if (fanOutStrategy == FanOutStrategy.PER_MESSAGE) {
+			return messageListenerCount;
+		}
+
+		// Deliver one message listener per task until the listeners were
+		// measured, then put as many listeners in a task as fit in its target
+		// time
+
+		long averageListenerTime = _averageListenerTime;
+
+		if (averageListenerTime <= 0) {
+			return 1;
+		}
+
+		long fanOutGroupSize = _ADAPTIVE_TASK_TIME / averageListenerTime;
+
+		return (int)Math.max(
+			Math.min(fanOutGroupSize, messageListenerCount), 1);
+	}
+
+	private void _receive(
+		MessageListener messageListener,
+		Collection<InboundMessageProcessor> inboundMessageProcessors,
+		Message message, Thread dispatchThread) {
+
+		claimCoalescedMessage(message);
+
+		if (discardIfExpired(message)) {
+			return;
+		}
+
+		try {
+			for (InboundMessageProcessor processor : inboundMessageProcessors) {
+				try {
+					message = processor.beforeThread(message, dispatchThread);
+				}
+				catch (MessageProcessorException mpe) {
+					_log.error(
+						"Unable to process message {} before thread {}",
+						message, dispatchThread, mpe);
+				}
+			}
+
+			long startTime = System.nanoTime();
+
+			messageListener.receive(message);
+
+			_updateAverageListenerTime(startTime, 1);
+		}
+		catch (MessageListenerException mle) {
+			_log.error("Unable to process message {}", message, mle);
+		}
+		finally {
+			for (InboundMessageProcessor processor : inboundMessageProcessors) {
+				try {
+					processor.afterThread(message, dispatchThread);
+				}
+				catch (MessageProcessorException mpe) {
+					_log.error(
+						"Unable to process message {} after thread {}",
+						message, dispatchThread, mpe);
+				}
+			}
+		}
+	}
+
+	private void _updateAverageListenerTime(
+		long startTime, int messageListenerCount) {
+
+		if ((_fanOutStrategy != FanOutStrategy.ADAPTIVE) ||
+			(messageListenerCount == 0)) {
+
+			return;
+		}
+
+		long listenerTime = Math.max(
+			(System.nanoTime() - startTime) / messageListenerCount, 1);
+
+		// Workers update the average without synchronization. A lost update
+		// only drops one sample from the moving average.
+
+		long averageListenerTime = _averageListenerTime;
+
+		if (averageListenerTime == 0) {
+			_averageListenerTime = listenerTime;
+		}
+		else {
+			_averageListenerTime =
+				averageListenerTime +
+					(listenerTime - averageListenerTime) / 8;
+		}
+	}
+
+	/**
+	 * The number of nanoseconds of message listener work that the adaptive fan
+	 * out strategy puts in one task, which is well above the cost of queueing
+	 * a task and waking up a worker.
+	 */
+	private static final long _ADAPTIVE_TASK_TIME = 50000;
+
+	private static final int _MESSAGE_RUNNABLE_POOL_CAPACITY = 64;
+
 	private static final Logger _log = LoggerFactory.getLogger(
 		ParallelDestination.class);
 
+	private volatile long _averageListenerTime;
+	private int _fanOutGroupSize = 10;
+	private volatile FanOutStrategy _fanOutStrategy = FanOutStrategy.ADAPTIVE;
+	private final MessageRunnablePool<ParallelMessageRunnable>
+		_messageRunnablePool = new MessageRunnablePool<>(
+			_MESSAGE_RUNNABLE_POOL_CAPACITY, ParallelMessageRunnable::new);
+
+	private class ParallelMessageRunnable extends MessageRunnable {
+
+		@Override
+		public void recycle() {
+			_dispatchThread = null;
+			_inboundMessageProcessors = null;
+			_messageListener = null;
+			_messageListeners = null;
+
+			reset(null);
+
+			_messageRunnablePool.release(this);
+		}
+
+		@Override
+		public void run() {
+			if (_messageListener != null) {
+				_receive(
+					_messageListener, _inboundMessageProcessors, getMessage(),
+					_dispatchThread);
+
+				return;
+			}
+
+			long startTime = System.nanoTime();
+
+			receive(
+				_messageListeners, _inboundMessageProcessors, getMessage(),
+				_dispatchThread);
+
+			_updateAverageListenerTime(startTime, _messageListeners.size());
+		}
+
+		private void _reset(
+			MessageListener messageListener,
+			Collection<MessageListener> messageListeners,
+			Collection<InboundMessageProcessor> inboundMessageProcessors,
+			Message message, Thread dispatchThread) {
+
+			_messageListener = messageListener;
+			_messageListeners = messageListeners;
+			_inboundMessageProcessors = inboundMessageProcessors;
+			_dispatchThread = dispatchThread;
+
+			reset(message);
+		}
+
+		private Thread _dispatchThread;
+		private Collection<InboundMessageProcessor> _inboundMessageProcessors;
+		private MessageListener _messageListener;
+		private Collection<MessageListener> _messageListeners;
+
+	}
+
 }
\ No newline at end of file
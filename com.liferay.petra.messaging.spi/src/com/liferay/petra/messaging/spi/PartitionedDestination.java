@@ -0,0 +1,424 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.DestinationSettings;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.ExecutorServiceRegistrar;
+import com.liferay.petra.messaging.api.InboundMessageProcessor;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.concurrent.ThreadPoolExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Destination that delivers messages on a fixed number of single threaded
+ * partitions. The partition of a message is chosen from the hash of the
+ * message value stored under the partition key, so messages with the same
+ * value are delivered one at a time in the order they were sent, while
+ * messages with different values are delivered in parallel.
+ * </p>
+ *
+ * <p>
+ * Every partition has its own thread pool, registered under the destination
+ * name followed by the partition number. The partitions of a lazy
+ * destination start their worker when they are first sent a message and stop
+ * it after the workers idle timeout. Workers are never auto-tuned, because
+ * each partition has a single worker.
+ * </p>
+ */
+@Component(factory = "partitioned.destination")
+public class PartitionedDestination extends BaseAsyncDestination {
+
+	@Override
+	public void close(boolean force) {
+		ThreadPoolExecutor[] threadPoolExecutors = _threadPoolExecutors;
+
+		if ((threadPoolExecutors == null) || isShutdown()) {
+			return;
+		}
+
+		ExecutorServiceRegistrar executorServiceRegistrar =
+			getExecutorServiceRegistrar();
+
+		if (executorServiceRegistrar != null) {
+			for (int i = 0; i < threadPoolExecutors.length; i++) {
+				executorServiceRegistrar.registerExecutorService(
+					_getPartitionName(i), null);
+			}
+		}
+
+		closeOverflowMessageQueue(force);
+
+		for (ThreadPoolExecutor threadPoolExecutor : threadPoolExecutors) {
+			if (force) {
+				threadPoolExecutor.shutdownNow();
+			}
+			else {
+				threadPoolExecutor.shutdown();
+			}
+		}
+	}
+
+	@Override
+	public DestinationStatistics getDestinationStatistics() {
+		ThreadPoolExecutor[] threadPoolExecutors = _threadPoolExecutors;
+
+		if (threadPoolExecutors == null) {
+			return super.getDestinationStatistics();
+		}
+
+		DestinationStatisticsImpl destinationStatistics =
+			new DestinationStatisticsImpl();
+
+		List<DestinationStatistics> partitionStatistics = new ArrayList<>(
+			threadPoolExecutors.length);
+
+		int activeThreadCount = 0;
+		int currentThreadCount = 0;
+		int largestThreadCount = 0;
+		long pendingMessageCount = 0;
+		long sentMessageCount = 0;
+
+		for (ThreadPoolExecutor threadPoolExecutor : threadPoolExecutors) {
+			DestinationStatisticsImpl partitionDestinationStatistics =
+				new DestinationStatisticsImpl();
+
+			partitionDestinationStatistics.setActiveThreadCount(
+				threadPoolExecutor.getActiveCount());
+			partitionDestinationStatistics.setCurrentThreadCount(
+				threadPoolExecutor.getPoolSize());
+			partitionDestinationStatistics.setLargestThreadCount(
+				threadPoolExecutor.getLargestPoolSize());
+			partitionDestinationStatistics.setMaxThreadPoolSize(
+				threadPoolExecutor.getMaxPoolSize());
+			partitionDestinationStatistics.setMinThreadPoolSize(
+				threadPoolExecutor.getCorePoolSize());
+			partitionDestinationStatistics.setPendingMessageCount(
+				threadPoolExecutor.getPendingTaskCount());
+			partitionDestinationStatistics.setSentMessageCount(
+				threadPoolExecutor.getCompletedTaskCount());
+
+			activeThreadCount +=
+				partitionDestinationStatistics.getActiveThreadCount();
+			currentThreadCount +=
+				partitionDestinationStatistics.getCurrentThreadCount();
+			largestThreadCount +=
+				partitionDestinationStatistics.getLargestThreadCount();
+			pendingMessageCount +=
+				partitionDestinationStatistics.getPendingMessageCount();
+			sentMessageCount +=
+				partitionDestinationStatistics.getSentMessageCount();
+
+			partitionStatistics.add(partitionDestinationStatistics);
+		}
+
+		destinationStatistics.setActiveThreadCount(activeThreadCount);
+		destinationStatistics.setCoalescedMessageCount(
+			getCoalescedMessageCount());
+		destinationStatistics.setCurrentThreadCount(currentThreadCount);
+		destinationStatistics.setExpiredMessageCount(getExpiredMessageCount());
+		destinationStatistics.setLargestThreadCount(largestThreadCount);
+		destinationStatistics.setMaxThreadPoolSize(threadPoolExecutors.length);
+		destinationStatistics.setMinThreadPoolSize(threadPoolExecutors.length);
+		destinationStatistics.setPartitionStatistics(partitionStatistics);
+		destinationStatistics.setPendingMessageCount(pendingMessageCount);
+		destinationStatistics.setRejectedMessageCount(
+			getRejectedMessageCount());
+		destinationStatistics.setSentMessageCount(sentMessageCount);
+		destinationStatistics.setSpilledMessageCount(getSpilledMessageCount());
+		destinationStatistics.setThrottledMessageCount(
+			getThrottledMessageCount());
+
+		return destinationStatistics;
+	}
+
+	public int getPartitionCount() {
+		return _partitionCount;
+	}
+
+	public String getPartitionKey() {
+		return _partitionKey;
+	}
+
+	@Override
+	public void open() {
+		if ((_threadPoolExecutors != null) && !isShutdown()) {
+			return;
+		}
+
+		ExecutorServiceRegistrar executorServiceRegistrar =
+			getExecutorServiceRegistrar();
+
+		ThreadPoolExecutor[] threadPoolExecutors =
+			new ThreadPoolExecutor[_partitionCount];
+
+		for (int i = 0; i < threadPoolExecutors.length; i++) {
+			String partitionName = _getPartitionName(i);
+
+			ThreadPoolExecutor threadPoolExecutor = createThreadPoolExecutor(
+				partitionName, 1, 1);
+
+			ThreadPoolExecutor oldThreadPoolExecutor = null;
+
+			if (executorServiceRegistrar != null) {
+				oldThreadPoolExecutor =
+					executorServiceRegistrar.registerExecutorService(
+						partitionName, threadPoolExecutor);
+			}
+
+			if (oldThreadPoolExecutor != null) {
+				if (_log.isWarnEnabled()) {
+					_log.warn(
+						"Abort creating a new thread pool for partition " +
+							partitionName + " and reuse previous one");
+				}
+
+				threadPoolExecutor.shutdownNow();
+
+				threadPoolExecutor = oldThreadPoolExecutor;
+			}
+
+			threadPoolExecutors[i] = threadPoolExecutor;
+		}
+
+		_threadPoolExecutors = threadPoolExecutors;
+	}
+
+	public void setPartitionCount(int partitionCount) {
+		if (partitionCount < 1) {
+			throw new IllegalArgumentException(
+				"Partition count must be at least 1");
+		}
+
+		_partitionCount = partitionCount;
+	}
+
+	public void setPartitionKey(String partitionKey) {
+		_partitionKey = partitionKey;
+	}
+
+	@Activate
+	protected void activate(DestinationSettings destinationSettings) {
+		setCoalesceKey(destinationSettings.coalesceKey());
+		setDeliveryKey(destinationSettings.deliveryKey());
+		setDeliveryMode(destinationSettings.deliveryMode());
+		setMaximumQueueSize(destinationSettings.maxQueueSize());
+		setName(destinationSettings.destination_name());
+		setOverflowDirectory(destinationSettings.overflowDirectory());
+		setOverflowHighWaterMark(destinationSettings.overflowHighWaterMark());
+		setOverflowLowWaterMark(destinationSettings.overflowLowWaterMark());
+		setOverflowSegmentSize(destinationSettings.overflowSegmentSize());
+		setPartitionCount(destinationSettings.partitionCount());
+		setPartitionKey(destinationSettings.partitionKey());
+		setRejectionPolicy(destinationSettings.rejectionPolicy());
+		setRejectionTimeout(destinationSettings.rejectionTimeout());
+		setWorkersIdleTimeout(destinationSettings.workerIdleTimeout());
+		setWorkersLazy(destinationSettings.workerLazy());
+		setWorkersShared(destinationSettings.workerShared());
+		setWorkersVirtual(destinationSettings.workerVirtual());
+		setWorkersWeight(destinationSettings.workerWeight());
+
+		if (destinationSettings.workerAutoTuned() && _log.isWarnEnabled()) {
+			_log.warn(
+				"Ignoring auto-tuned workers of partitioned destination {} " +
+					"because each partition has a single worker",
+				getName());
+		}
+
+		afterPropertiesSet();
+		open();
+	}
+
+	@Deactivate
+	protected void deactivate() {
+		close();
+	}
+
+	@Override
+	protected void dispatch(
+		final Collection<MessageListener> messageListeners,
+		final Collection<InboundMessageProcessor> inboundMessageProcessors,
+		final Message message) {
+
+		final Thread dispatchThread = Thread.currentThread();
+
+		ThreadPoolExecutor threadPoolExecutor =
+			_threadPoolExecutors[getPartition(message)];
+
+		Runnable runnable = new MessageRunnable(message) {
+
+			@Override
+			public void run() {
+				receive(
+					messageListeners, inboundMessageProcessors, getMessage(),
+					dispatchThread);
+			}
+
+		};
+
+		threadPoolExecutor.execute(runnable);
+	}
+
+	/**
+	 * Groups the batch by partition, keeping the order of the messages within
+	 * each partition, and hands every group to its partition as a single task.
+	 */
+	@Override
+	protected void dispatch(
+		final Collection<MessageListener> messageListeners,
+		final Collection<InboundMessageProcessor> inboundMessageProcessors,
+		final List<Message> messages) {
+
+		final Thread dispatchThread = Thread.currentThread();
+
+		ThreadPoolExecutor[] threadPoolExecutors = _threadPoolExecutors;
+
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		List<Message>[] partitionMessages =
+			new List[threadPoolExecutors.length];
+
+		for (Message message : messages) {
+			int partition = getPartition(message);
+
+			if (partitionMessages[partition] == null) {
+				partitionMessages[partition] = new ArrayList<>();
+			}
+
+			partitionMessages[partition].add(message);
+		}
+
+		for (int i = 0; i < threadPoolExecutors.length; i++) {
+			if (partitionMessages[i] == null) {
+				continue;
+			}
+
+			Runnable runnable = new MessageRunnable(partitionMessages[i]) {
+
+				@Override
+				public void run() {
+					for (Message message : getMessages()) {
+						receive(
+							messageListeners, inboundMessageProcessors,
+							message, dispatchThread);
+					}
+				}
+
+			};
+
+			threadPoolExecutors[i].execute(runnable);
+		}
+	}
+
+	@Override
+	protected long getPendingTaskCount() {
+		ThreadPoolExecutor[] threadPoolExecutors = _threadPoolExecutors;
+
+		if (threadPoolExecutors == null) {
+			return 0;
+		}
+
+		long pendingTaskCount = 0;
+
+		for (ThreadPoolExecutor threadPoolExecutor : threadPoolExecutors) {
+			pendingTaskCount += threadPoolExecutor.getPendingTaskCount();
+		}
+
+		return pendingTaskCount;
+	}
+
+	/**
+	 * Returns the partition on which the message is delivered. Messages
+	 * without a partition key value are assigned to the partitions in turn.
+	 */
+	protected int getPartition(Message message) {
+		int partitionCount = _threadPoolExecutors.length;
+
+		Object partitionKeyValue = null;
+
+		if (!_partitionKey.isEmpty()) {
+			partitionKeyValue = message.get(_partitionKey);
+		}
+
+		if (partitionKeyValue == null) {
+			return Math.floorMod(
+				_nextPartition.getAndIncrement(), partitionCount);
+		}
+
+		int hash = partitionKeyValue.hashCode();
+
+		hash ^= hash >>> 16;
+
+		return Math.floorMod(hash, partitionCount);
+	}
+
+	/**
+	 * Returns the thread pool of the first partition, which delivers the
+	 * messages of batch message listeners.
+	 */
+	@Override
+	protected ThreadPoolExecutor getThreadPoolExecutor() {
+		ThreadPoolExecutor[] threadPoolExecutors = _threadPoolExecutors;
+
+		if (threadPoolExecutors == null) {
+			return null;
+		}
+
+		return threadPoolExecutors[0];
+	}
+
+	@Override
+	protected boolean isOrdered() {
+		return true;
+	}
+
+	@Override
+	protected boolean isShutdown() {
+		ThreadPoolExecutor[] threadPoolExecutors = _threadPoolExecutors;
+
+		if (threadPoolExecutors == null) {
+			return true;
+		}
+
+		return threadPoolExecutors[0].isShutdown();
+	}
+
+	private String _getPartitionName(int partition) {
+		return getName() + "-" + partition;
+	}
+
+	private static final int _PARTITION_COUNT = 4;
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		PartitionedDestination.class);
+
+	private final AtomicInteger _nextPartition = new AtomicInteger();
+	private int _partitionCount = _PARTITION_COUNT;
+	private String _partitionKey = "";
+	private volatile ThreadPoolExecutor[] _threadPoolExecutors;
+
+}
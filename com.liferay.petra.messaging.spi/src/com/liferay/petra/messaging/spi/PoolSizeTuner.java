@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.concurrent.NamedThreadFactory;
+import com.liferay.petra.concurrent.ThreadPoolExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically grows or shrinks the thread pools of auto-tuned destinations
+ * between their core and maximum workers sizes.
+ *
+ * <p>
+ * Every sampling interval, the tuner reads how many tasks each destination
+ * completed, how long they waited in the queue, how long they kept a worker
+ * busy and how many are still queued. By Little's law, the number of busy
+ * workers the destination needs is its arrival rate times its service time.
+ * The tuner adds the workers needed to work off the queued tasks within one
+ * interval and sizes the pool so that the workers are busy three quarters
+ * of the time. When nothing completed but tasks are
+ * queued, the service time is unknown and the pool grows one worker at a
+ * time instead. The pool grows to its target at once but only shrinks
+ * halfway to it per interval, so that a short lull does not undo the tuning.
+ * Workers above a lowered maximum pool size retire once they stay idle for
+ * the keep alive time of the thread pool.
+ * </p>
+ *
+ * <p>
+ * Every decision is logged and reported by the destination statistics of the
+ * destination, which are exposed through JMX.
+ * </p>
+ */
+@Component(service = PoolSizeTuner.class)
+public class PoolSizeTuner {
+
+	public PoolSizeTuner() {
+		this(_SAMPLING_INTERVAL);
+	}
+
+	public PoolSizeTuner(long samplingInterval) {
+		_samplingInterval = samplingInterval;
+	}
+
+	public synchronized void close() {
+		if (_scheduledExecutorService != null) {
+			_scheduledExecutorService.shutdownNow();
+
+			_scheduledExecutorService = null;
+		}
+	}
+
+	/**
+	 * Returns the number of milliseconds between two samples of the
+	 * destinations' load.
+	 */
+	public long getSamplingInterval() {
+		return _samplingInterval;
+	}
+
+	/**
+	 * Starts tuning the thread pool of the destination. The first decision is
+	 * made one sampling interval later. The tuner only keeps its thread while
+	 * destinations are registered.
+	 */
+	public synchronized void register(
+		BaseAsyncDestination baseAsyncDestination) {
+
+		_samples.computeIfAbsent(baseAsyncDestination, Sample::new);
+
+		if (_scheduledExecutorService != null) {
+			return;
+		}
+
+		_scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+			new NamedThreadFactory(
+				PoolSizeTuner.class.getSimpleName(), Thread.NORM_PRIORITY,
+				PoolSizeTuner.class.getClassLoader()));
+
+		_scheduledExecutorService.scheduleWithFixedDelay(
+			this::tune, _samplingInterval, _samplingInterval,
+			TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Samples the load of every registered destination and adjusts its
+	 * thread pool. Runs once every sampling interval.
+	 */
+	public void tune() {
+		for (Sample sample : _samples.values()) {
+			try {
+				sample._tune();
+			}
+			catch (RuntimeException re) {
+				_log.error(
+					"Unable to tune the thread pool of destination " +
+						sample._baseAsyncDestination.getName(),
+					re);
+			}
+		}
+	}
+
+	public synchronized void unregister(
+		BaseAsyncDestination baseAsyncDestination) {
+
+		_samples.remove(baseAsyncDestination);
+
+		if (_samples.isEmpty()) {
+			close();
+		}
+	}
+
+	@Deactivate
+	protected void deactivate() {
+		close();
+	}
+
+	private static final long _SAMPLING_INTERVAL = 10000;
+
+	/**
+	 * The fraction of the time the tuner aims to keep the workers busy, which
+	 * leaves room for bursts within a sampling interval.
+	 */
+	private static final double _TARGET_UTILIZATION = 0.75;
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		PoolSizeTuner.class);
+
+	private final long _samplingInterval;
+	private final Map<BaseAsyncDestination, Sample> _samples =
+		new ConcurrentHashMap<>();
+	private ScheduledExecutorService _scheduledExecutorService;
+
+	/**
+	 * The load of a destination when it was last sampled.
+	 */
+	private static class Sample {
+
+		private Sample(BaseAsyncDestination baseAsyncDestination) {
+			_baseAsyncDestination = baseAsyncDestination;
+
+			ThreadPoolExecutor threadPoolExecutor =
+				baseAsyncDestination.getThreadPoolExecutor();
+
+			_busyTime = baseAsyncDestination.getBusyTime();
+			_completedTaskCount = threadPoolExecutor.getCompletedTaskCount();
+			_pendingTaskCount = threadPoolExecutor.getPendingTaskCount();
+			_queueWaitTime = baseAsyncDestination.getQueueWaitTime();
+			_time = System.nanoTime();
+		}
+
+		private void _tune() {
+			ThreadPoolExecutor threadPoolExecutor =
+				_baseAsyncDestination.getThreadPoolExecutor();
+
+			if (threadPoolExecutor.isShutdown()) {
+				return;
+			}
+
+			long busyTime = _baseAsyncDestination.getBusyTime();
+			long completedTaskCount =
+				threadPoolExecutor.getCompletedTaskCount();
+			long pendingTaskCount = threadPoolExecutor.getPendingTaskCount();
+			long queueWaitTime = _baseAsyncDestination.getQueueWaitTime();
+			long time = System.nanoTime();
+
+			double completed = completedTaskCount - _completedTaskCount;
+			double elapsedTime = time - _time;
+
+			if (elapsedTime <= 0) {
+				return;
+			}
+
+			double busy = Math.max(busyTime - _busyTime, 0);
+			double queued = Math.max(
+				completed + pendingTaskCount - _pendingTaskCount, 0);
+			double wait = Math.max(queueWaitTime - _queueWaitTime, 0);
+
+			_busyTime = busyTime;
+			_completedTaskCount = completedTaskCount;
+			_pendingTaskCount = pendingTaskCount;
+			_queueWaitTime = queueWaitTime;
+			_time = time;
+
+			int minimumSize = Math.max(
+				_baseAsyncDestination.getWorkersCoreSize(), 1);
+			int maximumSize = Math.max(
+				_baseAsyncDestination.getWorkersMaxSize(), minimumSize);
+			int size = threadPoolExecutor.getMaxPoolSize();
+
+			double serviceTime = 0;
+			double utilization = busy / (elapsedTime * size);
+
+			int targetSize = minimumSize;
+
+			if (completed > 0) {
+				serviceTime = busy / completed;
+
+				double workers =
+					(queued + pendingTaskCount) / elapsedTime * serviceTime;
+
+				targetSize = (int)Math.ceil(workers / _TARGET_UTILIZATION);
+			}
+			else if (pendingTaskCount > 0) {
+				targetSize = size + 1;
+			}
+
+			if (targetSize < size) {
+				targetSize = size - (size - targetSize + 1) / 2;
+			}
+
+			targetSize = Math.min(
+				Math.max(targetSize, minimumSize), maximumSize);
+
+			String poolAdjustment = String.format(
+				"%s at %.1f tasks/s, %.3f ms service time, %.3f ms queue " +
+					"wait, %d pending tasks and %.0f%% utilization",
+				_getAction(size, targetSize), queued * 1e9 / elapsedTime,
+				serviceTime / 1e6,
+				(completed > 0) ? (wait / completed / 1e6) : 0.0,
+				pendingTaskCount, utilization * 100);
+
+			if (targetSize != size) {
+				if (_log.isInfoEnabled()) {
+					_log.info(
+						"Destination " + _baseAsyncDestination.getName() +
+							": " + poolAdjustment);
+				}
+			}
+			else if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Destination " + _baseAsyncDestination.getName() + ": " +
+						poolAdjustment);
+			}
+
+			_baseAsyncDestination.adjustWorkers(targetSize, poolAdjustment);
+		}
+
+		private String _getAction(int size, int targetSize) {
+			if (targetSize > size) {
+				return "Grew from " + size + " to " + _getWorkers(targetSize);
+			}
+			else if (targetSize < size) {
+				return "Shrank from " + size + " to " +
+					_getWorkers(targetSize);
+			}
+
+			return "Kept " + _getWorkers(size);
+		}
+
+		private String _getWorkers(int size) {
+			if (size == 1) {
+				return "1 worker";
+			}
+
+			return size + " workers";
+		}
+
+		private final BaseAsyncDestination _baseAsyncDestination;
+		private long _busyTime;
+		private long _completedTaskCount;
+		private long _pendingTaskCount;
+		private long _queueWaitTime;
+		private long _time;
+
+	}
+
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.messaging.api.WaitStrategy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A preallocated ring of reusable entries that many producers publish to and
+ * consumers read from by sequence number, without locks on the fast path.
+ *
+ * <p>
+ * A producer claims the next sequence with a compare and set on the cursor,
+ * waiting while the slot is still held by a consumer, fills in the entry of
+ * the sequence and publishes it by marking the slot available for the
+ * sequence's lap around the ring. Consumers wait, with the wait strategy, for
+ * the cursor to reach the sequence they want and then for every sequence up
+ * to it to be published. Consumers report the sequence they are done with
+ * through their gating sequences, which keep producers from overwriting
+ * entries still in use.
+ * </p>
+ */
+public class RingBuffer<E> {
+
+	public RingBuffer(
+		int size, Supplier<E> supplier, WaitStrategy waitStrategy,
+		int gatingSequenceCount) {
+
+		if (Integer.bitCount(size) != 1) {
+			throw new IllegalArgumentException(
+				"Ring buffer size " + size + " is not a power of 2");
+		}
+
+		_size = size;
+		_waitStrategy = waitStrategy;
+
+		_availableFlags = new AtomicIntegerArray(size);
+		_condition = _lock.newCondition();
+		_entries = new Object[size];
+		_gatingSequences = new AtomicLongArray(gatingSequenceCount);
+		_indexMask = size - 1;
+		_indexShift = Integer.numberOfTrailingZeros(size);
+
+		for (int i = 0; i < size; i++) {
+			_availableFlags.set(i, -1);
+			_entries[i] = supplier.get();
+		}
+
+		for (int i = 0; i < gatingSequenceCount; i++) {
+			_gatingSequences.set(i, -1);
+		}
+	}
+
+	/**
+	 * Wakes up the consumers waiting for a sequence, so that they can check
+	 * whether they should stop.
+	 */
+	public void alert() {
+		_alerted = true;
+
+		_signal(true);
+	}
+
+	@SuppressWarnings("unchecked")
+	public E get(long sequence) {
+		return (E)_entries[(int)sequence & _indexMask];
+	}
+
+	/**
+	 * Returns the highest claimed sequence. Claimed sequences are not
+	 * necessarily published yet.
+	 */
+	public long getCursor() {
+		return _cursor.get();
+	}
+
+	/**
+	 * Returns the highest sequence up to which every sequence from the lower
+	 * bound on is published.
+	 */
+	public long getHighestPublishedSequence(
+		long lowerBound, long availableSequence) {
+
+		for (long sequence = lowerBound; sequence <= availableSequence;
+			 sequence++) {
+
+			if (!isPublished(sequence)) {
+				return sequence - 1;
+			}
+		}
+
+		return availableSequence;
+	}
+
+	public int getSize() {
+		return _size;
+	}
+
+	public WaitStrategy getWaitStrategy() {
+		return _waitStrategy;
+	}
+
+	public boolean isPublished(long sequence) {
+		int flag = (int)(sequence >>> _indexShift);
+
+		if (_availableFlags.get((int)sequence & _indexMask) == flag) {
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Claims the next sequence, waiting while the ring is full.
+	 */
+	public long next() {
+		while (true) {
+			long current = _cursor.get();
+
+			long next = current + 1;
+
+			long wrapPoint = next - _size;
+
+			long cachedGatingSequence = _cachedGatingSequence;
+
+			if ((wrapPoint > cachedGatingSequence) ||
+				(cachedGatingSequence > current)) {
+
+				long gatingSequence = _getMinimumGatingSequence(current);
+
+				if (wrapPoint > gatingSequence) {
+					LockSupport.parkNanos(1);
+
+					continue;
+				}
+
+				_cachedGatingSequence = gatingSequence;
+			}
+			else if (_cursor.compareAndSet(current, next)) {
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * Makes the entry of the claimed sequence visible to the consumers.
+	 */
+	public void publish(long sequence) {
+		_availableFlags.lazySet(
+			(int)sequence & _indexMask, (int)(sequence >>> _indexShift));
+
+		_signal(false);
+	}
+
+	/**
+	 * Sets the sequence up to which the consumer at the index is done with
+	 * the entries.
+	 */
+	public void setGatingSequence(int index, long sequence) {
+		_gatingSequences.lazySet(index, sequence);
+	}
+
+	/**
+	 * Waits for the sequence to be published and returns the highest
+	 * published sequence from it on. Returns a lower sequence if the ring
+	 * buffer was alerted first, or if the sequence is claimed but not
+	 * published yet.
+	 */
+	public long waitFor(long sequence) throws InterruptedException {
+		long availableSequence = _cursor.get();
+
+		if (availableSequence < sequence) {
+			if (_waitStrategy == WaitStrategy.BLOCKING) {
+				availableSequence = _block(sequence);
+			}
+			else {
+				availableSequence = _spin(sequence);
+			}
+		}
+
+		if (availableSequence < sequence) {
+			return availableSequence;
+		}
+
+		return getHighestPublishedSequence(sequence, availableSequence);
+	}
+
+	private long _block(long sequence) throws InterruptedException {
+		long availableSequence = 0;
+
+		_lock.lock();
+
+		try {
+
+			// Count as a waiter before checking the cursor again, so that a
+			// sequence claimed after the check always signals
+
+			_waiterCount.incrementAndGet();
+
+			try {
+				while (((availableSequence = _cursor.get()) < sequence) &&
+					   !_alerted) {
+
+					_condition.await();
+				}
+			}
+			finally {
+				_waiterCount.decrementAndGet();
+			}
+		}
+		finally {
+			_lock.unlock();
+		}
+
+		return availableSequence;
+	}
+
+	private long _getMinimumGatingSequence(long minimumSequence) {
+		for (int i = 0; i < _gatingSequences.length(); i++) {
+			minimumSequence = Math.min(
+				minimumSequence, _gatingSequences.get(i));
+		}
+
+		return minimumSequence;
+	}
+
+	private void _signal(boolean force) {
+		if ((!force && (_waitStrategy != WaitStrategy.BLOCKING)) ||
+			(_waiterCount.get() == 0)) {
+
+			return;
+		}
+
+		_lock.lock();
+
+		try {
+			_condition.signalAll();
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	private long _spin(long sequence) {
+		long availableSequence = 0;
+		int spinCount = _SPIN_COUNT;
+
+		while (((availableSequence = _cursor.get()) < sequence) &&
+			   !_alerted) {
+
+			if (_waitStrategy == WaitStrategy.BUSY_SPIN) {
+				continue;
+			}
+
+			if (spinCount > 0) {
+				spinCount--;
+			}
+			else {
+				Thread.yield();
+			}
+		}
+
+		return availableSequence;
+	}
+
+	private static final int _SPIN_COUNT = 100;
+
+	private volatile boolean _alerted;
+	private final AtomicIntegerArray _availableFlags;
+	private volatile long _cachedGatingSequence = -1;
+	private final Condition _condition;
+	private final AtomicLong _cursor = new AtomicLong(-1);
+	private final Object[] _entries;
+	private final AtomicLongArray _gatingSequences;
+	private final int _indexMask;
+	private final int _indexShift;
+	private final ReentrantLock _lock = new ReentrantLock();
+	private final int _size;
+	private final AtomicInteger _waiterCount = new AtomicInteger();
+	private final WaitStrategy _waitStrategy;
+
+}
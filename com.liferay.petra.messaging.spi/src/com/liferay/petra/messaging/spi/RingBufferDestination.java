@@ -0,0 +1,449 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.concurrent.NamedThreadFactory;
+import com.liferay.petra.messaging.api.DestinationSettings;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.InboundMessageProcessor;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.api.MessageListenerException;
+import com.liferay.petra.messaging.api.MessageProcessorException;
+import com.liferay.petra.messaging.api.WaitStrategy;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Destination that hands messages to its consumer threads through a {@link
+ * RingBuffer} instead of a thread pool executor, so that sending a message
+ * neither takes a lock nor allocates a task. Each message is delivered to the
+ * message listeners by one consumer; consumers take sequences in turn, so a
+ * single consumer delivers messages in the order they were sent.
+ * </p>
+ *
+ * <p>
+ * Senders wait while the ring buffer is full. Coalescing, time to live,
+ * overflow and rejection policies are not applied, and batch message
+ * listeners receive their messages one at a time.
+ * </p>
+ */
+@Component(factory = "ring.buffer.destination")
+public class RingBufferDestination extends BaseDestination {
+
+	@Override
+	public void close(boolean force) {
+		RingBuffer<MessageEvent> ringBuffer = _ringBuffer;
+
+		if ((ringBuffer == null) || _closed) {
+			return;
+		}
+
+		_closed = true;
+		_forced = force;
+
+		ringBuffer.alert();
+
+		if (force) {
+			for (Thread thread : _threads) {
+				thread.interrupt();
+			}
+		}
+	}
+
+	public int getConsumerCount() {
+		return _consumerCount;
+	}
+
+	@Override
+	public DestinationStatistics getDestinationStatistics() {
+		DestinationStatisticsImpl destinationStatistics =
+			new DestinationStatisticsImpl();
+
+		int activeThreadCount = 0;
+		int currentThreadCount = 0;
+		long sentMessageCount = 0;
+
+		for (RingBufferConsumer ringBufferConsumer : _ringBufferConsumers) {
+			if (ringBufferConsumer._active) {
+				activeThreadCount++;
+			}
+
+			if (ringBufferConsumer._running) {
+				currentThreadCount++;
+			}
+
+			sentMessageCount += ringBufferConsumer._processedCount;
+		}
+
+		destinationStatistics.setActiveThreadCount(activeThreadCount);
+		destinationStatistics.setCurrentThreadCount(currentThreadCount);
+		destinationStatistics.setLargestThreadCount(_consumerCount);
+		destinationStatistics.setMaxThreadPoolSize(_consumerCount);
+		destinationStatistics.setMinThreadPoolSize(_consumerCount);
+
+		RingBuffer<MessageEvent> ringBuffer = _ringBuffer;
+
+		if (ringBuffer != null) {
+			destinationStatistics.setPendingMessageCount(
+				Math.max(ringBuffer.getCursor() - _workSequence.get(), 0));
+		}
+
+		destinationStatistics.setSentMessageCount(sentMessageCount);
+
+		return destinationStatistics;
+	}
+
+	public int getRingBufferSize() {
+		return _ringBufferSize;
+	}
+
+	public WaitStrategy getWaitStrategy() {
+		return _waitStrategy;
+	}
+
+	@Override
+	public void open() {
+		if (_ringBuffer != null) {
+			return;
+		}
+
+		_ringBuffer = new RingBuffer<>(
+			_ringBufferSize, MessageEvent::new, _waitStrategy, _consumerCount);
+
+		ThreadFactory threadFactory = new NamedThreadFactory(
+			getName(), Thread.NORM_PRIORITY,
+			RingBufferDestination.class.getClassLoader());
+
+		_ringBufferConsumers = new RingBufferConsumer[_consumerCount];
+		_threads = new Thread[_consumerCount];
+
+		for (int i = 0; i < _consumerCount; i++) {
+			_ringBufferConsumers[i] = new RingBufferConsumer(i);
+
+			_threads[i] = threadFactory.newThread(_ringBufferConsumers[i]);
+
+			_threads[i].start();
+		}
+	}
+
+	@Override
+	public void send(Collection<Message> messages) {
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (!dispatchPlan.hasMessageListeners()) {
+			if (_log.isDebugEnabled()) {
+				_log.debug("No message listeners for destination " + getName());
+			}
+
+			return;
+		}
+
+		List<InboundMessageProcessor> inboundMessageProcessors =
+			dispatchPlan.createInboundMessageProcessors();
+
+		for (Message message : messages) {
+			_send(dispatchPlan, inboundMessageProcessors, message);
+		}
+	}
+
+	@Override
+	public void send(Message message) {
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (!dispatchPlan.hasMessageListeners()) {
+			if (_log.isDebugEnabled()) {
+				_log.debug("No message listeners for destination " + getName());
+			}
+
+			return;
+		}
+
+		_send(
+			dispatchPlan, dispatchPlan.createInboundMessageProcessors(),
+			message);
+	}
+
+	/**
+	 * Sets the number of consumer threads. Takes effect when the destination
+	 * is opened.
+	 */
+	public void setConsumerCount(int consumerCount) {
+		_consumerCount = Math.max(consumerCount, 1);
+	}
+
+	/**
+	 * Sets the number of entries in the ring buffer, rounded up to a power of
+	 * 2. Takes effect when the destination is opened.
+	 */
+	public void setRingBufferSize(int ringBufferSize) {
+		if (ringBufferSize <= 1) {
+			_ringBufferSize = 1;
+		}
+		else {
+			_ringBufferSize = Integer.highestOneBit(ringBufferSize - 1) << 1;
+		}
+	}
+
+	public void setWaitStrategy(WaitStrategy waitStrategy) {
+		_waitStrategy = waitStrategy;
+	}
+
+	@Activate
+	protected void activate(DestinationSettings destinationSettings) {
+		setConsumerCount(destinationSettings.workerMaxSize());
+		setDeliveryKey(destinationSettings.deliveryKey());
+		setDeliveryMode(destinationSettings.deliveryMode());
+		setName(destinationSettings.destination_name());
+		setRingBufferSize(destinationSettings.ringBufferSize());
+		setWaitStrategy(destinationSettings.waitStrategy());
+		afterPropertiesSet();
+		open();
+	}
+
+	@Deactivate
+	protected void deactivate() {
+		close();
+	}
+
+	private void _receive(MessageEvent messageEvent) {
+		Message message = messageEvent._message;
+		Thread dispatchThread = messageEvent._dispatchThread;
+		List<InboundMessageProcessor> inboundMessageProcessors =
+			messageEvent._inboundMessageProcessors;
+
+		try {
+			for (InboundMessageProcessor processor : inboundMessageProcessors) {
+				try {
+					message = processor.beforeThread(message, dispatchThread);
+				}
+				catch (MessageProcessorException mpe) {
+					_log.error(
+						"Unable to process message {} before thread {}",
+						message, dispatchThread, mpe);
+				}
+			}
+
+			for (MessageListener messageListener :
+					messageEvent._messageListeners) {
+
+				try {
+					messageListener.receive(message);
+				}
+				catch (MessageListenerException mle) {
+					_log.error("Unable to process message {}", message, mle);
+				}
+			}
+		}
+		finally {
+			for (InboundMessageProcessor processor : inboundMessageProcessors) {
+				try {
+					processor.afterThread(message, dispatchThread);
+				}
+				catch (MessageProcessorException mpe) {
+					_log.error(
+						"Unable to process message {} after thread {}",
+						message, dispatchThread, mpe);
+				}
+			}
+		}
+	}
+
+	private void _send(
+		DispatchPlan dispatchPlan,
+		List<InboundMessageProcessor> inboundMessageProcessors,
+		Message message) {
+
+		if (_closed) {
+			throw new IllegalStateException(
+				"Destination " + getName() + " is shutdown and cannot " +
+					"receive more messages");
+		}
+
+		try {
+			for (InboundMessageProcessor processor : inboundMessageProcessors) {
+				try {
+					message = processor.beforeReceive(message);
+				}
+				catch (MessageProcessorException mpe) {
+					_log.error("Unable to process message " + message, mpe);
+				}
+			}
+
+			RingBuffer<MessageEvent> ringBuffer = _ringBuffer;
+
+			long sequence = ringBuffer.next();
+
+			MessageEvent messageEvent = ringBuffer.get(sequence);
+
+			messageEvent._dispatchThread = Thread.currentThread();
+			messageEvent._inboundMessageProcessors = inboundMessageProcessors;
+			messageEvent._message = message;
+			messageEvent._messageListeners =
+				dispatchPlan.getMessageListenerArray();
+
+			ringBuffer.publish(sequence);
+		}
+		finally {
+			for (InboundMessageProcessor processor : inboundMessageProcessors) {
+				try {
+					processor.afterReceive(message);
+				}
+				catch (MessageProcessorException mpe) {
+					_log.error("Unable to process message " + message, mpe);
+				}
+			}
+		}
+	}
+
+	private static final int _RING_BUFFER_SIZE = 1024;
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		RingBufferDestination.class);
+
+	private volatile boolean _closed;
+	private int _consumerCount = 1;
+	private volatile boolean _forced;
+	private volatile RingBuffer<MessageEvent> _ringBuffer;
+	private RingBufferConsumer[] _ringBufferConsumers =
+		new RingBufferConsumer[0];
+	private int _ringBufferSize = _RING_BUFFER_SIZE;
+	private Thread[] _threads = new Thread[0];
+	private WaitStrategy _waitStrategy = WaitStrategy.BLOCKING;
+	private final AtomicLong _workSequence = new AtomicLong(-1);
+
+	private static class MessageEvent {
+
+		private void _clear() {
+			_dispatchThread = null;
+			_inboundMessageProcessors = null;
+			_message = null;
+			_messageListeners = null;
+		}
+
+		private Thread _dispatchThread;
+		private List<InboundMessageProcessor> _inboundMessageProcessors;
+		private Message _message;
+		private MessageListener[] _messageListeners;
+
+	}
+
+	/**
+	 * Takes the next sequence nobody took yet, waits for it to be published
+	 * and delivers its message, until the destination is closed.
+	 */
+	private class RingBufferConsumer implements Runnable {
+
+		@Override
+		public void run() {
+			RingBuffer<MessageEvent> ringBuffer = _ringBuffer;
+
+			long availableSequence = -1;
+			long nextSequence = -1;
+			boolean processed = true;
+
+			_running = true;
+
+			try {
+				while (!_forced) {
+					if (processed) {
+						processed = false;
+
+						do {
+							nextSequence = _workSequence.get() + 1;
+
+							ringBuffer.setGatingSequence(
+								_index, nextSequence - 1);
+						}
+						while (!_workSequence.compareAndSet(
+									nextSequence - 1, nextSequence));
+					}
+
+					if (availableSequence >= nextSequence) {
+						MessageEvent messageEvent = ringBuffer.get(
+							nextSequence);
+
+						_active = true;
+
+						try {
+							_receive(messageEvent);
+						}
+						catch (Throwable t) {
+
+							// Keep consuming, because nothing else reads the
+							// sequences this consumer takes
+
+							_log.error(
+								"Unable to process message " +
+									messageEvent._message + " of " +
+										getName(),
+								t);
+						}
+						finally {
+							messageEvent._clear();
+
+							_active = false;
+							_processedCount++;
+						}
+
+						processed = true;
+
+						continue;
+					}
+
+					// Stop once closed, unless a sender claimed the sequence
+					// before the destination was closed
+
+					if (_closed && (nextSequence > ringBuffer.getCursor())) {
+						break;
+					}
+
+					availableSequence = ringBuffer.waitFor(nextSequence);
+				}
+			}
+			catch (InterruptedException ie) {
+				if (_log.isDebugEnabled()) {
+					_log.debug("Interrupted consumer of " + getName(), ie);
+				}
+			}
+			finally {
+				ringBuffer.setGatingSequence(_index, Long.MAX_VALUE);
+
+				_running = false;
+			}
+		}
+
+		private RingBufferConsumer(int index) {
+			_index = index;
+		}
+
+		private volatile boolean _active;
+		private final int _index;
+		private volatile long _processedCount;
+		private volatile boolean _running;
+
+	}
+
+}
@@ -18,19 +18,15 @@ import com.liferay.petra.messaging.api.DestinationSettings;
 import com.liferay.petra.messaging.api.InboundMessageProcessor;
 import com.liferay.petra.messaging.api.Message;
 import com.liferay.petra.messaging.api.MessageListener;
-import com.liferay.petra.messaging.api.MessageListenerException;
-import com.liferay.petra.messaging.api.MessageProcessorException;
 import com.liferay.petra.concurrent.ThreadPoolExecutor;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * <p>
  * Destination that delivers a message to a list of message listeners one at a
@@ -50,8 +46,24 @@ public class SerialDestination extends BaseAsyncDestination {
 
 	@Activate
 	protected void activate(DestinationSettings destinationSettings) {
+		setCoalesceKey(destinationSettings.coalesceKey());
+		setDeliveryKey(destinationSettings.deliveryKey());
+		setDeliveryMode(destinationSettings.deliveryMode());
+		setMaximumBatchDelay(destinationSettings.maxBatchDelay());
+		setMaximumBatchSize(destinationSettings.maxBatchSize());
 		setMaximumQueueSize(destinationSettings.maxQueueSize());
 		setName(destinationSettings.destination_name());
+		setOverflowDirectory(destinationSettings.overflowDirectory());
+		setOverflowHighWaterMark(destinationSettings.overflowHighWaterMark());
+		setOverflowLowWaterMark(destinationSettings.overflowLowWaterMark());
+		setOverflowSegmentSize(destinationSettings.overflowSegmentSize());
+		setRejectionPolicy(destinationSettings.rejectionPolicy());
+		setRejectionTimeout(destinationSettings.rejectionTimeout());
+		setWorkersIdleTimeout(destinationSettings.workerIdleTimeout());
+		setWorkersLazy(destinationSettings.workerLazy());
+		setWorkersShared(destinationSettings.workerShared());
+		setWorkersVirtual(destinationSettings.workerVirtual());
+		setWorkersWeight(destinationSettings.workerWeight());
 		afterPropertiesSet();
 		open();
 	}
@@ -63,60 +75,60 @@ public class SerialDestination extends BaseAsyncDestination {
 
 	@Override
 	protected void dispatch(
-		final Collection<MessageListener> messageListeners,
+		Collection<MessageListener> messageListeners,
+		Collection<InboundMessageProcessor> messageInboundProcessors,
+		Message message) {
+
+		Thread dispatchThread = Thread.currentThread();
+
+		ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
+
+		Collection<MessageListener> remainingMessageListeners =
+			dispatchBatches(
+				messageListeners, messageInboundProcessors, message,
+				dispatchThread);
+
+		if (remainingMessageListeners.isEmpty()) {
+			return;
+		}
+
+		SerialMessageRunnable serialMessageRunnable =
+			_messageRunnablePool.acquire();
+
+		serialMessageRunnable._reset(
+			remainingMessageListeners, messageInboundProcessors, message,
+			dispatchThread);
+
+		threadPoolExecutor.execute(serialMessageRunnable);
+	}
+
+	@Override
+	protected void dispatch(
+		Collection<MessageListener> messageListeners,
 		final Collection<InboundMessageProcessor> messageInboundProcessors,
-		final Message message) {
+		final List<Message> messages) {
 
 		final Thread dispatchThread = Thread.currentThread();
 
 		ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
 
-		Runnable runnable = new MessageRunnable(message) {
+		final Collection<MessageListener> remainingMessageListeners =
+			dispatchBatches(
+				messageListeners, messageInboundProcessors, messages,
+				dispatchThread);
+
+		if (remainingMessageListeners.isEmpty()) {
+			return;
+		}
+
+		Runnable runnable = new MessageRunnable(messages) {
 
 			@Override
 			public void run() {
-				Message processedMessage = getMessage();
-
-				try {
-					for (InboundMessageProcessor processor :
-							messageInboundProcessors) {
-
-						try {
-							processedMessage = processor.beforeThread(
-								processedMessage, dispatchThread);
-						}
-						catch (MessageProcessorException mpe) {
-							_log.error(
-								"Unable to process message before thread {}",
-								processedMessage, mpe);
-						}
-					}
-
-					for (MessageListener messageListener : messageListeners) {
-						try {
-							messageListener.receive(processedMessage);
-						}
-						catch (MessageListenerException mle) {
-							_log.error(
-								"Unable to process message {}",
-								processedMessage, mle);
-						}
-					}
-				}
-				finally {
-					for (InboundMessageProcessor processor :
-							messageInboundProcessors) {
-
-						try {
-							processor.afterThread(
-								processedMessage, dispatchThread);
-						}
-						catch (MessageProcessorException mpe) {
-							_log.error(
-								"Unable to process message after thread {}",
-								processedMessage, mpe);
-						}
-					}
+				for (Message message : getMessages()) {
+					receive(
+						remainingMessageListeners, messageInboundProcessors,
+						message, dispatchThread);
 				}
 			}
 
@@ -125,11 +137,57 @@ public class SerialDestination extends BaseAsyncDestination {
 		threadPoolExecutor.execute(runnable);
 	}
 
+	@Override
+	protected boolean isOrdered() {
+		return true;
+	}
+
+	private static final int _MESSAGE_RUNNABLE_POOL_CAPACITY = 64;
+
 	private static final int _WORKERS_CORE_SIZE = 1;
 
 	private static final int _WORKERS_MAX_SIZE = 1;
 
-	private static final Logger _log = LoggerFactory.getLogger(
-		SerialDestination.class);
+	private final MessageRunnablePool<SerialMessageRunnable>
+		_messageRunnablePool = new MessageRunnablePool<>(
+			_MESSAGE_RUNNABLE_POOL_CAPACITY, SerialMessageRunnable::new);
+
+	private class SerialMessageRunnable extends MessageRunnable {
+
+		@Override
+		public void recycle() {
+			_dispatchThread = null;
+			_messageInboundProcessors = null;
+			_messageListeners = null;
+
+			reset(null);
+
+			_messageRunnablePool.release(this);
+		}
+
+		@Override
+		public void run() {
+			receive(
+				_messageListeners, _messageInboundProcessors, getMessage(),
+				_dispatchThread);
+		}
+
+		private void _reset(
+			Collection<MessageListener> messageListeners,
+			Collection<InboundMessageProcessor> messageInboundProcessors,
+			Message message, Thread dispatchThread) {
+
+			_messageListeners = messageListeners;
+			_messageInboundProcessors = messageInboundProcessors;
+			_dispatchThread = dispatchThread;
+
+			reset(message);
+		}
+
+		private Thread _dispatchThread;
+		private Collection<InboundMessageProcessor> _messageInboundProcessors;
+		private Collection<MessageListener> _messageListeners;
+
+	}
 
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import com.liferay.petra.messaging.api.MessageListener;
 import com.liferay.petra.messaging.api.MessageListenerException;
 import com.liferay.petra.messaging.api.MessageProcessorException;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -50,8 +51,10 @@ public class SynchronousDestination extends BaseDestination {
 	}
 
 	@Override
-	public void send(Message message) {
-		if (messageListeners.isEmpty()) {
+	public void send(Collection<Message> messages) {
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (!dispatchPlan.hasMessageListeners()) {
 			if (_log.isDebugEnabled()) {
 				_log.debug("No message listeners for destination " + getName());
 			}
@@ -60,7 +63,48 @@ public class SynchronousDestination extends BaseDestination {
 		}
 
 		List<InboundMessageProcessor> inboundMessageProcessors =
-			getInboundMessageProcessors();
+			dispatchPlan.createInboundMessageProcessors();
+
+		for (Message message : messages) {
+			_send(dispatchPlan, inboundMessageProcessors, message);
+		}
+	}
+
+	@Override
+	public void send(Message message) {
+		DispatchPlan dispatchPlan = getDispatchPlan();
+
+		if (!dispatchPlan.hasMessageListeners()) {
+			if (_log.isDebugEnabled()) {
+				_log.debug("No message listeners for destination " + getName());
+			}
+
+			return;
+		}
+
+		_send(
+			dispatchPlan, dispatchPlan.createInboundMessageProcessors(),
+			message);
+	}
+
+	@Activate
+	protected void activate(DestinationSettings destinationSettings) {
+		setDeliveryKey(destinationSettings.deliveryKey());
+		setDeliveryMode(destinationSettings.deliveryMode());
+		setName(destinationSettings.destination_name());
+		afterPropertiesSet();
+		open();
+	}
+
+	@Deactivate
+	protected void deactivate() {
+		close();
+	}
+
+	private void _send(
+		DispatchPlan dispatchPlan,
+		List<InboundMessageProcessor> inboundMessageProcessors,
+		Message message) {
 
 		try {
 			for (InboundMessageProcessor processor : inboundMessageProcessors) {
@@ -74,7 +118,9 @@ public class SynchronousDestination extends BaseDestination {
 				}
 			}
 
-			for (MessageListener messageListener : getMessageListeners()) {
+			for (MessageListener messageListener :
+					dispatchPlan.getMessageListenerArray()) {
+
 				try {
 					messageListener.receive(message);
 				}
@@ -98,18 +144,6 @@ public class SynchronousDestination extends BaseDestination {
 		_sentMessageCounter.incrementAndGet();
 	}
 
-	@Activate
-	protected void activate(DestinationSettings destinationSettings) {
-		setName(destinationSettings.destination_name());
-		afterPropertiesSet();
-		open();
-	}
-
-	@Deactivate
-	protected void deactivate() {
-		close();
-	}
-
 	private static final Logger _log = LoggerFactory.getLogger(
 		SynchronousDestination.class);
 
@@ -0,0 +1,401 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.spi;
+
+import com.liferay.petra.concurrent.NamedThreadFactory;
+import com.liferay.petra.concurrent.RejectedExecutionHandler;
+import com.liferay.petra.concurrent.TaskQueue;
+import com.liferay.petra.concurrent.ThreadPoolHandler;
+
+import java.lang.reflect.Method;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread pool executor that runs every task on a new virtual thread instead
+ * of on pooled worker threads, so that tasks blocking on I/O do not tie up
+ * platform threads. A semaphore with maximum pool size permits limits how
+ * many tasks run at a time; the other tasks wait in the task queue.
+ *
+ * <p>
+ * Virtual threads need Java 21. On older runtimes every task runs on a new
+ * platform thread instead, which still lifts the cap of a fixed pool at the
+ * cost of creating a thread per task.
+ * </p>
+ *
+ * <p>
+ * The pool size methods report the number of tasks in flight, and the core
+ * pool size is always zero.
+ * </p>
+ */
+public class VirtualThreadPoolExecutor extends DestinationThreadPoolExecutor {
+
+	public VirtualThreadPoolExecutor(
+		String name, int maxPoolSize, int maxQueueSize,
+		RejectedExecutionHandler rejectedExecutionHandler,
+		ClassLoader classLoader, ThreadPoolHandler threadPoolHandler) {
+
+		this(
+			name, maxPoolSize, maxQueueSize, rejectedExecutionHandler,
+			classLoader, threadPoolHandler,
+			new NamedThreadFactory(name, Thread.NORM_PRIORITY, classLoader));
+	}
+
+	@Override
+	public void adjustPoolSize(int corePoolSize, int maxPoolSize) {
+		synchronized (_semaphore) {
+			int delta = maxPoolSize - _maxPoolSize;
+
+			_maxPoolSize = maxPoolSize;
+
+			if (delta > 0) {
+				_semaphore.release(delta);
+			}
+			else {
+				_semaphore.reducePermits(-delta);
+			}
+		}
+
+		_start();
+	}
+
+	@Override
+	public void execute(Runnable runnable) {
+		if (runnable == null) {
+			throw new NullPointerException();
+		}
+
+		TaskQueue<Runnable> taskQueue = getTaskQueue();
+
+		if (!isShutdown() && taskQueue.offer(runnable, new boolean[1])) {
+			if (!isShutdown() || !taskQueue.remove(runnable)) {
+				_start();
+
+				return;
+			}
+		}
+
+		RejectedExecutionHandler rejectedExecutionHandler =
+			getRejectedExecutionHandler();
+
+		rejectedExecutionHandler.rejectedExecution(runnable, this);
+	}
+
+	@Override
+	public int getActiveCount() {
+		return _threads.size();
+	}
+
+	@Override
+	public long getCompletedTaskCount() {
+		return _completedTaskCount.sum();
+	}
+
+	@Override
+	public int getCorePoolSize() {
+		return 0;
+	}
+
+	@Override
+	public int getLargestPoolSize() {
+		return _largestPoolSize.get();
+	}
+
+	@Override
+	public int getMaxPoolSize() {
+		return _maxPoolSize;
+	}
+
+	@Override
+	public int getPoolSize() {
+		return _threads.size();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		if (_shutdown) {
+			return true;
+		}
+
+		return super.isShutdown();
+	}
+
+	/**
+	 * Returns <code>true</code> if tasks run on virtual threads, or
+	 * <code>false</code> if the runtime lacks them and tasks run on platform
+	 * threads.
+	 */
+	public boolean isVirtual() {
+		return _virtual;
+	}
+
+	@Override
+	public boolean offerTask(Runnable runnable, long timeout, TimeUnit timeUnit)
+		throws InterruptedException {
+
+		if (super.offerTask(runnable, timeout, timeUnit)) {
+			_start();
+
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void shutdown() {
+		_shutdown = true;
+
+		_tryTerminate();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		_shutdown = true;
+
+		List<Runnable> runnables = new ArrayList<>();
+
+		Runnable runnable = null;
+
+		while ((runnable = pollTask()) != null) {
+			runnables.add(runnable);
+		}
+
+		for (Thread thread : _threads) {
+			thread.interrupt();
+		}
+
+		_tryTerminate();
+
+		return runnables;
+	}
+
+	private static ThreadFactory _createVirtualThreadFactory(String name) {
+		if (_ofVirtualMethod == null) {
+			return null;
+		}
+
+		try {
+			Object builder = _ofVirtualMethod.invoke(null);
+
+			builder = _nameMethod.invoke(builder, name + "-", 1L);
+
+			return (ThreadFactory)_factoryMethod.invoke(builder);
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+
+			// Virtual threads are a preview feature on Java 19 and 20
+
+			if (_log.isDebugEnabled()) {
+				_log.debug("Unable to create virtual threads", e);
+			}
+
+			return null;
+		}
+	}
+
+	private VirtualThreadPoolExecutor(
+		String name, int maxPoolSize, int maxQueueSize,
+		RejectedExecutionHandler rejectedExecutionHandler,
+		ClassLoader classLoader, ThreadPoolHandler threadPoolHandler,
+		ThreadFactory threadFactory) {
+
+		super(
+			0, Math.max(maxPoolSize, 1), 0, TimeUnit.SECONDS, false,
+			maxQueueSize, rejectedExecutionHandler, threadFactory,
+			threadPoolHandler);
+
+		setName(name);
+
+		_maxPoolSize = maxPoolSize;
+		_classLoader = classLoader;
+
+		_semaphore = new ResizableSemaphore(maxPoolSize);
+
+		ThreadFactory virtualThreadFactory = _createVirtualThreadFactory(name);
+
+		if (virtualThreadFactory == null) {
+			_threadFactory = threadFactory;
+			_virtual = false;
+		}
+		else {
+			_threadFactory = virtualThreadFactory;
+			_virtual = true;
+		}
+	}
+
+	private void _run(Runnable runnable) {
+		Thread currentThread = Thread.currentThread();
+
+		ThreadPoolHandler threadPoolHandler = getThreadPoolHandler();
+
+		Throwable throwable = null;
+
+		try {
+			while (runnable != null) {
+				try {
+					threadPoolHandler.beforeExecute(currentThread, runnable);
+
+					runnable.run();
+				}
+				catch (Throwable t) {
+					throwable = t;
+
+					_log.error("Unable to run task of " + getName(), t);
+				}
+				finally {
+					try {
+						threadPoolHandler.afterExecute(runnable, throwable);
+					}
+					catch (Throwable t) {
+						_log.error("Unable to finish task of " + getName(), t);
+					}
+
+					_completedTaskCount.increment();
+				}
+
+				// A virtual thread is cheap, but a platform thread is not, so
+				// keep taking queued tasks while there are any
+
+				if (_virtual || isShutdown()) {
+					break;
+				}
+
+				runnable = pollTask();
+				throwable = null;
+			}
+		}
+		finally {
+			_threads.remove(currentThread);
+
+			_semaphore.release();
+
+			_tryTerminate();
+
+			_start();
+		}
+	}
+
+	/**
+	 * Starts a thread for every queued task there is a permit for.
+	 */
+	private void _start() {
+		while (_semaphore.tryAcquire()) {
+			Runnable runnable = pollTask();
+
+			if (runnable == null) {
+				_semaphore.release();
+
+				// A task queued between the poll and the release found no
+				// permit, so look again
+
+				if (getPendingTaskCount() == 0) {
+					return;
+				}
+
+				continue;
+			}
+
+			Thread thread = _threadFactory.newThread(() -> _run(runnable));
+
+			if (_virtual) {
+				thread.setContextClassLoader(_classLoader);
+			}
+
+			_threads.add(thread);
+
+			_largestPoolSize.accumulateAndGet(_threads.size(), Math::max);
+
+			thread.start();
+		}
+	}
+
+	/**
+	 * Terminates the executor once it is shut down and has no more tasks.
+	 */
+	private void _tryTerminate() {
+		if (_shutdown && _threads.isEmpty() && (getPendingTaskCount() == 0) &&
+			!super.isShutdown()) {
+
+			// Without worker threads or tasks, the executor terminates right
+			// away
+
+			super.shutdown();
+		}
+	}
+
+	private static final Logger _log = LoggerFactory.getLogger(
+		VirtualThreadPoolExecutor.class);
+
+	private static final Method _factoryMethod;
+	private static final Method _nameMethod;
+	private static final Method _ofVirtualMethod;
+
+	static {
+		Method factoryMethod = null;
+		Method nameMethod = null;
+		Method ofVirtualMethod = null;
+
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+			factoryMethod = builderClass.getMethod("factory");
+			nameMethod = builderClass.getMethod(
+				"name", String.class, long.class);
+			ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+		}
+		catch (ReflectiveOperationException roe) {
+			ofVirtualMethod = null;
+		}
+
+		_factoryMethod = factoryMethod;
+		_nameMethod = nameMethod;
+		_ofVirtualMethod = ofVirtualMethod;
+	}
+
+	private final ClassLoader _classLoader;
+	private final LongAdder _completedTaskCount = new LongAdder();
+	private final AtomicInteger _largestPoolSize = new AtomicInteger();
+	private volatile int _maxPoolSize;
+	private final ResizableSemaphore _semaphore;
+	private volatile boolean _shutdown;
+	private final ThreadFactory _threadFactory;
+	private final Set<Thread> _threads = ConcurrentHashMap.newKeySet();
+	private final boolean _virtual;
+
+	private static class ResizableSemaphore extends Semaphore {
+
+		@Override
+		public void reducePermits(int reduction) {
+			super.reducePermits(reduction);
+		}
+
+		private ResizableSemaphore(int permits) {
+			super(permits);
+		}
+
+	}
+
+}
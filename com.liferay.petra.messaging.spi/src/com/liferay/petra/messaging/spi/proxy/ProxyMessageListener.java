@@ -68,7 +68,18 @@ public class ProxyMessageListener implements MessageListener {
 
 				responseMessage.setDestinationName(
 					message.getResponseDestinationName());
-				responseMessage.setResponseId(message.getResponseId());
+
+				// Copy the correlation ID as is, so that neither side has to
+				// format or parse the response ID
+
+				long correlationId = message.getCorrelationId();
+
+				if (correlationId != 0) {
+					responseMessage.setCorrelationId(correlationId);
+				}
+				else {
+					responseMessage.setResponseId(message.getResponseId());
+				}
 
 				responseMessage.setPayload(proxyResponse);
 
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * Measures the heap allocated per message by all threads while serial and
+ * parallel destinations dispatch to their message listeners.
+ */
+public class AsyncDispatchAllocationBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testParallel() throws Exception {
+		testDispatch(DestinationType.PARALLEL, 1);
+		testDispatch(DestinationType.PARALLEL, 3);
+	}
+
+	@Test
+	public void testSerial() throws Exception {
+		testDispatch(DestinationType.SERIAL, 1);
+	}
+
+	protected void testDispatch(
+			DestinationType destinationType, int listenerCount)
+		throws Exception {
+
+		registerDestinationConfiguration(
+			new DestinationConfiguration(destinationType, _DESTINATION_NAME));
+
+		AtomicLong counter = new AtomicLong();
+
+		for (int i = 0; i < listenerCount; i++) {
+			registerMessageListener(
+				_DESTINATION_NAME, message -> counter.incrementAndGet());
+		}
+
+		Message message = new MessageImpl();
+
+		_send(message, _WARM_UP_ITERATIONS, listenerCount, counter);
+
+		long allocatedBytes = _getAllocatedBytes();
+
+		_send(message, _ITERATIONS, listenerCount, counter);
+
+		allocatedBytes = _getAllocatedBytes() - allocatedBytes;
+
+		double bytesPerMessage = (double)allocatedBytes / _ITERATIONS;
+
+		report(
+			"async-dispatch-allocation", "%s, %d listeners: %.1f bytes/msg",
+			destinationType.getType(), listenerCount, bytesPerMessage);
+
+		unregisterAll();
+	}
+
+	/**
+	 * Returns the number of bytes all live threads allocated so far. The
+	 * platform MBean is used to avoid depending on the com.sun.management
+	 * package.
+	 */
+	private long _getAllocatedBytes() throws Exception {
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		ObjectName objectName = new ObjectName(
+			ManagementFactory.THREAD_MXBEAN_NAME);
+
+		long[] threadIds = (long[])mBeanServer.getAttribute(
+			objectName, "AllThreadIds");
+
+		long[] allocatedBytes = (long[])mBeanServer.invoke(
+			objectName, "getThreadAllocatedBytes", new Object[] {threadIds},
+			new String[] {long[].class.getName()});
+
+		long sum = 0;
+
+		for (long bytes : allocatedBytes) {
+			if (bytes > 0) {
+				sum += bytes;
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Sends the message and waits for the message listeners after every few
+	 * messages, so the queues stay short and the measurement reflects the
+	 * steady state rather than queue growth.
+	 */
+	private void _send(
+		Message message, int iterations, int listenerCount,
+		AtomicLong counter) {
+
+		long expected = counter.get();
+
+		for (int i = 1; i <= iterations; i++) {
+			messageBus.sendMessage(_DESTINATION_NAME, message);
+
+			expected += listenerCount;
+
+			if (((i % _PACING) == 0) || (i == iterations)) {
+				while (counter.get() < expected) {
+					Thread.yield();
+				}
+			}
+		}
+	}
+
+	private static final String _DESTINATION_NAME =
+		"benchmark/async_dispatch_allocation";
+
+	private static final int _ITERATIONS = 200000;
+
+	private static final int _PACING = 32;
+
+	private static final int _WARM_UP_ITERATIONS = 50000;
+
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.BaseBatchMessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that serial and parallel destinations deliver pending messages to
+ * batch message listeners in batches.
+ */
+public class BatchMessageListenerTest extends TestUtil {
+
+	@Test
+	public void testParallelBatchDelivery() throws Exception {
+		_testBatchDelivery(DestinationType.PARALLEL, 0);
+	}
+
+	@Test
+	public void testSerialBatchDelivery() throws Exception {
+		_testBatchDelivery(DestinationType.SERIAL, 10000);
+	}
+
+	private void _testBatchDelivery(
+			DestinationType destinationType, long maxBatchDelay)
+		throws Exception {
+
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					destinationType, _DESTINATION_NAME),
+				"maxBatchDelay", maxBatchDelay, "maxBatchSize",
+				_MAX_BATCH_SIZE);
+
+		RecordingBatchMessageListener recordingBatchMessageListener =
+			new RecordingBatchMessageListener(_MESSAGE_COUNT * 2);
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, recordingBatchMessageListener,
+				"destination.name", _DESTINATION_NAME);
+
+		try {
+			for (int i = 0; i < _MESSAGE_COUNT; i++) {
+				messageBus.sendMessage(_DESTINATION_NAME, _createMessage(i));
+			}
+
+			List<Message> messages = new ArrayList<>();
+
+			for (int i = _MESSAGE_COUNT; i < (_MESSAGE_COUNT * 2); i++) {
+				messages.add(_createMessage(i));
+			}
+
+			messageBus.sendMessages(_DESTINATION_NAME, messages);
+
+			Assert.assertTrue(
+				recordingBatchMessageListener.await(10, TimeUnit.SECONDS));
+
+			List<Integer> batchSizes =
+				recordingBatchMessageListener.getBatchSizes();
+
+			int largestBatchSize = 0;
+
+			for (int batchSize : batchSizes) {
+				Assert.assertTrue(
+					String.valueOf(batchSizes), batchSize <= _MAX_BATCH_SIZE);
+
+				largestBatchSize = Math.max(largestBatchSize, batchSize);
+			}
+
+			if (destinationType == DestinationType.SERIAL) {
+
+				// The maximum batch delay is long enough for every batch to
+				// fill up, and the single worker keeps the messages in order
+
+				Assert.assertEquals(
+					String.valueOf(batchSizes),
+					(_MESSAGE_COUNT * 2) / _MAX_BATCH_SIZE, batchSizes.size());
+				Assert.assertEquals(_MAX_BATCH_SIZE, largestBatchSize);
+
+				List<Integer> payloads =
+					recordingBatchMessageListener.getPayloads();
+
+				for (int i = 0; i < payloads.size(); i++) {
+					Assert.assertEquals(i, (int)payloads.get(i));
+				}
+			}
+
+			Destination destination = messageBus.getDestination(
+				_DESTINATION_NAME);
+
+			DestinationStatistics destinationStatistics =
+				destination.getDestinationStatistics();
+
+			Assert.assertEquals(
+				batchSizes.size(), destinationStatistics.getBatchCount());
+			Assert.assertEquals(
+				_MESSAGE_COUNT * 2,
+				destinationStatistics.getBatchMessageCount());
+			Assert.assertEquals(
+				largestBatchSize, destinationStatistics.getLargestBatchSize());
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	private Message _createMessage(int sequence) {
+		Message message = new MessageImpl();
+
+		message.setPayload(sequence);
+
+		return message;
+	}
+
+	private static final String _DESTINATION_NAME = "test/batch";
+
+	private static final int _MAX_BATCH_SIZE = 10;
+
+	private static final int _MESSAGE_COUNT = 100;
+
+	private static class RecordingBatchMessageListener
+		extends BaseBatchMessageListener {
+
+		public RecordingBatchMessageListener(int count) {
+			_countDownLatch = new CountDownLatch(count);
+		}
+
+		public boolean await(long timeout, TimeUnit timeUnit)
+			throws InterruptedException {
+
+			return _countDownLatch.await(timeout, timeUnit);
+		}
+
+		public List<Integer> getBatchSizes() {
+			return _batchSizes;
+		}
+
+		public List<Integer> getPayloads() {
+			return _payloads;
+		}
+
+		@Override
+		protected void doReceive(List<Message> messages) {
+			_batchSizes.add(messages.size());
+
+			for (Message message : messages) {
+				_payloads.add((Integer)message.getPayload());
+
+				_countDownLatch.countDown();
+			}
+		}
+
+		private final List<Integer> _batchSizes = new CopyOnWriteArrayList<>();
+		private final CountDownLatch _countDownLatch;
+		private final List<Integer> _payloads = new CopyOnWriteArrayList<>();
+
+	}
+
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the throughput of sending messages one at a time with sending them
+ * in batches through {@link
+ * com.liferay.petra.messaging.api.MessageBus#sendMessages}.
+ */
+public class BatchSendBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testParallel() throws Exception {
+		test(DestinationType.PARALLEL);
+	}
+
+	@Test
+	public void testSerial() throws Exception {
+		test(DestinationType.SERIAL);
+	}
+
+	@Test
+	public void testSynchronous() throws Exception {
+		test(DestinationType.SYNCHRONOUS);
+	}
+
+	protected void test(DestinationType destinationType) throws Exception {
+		registerDestinationConfiguration(
+			new DestinationConfiguration(destinationType, _DESTINATION_NAME));
+
+		CountingMessageListener countingMessageListener =
+			registerMessageListener(
+				_DESTINATION_NAME, new CountingMessageListener());
+
+		List<Message> messages = new ArrayList<>(_MESSAGE_COUNT);
+
+		for (int i = 0; i < _MESSAGE_COUNT; i++) {
+			Message message = new MessageImpl();
+
+			message.setPayload(i);
+
+			messages.add(message);
+		}
+
+		long singleNanos = run(
+			countingMessageListener,
+			() -> {
+				for (Message message : messages) {
+					messageBus.sendMessage(_DESTINATION_NAME, message);
+				}
+			});
+
+		long batchNanos = run(
+			countingMessageListener,
+			() -> {
+				for (int i = 0; i < _MESSAGE_COUNT; i += _BATCH_SIZE) {
+					messageBus.sendMessages(
+						_DESTINATION_NAME,
+						messages.subList(
+							i, Math.min(i + _BATCH_SIZE, _MESSAGE_COUNT)));
+				}
+			});
+
+		report(
+			"batch-send",
+			"%s: single %.0f msgs/s, batch of %d %.0f msgs/s",
+			destinationType, _MESSAGE_COUNT * 1e9 / singleNanos, _BATCH_SIZE,
+			_MESSAGE_COUNT * 1e9 / batchNanos);
+	}
+
+	protected long run(
+			CountingMessageListener countingMessageListener, Runnable runnable)
+		throws Exception {
+
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT);
+
+		countingMessageListener.setCountDownLatch(countDownLatch);
+
+		long start = System.nanoTime();
+
+		runnable.run();
+
+		Assert.assertTrue(countDownLatch.await(60, TimeUnit.SECONDS));
+
+		return System.nanoTime() - start;
+	}
+
+	private static final int _BATCH_SIZE = 100;
+
+	private static final String _DESTINATION_NAME = "benchmark/batch";
+
+	private static final int _MESSAGE_COUNT = 100000;
+
+	private static class CountingMessageListener implements MessageListener {
+
+		@Override
+		public void receive(Message message) {
+			_countDownLatch.countDown();
+		}
+
+		public void setCountDownLatch(CountDownLatch countDownLatch) {
+			_countDownLatch = countDownLatch;
+		}
+
+		private volatile CountDownLatch _countDownLatch;
+
+	}
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.MessageListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+
+import org.osgi.framework.ServiceRegistration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for the micro benchmarks of the test suite. Benchmarks register
+ * their destinations and listeners through this class so that they are
+ * unregistered again before the next test runs.
+ *
+ * <p>
+ * Benchmarks are skipped unless the <code>petra.messaging.benchmark</code>
+ * framework or system property is <code>true</code>, for example through
+ * <code>-runproperties</code> in bnd.bnd.
+ * </p>
+ */
+public class BenchmarkUtil extends TestUtil {
+
+	@After
+	public void after() {
+		unregisterAll();
+
+		super.after();
+	}
+
+	@Before
+	public void before() {
+		super.before();
+
+		Assume.assumeTrue(
+			Boolean.parseBoolean(bundleContext.getProperty(_BENCHMARK)));
+	}
+
+	/**
+	 * Runs the task for the given number of warm up and measured iterations
+	 * and returns the average number of nanoseconds per measured iteration.
+	 */
+	protected double measure(
+		int warmUpIterations, int iterations, Runnable runnable) {
+
+		for (int i = 0; i < warmUpIterations; i++) {
+			runnable.run();
+		}
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < iterations; i++) {
+			runnable.run();
+		}
+
+		return (double)(System.nanoTime() - start) / iterations;
+	}
+
+	protected DestinationConfiguration registerDestinationConfiguration(
+		DestinationConfiguration destinationConfiguration, Object... parts) {
+
+		serviceRegistrations.add(
+			registerService(
+				DestinationConfiguration.class, destinationConfiguration,
+				parts));
+
+		return destinationConfiguration;
+	}
+
+	protected <T extends MessageListener> T registerMessageListener(
+		String destinationName, T messageListener) {
+
+		serviceRegistrations.add(
+			registerService(
+				MessageListener.class, messageListener, "destination.name",
+				destinationName));
+
+		return messageListener;
+	}
+
+	protected void report(String benchmark, String format, Object... values) {
+		_logger.info("[" + benchmark + "] " + String.format(format, values));
+	}
+
+	protected void unregisterAll() {
+		Collections.reverse(serviceRegistrations);
+
+		for (ServiceRegistration<?> serviceRegistration :
+				serviceRegistrations) {
+
+			serviceRegistration.unregister();
+		}
+
+		serviceRegistrations.clear();
+	}
+
+	protected final List<ServiceRegistration<?>> serviceRegistrations =
+		new ArrayList<>();
+
+	private static final String _BENCHMARK = "petra.messaging.benchmark";
+
+	private static final Logger _logger = LoggerFactory.getLogger(
+		BenchmarkUtil.class);
+
+}
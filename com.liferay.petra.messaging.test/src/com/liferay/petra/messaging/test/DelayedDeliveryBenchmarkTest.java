@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.ScheduledMessageHandle;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Measures how late delayed messages are delivered and how many delayed
+ * messages the timing wheel can hold.
+ */
+public class DelayedDeliveryBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testDelayAccuracy() throws Exception {
+		registerDestinationConfiguration(
+			new DestinationConfiguration(
+				DestinationType.SYNCHRONOUS, _DESTINATION_NAME));
+
+		long[] latenesses = new long[_ACCURACY_MESSAGE_COUNT];
+
+		CountDownLatch countDownLatch = new CountDownLatch(
+			_ACCURACY_MESSAGE_COUNT);
+
+		registerMessageListener(
+			_DESTINATION_NAME,
+			message -> {
+				int index = message.getInteger("index");
+
+				latenesses[index] =
+					System.nanoTime() - message.getLong("dueTime");
+
+				countDownLatch.countDown();
+			});
+
+		Random random = new Random();
+
+		for (int i = 0; i < _ACCURACY_MESSAGE_COUNT; i++) {
+			long delay = random.nextInt(_MAX_DELAY_MILLIS);
+
+			Message message = new MessageImpl();
+
+			message.put("dueTime", System.nanoTime() + (delay * 1000000));
+			message.put("index", i);
+
+			messageBus.sendMessage(
+				_DESTINATION_NAME, message, delay, TimeUnit.MILLISECONDS);
+		}
+
+		Assert.assertTrue(countDownLatch.await(60, TimeUnit.SECONDS));
+
+		Arrays.sort(latenesses);
+
+		Assert.assertTrue(latenesses[0] >= 0);
+
+		report(
+			"delayed-delivery",
+			"%d messages: lateness p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+			_ACCURACY_MESSAGE_COUNT,
+			latenesses[_ACCURACY_MESSAGE_COUNT / 2] / 1e6,
+			latenesses[_ACCURACY_MESSAGE_COUNT * 99 / 100] / 1e6,
+			latenesses[_ACCURACY_MESSAGE_COUNT - 1] / 1e6);
+	}
+
+	@Test
+	public void testTimerCapacity() throws Exception {
+		registerDestinationConfiguration(
+			new DestinationConfiguration(
+				DestinationType.SYNCHRONOUS, _DESTINATION_NAME));
+
+		AtomicInteger deliveredCount = new AtomicInteger();
+
+		registerMessageListener(
+			_DESTINATION_NAME, message -> deliveredCount.incrementAndGet());
+
+		ScheduledMessageHandle[] scheduledMessageHandles =
+			new ScheduledMessageHandle[_CAPACITY_MESSAGE_COUNT];
+
+		Runtime runtime = Runtime.getRuntime();
+
+		System.gc();
+
+		long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < _CAPACITY_MESSAGE_COUNT; i++) {
+			scheduledMessageHandles[i] = messageBus.sendMessage(
+				_DESTINATION_NAME, new MessageImpl(), 1, TimeUnit.HOURS);
+		}
+
+		long scheduleNanos = System.nanoTime() - start;
+
+		System.gc();
+
+		long scheduledUsedMemory =
+			runtime.totalMemory() - runtime.freeMemory() - usedMemory;
+
+		start = System.nanoTime();
+
+		for (ScheduledMessageHandle scheduledMessageHandle :
+				scheduledMessageHandles) {
+
+			Assert.assertTrue(scheduledMessageHandle.cancel());
+		}
+
+		long cancelNanos = System.nanoTime() - start;
+
+		Assert.assertEquals(0, deliveredCount.get());
+
+		report(
+			"delayed-delivery",
+			"%d timers: schedule %.0f ns/op, cancel %.0f ns/op, %d bytes/timer",
+			_CAPACITY_MESSAGE_COUNT,
+			(double)scheduleNanos / _CAPACITY_MESSAGE_COUNT,
+			(double)cancelNanos / _CAPACITY_MESSAGE_COUNT,
+			scheduledUsedMemory / _CAPACITY_MESSAGE_COUNT);
+	}
+
+	private static final int _ACCURACY_MESSAGE_COUNT = 1000;
+
+	private static final int _CAPACITY_MESSAGE_COUNT = 1000000;
+
+	private static final String _DESTINATION_NAME = "benchmark/delayed";
+
+	private static final int _MAX_DELAY_MILLIS = 2000;
+
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.api.ScheduledMessageHandle;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.time.Instant;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that messages sent with a delay are delivered once they are due
+ * and that cancelled messages are never delivered.
+ */
+public class DelayedDeliveryTest extends TestUtil {
+
+	@Test
+	public void testBlockingSend() throws Exception {
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.SYNCHRONOUS, _DESTINATION_NAME));
+
+		CountDownLatch countDownLatch = new CountDownLatch(1);
+
+		RecordingMessageListener recordingMessageListener =
+			new RecordingMessageListener() {
+
+				@Override
+				public void receive(Message message) {
+					if ("blocking".equals(message.getPayload())) {
+						try {
+							countDownLatch.await(10, TimeUnit.SECONDS);
+						}
+						catch (InterruptedException ie) {
+							Thread currentThread = Thread.currentThread();
+
+							currentThread.interrupt();
+						}
+					}
+
+					super.receive(message);
+				}
+
+			};
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, recordingMessageListener,
+				"destination.name", _DESTINATION_NAME);
+
+		try {
+
+			// A synchronous destination runs its message listeners on the
+			// sending thread, which must not hold up other scheduled messages
+
+			messageBus.sendMessage(
+				_DESTINATION_NAME, _createMessage("blocking"), 100,
+				TimeUnit.MILLISECONDS);
+			messageBus.sendMessage(
+				_DESTINATION_NAME, _createMessage("delivered"), 200,
+				TimeUnit.MILLISECONDS);
+
+			Message message = recordingMessageListener.poll(
+				5, TimeUnit.SECONDS);
+
+			Assert.assertNotNull(message);
+			Assert.assertEquals("delivered", message.getPayload());
+		}
+		finally {
+			countDownLatch.countDown();
+
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.SYNCHRONOUS, _DESTINATION_NAME));
+
+		RecordingMessageListener recordingMessageListener =
+			new RecordingMessageListener();
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, recordingMessageListener,
+				"destination.name", _DESTINATION_NAME);
+
+		try {
+			ScheduledMessageHandle cancelledScheduledMessageHandle =
+				messageBus.sendMessage(
+					_DESTINATION_NAME, _createMessage("cancelled"), 200,
+					TimeUnit.MILLISECONDS);
+			ScheduledMessageHandle scheduledMessageHandle =
+				messageBus.sendMessage(
+					_DESTINATION_NAME, _createMessage("delivered"), 300,
+					TimeUnit.MILLISECONDS);
+
+			Assert.assertTrue(cancelledScheduledMessageHandle.cancel());
+			Assert.assertFalse(cancelledScheduledMessageHandle.cancel());
+			Assert.assertTrue(cancelledScheduledMessageHandle.isCancelled());
+
+			Message message = recordingMessageListener.poll(
+				5, TimeUnit.SECONDS);
+
+			Assert.assertNotNull(message);
+			Assert.assertEquals("delivered", message.getPayload());
+
+			// The synchronous destination runs the message listener before
+			// the send returns and the handle is marked delivered
+
+			long deadline = System.currentTimeMillis() + 5000;
+
+			while (!scheduledMessageHandle.isDelivered() &&
+				   (System.currentTimeMillis() < deadline)) {
+
+				Thread.sleep(10);
+			}
+
+			Assert.assertTrue(scheduledMessageHandle.isDelivered());
+			Assert.assertFalse(scheduledMessageHandle.cancel());
+
+			Assert.assertFalse(cancelledScheduledMessageHandle.isDelivered());
+			Assert.assertNull(
+				recordingMessageListener.poll(300, TimeUnit.MILLISECONDS));
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	@Test
+	public void testDelayedDelivery() throws Exception {
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.SERIAL, _DESTINATION_NAME));
+
+		RecordingMessageListener recordingMessageListener =
+			new RecordingMessageListener();
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, recordingMessageListener,
+				"destination.name", _DESTINATION_NAME);
+
+		try {
+			long start = System.currentTimeMillis();
+
+			messageBus.sendMessage(
+				_DESTINATION_NAME, _createMessage("absolute"),
+				Instant.ofEpochMilli(start + 400));
+
+			ScheduledMessageHandle scheduledMessageHandle =
+				messageBus.sendMessage(
+					_DESTINATION_NAME, _createMessage("relative"), 200,
+					TimeUnit.MILLISECONDS);
+
+			Assert.assertTrue(
+				scheduledMessageHandle.getDeliveryTime() >= (start + 200));
+			Assert.assertFalse(scheduledMessageHandle.isDelivered());
+
+			Message message = recordingMessageListener.poll(
+				5, TimeUnit.SECONDS);
+
+			Assert.assertNotNull(message);
+			Assert.assertEquals("relative", message.getPayload());
+			Assert.assertTrue(
+				(System.currentTimeMillis() - start) >= _MIN_DELAY_MILLIS);
+
+			message = recordingMessageListener.poll(5, TimeUnit.SECONDS);
+
+			Assert.assertNotNull(message);
+			Assert.assertEquals("absolute", message.getPayload());
+			Assert.assertTrue(
+				(System.currentTimeMillis() - start) >=
+					(_MIN_DELAY_MILLIS + 200));
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	private Message _createMessage(String payload) {
+		Message message = new MessageImpl();
+
+		message.setPayload(payload);
+
+		return message;
+	}
+
+	private static final String _DESTINATION_NAME = "test/delayed";
+
+	// Leave room for the coarser resolution of currentTimeMillis
+
+	private static final long _MIN_DELAY_MILLIS = 190;
+
+	private static class RecordingMessageListener implements MessageListener {
+
+		public Message poll(long timeout, TimeUnit timeUnit)
+			throws InterruptedException {
+
+			return _messages.poll(timeout, timeUnit);
+		}
+
+		@Override
+		public void receive(Message message) {
+			_messages.add(message);
+		}
+
+		private final BlockingQueue<Message> _messages =
+			new LinkedBlockingQueue<>();
+
+	}
+
+}
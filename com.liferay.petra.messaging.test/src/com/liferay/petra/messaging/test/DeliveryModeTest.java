@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DeliveryMode;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that competing-consumer delivery modes deliver each message to
+ * exactly one message listener.
+ */
+public class DeliveryModeTest extends TestUtil {
+
+	@Test
+	public void testLeastInFlight() throws Exception {
+		int[] counts = _send(DeliveryMode.LEAST_IN_FLIGHT, 0);
+
+		int total = 0;
+
+		for (int count : counts) {
+			total += count;
+		}
+
+		Assert.assertEquals(_MESSAGE_COUNT, total);
+	}
+
+	@Test
+	public void testRoundRobin() throws Exception {
+		int[] counts = _send(DeliveryMode.ROUND_ROBIN, 0);
+
+		for (int count : counts) {
+			Assert.assertEquals(_MESSAGE_COUNT / _LISTENER_COUNT, count);
+		}
+	}
+
+	@Test
+	public void testSticky() throws Exception {
+		int[] counts = _send(DeliveryMode.STICKY, 1);
+
+		int receivingListenerCount = 0;
+
+		for (int count : counts) {
+			if (count > 0) {
+				Assert.assertEquals(_MESSAGE_COUNT, count);
+
+				receivingListenerCount++;
+			}
+		}
+
+		Assert.assertEquals(1, receivingListenerCount);
+	}
+
+	private int[] _send(DeliveryMode deliveryMode, int keyCount)
+		throws Exception {
+
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.PARALLEL, _DESTINATION_NAME),
+				"deliveryKey", "key", "deliveryMode", deliveryMode.name());
+
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT);
+
+		List<CountingMessageListener> countingMessageListeners =
+			new ArrayList<>();
+		List<ServiceRegistration<MessageListener>>
+			messageListenerRegistrations = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < _LISTENER_COUNT; i++) {
+				CountingMessageListener countingMessageListener =
+					new CountingMessageListener(countDownLatch);
+
+				countingMessageListeners.add(countingMessageListener);
+
+				messageListenerRegistrations.add(
+					registerService(
+						MessageListener.class, countingMessageListener,
+						"destination.name", _DESTINATION_NAME));
+			}
+
+			for (int i = 0; i < _MESSAGE_COUNT; i++) {
+				Message message = new MessageImpl();
+
+				if (keyCount > 0) {
+					message.put("key", i % keyCount);
+				}
+
+				messageBus.sendMessage(_DESTINATION_NAME, message);
+			}
+
+			Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+
+			// Give any duplicate deliveries a chance to show up in the counts
+
+			Thread.sleep(100);
+
+			int[] counts = new int[_LISTENER_COUNT];
+
+			for (int i = 0; i < _LISTENER_COUNT; i++) {
+				CountingMessageListener countingMessageListener =
+					countingMessageListeners.get(i);
+
+				counts[i] = countingMessageListener.getCount();
+			}
+
+			return counts;
+		}
+		finally {
+			for (ServiceRegistration<MessageListener>
+					messageListenerRegistration :
+						messageListenerRegistrations) {
+
+				messageListenerRegistration.unregister();
+			}
+
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	private static final String _DESTINATION_NAME = "test/delivery/mode";
+
+	private static final int _LISTENER_COUNT = 3;
+
+	private static final int _MESSAGE_COUNT = 300;
+
+	private static class CountingMessageListener implements MessageListener {
+
+		public CountingMessageListener(CountDownLatch countDownLatch) {
+			_countDownLatch = countDownLatch;
+		}
+
+		public int getCount() {
+			return _count.get();
+		}
+
+		@Override
+		public void receive(Message message) {
+			_count.incrementAndGet();
+
+			_countDownLatch.countDown();
+		}
+
+		private final AtomicInteger _count = new AtomicInteger();
+		private final CountDownLatch _countDownLatch;
+
+	}
+
+}
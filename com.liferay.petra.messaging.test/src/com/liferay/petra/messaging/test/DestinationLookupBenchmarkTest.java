@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Measures the send latency of a synchronous destination while 10, 100 and
+ * 1,000 destinations are registered with the message bus.
+ */
+public class DestinationLookupBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testSendLatency() throws Exception {
+		for (int destinationCount : new int[] {10, 100, 1000}) {
+			testSendLatency(destinationCount);
+		}
+	}
+
+	protected void testSendLatency(int destinationCount) throws Exception {
+		for (int i = 1; i < destinationCount; i++) {
+			registerDestinationConfiguration(
+				new DestinationConfiguration(
+					DestinationType.SYNCHRONOUS, _DESTINATION_NAME + "/" + i));
+		}
+
+		registerDestinationConfiguration(
+			new DestinationConfiguration(
+				DestinationType.SYNCHRONOUS, _DESTINATION_NAME));
+
+		final AtomicLong counter = new AtomicLong();
+
+		registerMessageListener(
+			_DESTINATION_NAME,
+			new MessageListener() {
+
+				@Override
+				public void receive(Message message) {
+					counter.incrementAndGet();
+				}
+
+			});
+
+		final Message message = new MessageImpl();
+
+		double nanos = measure(
+			_WARM_UP_ITERATIONS, _ITERATIONS,
+			() -> messageBus.sendMessage(_DESTINATION_NAME, message));
+
+		Assert.assertEquals(
+			_WARM_UP_ITERATIONS + _ITERATIONS, counter.get());
+
+		report(
+			"destination-lookup", "%d destinations: %.1f ns/send",
+			destinationCount, nanos);
+
+		unregisterAll();
+	}
+
+	private static final String _DESTINATION_NAME = "benchmark/lookup";
+
+	private static final int _ITERATIONS = 100000;
+
+	private static final int _WARM_UP_ITERATIONS = 20000;
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of a durable destination for several log flush
+ * batch sizes.
+ */
+public class DurableDestinationBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testThroughput() throws Exception {
+		for (int logFlushBatchSize : new int[] {1, 10, 100, 1000}) {
+			Path logDirectory = Files.createTempDirectory("durable");
+
+			try {
+				_testThroughput(logDirectory, logFlushBatchSize);
+			}
+			finally {
+				unregisterAll();
+
+				_delete(logDirectory);
+			}
+		}
+	}
+
+	private void _delete(Path path) throws IOException {
+		try (Stream<Path> stream = Files.walk(path)) {
+			stream.sorted(
+				Comparator.reverseOrder()
+			).forEach(
+				curPath -> curPath.toFile().delete()
+			);
+		}
+	}
+
+	private void _testThroughput(Path logDirectory, int logFlushBatchSize)
+		throws Exception {
+
+		registerDestinationConfiguration(
+			new DestinationConfiguration(
+				DestinationType.DURABLE, _DESTINATION_NAME),
+			"logDirectory", logDirectory.toString(), "logFlushBatchSize",
+			logFlushBatchSize);
+
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT);
+
+		registerMessageListener(
+			_DESTINATION_NAME, message -> countDownLatch.countDown());
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < _MESSAGE_COUNT; i++) {
+			Message message = new MessageImpl();
+
+			message.put("index", i);
+			message.setPayload(_PAYLOAD);
+
+			messageBus.sendMessage(_DESTINATION_NAME, message);
+		}
+
+		long sendNanos = System.nanoTime() - start;
+
+		Assert.assertTrue(countDownLatch.await(120, TimeUnit.SECONDS));
+
+		long deliverNanos = System.nanoTime() - start;
+
+		report(
+			"durable",
+			"flush batch size %d: send %.0f msgs/s, deliver %.0f msgs/s",
+			logFlushBatchSize, _MESSAGE_COUNT * 1e9 / sendNanos,
+			_MESSAGE_COUNT * 1e9 / deliverNanos);
+	}
+
+	private static final String _DESTINATION_NAME = "benchmark/durable";
+
+	private static final int _MESSAGE_COUNT = 2000;
+
+	private static final String _PAYLOAD = "0123456789abcdef0123456789abcdef";
+
+}
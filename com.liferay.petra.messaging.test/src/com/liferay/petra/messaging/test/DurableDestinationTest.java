@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.spi.DurableDestination;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that the messages a durable destination did not deliver before
+ * going down are delivered when it is opened again, and that the messages its
+ * rejection policy discards do not hold back the log.
+ */
+public class DurableDestinationTest extends TestUtil {
+
+	@Test
+	public void testReplay() throws Exception {
+		Path logDirectory = Files.createTempDirectory("durable");
+
+		try {
+			DurableDestination durableDestination = _createDurableDestination(
+				logDirectory);
+
+			CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+			List<Object> payloads = new CopyOnWriteArrayList<>();
+
+			durableDestination.addMessageListener(
+				message -> {
+					payloads.add(message.getPayload());
+
+					try {
+						blockingCountDownLatch.await(60, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException ie) {
+						Thread currentThread = Thread.currentThread();
+
+						currentThread.interrupt();
+					}
+				},
+				_createProperties());
+
+			for (int i = 0; i < 10; i++) {
+				Message message = new MessageImpl();
+
+				message.setPayload(i);
+
+				durableDestination.send(message);
+			}
+
+			long deadline = System.currentTimeMillis() + 10000;
+
+			while (payloads.isEmpty() &&
+				   (System.currentTimeMillis() < deadline)) {
+
+				Thread.sleep(10);
+			}
+
+			Assert.assertEquals(10, durableDestination.getLogOffset());
+
+			// Closing with force drops the queued messages and leaves the
+			// message being delivered unacknowledged, like a crash
+
+			durableDestination.close(true);
+
+			Assert.assertEquals(payloads.toString(), 1, payloads.size());
+			Assert.assertEquals(0, durableDestination.getAcknowledgedOffset());
+
+			durableDestination = _createDurableDestination(logDirectory);
+
+			Assert.assertEquals(0, durableDestination.getAcknowledgedOffset());
+
+			CountDownLatch countDownLatch = new CountDownLatch(11);
+			List<Object> replayedPayloads = new CopyOnWriteArrayList<>();
+
+			durableDestination.addMessageListener(
+				message -> {
+					replayedPayloads.add(message.getPayload());
+
+					countDownLatch.countDown();
+				},
+				_createProperties());
+
+			Message message = new MessageImpl();
+
+			message.setPayload(10);
+
+			durableDestination.send(message);
+
+			Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+
+			for (int i = 0; i < 11; i++) {
+				Assert.assertEquals(i, replayedPayloads.get(i));
+			}
+
+			durableDestination.close();
+		}
+		finally {
+			_delete(logDirectory);
+		}
+	}
+
+	@Test
+	public void testSkipRejectedMessages() throws Exception {
+		Path logDirectory = Files.createTempDirectory("durable");
+
+		try {
+			DurableDestination durableDestination = new DurableDestination();
+
+			durableDestination.setLogDirectory(logDirectory.toString());
+			durableDestination.setMaximumQueueSize(2);
+			durableDestination.setName(_DESTINATION_NAME);
+
+			durableDestination.afterPropertiesSet();
+
+			durableDestination.open();
+
+			CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+			List<Object> payloads = new CopyOnWriteArrayList<>();
+
+			durableDestination.addMessageListener(
+				message -> {
+					try {
+						blockingCountDownLatch.await(60, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException ie) {
+						Thread currentThread = Thread.currentThread();
+
+						currentThread.interrupt();
+					}
+
+					payloads.add(message.getPayload());
+				},
+				_createProperties());
+
+			for (int i = 0; i < 10; i++) {
+				Message message = new MessageImpl();
+
+				message.setPayload(i);
+
+				durableDestination.send(message);
+
+				if (i == 0) {
+
+					// Let the worker take the first message off the queue
+
+					Thread.sleep(100);
+				}
+			}
+
+			Assert.assertEquals(7, durableDestination.getSkippedMessageCount());
+
+			blockingCountDownLatch.countDown();
+
+			long deadline = System.currentTimeMillis() + 10000;
+
+			while ((durableDestination.getAcknowledgedOffset() < 10) &&
+				   (System.currentTimeMillis() < deadline)) {
+
+				Thread.sleep(10);
+			}
+
+			// The skipped messages do not keep the log from moving past the
+			// delivered ones
+
+			Assert.assertEquals(
+				10, durableDestination.getAcknowledgedOffset());
+			Assert.assertEquals(Arrays.asList(0, 1, 2), payloads);
+
+			durableDestination.close();
+		}
+		finally {
+			_delete(logDirectory);
+		}
+	}
+
+	private DurableDestination _createDurableDestination(Path logDirectory) {
+		DurableDestination durableDestination = new DurableDestination();
+
+		durableDestination.setLogDirectory(logDirectory.toString());
+		durableDestination.setName(_DESTINATION_NAME);
+
+		durableDestination.afterPropertiesSet();
+
+		durableDestination.open();
+
+		return durableDestination;
+	}
+
+	private Map<String, Object> _createProperties() {
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("service.id", _serviceId++);
+		properties.put("service.ranking", 0);
+
+		return properties;
+	}
+
+	private void _delete(Path path) throws IOException {
+		try (Stream<Path> stream = Files.walk(path)) {
+			stream.sorted(
+				Comparator.reverseOrder()
+			).forEach(
+				curPath -> curPath.toFile().delete()
+			);
+		}
+	}
+
+	private static final String _DESTINATION_NAME = "test/durable";
+
+	private long _serviceId;
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.FanOutStrategy;
+import com.liferay.petra.messaging.api.InboundMessageProcessor;
+import com.liferay.petra.messaging.api.InboundMessageProcessorFactory;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.spi.MessageImpl;
+import com.liferay.petra.messaging.spi.ParallelDestination;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the throughput of a parallel destination with many cheap message
+ * listeners for each fan out strategy, and counts the inbound message
+ * processor calls each strategy makes.
+ */
+public class FanOutBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testFanOutStrategies() throws Exception {
+		for (FanOutStrategy fanOutStrategy : FanOutStrategy.values()) {
+			_deliver(fanOutStrategy);
+
+			unregisterAll();
+		}
+	}
+
+	private void _deliver(FanOutStrategy fanOutStrategy) throws Exception {
+		registerDestinationConfiguration(
+			new DestinationConfiguration(
+				DestinationType.PARALLEL, _DESTINATION_NAME),
+			"fanOutStrategy", fanOutStrategy.name());
+
+		LongAdder processorCalls = new LongAdder();
+
+		InboundMessageProcessor inboundMessageProcessor =
+			new InboundMessageProcessor() {
+
+				@Override
+				public void afterReceive(Message message) {
+				}
+
+				@Override
+				public void afterThread(
+					Message message, Thread dispatchThread) {
+				}
+
+				@Override
+				public Message beforeReceive(Message message) {
+					return message;
+				}
+
+				@Override
+				public Message beforeThread(
+					Message message, Thread dispatchThread) {
+
+					processorCalls.increment();
+
+					return message;
+				}
+
+			};
+
+		InboundMessageProcessorFactory inboundMessageProcessorFactory =
+			() -> inboundMessageProcessor;
+
+		serviceRegistrations.add(
+			registerService(
+				InboundMessageProcessorFactory.class,
+				inboundMessageProcessorFactory, "destination.name",
+				_DESTINATION_NAME, InboundMessageProcessorFactory.SHAREABLE,
+				true));
+
+		CountDownLatch countDownLatch = new CountDownLatch(
+			_LISTENER_COUNT * _MESSAGE_COUNT);
+
+		for (int i = 0; i < _LISTENER_COUNT; i++) {
+			registerMessageListener(
+				_DESTINATION_NAME, message -> countDownLatch.countDown());
+		}
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < _MESSAGE_COUNT; i++) {
+			messageBus.sendMessage(_DESTINATION_NAME, new MessageImpl());
+		}
+
+		Assert.assertTrue(countDownLatch.await(60, TimeUnit.SECONDS));
+
+		long nanos = System.nanoTime() - start;
+
+		ParallelDestination parallelDestination =
+			(ParallelDestination)messageBus.getDestination(_DESTINATION_NAME);
+
+		report(
+			"fan out",
+			"%s, %d listeners: %.0f msgs/s, %.1f processor calls/msg, " +
+				"%.0f ns/listener",
+			fanOutStrategy.getStrategy(), _LISTENER_COUNT,
+			_MESSAGE_COUNT * 1e9 / nanos,
+			(double)processorCalls.sum() / _MESSAGE_COUNT,
+			(double)parallelDestination.getAverageListenerTime());
+	}
+
+	private static final String _DESTINATION_NAME = "benchmark/fan_out";
+
+	private static final int _LISTENER_COUNT = 50;
+
+	private static final int _MESSAGE_COUNT = 10000;
+
+}
@@ -14,17 +14,23 @@
 
 package com.liferay.petra.messaging.test;
 
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
 import com.liferay.petra.messaging.api.InboundMessageProcessor;
 import com.liferay.petra.messaging.api.InboundMessageProcessorFactory;
 import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
 import com.liferay.petra.messaging.api.MessageProcessorException;
 import com.liferay.petra.messaging.spi.MessageImpl;
 import com.liferay.petra.messaging.test.tb1.TBSynchronousDestination;
 import com.liferay.petra.messaging.test.tb2.TBParallelDestination;
 import com.liferay.petra.messaging.test.tb3.TBSerialDestination;
 
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -49,6 +55,64 @@ public class InboundMessageProcessorFactoryTest extends TestUtil {
 		test("tb3.jar", TBSerialDestination.DESTINATION_NAME);
 	}
 
+	@Test
+	public void testShareable() throws Exception {
+		String destinationName = "test/shareable_inbound_message_processor";
+
+		List<ServiceRegistration<?>> serviceRegistrations = new ArrayList<>();
+
+		AtomicInteger receivedCount = new AtomicInteger();
+		AtomicInteger sharedCreateCount = new AtomicInteger();
+		AtomicInteger unsharedCreateCount = new AtomicInteger();
+
+		try {
+			serviceRegistrations.add(
+				registerService(
+					DestinationConfiguration.class,
+					new DestinationConfiguration(
+						DestinationType.SYNCHRONOUS, destinationName)));
+			serviceRegistrations.add(
+				registerService(
+					MessageListener.class,
+					message -> receivedCount.incrementAndGet(),
+					"destination.name", destinationName));
+			serviceRegistrations.add(
+				registerService(
+					InboundMessageProcessorFactory.class,
+					() -> {
+						sharedCreateCount.incrementAndGet();
+
+						return new TestInboundMessageProcessor();
+					},
+					"destination.name", destinationName,
+					InboundMessageProcessorFactory.SHAREABLE, true));
+			serviceRegistrations.add(
+				registerService(
+					InboundMessageProcessorFactory.class,
+					() -> {
+						unsharedCreateCount.incrementAndGet();
+
+						return new TestInboundMessageProcessor();
+					},
+					"destination.name", destinationName));
+
+			for (int i = 0; i < 10; i++) {
+				messageBus.sendMessage(destinationName, new MessageImpl());
+			}
+
+			Assert.assertEquals(10, receivedCount.get());
+			Assert.assertEquals(1, sharedCreateCount.get());
+			Assert.assertEquals(10, unsharedCreateCount.get());
+		}
+		finally {
+			for (ServiceRegistration<?> serviceRegistration :
+					serviceRegistrations) {
+
+				serviceRegistration.unregister();
+			}
+		}
+	}
+
 	@Test
 	public void testSynchronous() throws Exception {
 		test("tb1.jar", TBSynchronousDestination.DESTINATION_NAME);
@@ -168,4 +232,27 @@ public class InboundMessageProcessorFactoryTest extends TestUtil {
 		}
 	}
 
-}
\ No newline at end of file
+	private static class TestInboundMessageProcessor
+		implements InboundMessageProcessor {
+
+		@Override
+		public void afterReceive(Message message) {
+		}
+
+		@Override
+		public void afterThread(Message message, Thread dispatchThread) {
+		}
+
+		@Override
+		public Message beforeReceive(Message message) {
+			return message;
+		}
+
+		@Override
+		public Message beforeThread(Message message, Thread dispatchThread) {
+			return message;
+		}
+
+	}
+
+}
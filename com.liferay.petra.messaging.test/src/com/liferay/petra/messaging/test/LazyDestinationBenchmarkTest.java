@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the startup time and the number of worker threads of many eagerly
+ * started destinations with those of lazily started destinations whose idle
+ * workers time out.
+ */
+public class LazyDestinationBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testStartupThreadCounts() throws Exception {
+		_start(false);
+
+		unregisterAll();
+
+		_start(true);
+	}
+
+	private int _countThreads() {
+		int count = 0;
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			String name = thread.getName();
+
+			if (thread.isAlive() && name.startsWith(_DESTINATION_NAME)) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private String _getDestinationName(int i) {
+		return _DESTINATION_NAME + i;
+	}
+
+	/**
+	 * Reports the number of worker threads after startup, after each
+	 * destination delivered a message and after the workers were idle for
+	 * longer than their timeout.
+	 */
+	private void _start(boolean lazy) throws Exception {
+		long start = System.nanoTime();
+
+		for (int i = 0; i < _DESTINATION_COUNT; i++) {
+			registerDestinationConfiguration(
+				new DestinationConfiguration(
+					DestinationType.PARALLEL, _getDestinationName(i)),
+				"workerIdleTimeout", _WORKERS_IDLE_TIMEOUT, "workerLazy",
+				lazy);
+		}
+
+		long startupNanos = System.nanoTime() - start;
+
+		int startupThreadCount = _countThreads();
+
+		CountDownLatch countDownLatch = new CountDownLatch(_DESTINATION_COUNT);
+
+		for (int i = 0; i < _DESTINATION_COUNT; i++) {
+			registerMessageListener(
+				_getDestinationName(i), message -> countDownLatch.countDown());
+		}
+
+		for (int i = 0; i < _DESTINATION_COUNT; i++) {
+			messageBus.sendMessage(_getDestinationName(i), new MessageImpl());
+		}
+
+		Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+
+		int busyThreadCount = _countThreads();
+
+		Thread.sleep(_WORKERS_IDLE_TIMEOUT * 5);
+
+		int idleThreadCount = _countThreads();
+
+		report(
+			"lazy destinations",
+			"%s, %d destinations: started in %.1f ms, %d threads after " +
+				"startup, %d after one message each, %d when idle",
+			lazy ? "lazy" : "eager", _DESTINATION_COUNT, startupNanos / 1e6,
+			startupThreadCount, busyThreadCount, idleThreadCount);
+	}
+
+	private static final int _DESTINATION_COUNT = 100;
+
+	private static final String _DESTINATION_NAME = "benchmark/lazy_";
+
+	private static final long _WORKERS_IDLE_TIMEOUT = 100;
+
+}
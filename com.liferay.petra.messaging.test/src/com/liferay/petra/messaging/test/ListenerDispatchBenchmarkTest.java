@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Measures the time and the heap allocated per message when a synchronous
+ * destination dispatches to 1, 10 and 100 message listeners.
+ */
+public class ListenerDispatchBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testDispatch() throws Exception {
+		for (int listenerCount : new int[] {1, 10, 100}) {
+			testDispatch(listenerCount);
+		}
+	}
+
+	protected void testDispatch(int listenerCount) throws Exception {
+		registerDestinationConfiguration(
+			new DestinationConfiguration(
+				DestinationType.SYNCHRONOUS, _DESTINATION_NAME));
+
+		final AtomicLong counter = new AtomicLong();
+
+		for (int i = 0; i < listenerCount; i++) {
+			registerMessageListener(
+				_DESTINATION_NAME, message -> counter.incrementAndGet());
+		}
+
+		final Message message = new MessageImpl();
+
+		Runnable runnable = () -> messageBus.sendMessage(
+			_DESTINATION_NAME, message);
+
+		double nanos = measure(_WARM_UP_ITERATIONS, _ITERATIONS, runnable);
+
+		long allocatedBytes = _getAllocatedBytes();
+
+		measure(0, _ITERATIONS, runnable);
+
+		allocatedBytes = _getAllocatedBytes() - allocatedBytes;
+
+		Assert.assertEquals(
+			(long)(_WARM_UP_ITERATIONS + 2 * _ITERATIONS) * listenerCount,
+			counter.get());
+
+		report(
+			"listener-dispatch", "%d listeners: %.1f ns/send, %.1f bytes/send",
+			listenerCount, nanos, (double)allocatedBytes / _ITERATIONS);
+
+		unregisterAll();
+	}
+
+	/**
+	 * Returns the number of bytes the current thread allocated so far. The
+	 * platform MBean is used to avoid depending on the com.sun.management
+	 * package.
+	 */
+	private long _getAllocatedBytes() throws Exception {
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		Thread currentThread = Thread.currentThread();
+
+		return (long)mBeanServer.invoke(
+			new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME),
+			"getThreadAllocatedBytes", new Object[] {currentThread.getId()},
+			new String[] {long.class.getName()});
+	}
+
+	private static final String _DESTINATION_NAME = "benchmark/dispatch";
+
+	private static final int _ITERATIONS = 100000;
+
+	private static final int _WARM_UP_ITERATIONS = 20000;
+
+}
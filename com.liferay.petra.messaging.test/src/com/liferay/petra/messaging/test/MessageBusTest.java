@@ -15,8 +15,12 @@
 package com.liferay.petra.messaging.test;
 
 import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationHandle;
 import com.liferay.petra.messaging.api.DestinationNames;
+import com.liferay.petra.messaging.api.DestinationType;
 import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
 import com.liferay.petra.messaging.spi.MessageImpl;
 import com.liferay.petra.messaging.test.tb3.TBSerialDestination;
 import com.liferay.petra.messaging.test.tb1.TBSynchronousDestination;
@@ -24,13 +28,17 @@ import com.liferay.petra.messaging.test.tb2.TBParallelDestination;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.Filter;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.util.tracker.ServiceTracker;
 
 /**
@@ -38,10 +46,65 @@ import org.osgi.util.tracker.ServiceTracker;
  */
 public class MessageBusTest extends TestUtil {
 
+	@Test
+	public void testManyDestinations() throws Exception {
+		int initialDestinationCount = messageBus.getDestinationCount();
+
+		List<ServiceRegistration<?>> serviceRegistrations = new ArrayList<>();
+
+		AtomicInteger receivedCount = new AtomicInteger();
+
+		try {
+			for (int i = 0; i < 1000; i++) {
+				serviceRegistrations.add(
+					registerService(
+						DestinationConfiguration.class,
+						new DestinationConfiguration(
+							DestinationType.SYNCHRONOUS,
+							"test/many_destinations/" + i)));
+			}
+
+			Assert.assertEquals(
+				initialDestinationCount + 1000,
+				messageBus.getDestinationCount());
+
+			serviceRegistrations.add(
+				registerService(
+					MessageListener.class,
+					message -> receivedCount.incrementAndGet(),
+					"destination.name", "test/many_destinations/500"));
+
+			Assert.assertTrue(
+				messageBus.hasMessageListener("test/many_destinations/500"));
+			Assert.assertFalse(
+				messageBus.hasMessageListener("test/many_destinations/501"));
+
+			messageBus.sendMessage(
+				"test/many_destinations/500", new MessageImpl());
+
+			Assert.assertEquals(1, receivedCount.get());
+		}
+		finally {
+			Collections.reverse(serviceRegistrations);
+
+			for (ServiceRegistration<?> serviceRegistration :
+					serviceRegistrations) {
+
+				serviceRegistration.unregister();
+			}
+		}
+
+		Assert.assertEquals(
+			initialDestinationCount, messageBus.getDestinationCount());
+		Assert.assertFalse(
+			messageBus.hasDestination("test/many_destinations/500"));
+	}
+
 	@Test
 	public void testParallel() throws Exception {
 		testDestinations("tb2.jar", TBParallelDestination.DESTINATION_NAME);
 		testSendMessage("tb2.jar", TBParallelDestination.DESTINATION_NAME);
+		testResolve("tb2.jar", TBParallelDestination.DESTINATION_NAME);
 		testSendSynchronousMessage("tb10.jar", "builder/tb10");
 		testSendSynchronousMessage2("tb10.jar", "builder/tb10");
 		testSendSynchronousMessage3("tb10.jar", "builder/tb10");
@@ -54,6 +117,7 @@ public class MessageBusTest extends TestUtil {
 	public void testSerial() throws Exception {
 		testDestinations("tb3.jar", TBSerialDestination.DESTINATION_NAME);
 		testSendMessage("tb3.jar", TBSerialDestination.DESTINATION_NAME);
+		testResolve("tb3.jar", TBSerialDestination.DESTINATION_NAME);
 		testSendSynchronousMessage("tb11.jar", "builder/tb11");
 		testSendSynchronousMessage2("tb11.jar", "builder/tb11");
 		testSendSynchronousMessage3("tb11.jar", "builder/tb11");
@@ -66,6 +130,7 @@ public class MessageBusTest extends TestUtil {
 	public void testSynchronous() throws Exception {
 		testDestinations("tb1.jar", TBSynchronousDestination.DESTINATION_NAME);
 		testSendMessage("tb1.jar", TBSynchronousDestination.DESTINATION_NAME);
+		testResolve("tb1.jar", TBSynchronousDestination.DESTINATION_NAME);
 		testSendSynchronousMessage("tb12.jar", "builder/tb12");
 		testSendSynchronousMessage2("tb12.jar", "builder/tb12");
 		testSendSynchronousMessage3("tb12.jar", "builder/tb12");
@@ -111,6 +176,57 @@ public class MessageBusTest extends TestUtil {
 		}
 	}
 
+	protected void testResolve(String bundle, String destinationName)
+		throws Exception {
+
+		DestinationHandle destinationHandle = messageBus.resolve(
+			destinationName);
+
+		Assert.assertEquals(
+			destinationName, destinationHandle.getDestinationName());
+		Assert.assertFalse(destinationHandle.isAvailable());
+
+		Bundle tb = install(bundle);
+
+		try {
+			tb.start();
+
+			Assert.assertTrue(destinationHandle.isAvailable());
+			Assert.assertSame(
+				destinationHandle, messageBus.resolve(destinationName));
+
+			Filter filter = bundleContext.createFilter(
+				String.format(
+					"(&(objectClass=java.util.concurrent.Callable)" +
+						"(destination.name=%s))",
+					destinationName));
+
+			ServiceTracker<Callable<Message>, Callable<Message>> callableST =
+				new ServiceTracker<>(bundleContext, filter, null);
+
+			callableST.open();
+
+			Callable<Message> callable = callableST.waitForService(timeout);
+
+			Assert.assertNotNull(callable);
+
+			Message message = new MessageImpl();
+
+			message.setPayload("payload");
+
+			destinationHandle.send(message);
+
+			Message receivedMessage = callable.call();
+
+			Assert.assertEquals(message, receivedMessage);
+		}
+		finally {
+			tb.uninstall();
+		}
+
+		Assert.assertFalse(destinationHandle.isAvailable());
+	}
+
 	protected void testSendMessage(String bundle, String destinationName)
 		throws Exception {
 
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.MessageBuilder;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.api.MessageMerger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that asynchronous destinations with a coalesce key deliver at most
+ * one pending message per key value.
+ */
+public class MessageCoalescingTest extends TestUtil {
+
+	@Test
+	public void testMerge() throws Exception {
+		MessageMerger messageMerger = (pendingMessage, message) -> {
+			pendingMessage.setPayload(
+				(Integer)pendingMessage.getPayload() +
+					(Integer)message.getPayload());
+
+			return pendingMessage;
+		};
+
+		ServiceRegistration<MessageMerger> messageMergerRegistration =
+			registerService(
+				MessageMerger.class, messageMerger, "destination.name",
+				_DESTINATION_NAME);
+
+		try {
+			Map<Object, Object> payloads = _testCoalescing(
+				DestinationType.SERIAL);
+
+			int count = _MESSAGE_COUNT / _KEY_COUNT;
+
+			for (int i = 0; i < _KEY_COUNT; i++) {
+				Assert.assertEquals(
+					count * (count + 1) / 2, payloads.get("key" + i));
+			}
+		}
+		finally {
+			messageMergerRegistration.unregister();
+		}
+	}
+
+	@Test
+	public void testMergeOtherDestination() throws Exception {
+		MessageMerger messageMerger = (pendingMessage, message) -> {
+			throw new IllegalStateException();
+		};
+
+		// A message merger of another destination is never bound, even with
+		// a higher service ranking
+
+		ServiceRegistration<MessageMerger> messageMergerRegistration =
+			registerService(
+				MessageMerger.class, messageMerger, "destination.name",
+				"test/other", "service.ranking", 100);
+
+		try {
+			_testReplace(DestinationType.SERIAL);
+		}
+		finally {
+			messageMergerRegistration.unregister();
+		}
+	}
+
+	@Test
+	public void testParallelReplace() throws Exception {
+		_testReplace(DestinationType.PARALLEL);
+	}
+
+	@Test
+	public void testSerialReplace() throws Exception {
+		_testReplace(DestinationType.SERIAL);
+	}
+
+	private Map<Object, Object> _testCoalescing(
+			DestinationType destinationType)
+		throws Exception {
+
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					destinationType, _DESTINATION_NAME),
+				"coalesceKey", "key", "workerCoreSize", 1, "workerMaxSize",
+				1);
+
+		CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+		List<Object> keys = new CopyOnWriteArrayList<>();
+		Map<Object, Object> payloads = new ConcurrentHashMap<>();
+
+		MessageListener messageListener = message -> {
+			try {
+				blockingCountDownLatch.await();
+			}
+			catch (InterruptedException ie) {
+				Thread currentThread = Thread.currentThread();
+
+				currentThread.interrupt();
+			}
+
+			Object key = message.get("key");
+
+			if (key != null) {
+				keys.add(key);
+				payloads.put(key, message.getPayload());
+			}
+		};
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, messageListener, "destination.name",
+				_DESTINATION_NAME);
+
+		try {
+
+			// The first message has no coalesce key value and occupies the
+			// only worker while the others coalesce in the queue
+
+			MessageBuilder messageBuilder = messageBuilderFactory.create(
+				_DESTINATION_NAME);
+
+			messageBuilder.setPayload("blocking");
+
+			messageBuilder.send();
+
+			Thread.sleep(100);
+
+			for (int i = 1; i <= _MESSAGE_COUNT / _KEY_COUNT; i++) {
+				for (int j = 0; j < _KEY_COUNT; j++) {
+					messageBuilder = messageBuilderFactory.create(
+						_DESTINATION_NAME);
+
+					messageBuilder.put("key", "key" + j);
+					messageBuilder.setPayload(i);
+
+					messageBuilder.send();
+				}
+			}
+
+			blockingCountDownLatch.countDown();
+
+			long deadline = System.currentTimeMillis() + 10000;
+
+			while ((keys.size() < _KEY_COUNT) &&
+				   (System.currentTimeMillis() < deadline)) {
+
+				Thread.sleep(10);
+			}
+
+			Thread.sleep(100);
+
+			Assert.assertEquals(keys.toString(), _KEY_COUNT, keys.size());
+
+			Destination destination = messageBus.getDestination(
+				_DESTINATION_NAME);
+
+			DestinationStatistics destinationStatistics =
+				destination.getDestinationStatistics();
+
+			Assert.assertEquals(
+				_MESSAGE_COUNT - _KEY_COUNT,
+				destinationStatistics.getCoalescedMessageCount());
+
+			return payloads;
+		}
+		finally {
+			blockingCountDownLatch.countDown();
+
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	private void _testReplace(DestinationType destinationType)
+		throws Exception {
+
+		Map<Object, Object> payloads = _testCoalescing(destinationType);
+
+		for (int i = 0; i < _KEY_COUNT; i++) {
+			Assert.assertEquals(
+				_MESSAGE_COUNT / _KEY_COUNT, payloads.get("key" + i));
+		}
+	}
+
+	private static final String _DESTINATION_NAME = "test/coalescing";
+
+	private static final int _KEY_COUNT = 4;
+
+	private static final int _MESSAGE_COUNT = 100;
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.spi.MessageLog;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that out of order acknowledgements only move the acknowledged
+ * offset of a message log past contiguous acknowledged messages.
+ */
+public class MessageLogTest extends TestUtil {
+
+	@Test
+	public void testAcknowledgeOutOfOrder() throws Exception {
+		Path directory = Files.createTempDirectory("message-log-test");
+
+		MessageLog messageLog = new MessageLog(directory, 4096, 1);
+
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals(i, messageLog.append(new byte[] {(byte)i}));
+		}
+
+		messageLog.acknowledge(2);
+		messageLog.acknowledge(3);
+
+		Assert.assertEquals(0, messageLog.getAcknowledgedOffset());
+
+		messageLog.acknowledge(0);
+
+		Assert.assertEquals(1, messageLog.getAcknowledgedOffset());
+
+		messageLog.close();
+
+		// The unacknowledged message and the ones after it are replayed
+
+		messageLog = new MessageLog(directory, 4096, 1);
+
+		List<Long> offsets = new ArrayList<>();
+
+		messageLog.replay((bytes, offset) -> offsets.add(offset));
+
+		Assert.assertEquals(offsets.toString(), 3, offsets.size());
+		Assert.assertEquals(Long.valueOf(1), offsets.get(0));
+
+		for (long offset : offsets) {
+			messageLog.acknowledge(offset);
+		}
+
+		Assert.assertEquals(4, messageLog.getAcknowledgedOffset());
+
+		messageLog.close();
+	}
+
+}
@@ -78,6 +78,33 @@ public class MessageTest extends TestUtil {
 		Assert.assertFalse(containsDEF);
 	}
 
+	@Test
+	public void testCorrelationId() {
+		Message message = new MessageImpl();
+
+		Assert.assertEquals(0, message.getCorrelationId());
+
+		message.setCorrelationId(0x1234abcdL);
+
+		Assert.assertEquals(0x1234abcdL, message.getCorrelationId());
+		Assert.assertEquals("1234abcd", message.getResponseId());
+
+		Message responseMessage = new MessageImpl();
+
+		responseMessage.setResponseId(message.getResponseId());
+
+		Assert.assertEquals(0x1234abcdL, responseMessage.getCorrelationId());
+
+		responseMessage.setResponseId("01234abcd");
+
+		Assert.assertEquals(0, responseMessage.getCorrelationId());
+
+		responseMessage.setResponseId("responseId");
+
+		Assert.assertEquals(0, responseMessage.getCorrelationId());
+		Assert.assertEquals("responseId", responseMessage.getResponseId());
+	}
+
 	@Test
 	public void testCopy() {
 		MessageImpl message = new MessageImpl();
@@ -92,6 +119,7 @@ public class MessageTest extends TestUtil {
 		message.setPayload(payload);
 		message.setResponse(response);
 		message.setResponseDestinationName(responseDestinationName);
+		message.setExpirationTime(1234L);
 		message.setResponseId(responseId);
 
 		message.put("abc", "123");
@@ -108,6 +136,7 @@ public class MessageTest extends TestUtil {
 		copiedFromMessage.copyFrom(message);
 
 		Assert.assertEquals(message, copiedFromMessage);
+		Assert.assertEquals(1234L, copiedFromMessage.getExpirationTime());
 
 		MessageImpl copiedToMessage = new MessageImpl();
 
@@ -120,6 +149,7 @@ public class MessageTest extends TestUtil {
 		message.copyTo(copiedToMessage);
 
 		Assert.assertEquals(message, copiedToMessage);
+		Assert.assertEquals(1234L, copiedToMessage.getExpirationTime());
 	}
 
 	@Test
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageBuilder;
+import com.liferay.petra.messaging.api.MessageListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that asynchronous destinations discard messages whose time to live
+ * elapses while they wait in the queue.
+ */
+public class MessageTimeToLiveTest extends TestUtil {
+
+	@Test
+	public void testParallelExpiry() throws Exception {
+		_testExpiry(DestinationType.PARALLEL);
+	}
+
+	@Test
+	public void testSerialExpiry() throws Exception {
+		_testExpiry(DestinationType.SERIAL);
+	}
+
+	private void _testExpiry(DestinationType destinationType)
+		throws Exception {
+
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					destinationType, _DESTINATION_NAME),
+				"workerCoreSize", 1, "workerMaxSize", 1);
+
+		CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+		List<Object> payloads = new CopyOnWriteArrayList<>();
+
+		MessageListener messageListener = message -> {
+			try {
+				blockingCountDownLatch.await();
+			}
+			catch (InterruptedException ie) {
+				Thread currentThread = Thread.currentThread();
+
+				currentThread.interrupt();
+			}
+
+			payloads.add(message.getPayload());
+		};
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, messageListener, "destination.name",
+				_DESTINATION_NAME);
+
+		try {
+
+			// The first message occupies the only worker while the others
+			// expire in the queue
+
+			MessageBuilder messageBuilder = messageBuilderFactory.create(
+				_DESTINATION_NAME);
+
+			messageBuilder.setPayload("blocking");
+
+			messageBuilder.send();
+
+			for (int i = 0; i < _EXPIRED_MESSAGE_COUNT; i++) {
+				messageBuilder = messageBuilderFactory.create(
+					_DESTINATION_NAME);
+
+				messageBuilder.setPayload("expired");
+				messageBuilder.setTimeToLive(50);
+
+				messageBuilder.send();
+			}
+
+			messageBuilder = messageBuilderFactory.create(_DESTINATION_NAME);
+
+			messageBuilder.setPayload("live");
+			messageBuilder.setTimeToLive(TimeUnit.MINUTES.toMillis(1));
+
+			Message liveMessage = messageBuilder.build();
+
+			Assert.assertTrue(liveMessage.getExpirationTime() > 0);
+
+			messageBuilder.send();
+
+			Thread.sleep(200);
+
+			blockingCountDownLatch.countDown();
+
+			Destination destination = messageBus.getDestination(
+				_DESTINATION_NAME);
+
+			long deadline = System.currentTimeMillis() + 10000;
+
+			while ((payloads.size() < 2) &&
+				   (System.currentTimeMillis() < deadline)) {
+
+				Thread.sleep(10);
+			}
+
+			Assert.assertEquals(2, payloads.size());
+			Assert.assertEquals("blocking", payloads.get(0));
+			Assert.assertEquals("live", payloads.get(1));
+
+			DestinationStatistics destinationStatistics =
+				destination.getDestinationStatistics();
+
+			Assert.assertEquals(
+				_EXPIRED_MESSAGE_COUNT,
+				destinationStatistics.getExpiredMessageCount());
+		}
+		finally {
+			blockingCountDownLatch.countDown();
+
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	private static final String _DESTINATION_NAME = "test/ttl";
+
+	private static final int _EXPIRED_MESSAGE_COUNT = 10;
+
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.spi.MessageImpl;
+import com.liferay.petra.messaging.spi.MessageValueMap;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the heap footprint and the get / put time of message values kept
+ * in a {@link MessageValueMap} with those kept in a {@link HashMap}.
+ */
+public class MessageValueMapBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testFootprint() throws Exception {
+		for (int valueCount : new int[] {1, 4, 8, 16}) {
+			double hashMapBytes = _getFootprint(HashMap::new, valueCount);
+			double messageValueMapBytes = _getFootprint(
+				MessageValueMap::new, valueCount);
+
+			report(
+				"message-values-footprint",
+				"%d values: HashMap %.0f bytes/msg, MessageValueMap %.0f " +
+					"bytes/msg",
+				valueCount, hashMapBytes, messageValueMapBytes);
+
+			Assert.assertTrue(
+				messageValueMapBytes + " >= " + hashMapBytes,
+				messageValueMapBytes < hashMapBytes);
+		}
+	}
+
+	@Test
+	public void testGetAndPut() {
+		for (int valueCount : new int[] {4, 8, 16}) {
+			double hashMapNanos = _measureGetAndPut(HashMap::new, valueCount);
+			double messageValueMapNanos = _measureGetAndPut(
+				MessageValueMap::new, valueCount);
+
+			report(
+				"message-values-get-put",
+				"%d values: HashMap %.1f ns/op, MessageValueMap %.1f ns/op",
+				valueCount, hashMapNanos, messageValueMapNanos);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes the current thread allocated so far. The
+	 * platform MBean is used to avoid depending on the com.sun.management
+	 * package.
+	 */
+	private long _getAllocatedBytes() throws Exception {
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		Thread currentThread = Thread.currentThread();
+
+		return (long)mBeanServer.invoke(
+			new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME),
+			"getThreadAllocatedBytes", new Object[] {currentThread.getId()},
+			new String[] {long.class.getName()});
+	}
+
+	/**
+	 * Returns the average number of bytes allocated to build a message with
+	 * the given number of values. The messages are kept reachable, so this
+	 * is also their retained size.
+	 */
+	private double _getFootprint(
+			Supplier<Map<String, Object>> supplier, int valueCount)
+		throws Exception {
+
+		MessageImpl[] messages = new MessageImpl[_MESSAGE_COUNT];
+
+		for (int i = 0; i < _WARM_UP_ITERATIONS; i++) {
+			_newMessage(supplier, valueCount);
+		}
+
+		long allocatedBytes = _getAllocatedBytes();
+
+		for (int i = 0; i < messages.length; i++) {
+			messages[i] = _newMessage(supplier, valueCount);
+		}
+
+		allocatedBytes = _getAllocatedBytes() - allocatedBytes;
+
+		for (MessageImpl message : messages) {
+			Assert.assertEquals(valueCount, message.getValues().size());
+		}
+
+		return (double)allocatedBytes / messages.length;
+	}
+
+	private double _measureGetAndPut(
+		Supplier<Map<String, Object>> supplier, int valueCount) {
+
+		MessageImpl message = _newMessage(supplier, valueCount);
+
+		int[] counter = new int[1];
+
+		double nanos = measure(
+			_WARM_UP_ITERATIONS, _ITERATIONS,
+			() -> {
+				int i = counter[0]++ % valueCount;
+
+				message.put(_KEYS[i], _VALUES[(i + 1) % _VALUES.length]);
+
+				if (message.get(_KEYS[(i * 7) % valueCount]) == null) {
+					throw new IllegalStateException();
+				}
+			});
+
+		return nanos / 2;
+	}
+
+	private MessageImpl _newMessage(
+		Supplier<Map<String, Object>> supplier, int valueCount) {
+
+		MessageImpl message = new MessageImpl();
+
+		message.setValues(supplier.get());
+
+		for (int i = 0; i < valueCount; i++) {
+			message.put(_KEYS[i], _VALUES[i]);
+		}
+
+		return message;
+	}
+
+	private static final int _ITERATIONS = 1000000;
+
+	private static final String[] _KEYS = new String[16];
+
+	private static final int _MESSAGE_COUNT = 10000;
+
+	private static final Integer[] _VALUES = new Integer[16];
+
+	private static final int _WARM_UP_ITERATIONS = 100000;
+
+	static {
+		for (int i = 0; i < _KEYS.length; i++) {
+			_KEYS[i] = "key" + i;
+			_VALUES[i] = 1000 + i;
+		}
+	}
+
+}
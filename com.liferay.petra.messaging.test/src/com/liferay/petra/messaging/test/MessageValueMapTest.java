@@ -0,0 +1,334 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.spi.MessageImpl;
+import com.liferay.petra.messaging.spi.MessageValueMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that a message value map behaves like a <code>HashMap</code>, both
+ * while it scans its entries and after it switched to hashing them.
+ */
+public class MessageValueMapTest extends TestUtil {
+
+	@Test
+	public void testCopy() {
+		for (int size : new int[] {0, 3, 8, 9, 20}) {
+			Map<String, Object> hashMap = _createHashMap(size);
+
+			MessageValueMap messageValueMap = new MessageValueMap(hashMap);
+
+			_assertEquals(hashMap, messageValueMap);
+			_assertEquals(hashMap, new MessageValueMap(messageValueMap));
+
+			// A copy does not share its entries with the original
+
+			MessageValueMap copyMessageValueMap = new MessageValueMap(
+				messageValueMap);
+
+			copyMessageValueMap.put("copy", "copy");
+
+			Assert.assertFalse(messageValueMap.containsKey("copy"));
+		}
+	}
+
+	@Test
+	public void testEqualsAndHashCode() {
+		for (int size : new int[] {0, 3, 8, 9, 20}) {
+			Map<String, Object> hashMap = _createHashMap(size);
+			MessageValueMap messageValueMap = new MessageValueMap();
+
+			messageValueMap.putAll(hashMap);
+
+			_assertEquals(hashMap, messageValueMap);
+
+			messageValueMap.put("other", "other");
+
+			Assert.assertNotEquals(hashMap, messageValueMap);
+			Assert.assertNotEquals(messageValueMap, hashMap);
+
+			messageValueMap.remove("other");
+
+			_assertEquals(hashMap, messageValueMap);
+
+			if (size > 0) {
+				messageValueMap.put("key0", "other");
+
+				Assert.assertNotEquals(hashMap, messageValueMap);
+				Assert.assertNotEquals(messageValueMap, hashMap);
+			}
+		}
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		for (int size : new int[] {6, 20}) {
+			Map<String, Object> hashMap = _createHashMap(size);
+			MessageValueMap messageValueMap = new MessageValueMap();
+
+			messageValueMap.putAll(hashMap);
+
+			Set<Map.Entry<String, Object>> entrySet =
+				messageValueMap.entrySet();
+
+			Iterator<Map.Entry<String, Object>> iterator = entrySet.iterator();
+
+			int count = 0;
+
+			while (iterator.hasNext()) {
+				Map.Entry<String, Object> entry = iterator.next();
+
+				if ((count++ % 2) == 0) {
+					hashMap.remove(entry.getKey());
+
+					iterator.remove();
+
+					try {
+						iterator.remove();
+
+						Assert.fail();
+					}
+					catch (IllegalStateException ise) {
+					}
+				}
+				else {
+					entry.setValue("value");
+
+					hashMap.put(entry.getKey(), "value");
+				}
+			}
+
+			Assert.assertEquals(size, count);
+
+			_assertEquals(hashMap, messageValueMap);
+		}
+	}
+
+	@Test
+	public void testLinearScanThreshold() {
+		MessageValueMap messageValueMap = new MessageValueMap();
+		Map<String, Object> hashMap = new HashMap<>();
+
+		for (int i = 0; i < 20; i++) {
+			Assert.assertNull(messageValueMap.put("key" + i, i));
+
+			hashMap.put("key" + i, i);
+
+			_assertEquals(hashMap, messageValueMap);
+		}
+
+		for (int i = 19; i >= 0; i--) {
+			Assert.assertEquals(i, messageValueMap.remove("key" + i));
+
+			hashMap.remove("key" + i);
+
+			_assertEquals(hashMap, messageValueMap);
+		}
+
+		Assert.assertTrue(messageValueMap.isEmpty());
+	}
+
+	@Test
+	public void testNullKey() {
+		for (int size : new int[] {0, 20}) {
+			MessageValueMap messageValueMap = new MessageValueMap();
+
+			messageValueMap.putAll(_createHashMap(size));
+
+			Assert.assertFalse(messageValueMap.containsKey(null));
+			Assert.assertNull(messageValueMap.put(null, "null"));
+			Assert.assertTrue(messageValueMap.containsKey(null));
+			Assert.assertEquals("null", messageValueMap.get(null));
+			Assert.assertEquals(size + 1, messageValueMap.size());
+			Assert.assertEquals("null", messageValueMap.put(null, null));
+			Assert.assertTrue(messageValueMap.containsKey(null));
+			Assert.assertNull(messageValueMap.remove(null));
+			Assert.assertFalse(messageValueMap.containsKey(null));
+			Assert.assertEquals(size, messageValueMap.size());
+		}
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(_SEED);
+
+		for (int i = 0; i < 500; i++) {
+			Map<String, Object> hashMap = new HashMap<>();
+			MessageValueMap messageValueMap = new MessageValueMap();
+
+			int keyCount = 1 + random.nextInt(40);
+
+			for (int j = 0; j < 200; j++) {
+				String key = null;
+
+				if (random.nextInt(20) != 0) {
+					key = "key" + random.nextInt(keyCount);
+				}
+
+				int operation = random.nextInt(10);
+
+				if (operation < 5) {
+					Object value = null;
+
+					if (random.nextInt(10) != 0) {
+						value = random.nextInt();
+					}
+
+					Assert.assertEquals(
+						hashMap.put(key, value),
+						messageValueMap.put(key, value));
+				}
+				else if (operation < 7) {
+					Assert.assertEquals(
+						hashMap.remove(key), messageValueMap.remove(key));
+				}
+				else if (operation < 9) {
+					Assert.assertEquals(
+						hashMap.containsKey(key),
+						messageValueMap.containsKey(key));
+					Assert.assertEquals(
+						hashMap.get(key), messageValueMap.get(key));
+				}
+				else if (random.nextInt(10) == 0) {
+					hashMap.clear();
+					messageValueMap.clear();
+				}
+
+				_assertEquals(hashMap, messageValueMap);
+			}
+		}
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		for (int size : new int[] {3, 20}) {
+			Message message = new MessageImpl();
+
+			message.setPayload("payload");
+
+			for (int i = 0; i < size; i++) {
+				message.put("key" + i, i);
+			}
+
+			MessageImpl messageImpl = (MessageImpl)message;
+
+			Message deserializedMessage = MessageImpl.fromByteArray(
+				messageImpl.toByteArray());
+
+			Assert.assertEquals(message, deserializedMessage);
+			Assert.assertEquals(
+				message.getValues(), deserializedMessage.getValues());
+
+			// The map is serialized as a hash map
+
+			Map<String, Object> values = message.getValues();
+
+			ByteArrayOutputStream byteArrayOutputStream =
+				new ByteArrayOutputStream();
+
+			try (ObjectOutputStream objectOutputStream =
+					new ObjectOutputStream(byteArrayOutputStream)) {
+
+				objectOutputStream.writeObject(values);
+			}
+
+			try (ObjectInputStream objectInputStream = new ObjectInputStream(
+					new ByteArrayInputStream(
+						byteArrayOutputStream.toByteArray()))) {
+
+				Object object = objectInputStream.readObject();
+
+				Assert.assertEquals(HashMap.class, object.getClass());
+				Assert.assertEquals(values, object);
+			}
+		}
+	}
+
+	@Test
+	public void testTombstones() {
+		MessageValueMap messageValueMap = new MessageValueMap();
+		Map<String, Object> hashMap = _createHashMap(20);
+
+		messageValueMap.putAll(hashMap);
+
+		// Removed keys leave markers behind that must neither hide the keys
+		// probed past them nor fill up the table
+
+		for (int i = 0; i < 1000; i++) {
+			String key = "key" + (i % 20);
+
+			Assert.assertEquals(
+				hashMap.remove(key), messageValueMap.remove(key));
+
+			String newKey = "new" + i;
+
+			Assert.assertNull(messageValueMap.put(newKey, i));
+
+			hashMap.put(newKey, i);
+
+			Assert.assertEquals(
+				hashMap.remove(newKey), messageValueMap.remove(newKey));
+			Assert.assertNull(messageValueMap.put(key, i));
+
+			hashMap.put(key, i);
+
+			_assertEquals(hashMap, messageValueMap);
+		}
+	}
+
+	private void _assertEquals(
+		Map<String, Object> hashMap, MessageValueMap messageValueMap) {
+
+		Assert.assertEquals(hashMap.size(), messageValueMap.size());
+		Assert.assertEquals(hashMap, messageValueMap);
+		Assert.assertEquals(messageValueMap, hashMap);
+		Assert.assertEquals(hashMap.hashCode(), messageValueMap.hashCode());
+		Assert.assertEquals(hashMap.keySet(), messageValueMap.keySet());
+
+		for (Map.Entry<String, Object> entry : hashMap.entrySet()) {
+			Assert.assertTrue(
+				Objects.equals(
+					entry.getValue(), messageValueMap.get(entry.getKey())));
+		}
+	}
+
+	private Map<String, Object> _createHashMap(int size) {
+		Map<String, Object> hashMap = new HashMap<>();
+
+		for (int i = 0; i < size; i++) {
+			hashMap.put("key" + i, i);
+		}
+
+		return hashMap;
+	}
+
+	private static final long _SEED = 20170321;
+
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Measures how fast a destination spills messages to disk past its overflow
+ * high water mark and reads them back.
+ */
+public class OverflowBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testSpillAndReload() throws Exception {
+		registerDestinationConfiguration(
+			new DestinationConfiguration(
+				DestinationType.SERIAL, _DESTINATION_NAME),
+			"overflowHighWaterMark", _HIGH_WATER_MARK, "overflowSegmentSize",
+			_SEGMENT_SIZE);
+
+		CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT);
+		AtomicInteger nextIndex = new AtomicInteger();
+		AtomicBoolean ordered = new AtomicBoolean(true);
+
+		registerMessageListener(
+			_DESTINATION_NAME,
+			message -> {
+				try {
+					blockingCountDownLatch.await(60, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ie) {
+					Thread currentThread = Thread.currentThread();
+
+					currentThread.interrupt();
+				}
+
+				if (message.getInteger("index") !=
+						nextIndex.getAndIncrement()) {
+
+					ordered.set(false);
+				}
+
+				countDownLatch.countDown();
+			});
+
+		Runtime runtime = Runtime.getRuntime();
+
+		System.gc();
+
+		long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < _MESSAGE_COUNT; i++) {
+			Message message = new MessageImpl();
+
+			message.put("index", i);
+			message.setPayload(_PAYLOAD);
+
+			messageBus.sendMessage(_DESTINATION_NAME, message);
+		}
+
+		long spillNanos = System.nanoTime() - start;
+
+		System.gc();
+
+		long spilledUsedMemory =
+			runtime.totalMemory() - runtime.freeMemory() - usedMemory;
+
+		Destination destination = messageBus.getDestination(
+			_DESTINATION_NAME);
+
+		DestinationStatistics destinationStatistics =
+			destination.getDestinationStatistics();
+
+		long spilledMessageCount =
+			destinationStatistics.getSpilledMessageCount();
+
+		Assert.assertTrue(
+			String.valueOf(spilledMessageCount),
+			spilledMessageCount >= (_MESSAGE_COUNT - _HIGH_WATER_MARK - 1));
+		Assert.assertTrue(
+			destinationStatistics.getPendingMessageCount() <=
+				_HIGH_WATER_MARK);
+
+		start = System.nanoTime();
+
+		blockingCountDownLatch.countDown();
+
+		Assert.assertTrue(countDownLatch.await(120, TimeUnit.SECONDS));
+
+		long reloadNanos = System.nanoTime() - start;
+
+		Assert.assertTrue(ordered.get());
+
+		report(
+			"overflow",
+			"%d messages: spill %.0f ns/msg, reload and deliver %.0f ns/msg, " +
+				"%d bytes of heap per queued message",
+			_MESSAGE_COUNT, (double)spillNanos / _MESSAGE_COUNT,
+			(double)reloadNanos / _MESSAGE_COUNT,
+			spilledUsedMemory / _MESSAGE_COUNT);
+	}
+
+	private static final String _DESTINATION_NAME = "benchmark/overflow";
+
+	private static final int _HIGH_WATER_MARK = 1000;
+
+	private static final int _MESSAGE_COUNT = 100000;
+
+	private static final String _PAYLOAD = "0123456789abcdef0123456789abcdef";
+
+	private static final int _SEGMENT_SIZE = 4 * 1024 * 1024;
+
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.InboundMessageProcessor;
+import com.liferay.petra.messaging.api.InboundMessageProcessorFactory;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that a destination spilling messages to disk past its overflow high
+ * water mark delivers them all in order, and which messages it keeps on the
+ * heap.
+ */
+public class OverflowTest extends TestUtil {
+
+	@After
+	public void after() {
+		Collections.reverse(_serviceRegistrations);
+
+		for (ServiceRegistration<?> serviceRegistration :
+				_serviceRegistrations) {
+
+			serviceRegistration.unregister();
+		}
+
+		super.after();
+	}
+
+	@Test
+	public void testSpillAndReload() throws Exception {
+		_serviceRegistrations.add(
+			registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.SERIAL, _DESTINATION_NAME),
+				"overflowHighWaterMark", _HIGH_WATER_MARK));
+
+		CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+		List<Object> values = new CopyOnWriteArrayList<>();
+
+		_registerMessageListener(blockingCountDownLatch, values);
+
+		for (int i = 0; i < _MESSAGE_COUNT; i++) {
+			Message message = new MessageImpl();
+
+			message.put("value", i);
+
+			messageBus.sendMessage(_DESTINATION_NAME, message);
+		}
+
+		Destination destination = messageBus.getDestination(
+			_DESTINATION_NAME);
+
+		DestinationStatistics destinationStatistics =
+			destination.getDestinationStatistics();
+
+		long spilledMessageCount =
+			destinationStatistics.getSpilledMessageCount();
+
+		Assert.assertTrue(
+			String.valueOf(spilledMessageCount),
+			spilledMessageCount >= (_MESSAGE_COUNT - _HIGH_WATER_MARK - 1));
+		Assert.assertTrue(
+			destinationStatistics.getPendingMessageCount() <=
+				_HIGH_WATER_MARK);
+
+		blockingCountDownLatch.countDown();
+
+		_awaitValues(values, _MESSAGE_COUNT);
+
+		for (int i = 0; i < _MESSAGE_COUNT; i++) {
+			Assert.assertEquals(i, values.get(i));
+		}
+	}
+
+	@Test
+	public void testTransientValues() throws Exception {
+		_serviceRegistrations.add(
+			registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.SERIAL, _DESTINATION_NAME),
+				"overflowHighWaterMark", 1));
+
+		CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+		List<Object> values = new CopyOnWriteArrayList<>();
+
+		_registerMessageListener(blockingCountDownLatch, values);
+
+		// A value that cannot be serialized keeps its message on the heap,
+		// in its place among the spilled messages
+
+		Object transientValue = new Object();
+
+		for (int i = 0; i < 5; i++) {
+			Message message = new MessageImpl();
+
+			if (i == 3) {
+				message.put("value", transientValue);
+			}
+			else {
+				message.put("value", i);
+			}
+
+			messageBus.sendMessage(_DESTINATION_NAME, message);
+		}
+
+		blockingCountDownLatch.countDown();
+
+		_awaitValues(values, 5);
+
+		Assert.assertEquals(0, values.get(0));
+		Assert.assertEquals(1, values.get(1));
+		Assert.assertEquals(2, values.get(2));
+		Assert.assertSame(transientValue, values.get(3));
+		Assert.assertEquals(4, values.get(4));
+	}
+
+	@Test
+	public void testUnsharedInboundMessageProcessor() throws Exception {
+		_serviceRegistrations.add(
+			registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.SERIAL, _DESTINATION_NAME),
+				"overflowHighWaterMark", 1));
+
+		CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+		List<Object> values = new CopyOnWriteArrayList<>();
+
+		_registerMessageListener(blockingCountDownLatch, values);
+
+		_serviceRegistrations.add(
+			registerService(
+				InboundMessageProcessorFactory.class,
+				TestInboundMessageProcessor::new,
+				"destination.name", _DESTINATION_NAME));
+
+		// A processor that is created per message cannot follow its message
+		// to disk, so the messages stay on the heap
+
+		for (int i = 0; i < 5; i++) {
+			Message message = new MessageImpl();
+
+			message.put("value", i);
+
+			messageBus.sendMessage(_DESTINATION_NAME, message);
+		}
+
+		Destination destination = messageBus.getDestination(
+			_DESTINATION_NAME);
+
+		DestinationStatistics destinationStatistics =
+			destination.getDestinationStatistics();
+
+		Assert.assertEquals(0, destinationStatistics.getSpilledMessageCount());
+
+		blockingCountDownLatch.countDown();
+
+		_awaitValues(values, 5);
+
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals(i, values.get(i));
+		}
+	}
+
+	private void _awaitValues(List<Object> values, int count)
+		throws InterruptedException {
+
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while ((values.size() < count) &&
+			   (System.currentTimeMillis() < deadline)) {
+
+			Thread.sleep(10);
+		}
+
+		Assert.assertEquals(values.toString(), count, values.size());
+	}
+
+	private void _registerMessageListener(
+		CountDownLatch blockingCountDownLatch, List<Object> values) {
+
+		_serviceRegistrations.add(
+			registerService(
+				MessageListener.class,
+				message -> {
+					try {
+						blockingCountDownLatch.await(60, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException ie) {
+						Thread currentThread = Thread.currentThread();
+
+						currentThread.interrupt();
+					}
+
+					values.add(message.get("value"));
+				},
+				"destination.name", _DESTINATION_NAME));
+	}
+
+	private static final String _DESTINATION_NAME = "test/overflow";
+
+	private static final int _HIGH_WATER_MARK = 10;
+
+	private static final int _MESSAGE_COUNT = 1000;
+
+	private final List<ServiceRegistration<?>> _serviceRegistrations =
+		new ArrayList<>();
+
+	private static class TestInboundMessageProcessor
+		implements InboundMessageProcessor {
+
+		@Override
+		public void afterReceive(Message message) {
+		}
+
+		@Override
+		public void afterThread(Message message, Thread dispatchThread) {
+		}
+
+		@Override
+		public Message beforeReceive(Message message) {
+			return message;
+		}
+
+		@Override
+		public Message beforeThread(Message message, Thread dispatchThread) {
+			return message;
+		}
+
+	}
+
+}
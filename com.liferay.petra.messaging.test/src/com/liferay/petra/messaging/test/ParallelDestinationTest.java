@@ -0,0 +1,338 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.FanOutStrategy;
+import com.liferay.petra.messaging.api.InboundMessageProcessor;
+import com.liferay.petra.messaging.api.InboundMessageProcessorFactory;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies how parallel destinations fan messages out to their message
+ * listeners and how they manage their worker threads.
+ */
+public class ParallelDestinationTest extends TestUtil {
+
+	@Test
+	public void testAdaptiveFanOut() throws Exception {
+		long adaptiveProcessorCalls = _countProcessorCalls(
+			FanOutStrategy.ADAPTIVE);
+		long perListenerProcessorCalls = _countProcessorCalls(
+			FanOutStrategy.PER_LISTENER);
+
+		// Cheap message listeners end up sharing tasks
+
+		Assert.assertTrue(
+			adaptiveProcessorCalls + " >= " + perListenerProcessorCalls,
+			adaptiveProcessorCalls < perListenerProcessorCalls);
+	}
+
+	@Test
+	public void testGroupedListenerIsolation() throws Exception {
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.PARALLEL, _DESTINATION_NAME),
+				"fanOutGroupSize", 10, "fanOutStrategy",
+				FanOutStrategy.PER_LISTENER_GROUP.name());
+
+		MessageListener failingMessageListener = message -> {
+			throw new IllegalStateException();
+		};
+
+		// The failing message listener ranks first, so it runs before the
+		// other message listener of its group
+
+		ServiceRegistration<MessageListener>
+			failingMessageListenerRegistration = registerService(
+				MessageListener.class, failingMessageListener,
+				"destination.name", _DESTINATION_NAME, "service.ranking", 10);
+
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT);
+
+		MessageListener messageListener =
+			message -> countDownLatch.countDown();
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, messageListener, "destination.name",
+				_DESTINATION_NAME);
+
+		try {
+			for (int i = 0; i < _MESSAGE_COUNT; i++) {
+				messageBus.sendMessage(_DESTINATION_NAME, new MessageImpl());
+			}
+
+			Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			failingMessageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	@Test
+	public void testLazyWorkers() throws Exception {
+		List<ServiceRegistration<?>> serviceRegistrations = new ArrayList<>();
+
+		try {
+			serviceRegistrations.add(
+				registerService(
+					DestinationConfiguration.class,
+					new DestinationConfiguration(
+						DestinationType.PARALLEL, _LAZY_DESTINATION_NAME),
+					"workerIdleTimeout", 100L, "workerLazy", true));
+
+			Assert.assertEquals(0, _countThreads(_LAZY_DESTINATION_NAME));
+
+			CountDownLatch countDownLatch = new CountDownLatch(1);
+
+			serviceRegistrations.add(
+				registerService(
+					MessageListener.class,
+					message -> countDownLatch.countDown(), "destination.name",
+					_LAZY_DESTINATION_NAME));
+
+			messageBus.sendMessage(_LAZY_DESTINATION_NAME, new MessageImpl());
+
+			Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+
+			// Idle workers time out
+
+			long deadline = System.currentTimeMillis() + 10000;
+
+			while ((_countThreads(_LAZY_DESTINATION_NAME) > 0) &&
+				   (System.currentTimeMillis() < deadline)) {
+
+				Thread.sleep(10);
+			}
+
+			Assert.assertEquals(0, _countThreads(_LAZY_DESTINATION_NAME));
+		}
+		finally {
+			_unregister(serviceRegistrations);
+		}
+	}
+
+	@Test
+	public void testVirtualWorkers() throws Exception {
+		List<ServiceRegistration<?>> serviceRegistrations = new ArrayList<>();
+
+		try {
+			serviceRegistrations.add(
+				registerService(
+					DestinationConfiguration.class,
+					new DestinationConfiguration(
+						DestinationType.PARALLEL, _VIRTUAL_DESTINATION_NAME),
+					"workerMaxSize", _VIRTUAL_CONCURRENCY, "workerVirtual",
+					true));
+
+			CountDownLatch countDownLatch = new CountDownLatch(
+				_VIRTUAL_MESSAGE_COUNT);
+
+			serviceRegistrations.add(
+				registerService(
+					MessageListener.class,
+					message -> {
+						try {
+							Thread.sleep(5);
+						}
+						catch (InterruptedException ie) {
+							Thread currentThread = Thread.currentThread();
+
+							currentThread.interrupt();
+						}
+
+						countDownLatch.countDown();
+					},
+					"destination.name", _VIRTUAL_DESTINATION_NAME));
+
+			for (int i = 0; i < _VIRTUAL_MESSAGE_COUNT; i++) {
+				messageBus.sendMessage(
+					_VIRTUAL_DESTINATION_NAME, new MessageImpl());
+			}
+
+			Assert.assertTrue(countDownLatch.await(60, TimeUnit.SECONDS));
+
+			Destination destination = messageBus.getDestination(
+				_VIRTUAL_DESTINATION_NAME);
+
+			DestinationStatistics destinationStatistics =
+				destination.getDestinationStatistics();
+
+			Assert.assertEquals(
+				_VIRTUAL_CONCURRENCY,
+				destinationStatistics.getMaxThreadPoolSize());
+
+			// More messages are in flight than the thread pool has threads
+
+			DestinationConfiguration destinationConfiguration =
+				new DestinationConfiguration(
+					DestinationType.PARALLEL, _VIRTUAL_DESTINATION_NAME);
+
+			Assert.assertTrue(
+				String.valueOf(destinationStatistics.getLargestThreadCount()),
+				destinationStatistics.getLargestThreadCount() >
+					destinationConfiguration.getWorkersMaxSize());
+		}
+		finally {
+			_unregister(serviceRegistrations);
+		}
+	}
+
+	private long _countProcessorCalls(FanOutStrategy fanOutStrategy)
+		throws Exception {
+
+		List<ServiceRegistration<?>> serviceRegistrations = new ArrayList<>();
+
+		try {
+			serviceRegistrations.add(
+				registerService(
+					DestinationConfiguration.class,
+					new DestinationConfiguration(
+						DestinationType.PARALLEL, _FAN_OUT_DESTINATION_NAME),
+					"fanOutStrategy", fanOutStrategy.name()));
+
+			LongAdder processorCalls = new LongAdder();
+
+			InboundMessageProcessor inboundMessageProcessor =
+				new InboundMessageProcessor() {
+
+					@Override
+					public void afterReceive(Message message) {
+					}
+
+					@Override
+					public void afterThread(
+						Message message, Thread dispatchThread) {
+					}
+
+					@Override
+					public Message beforeReceive(Message message) {
+						return message;
+					}
+
+					@Override
+					public Message beforeThread(
+						Message message, Thread dispatchThread) {
+
+						processorCalls.increment();
+
+						return message;
+					}
+
+				};
+
+			InboundMessageProcessorFactory inboundMessageProcessorFactory =
+				() -> inboundMessageProcessor;
+
+			serviceRegistrations.add(
+				registerService(
+					InboundMessageProcessorFactory.class,
+					inboundMessageProcessorFactory, "destination.name",
+					_FAN_OUT_DESTINATION_NAME,
+					InboundMessageProcessorFactory.SHAREABLE, true));
+
+			CountDownLatch countDownLatch = new CountDownLatch(
+				_FAN_OUT_LISTENER_COUNT * _FAN_OUT_MESSAGE_COUNT);
+
+			for (int i = 0; i < _FAN_OUT_LISTENER_COUNT; i++) {
+				serviceRegistrations.add(
+					registerService(
+						MessageListener.class,
+						message -> countDownLatch.countDown(),
+						"destination.name", _FAN_OUT_DESTINATION_NAME));
+			}
+
+			for (int i = 0; i < _FAN_OUT_MESSAGE_COUNT; i++) {
+				messageBus.sendMessage(
+					_FAN_OUT_DESTINATION_NAME, new MessageImpl());
+			}
+
+			Assert.assertTrue(countDownLatch.await(60, TimeUnit.SECONDS));
+
+			return processorCalls.sum();
+		}
+		finally {
+			_unregister(serviceRegistrations);
+		}
+	}
+
+	private int _countThreads(String destinationName) {
+		int count = 0;
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			String name = thread.getName();
+
+			if (thread.isAlive() && name.startsWith(destinationName)) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private void _unregister(
+		List<ServiceRegistration<?>> serviceRegistrations) {
+
+		Collections.reverse(serviceRegistrations);
+
+		for (ServiceRegistration<?> serviceRegistration :
+				serviceRegistrations) {
+
+			serviceRegistration.unregister();
+		}
+	}
+
+	private static final String _DESTINATION_NAME = "test/parallel";
+
+	private static final String _FAN_OUT_DESTINATION_NAME =
+		"test/parallel_fan_out";
+
+	private static final int _FAN_OUT_LISTENER_COUNT = 50;
+
+	private static final int _FAN_OUT_MESSAGE_COUNT = 1000;
+
+	private static final String _LAZY_DESTINATION_NAME = "test/lazy_parallel";
+
+	private static final int _MESSAGE_COUNT = 10;
+
+	private static final int _VIRTUAL_CONCURRENCY = 200;
+
+	private static final String _VIRTUAL_DESTINATION_NAME =
+		"test/virtual_parallel";
+
+	private static final int _VIRTUAL_MESSAGE_COUNT = 1000;
+
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.ExecutorServiceRegistrar;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+import com.liferay.petra.messaging.spi.PartitionedDestination;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that a partitioned destination keeps the order of messages with
+ * the same partition key value, and that it registers and starts the thread
+ * pools of its partitions like other destinations.
+ */
+public class PartitionedDestinationTest extends TestUtil {
+
+	@Test
+	public void testLazyPartitions() throws Exception {
+		Map<String, ExecutorService> executorServices =
+			new ConcurrentHashMap<>();
+
+		PartitionedDestination partitionedDestination =
+			new PartitionedDestination();
+
+		partitionedDestination.setExecutorServiceRegistrar(
+			new ExecutorServiceRegistrar() {
+
+				@Override
+				public <T extends ExecutorService> T registerExecutorService(
+					String name, T executorService) {
+
+					if (executorService == null) {
+						executorServices.remove(name);
+					}
+					else {
+						executorServices.put(name, executorService);
+					}
+
+					return null;
+				}
+
+			});
+		partitionedDestination.setName(_LAZY_DESTINATION_NAME);
+		partitionedDestination.setPartitionCount(_PARTITION_COUNT);
+		partitionedDestination.setWorkersIdleTimeout(100);
+		partitionedDestination.setWorkersLazy(true);
+
+		partitionedDestination.afterPropertiesSet();
+
+		// A destination that is not open yet has no partition statistics
+
+		DestinationStatistics destinationStatistics =
+			partitionedDestination.getDestinationStatistics();
+
+		Assert.assertTrue(
+			destinationStatistics.getPartitionStatistics().isEmpty());
+
+		partitionedDestination.open();
+
+		try {
+			Assert.assertEquals(
+				executorServices.toString(), _PARTITION_COUNT,
+				executorServices.size());
+			Assert.assertEquals(0, _countThreads(_LAZY_DESTINATION_NAME));
+
+			CountDownLatch countDownLatch = new CountDownLatch(1);
+
+			Map<String, Object> properties = new HashMap<>();
+
+			properties.put("service.id", 1L);
+			properties.put("service.ranking", 0);
+
+			partitionedDestination.addMessageListener(
+				message -> countDownLatch.countDown(), properties);
+
+			partitionedDestination.send(new MessageImpl());
+
+			Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+
+			// Idle workers time out
+
+			long deadline = System.currentTimeMillis() + 10000;
+
+			while ((_countThreads(_LAZY_DESTINATION_NAME) > 0) &&
+				   (System.currentTimeMillis() < deadline)) {
+
+				Thread.sleep(10);
+			}
+
+			Assert.assertEquals(0, _countThreads(_LAZY_DESTINATION_NAME));
+		}
+		finally {
+			partitionedDestination.close();
+		}
+
+		Assert.assertTrue(
+			executorServices.toString(), executorServices.isEmpty());
+	}
+
+	@Test
+	public void testPartitionedDelivery() throws Exception {
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.PARTITIONED, _DESTINATION_NAME),
+				"partitionCount", _PARTITION_COUNT, "partitionKey", "key");
+
+		OrderRecordingMessageListener orderRecordingMessageListener =
+			new OrderRecordingMessageListener(_KEY_COUNT * _MESSAGE_COUNT * 2);
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, orderRecordingMessageListener,
+				"destination.name", _DESTINATION_NAME);
+
+		try {
+			for (int i = 0; i < _MESSAGE_COUNT; i++) {
+				for (int key = 0; key < _KEY_COUNT; key++) {
+					messageBus.sendMessage(
+						_DESTINATION_NAME, _createMessage(key, i));
+				}
+			}
+
+			List<Message> messages = new ArrayList<>();
+
+			for (int i = _MESSAGE_COUNT; i < (_MESSAGE_COUNT * 2); i++) {
+				for (int key = 0; key < _KEY_COUNT; key++) {
+					messages.add(_createMessage(key, i));
+				}
+			}
+
+			messageBus.sendMessages(_DESTINATION_NAME, messages);
+
+			Assert.assertTrue(
+				orderRecordingMessageListener.await(10, TimeUnit.SECONDS));
+
+			for (int key = 0; key < _KEY_COUNT; key++) {
+				List<Integer> sequence =
+					orderRecordingMessageListener.getSequence(key);
+
+				Assert.assertEquals(
+					String.valueOf(sequence), _MESSAGE_COUNT * 2,
+					sequence.size());
+
+				for (int i = 0; i < sequence.size(); i++) {
+					Assert.assertEquals(i, (int)sequence.get(i));
+				}
+
+				Assert.assertEquals(
+					1, orderRecordingMessageListener.getThreads(key).size());
+			}
+
+			Destination destination = messageBus.getDestination(
+				_DESTINATION_NAME);
+
+			DestinationStatistics destinationStatistics =
+				destination.getDestinationStatistics();
+
+			List<DestinationStatistics> partitionStatistics =
+				destinationStatistics.getPartitionStatistics();
+
+			Assert.assertEquals(_PARTITION_COUNT, partitionStatistics.size());
+
+			long sentMessageCount = 0;
+
+			for (DestinationStatistics curPartitionStatistics :
+					partitionStatistics) {
+
+				Assert.assertEquals(
+					1, curPartitionStatistics.getMaxThreadPoolSize());
+
+				sentMessageCount +=
+					curPartitionStatistics.getSentMessageCount();
+			}
+
+			Assert.assertEquals(
+				destinationStatistics.getSentMessageCount(), sentMessageCount);
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	private int _countThreads(String destinationName) {
+		int count = 0;
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			String name = thread.getName();
+
+			if (thread.isAlive() && name.startsWith(destinationName)) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private Message _createMessage(int key, int sequence) {
+		Message message = new MessageImpl();
+
+		message.put("key", key);
+		message.setPayload(sequence);
+
+		return message;
+	}
+
+	private static final String _DESTINATION_NAME = "test/partitioned";
+
+	private static final int _KEY_COUNT = 10;
+
+	private static final String _LAZY_DESTINATION_NAME =
+		"test/lazy_partitioned";
+
+	private static final int _MESSAGE_COUNT = 100;
+
+	private static final int _PARTITION_COUNT = 4;
+
+	private static class OrderRecordingMessageListener
+		implements MessageListener {
+
+		public OrderRecordingMessageListener(int count) {
+			_countDownLatch = new CountDownLatch(count);
+		}
+
+		public boolean await(long timeout, TimeUnit timeUnit)
+			throws InterruptedException {
+
+			return _countDownLatch.await(timeout, timeUnit);
+		}
+
+		public List<Integer> getSequence(int key) {
+			return _sequences.get(key);
+		}
+
+		public Set<Thread> getThreads(int key) {
+			return _threads.get(key);
+		}
+
+		@Override
+		public void receive(Message message) {
+			int key = message.getInteger("key");
+
+			List<Integer> sequence = _sequences.computeIfAbsent(
+				key, k -> new CopyOnWriteArrayList<>());
+
+			sequence.add((Integer)message.getPayload());
+
+			Set<Thread> threads = _threads.computeIfAbsent(
+				key, k -> ConcurrentHashMap.newKeySet());
+
+			threads.add(Thread.currentThread());
+
+			_countDownLatch.countDown();
+		}
+
+		private final CountDownLatch _countDownLatch;
+		private final Map<Integer, List<Integer>> _sequences =
+			new ConcurrentHashMap<>();
+		private final Map<Integer, Set<Thread>> _threads =
+			new ConcurrentHashMap<>();
+
+	}
+
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+import com.liferay.petra.messaging.spi.PoolSizeTuner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Attribute;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.ServiceTracker;
+
+/**
+ * Verifies that the pool size tuner grows the thread pool of an auto-tuned
+ * destination while messages queue up, shrinks it once they are delivered
+ * and reports its decisions through JMX, and that it only keeps a thread
+ * while auto-tuned destinations exist.
+ */
+public class PoolSizeTunerTest extends JMXUtil {
+
+	@Test
+	public void testTunerThread() throws Exception {
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.PARALLEL, _DESTINATION_NAME));
+
+		try {
+
+			// Destinations that are not auto-tuned do not start the tuner
+
+			_awaitTunerThreadCount(0);
+		}
+		finally {
+			destinationConfigurationRegistration.unregister();
+		}
+
+		destinationConfigurationRegistration = registerService(
+			DestinationConfiguration.class,
+			new DestinationConfiguration(
+				DestinationType.PARALLEL, _DESTINATION_NAME),
+			"workerAutoTuned", true);
+
+		try {
+			_awaitTunerThreadCount(1);
+		}
+		finally {
+			destinationConfigurationRegistration.unregister();
+		}
+
+		// The tuner stops with the last auto-tuned destination
+
+		_awaitTunerThreadCount(0);
+	}
+
+	@Test
+	public void testTuning() throws Exception {
+		ServiceTracker<PoolSizeTuner, PoolSizeTuner> serviceTracker =
+			new ServiceTracker<>(bundleContext, PoolSizeTuner.class, null);
+
+		serviceTracker.open();
+
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.PARALLEL, _DESTINATION_NAME),
+				"workerAutoTuned", true, "workerCoreSize", 1, "workerMaxSize",
+				_WORKERS_MAX_SIZE);
+
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT);
+
+		MessageListener messageListener = message -> {
+			try {
+				Thread.sleep(_BLOCKING_MILLIS);
+			}
+			catch (InterruptedException ie) {
+				Thread currentThread = Thread.currentThread();
+
+				currentThread.interrupt();
+			}
+
+			countDownLatch.countDown();
+		};
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, messageListener, "destination.name",
+				_DESTINATION_NAME);
+
+		try {
+			PoolSizeTuner poolSizeTuner = serviceTracker.waitForService(
+				timeout);
+
+			Assert.assertNotNull(poolSizeTuner);
+
+			ObjectName objectName = new ObjectName(
+				"com.liferay.portal.messaging:classification=" +
+					"messaging_destination,name=" +
+						"MessagingDestinationStatistics-" + _DESTINATION_NAME);
+
+			_waitForMBean(objectName);
+
+			mBeanServer.setAttribute(
+				objectName, new Attribute("AutoRefresh", true));
+
+			// The pool starts at the core size
+
+			Assert.assertEquals(
+				1, mBeanServer.getAttribute(objectName, "MaxThreadPoolSize"));
+
+			for (int i = 0; i < _MESSAGE_COUNT; i++) {
+				messageBus.sendMessage(_DESTINATION_NAME, new MessageImpl());
+			}
+
+			Thread.sleep(_SAMPLING_MILLIS);
+
+			poolSizeTuner.tune();
+
+			int maxThreadPoolSize = (int)mBeanServer.getAttribute(
+				objectName, "MaxThreadPoolSize");
+
+			String lastPoolAdjustment = (String)mBeanServer.getAttribute(
+				objectName, "LastPoolAdjustment");
+
+			Assert.assertTrue(lastPoolAdjustment, maxThreadPoolSize > 1);
+			Assert.assertTrue(
+				lastPoolAdjustment, maxThreadPoolSize <= _WORKERS_MAX_SIZE);
+			Assert.assertTrue(
+				lastPoolAdjustment,
+				(long)mBeanServer.getAttribute(
+					objectName, "PoolAdjustmentCount") > 0);
+
+			Assert.assertTrue(countDownLatch.await(60, TimeUnit.SECONDS));
+
+			// Once idle, the pool shrinks back to the core size
+
+			for (int i = 0; i < 10; i++) {
+				Thread.sleep(_SAMPLING_MILLIS);
+
+				poolSizeTuner.tune();
+			}
+
+			lastPoolAdjustment = (String)mBeanServer.getAttribute(
+				objectName, "LastPoolAdjustment");
+
+			Assert.assertEquals(
+				lastPoolAdjustment, 1,
+				mBeanServer.getAttribute(objectName, "MaxThreadPoolSize"));
+			Assert.assertTrue(
+				lastPoolAdjustment, lastPoolAdjustment.startsWith("Kept"));
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+
+			serviceTracker.close();
+		}
+	}
+
+	private void _awaitTunerThreadCount(int count) throws Exception {
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while ((_countTunerThreads() != count) &&
+			   (System.currentTimeMillis() < deadline)) {
+
+			Thread.sleep(10);
+		}
+
+		Assert.assertEquals(count, _countTunerThreads());
+	}
+
+	private int _countTunerThreads() {
+		int count = 0;
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			String name = thread.getName();
+
+			if (thread.isAlive() && name.startsWith("PoolSizeTuner")) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private void _waitForMBean(ObjectName objectName) throws Exception {
+		long deadline = System.currentTimeMillis() + timeout;
+
+		while (!mBeanServer.isRegistered(objectName)) {
+			Assert.assertTrue(
+				objectName.toString(), System.currentTimeMillis() < deadline);
+
+			Thread.sleep(10);
+		}
+	}
+
+	private static final long _BLOCKING_MILLIS = 5;
+
+	private static final String _DESTINATION_NAME = "test/pool_size_tuner";
+
+	private static final int _MESSAGE_COUNT = 1000;
+
+	private static final long _SAMPLING_MILLIS = 100;
+
+	private static final int _WORKERS_MAX_SIZE = 50;
+
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.MessageBuilder;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.api.RejectionPolicy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies the rejection policies applied when a destination's queue is full.
+ */
+public class RejectionPolicyTest extends TestUtil {
+
+	@Test
+	public void testBlock() throws Exception {
+		CountDownLatch blockingCountDownLatch = new CountDownLatch(1);
+
+		Thread thread = new Thread(
+			() -> {
+				try {
+					Thread.sleep(200);
+				}
+				catch (InterruptedException ie) {
+					return;
+				}
+
+				blockingCountDownLatch.countDown();
+			});
+
+		thread.start();
+
+		DestinationStatistics destinationStatistics = _testRejectionPolicy(
+			RejectionPolicy.BLOCK, 10000, blockingCountDownLatch,
+			Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), 0);
+
+		// Once the worker is released, later messages may find room in the
+		// queue without waiting
+
+		long throttledMessageCount =
+			destinationStatistics.getThrottledMessageCount();
+
+		Assert.assertTrue(
+			String.valueOf(throttledMessageCount),
+			(throttledMessageCount > 0) && (throttledMessageCount <= 7));
+	}
+
+	@Test
+	public void testBlockTimeout() throws Exception {
+		DestinationStatistics destinationStatistics = _testRejectionPolicy(
+			RejectionPolicy.BLOCK, 20, new CountDownLatch(1),
+			Arrays.asList(0, 1, 2), 7);
+
+		Assert.assertEquals(
+			0, destinationStatistics.getThrottledMessageCount());
+	}
+
+	@Test
+	public void testCallerRuns() throws Exception {
+		DestinationStatistics destinationStatistics = _testRejectionPolicy(
+			DestinationType.PARALLEL, RejectionPolicy.CALLER_RUNS, 0,
+			new CountDownLatch(1), Arrays.asList(3, 4, 5, 6, 7, 8, 9, 0, 1, 2),
+			0);
+
+		Assert.assertEquals(
+			7, destinationStatistics.getThrottledMessageCount());
+	}
+
+	@Test
+	public void testCallerRunsOrdered() throws Exception {
+
+		// An ordered destination blocks the sending thread instead
+
+		DestinationStatistics destinationStatistics = _testRejectionPolicy(
+			RejectionPolicy.CALLER_RUNS, 20, new CountDownLatch(1),
+			Arrays.asList(0, 1, 2), 7);
+
+		Assert.assertEquals(
+			0, destinationStatistics.getThrottledMessageCount());
+	}
+
+	@Test
+	public void testDropNewest() throws Exception {
+		_testRejectionPolicy(
+			RejectionPolicy.DROP_NEWEST, 0, new CountDownLatch(1),
+			Arrays.asList(0, 1, 2), 7);
+	}
+
+	@Test
+	public void testDropOldest() throws Exception {
+		_testRejectionPolicy(
+			DestinationType.PARALLEL, RejectionPolicy.DROP_OLDEST, 0,
+			new CountDownLatch(1), Arrays.asList(0, 8, 9), 7);
+	}
+
+	@Test
+	public void testDropOldestOrdered() throws Exception {
+
+		// An ordered destination discards the message being sent instead
+
+		_testRejectionPolicy(
+			RejectionPolicy.DROP_OLDEST, 0, new CountDownLatch(1),
+			Arrays.asList(0, 1, 2), 7);
+	}
+
+	private DestinationStatistics _testRejectionPolicy(
+			RejectionPolicy rejectionPolicy, long rejectionTimeout,
+			CountDownLatch blockingCountDownLatch,
+			List<Integer> expectedPayloads, long expectedRejectedMessageCount)
+		throws Exception {
+
+		return _testRejectionPolicy(
+			DestinationType.SERIAL, rejectionPolicy, rejectionTimeout,
+			blockingCountDownLatch, expectedPayloads,
+			expectedRejectedMessageCount);
+	}
+
+	private DestinationStatistics _testRejectionPolicy(
+			DestinationType destinationType, RejectionPolicy rejectionPolicy,
+			long rejectionTimeout, CountDownLatch blockingCountDownLatch,
+			List<Integer> expectedPayloads, long expectedRejectedMessageCount)
+		throws Exception {
+
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					destinationType, _DESTINATION_NAME),
+				"maxQueueSize", _MAXIMUM_QUEUE_SIZE, "rejectionPolicy",
+				rejectionPolicy.name(), "rejectionTimeout", rejectionTimeout,
+				"workerCoreSize", 1, "workerMaxSize", 1);
+
+		List<Object> payloads = new CopyOnWriteArrayList<>();
+
+		MessageListener messageListener = message -> {
+			Object payload = message.getPayload();
+
+			// Only the first message occupies the worker, so that messages
+			// delivered on the sending thread do not block it
+
+			if (Integer.valueOf(0).equals(payload)) {
+				try {
+					blockingCountDownLatch.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ie) {
+					Thread currentThread = Thread.currentThread();
+
+					currentThread.interrupt();
+				}
+			}
+
+			payloads.add(payload);
+		};
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, messageListener, "destination.name",
+				_DESTINATION_NAME);
+
+		try {
+			for (int i = 0; i < _MESSAGE_COUNT; i++) {
+				MessageBuilder messageBuilder = messageBuilderFactory.create(
+					_DESTINATION_NAME);
+
+				messageBuilder.setPayload(i);
+
+				messageBuilder.send();
+
+				if (i == 0) {
+
+					// Let the worker take the first message off the queue
+
+					Thread.sleep(100);
+				}
+			}
+
+			blockingCountDownLatch.countDown();
+
+			long deadline = System.currentTimeMillis() + 10000;
+
+			while ((payloads.size() < expectedPayloads.size()) &&
+				   (System.currentTimeMillis() < deadline)) {
+
+				Thread.sleep(10);
+			}
+
+			Thread.sleep(100);
+
+			Assert.assertEquals(expectedPayloads, payloads);
+
+			Destination destination = messageBus.getDestination(
+				_DESTINATION_NAME);
+
+			DestinationStatistics destinationStatistics =
+				destination.getDestinationStatistics();
+
+			Assert.assertEquals(
+				expectedRejectedMessageCount,
+				destinationStatistics.getRejectedMessageCount());
+
+			return destinationStatistics;
+		}
+		finally {
+			blockingCountDownLatch.countDown();
+
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	private static final String _DESTINATION_NAME = "test/rejection_policy";
+
+	private static final int _MAXIMUM_QUEUE_SIZE = 2;
+
+	private static final int _MESSAGE_COUNT = 10;
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.WaitStrategy;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the delivery latency percentiles of ring buffer destinations, for
+ * each wait strategy, with those of destinations on thread pool executors.
+ */
+public class RingBufferBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testLatency() throws Exception {
+		for (DestinationType destinationType :
+				new DestinationType[] {
+					DestinationType.PARALLEL, DestinationType.SERIAL
+				}) {
+
+			long[] latencies = _deliver(
+				new DestinationConfiguration(
+					destinationType, _DESTINATION_NAME));
+
+			_report(destinationType.getType(), latencies);
+
+			unregisterAll();
+		}
+
+		for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+			long[] latencies = _deliver(
+				new DestinationConfiguration(
+					DestinationType.RING_BUFFER, _DESTINATION_NAME),
+				"waitStrategy", waitStrategy.name());
+
+			_report(
+				DestinationType.RING_BUFFER.getType() + " " +
+					waitStrategy.getStrategy(),
+				latencies);
+
+			unregisterAll();
+		}
+	}
+
+	private long[] _deliver(
+			DestinationConfiguration destinationConfiguration,
+			Object... parts)
+		throws Exception {
+
+		registerDestinationConfiguration(destinationConfiguration, parts);
+
+		AtomicInteger index = new AtomicInteger();
+		long[] latencies = new long[_MESSAGE_COUNT];
+
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT);
+
+		registerMessageListener(
+			_DESTINATION_NAME,
+			message -> {
+				long sent = (Long)message.getPayload();
+
+				latencies[index.getAndIncrement()] = System.nanoTime() - sent;
+
+				countDownLatch.countDown();
+			});
+
+		for (int i = 0; i < _MESSAGE_COUNT; i++) {
+			MessageImpl message = new MessageImpl();
+
+			message.setPayload(System.nanoTime());
+
+			messageBus.sendMessage(_DESTINATION_NAME, message);
+
+			// Pace the messages so that latency, not queueing, is measured
+
+			LockSupport.parkNanos(_PACING_NANOS);
+		}
+
+		Assert.assertTrue(countDownLatch.await(60, TimeUnit.SECONDS));
+
+		Arrays.sort(latencies);
+
+		return latencies;
+	}
+
+	private double _getPercentile(long[] latencies, double percentile) {
+		int index = (int)Math.ceil(percentile / 100 * latencies.length) - 1;
+
+		return latencies[Math.max(index, 0)] / 1000.0;
+	}
+
+	private void _report(String type, long[] latencies) {
+		report(
+			"ring buffer",
+			"%s, %d messages: p50 %.1f us, p99 %.1f us, p99.9 %.1f us", type,
+			latencies.length, _getPercentile(latencies, 50),
+			_getPercentile(latencies, 99), _getPercentile(latencies, 99.9));
+	}
+
+	private static final String _DESTINATION_NAME = "benchmark/ring_buffer";
+
+	private static final int _MESSAGE_COUNT = 10000;
+
+	private static final long _PACING_NANOS = 20000;
+
+}
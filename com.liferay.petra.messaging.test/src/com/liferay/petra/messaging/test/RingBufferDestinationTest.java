@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that a ring buffer destination keeps delivering messages after a
+ * message listener throws an unchecked exception.
+ */
+public class RingBufferDestinationTest extends TestUtil {
+
+	@Test
+	public void testUncheckedException() throws Exception {
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.RING_BUFFER, _DESTINATION_NAME));
+
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT - 1);
+
+		MessageListener messageListener = message -> {
+			if ((int)message.getPayload() == 0) {
+				throw new IllegalStateException();
+			}
+
+			countDownLatch.countDown();
+		};
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, messageListener, "destination.name",
+				_DESTINATION_NAME);
+
+		try {
+			for (int i = 0; i < _MESSAGE_COUNT; i++) {
+				Message message = new MessageImpl();
+
+				message.setPayload(i);
+
+				messageBus.sendMessage(_DESTINATION_NAME, message);
+			}
+
+			Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
+	private static final String _DESTINATION_NAME = "test/ring_buffer";
+
+	private static final int _MESSAGE_COUNT = 10;
+
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.api.MessageListener;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Verifies that destinations on shared workers deliver their messages on the
+ * destination scheduler's threads, in order for serial destinations, keeping
+ * their statistics per destination, and that the scheduler only runs workers
+ * while destinations share them.
+ */
+public class SharedWorkersTest extends TestUtil {
+
+	@Test
+	public void testSharedWorkers() throws Exception {
+		List<ServiceRegistration<?>> serviceRegistrations = new ArrayList<>();
+
+		CountDownLatch countDownLatch = new CountDownLatch(
+			_DESTINATION_COUNT * _MESSAGE_COUNT);
+		AtomicBoolean ordered = new AtomicBoolean(true);
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+		try {
+			for (int i = 0; i < _DESTINATION_COUNT; i++) {
+				String destinationName = _DESTINATION_NAME + i;
+
+				DestinationType destinationType = DestinationType.PARALLEL;
+
+				if ((i % 2) == 0) {
+					destinationType = DestinationType.SERIAL;
+				}
+
+				serviceRegistrations.add(
+					registerService(
+						DestinationConfiguration.class,
+						new DestinationConfiguration(
+							destinationType, destinationName),
+						"workerShared", true));
+
+				boolean serial = destinationType == DestinationType.SERIAL;
+				AtomicInteger nextIndex = new AtomicInteger();
+
+				MessageListener messageListener = message -> {
+					if (serial &&
+						(message.getInteger("index") !=
+							nextIndex.getAndIncrement())) {
+
+						ordered.set(false);
+					}
+
+					Thread currentThread = Thread.currentThread();
+
+					threadNames.add(currentThread.getName());
+
+					countDownLatch.countDown();
+				};
+
+				serviceRegistrations.add(
+					registerService(
+						MessageListener.class, messageListener,
+						"destination.name", destinationName));
+			}
+
+			for (int i = 0; i < _MESSAGE_COUNT; i++) {
+				for (int j = 0; j < _DESTINATION_COUNT; j++) {
+					MessageImpl message = new MessageImpl();
+
+					message.put("index", i);
+
+					messageBus.sendMessage(_DESTINATION_NAME + j, message);
+				}
+			}
+
+			Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+			Assert.assertTrue(ordered.get());
+
+			Runtime runtime = Runtime.getRuntime();
+
+			Assert.assertTrue(
+				threadNames.toString(),
+				threadNames.size() <= runtime.availableProcessors());
+
+			for (String threadName : threadNames) {
+				Assert.assertTrue(
+					threadName,
+					threadName.startsWith("DestinationScheduler"));
+			}
+
+			for (int i = 0; i < _DESTINATION_COUNT; i++) {
+				Destination destination = messageBus.getDestination(
+					_DESTINATION_NAME + i);
+
+				DestinationStatistics destinationStatistics =
+					_getDestinationStatistics(destination);
+
+				Assert.assertEquals(
+					0, destinationStatistics.getActiveThreadCount());
+				Assert.assertEquals(
+					0, destinationStatistics.getPendingMessageCount());
+				Assert.assertEquals(
+					_MESSAGE_COUNT,
+					destinationStatistics.getSentMessageCount());
+			}
+		}
+		finally {
+			for (ServiceRegistration<?> serviceRegistration :
+					serviceRegistrations) {
+
+				serviceRegistration.unregister();
+			}
+		}
+	}
+
+	@Test
+	public void testWorkersStop() throws Exception {
+
+		// No workers run while no destination shares them
+
+		_assertNoSchedulerThreads();
+
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.SERIAL, _DESTINATION_NAME),
+				"workerShared", true);
+
+		CountDownLatch countDownLatch = new CountDownLatch(1);
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class,
+				message -> countDownLatch.countDown(), "destination.name",
+				_DESTINATION_NAME);
+
+		try {
+			messageBus.sendMessage(_DESTINATION_NAME, new MessageImpl());
+
+			Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+			Assert.assertTrue(_countSchedulerThreads() > 0);
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+
+		// The workers stop with the last destination sharing them
+
+		_assertNoSchedulerThreads();
+	}
+
+	private void _assertNoSchedulerThreads() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while ((_countSchedulerThreads() > 0) &&
+			   (System.currentTimeMillis() < deadline)) {
+
+			Thread.sleep(10);
+		}
+
+		Assert.assertEquals(0, _countSchedulerThreads());
+	}
+
+	private int _countSchedulerThreads() {
+		int count = 0;
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			String name = thread.getName();
+
+			if (thread.isAlive() && name.startsWith("DestinationScheduler")) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the statistics of the destination once its workers finished the
+	 * task that counted the last latch down.
+	 */
+	private DestinationStatistics _getDestinationStatistics(
+			Destination destination)
+		throws InterruptedException {
+
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while (true) {
+			DestinationStatistics destinationStatistics =
+				destination.getDestinationStatistics();
+
+			if ((destinationStatistics.getSentMessageCount() ==
+					_MESSAGE_COUNT) ||
+				(System.currentTimeMillis() > deadline)) {
+
+				return destinationStatistics;
+			}
+
+			Thread.sleep(10);
+		}
+	}
+
+	private static final int _DESTINATION_COUNT = 20;
+
+	private static final String _DESTINATION_NAME = "liferay/shared_workers_";
+
+	private static final int _MESSAGE_COUNT = 100;
+
+}
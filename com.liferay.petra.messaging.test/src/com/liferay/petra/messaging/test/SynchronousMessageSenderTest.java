@@ -14,27 +14,106 @@
 
 package com.liferay.petra.messaging.test;
 
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationType;
 import com.liferay.petra.messaging.api.Message;
+import com.liferay.petra.messaging.api.MessageBuilder;
+import com.liferay.petra.messaging.api.MessageBusException;
+import com.liferay.petra.messaging.api.MessageListener;
 import com.liferay.petra.messaging.spi.MessageImpl;
 import com.liferay.petra.messaging.test.tb7.TBParallelDestination;
 import com.liferay.petra.messaging.test.tb8.TBSerialDestination;
 import com.liferay.petra.messaging.test.tb9.TBSynchronousDestination;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import org.osgi.framework.Bundle;
+import org.osgi.framework.ServiceRegistration;
 
 /**
  * @author Raymond Augé
  */
 public class SynchronousMessageSenderTest extends TestUtil {
 
+	@Test
+	public void testNullReply() throws Exception {
+		ServiceRegistration<DestinationConfiguration>
+			destinationConfigurationRegistration = registerService(
+				DestinationConfiguration.class,
+				new DestinationConfiguration(
+					DestinationType.SYNCHRONOUS, _NULL_REPLY_DESTINATION_NAME));
+
+		MessageListener messageListener = message -> {
+			MessageBuilder messageBuilder =
+				messageBuilderFactory.createResponse(message);
+
+			messageBuilder.setPayload(null);
+
+			messageBuilder.send();
+		};
+
+		ServiceRegistration<MessageListener> messageListenerRegistration =
+			registerService(
+				MessageListener.class, messageListener, "destination.name",
+				_NULL_REPLY_DESTINATION_NAME);
+
+		try {
+			messageBus.sendSynchronousMessage(
+				_NULL_REPLY_DESTINATION_NAME, new MessageImpl(), 1000);
+
+			Assert.fail();
+		}
+		catch (MessageBusException mbe) {
+			Assert.assertTrue(
+				mbe.getMessage(),
+				mbe.getMessage().startsWith("No reply received"));
+		}
+		finally {
+			messageListenerRegistration.unregister();
+			destinationConfigurationRegistration.unregister();
+		}
+	}
+
 	@Test
 	public void testParallel() throws Exception {
 		test("tb7.jar", TBParallelDestination.DESTINATION_NAME);
 	}
 
+	@Test
+	public void testRequestTimeout() throws Exception {
+		Bundle tb = install("tb6.jar");
+
+		try {
+			tb.start();
+
+			// The tb6 message listener never replies
+
+			CompletableFuture<Object> completableFuture =
+				messageBus.sendRequest(
+					"configuration/tb6", new MessageImpl(), 100);
+
+			try {
+				completableFuture.get(10, TimeUnit.SECONDS);
+
+				Assert.fail();
+			}
+			catch (ExecutionException ee) {
+				Assert.assertTrue(
+					ee.getCause() instanceof MessageBusException);
+			}
+		}
+		finally {
+			tb.uninstall();
+		}
+	}
+
 	@Test
 	public void testSerial() throws Exception {
 		test("tb8.jar", TBSerialDestination.DESTINATION_NAME);
@@ -59,10 +138,38 @@ public class SynchronousMessageSenderTest extends TestUtil {
 				destinationName, message);
 
 			Assert.assertEquals(message, result);
+
+			// Every reply must reach its own request while many are pending
+
+			List<Message> requestMessages = new ArrayList<>();
+			List<CompletableFuture<Object>> completableFutures =
+				new ArrayList<>();
+
+			for (int i = 0; i < 100; i++) {
+				Message requestMessage = new MessageImpl();
+
+				requestMessages.add(requestMessage);
+
+				completableFutures.add(
+					messageBus.sendRequest(
+						destinationName, requestMessage, 10000));
+			}
+
+			for (int i = 0; i < 100; i++) {
+				CompletableFuture<Object> completableFuture =
+					completableFutures.get(i);
+
+				Assert.assertEquals(
+					requestMessages.get(i),
+					completableFuture.get(10, TimeUnit.SECONDS));
+			}
 		}
 		finally {
 			tb.uninstall();
 		}
 	}
 
+	private static final String _NULL_REPLY_DESTINATION_NAME =
+		"test/null_reply";
+
 }
\ No newline at end of file
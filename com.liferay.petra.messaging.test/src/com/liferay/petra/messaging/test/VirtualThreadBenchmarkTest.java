@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+package com.liferay.petra.messaging.test;
+
+import com.liferay.petra.messaging.api.Destination;
+import com.liferay.petra.messaging.api.DestinationConfiguration;
+import com.liferay.petra.messaging.api.DestinationStatistics;
+import com.liferay.petra.messaging.api.DestinationType;
+import com.liferay.petra.messaging.spi.MessageImpl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the throughput of a parallel destination on its thread pool with
+ * one on virtual threads, for message listeners that block as if on I/O.
+ */
+public class VirtualThreadBenchmarkTest extends BenchmarkUtil {
+
+	@Test
+	public void testBlockingMessageListeners() throws Exception {
+		long threadPoolNanos = _deliver(false);
+
+		unregisterAll();
+
+		long virtualThreadNanos = _deliver(true);
+
+		Destination destination = messageBus.getDestination(
+			_DESTINATION_NAME);
+
+		DestinationStatistics destinationStatistics =
+			destination.getDestinationStatistics();
+
+		report(
+			"virtual threads",
+			"%d messages blocking %d ms: thread pool %.0f msgs/s, virtual " +
+				"threads %.0f msgs/s, %d in flight at most",
+			_MESSAGE_COUNT, _BLOCKING_MILLIS,
+			_MESSAGE_COUNT * 1e9 / threadPoolNanos,
+			_MESSAGE_COUNT * 1e9 / virtualThreadNanos,
+			destinationStatistics.getLargestThreadCount());
+	}
+
+	private long _deliver(boolean workersVirtual) throws Exception {
+		DestinationConfiguration destinationConfiguration =
+			new DestinationConfiguration(
+				DestinationType.PARALLEL, _DESTINATION_NAME);
+
+		if (workersVirtual) {
+			registerDestinationConfiguration(
+				destinationConfiguration, "workerMaxSize", _CONCURRENCY,
+				"workerVirtual", true);
+		}
+		else {
+			registerDestinationConfiguration(destinationConfiguration);
+		}
+
+		CountDownLatch countDownLatch = new CountDownLatch(_MESSAGE_COUNT);
+
+		registerMessageListener(
+			_DESTINATION_NAME,
+			message -> {
+				try {
+					Thread.sleep(_BLOCKING_MILLIS);
+				}
+				catch (InterruptedException ie) {
+					Thread currentThread = Thread.currentThread();
+
+					currentThread.interrupt();
+				}
+
+				countDownLatch.countDown();
+			});
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < _MESSAGE_COUNT; i++) {
+			messageBus.sendMessage(_DESTINATION_NAME, new MessageImpl());
+		}
+
+		Assert.assertTrue(countDownLatch.await(60, TimeUnit.SECONDS));
+
+		return System.nanoTime() - start;
+	}
+
+	private static final long _BLOCKING_MILLIS = 5;
+
+	private static final int _CONCURRENCY = 200;
+
+	private static final String _DESTINATION_NAME = "benchmark/virtual";
+
+	private static final int _MESSAGE_COUNT = 1000;
+
+}